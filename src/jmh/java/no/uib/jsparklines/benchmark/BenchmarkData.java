@@ -0,0 +1,178 @@
+package no.uib.jsparklines.benchmark;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Random;
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.data.JSparklines3dDataSeries;
+import no.uib.jsparklines.data.JSparklines3dDataset;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.data.StartIndexes;
+import no.uib.jsparklines.data.XYZDataPoint;
+import no.uib.jsparklines.renderers.util.Util;
+
+/**
+ * Creates the data used by the renderer benchmarks. Uses a fixed seed so that
+ * all the runs use the same data.
+ *
+ * @author Harald Barsnes
+ */
+public class BenchmarkData {
+
+    /**
+     * The number of different values rendered in turn by each benchmark.
+     */
+    public static final int NUMBER_OF_VALUES = 64;
+    /**
+     * The maximum value of the generated data.
+     */
+    public static final double MAX_VALUE = 100.0;
+    /**
+     * The colors used for the data series.
+     */
+    private static final Color[] SERIES_COLORS = {
+        new Color(110, 196, 97), new Color(255, 51, 51), new Color(51, 51, 255)};
+
+    /**
+     * Empty default constructor.
+     */
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns a new random number generator with a fixed seed.
+     *
+     * @return a new random number generator
+     */
+    public static Random createRandom() {
+        return new Random(20111024);
+    }
+
+    /**
+     * Returns the table passed to the renderers.
+     *
+     * @return the table passed to the renderers
+     */
+    public static JTable createTable() {
+        return new JTable(NUMBER_OF_VALUES, 1);
+    }
+
+    /**
+     * Creates a sparklines dataset.
+     *
+     * @param random the random number generator
+     * @param numberOfSeries the number of data series
+     * @param numberOfPoints the number of values per data series
+     * @return the dataset
+     */
+    public static JSparklinesDataset createDataset(Random random, int numberOfSeries, int numberOfPoints) {
+
+        ArrayList<JSparklinesDataSeries> allSeries = new ArrayList<>();
+
+        for (int i = 0; i < numberOfSeries; i++) {
+            allSeries.add(createDataSeries(random, numberOfPoints, SERIES_COLORS[i % SERIES_COLORS.length], "Series " + i));
+        }
+
+        return new JSparklinesDataset(allSeries);
+    }
+
+    /**
+     * Creates a sparklines data series with values between zero and the max
+     * value.
+     *
+     * @param random the random number generator
+     * @param numberOfPoints the number of values
+     * @param color the series color
+     * @param label the series label
+     * @return the data series
+     */
+    public static JSparklinesDataSeries createDataSeries(Random random, int numberOfPoints, Color color, String label) {
+
+        ArrayList<Double> values = new ArrayList<>(numberOfPoints);
+
+        for (int i = 0; i < numberOfPoints; i++) {
+            values.add(random.nextDouble() * MAX_VALUE);
+        }
+
+        return new JSparklinesDataSeries(values, color, label);
+    }
+
+    /**
+     * Creates a 3D dataset with one data series.
+     *
+     * @param random the random number generator
+     * @param numberOfPoints the number of points
+     * @return the dataset
+     */
+    public static JSparklines3dDataset create3dDataset(Random random, int numberOfPoints) {
+
+        ArrayList<XYZDataPoint> points = new ArrayList<>(numberOfPoints);
+
+        for (int i = 0; i < numberOfPoints; i++) {
+            points.add(new XYZDataPoint(random.nextDouble() * MAX_VALUE, random.nextDouble() * MAX_VALUE, random.nextDouble() * 10));
+        }
+
+        ArrayList<JSparklines3dDataSeries> allSeries = new ArrayList<>();
+        allSeries.add(new JSparklines3dDataSeries(points, SERIES_COLORS[0], "Series 0"));
+
+        return new JSparklines3dDataset(allSeries);
+    }
+
+    /**
+     * Creates sorted start indexes between zero and the max value.
+     *
+     * @param random the random number generator
+     * @param numberOfIndexes the number of indexes
+     * @return the start indexes
+     */
+    public static StartIndexes createStartIndexes(Random random, int numberOfIndexes) {
+
+        int[] indexes = new int[numberOfIndexes];
+        int index = 0;
+
+        for (int i = 0; i < numberOfIndexes; i++) {
+            index += 1 + random.nextInt(5);
+            indexes[i] = index;
+        }
+
+        return new StartIndexes(indexes);
+    }
+
+    /**
+     * Returns a list of colors, cycling through the series colors.
+     *
+     * @param numberOfColors the number of colors
+     * @return the list of colors
+     */
+    public static ArrayList<Color> createColors(int numberOfColors) {
+
+        ArrayList<Color> colors = new ArrayList<>(numberOfColors);
+
+        for (int i = 0; i < numberOfColors; i++) {
+            colors.add(SERIES_COLORS[i % SERIES_COLORS.length]);
+        }
+
+        return colors;
+    }
+
+    /**
+     * Gets the renderer component for the given value and paints it into the
+     * given image, as done when painting a table cell.
+     *
+     * @param renderer the renderer
+     * @param table the table
+     * @param value the value to render
+     * @param row the row index
+     * @param image the image to paint into
+     * @return the image
+     */
+    public static BufferedImage renderAndPaint(TableCellRenderer renderer, JTable table, Object value, int row, BufferedImage image) {
+        Component component = renderer.getTableCellRendererComponent(table, value, false, false, row, 0);
+        Util.paintToImage(component, image);
+        return image;
+    }
+}
@@ -0,0 +1,163 @@
+package no.uib.jsparklines.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import no.uib.jsparklines.data.ArrrayListDataPoints;
+import no.uib.jsparklines.data.JSparklinesDataCodec;
+import no.uib.jsparklines.data.StartIndexes;
+import no.uib.jsparklines.data.XYDataPoint;
+import no.uib.jsparklines.renderers.JSparklinesArrayListBarChartTableCellRenderer.ValueDisplayType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks writing and reading columns of data objects with the
+ * JSparklinesDataCodec against default Java serialization. The sizes of the
+ * encoded columns are compared in the JSparklinesDataCodecTest.
+ *
+ * @author Harald Barsnes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1)
+public class DataCodecBenchmark {
+
+    /**
+     * The type of data objects in the column.
+     */
+    @Param({"xyDataPoint", "startIndexes", "arrayListDataPoints"})
+    public String type;
+    /**
+     * The number of rows in the column.
+     */
+    @Param({"100000"})
+    public int numberOfRows;
+    /**
+     * The class of the data objects.
+     */
+    private Class<Object> columnType;
+    /**
+     * The column to write.
+     */
+    private ArrayList<Object> column;
+    /**
+     * The column encoded with the codec.
+     */
+    private byte[] codecBytes;
+    /**
+     * The column encoded with Java serialization.
+     */
+    private byte[] serializedBytes;
+
+    /**
+     * Creates the column and encodes it once with each method.
+     *
+     * @throws IOException if the column cannot be encoded
+     */
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+
+        Random random = BenchmarkData.createRandom();
+        column = new ArrayList<>(numberOfRows);
+
+        for (int i = 0; i < numberOfRows; i++) {
+            if (type.equals("xyDataPoint")) {
+                column.add(new XYDataPoint(random.nextDouble(), random.nextDouble()));
+            } else if (type.equals("startIndexes")) {
+                ArrayList<Integer> indexes = new ArrayList<>();
+                for (int j = 0; j < 10; j++) {
+                    indexes.add(random.nextInt(1000));
+                }
+                column.add(new StartIndexes(indexes));
+            } else if (type.equals("arrayListDataPoints")) {
+                ArrayList<Double> data = new ArrayList<>();
+                for (int j = 0; j < 10; j++) {
+                    data.add(random.nextDouble());
+                }
+                column.add(new ArrrayListDataPoints(data, ValueDisplayType.sumOfNumbers));
+            } else {
+                throw new IllegalArgumentException("Unknown type: " + type + ".");
+            }
+        }
+
+        columnType = (Class<Object>) column.get(0).getClass();
+        codecBytes = writeCodec();
+        serializedBytes = writeSerialized();
+    }
+
+    /**
+     * Writes the column with the codec.
+     *
+     * @return the encoded column
+     * @throws IOException if the column cannot be written
+     */
+    @Benchmark
+    public byte[] writeCodec() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (JSparklinesDataCodec.Writer writer = new JSparklinesDataCodec.Writer(outputStream)) {
+            writer.writeColumn(columnType, column);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Writes the column with Java serialization.
+     *
+     * @return the encoded column
+     * @throws IOException if the column cannot be written
+     */
+    @Benchmark
+    public byte[] writeSerialized() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+            objectOutputStream.writeObject(column);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Reads the column with the codec.
+     *
+     * @return the column
+     * @throws IOException if the column cannot be read
+     */
+    @Benchmark
+    public ArrayList<Object> readCodec() throws IOException {
+        try (JSparklinesDataCodec.Reader reader = new JSparklinesDataCodec.Reader(new ByteArrayInputStream(codecBytes))) {
+            return reader.readColumn(columnType);
+        }
+    }
+
+    /**
+     * Reads the column with Java serialization.
+     *
+     * @return the column
+     * @throws IOException if the column cannot be read
+     * @throws ClassNotFoundException if a class cannot be found
+     */
+    @Benchmark
+    public Object readSerialized() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(serializedBytes))) {
+            return objectInputStream.readObject();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package no.uib.jsparklines.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTable;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.renderers.JSparklinesTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesTableCellRenderer.PlotType;
+import org.jfree.chart.plot.PlotOrientation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks getTableCellRendererComponent followed by painting the cell for
+ * all the plot types of the JSparklinesTableCellRenderer.
+ *
+ * @author Harald Barsnes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class JSparklinesTableCellRendererBenchmark {
+
+    /**
+     * The plot type.
+     */
+    @Param({"barChart", "lineChart", "pieChart", "stackedBarChart", "stackedPercentBarChart", "areaChart",
+        "boxPlot", "upDownChart", "proteinSequence", "difference", "stackedBarChartIntegerWithUpperRange"})
+    public String plotType;
+    /**
+     * The number of values per data series.
+     */
+    @Param({"1", "10", "100", "1000"})
+    public int numberOfPoints;
+    /**
+     * If true, the charts are reused across the cells.
+     */
+    @Param({"false", "true"})
+    public boolean reuseCharts;
+    /**
+     * The width of the cell.
+     */
+    @Param({"150"})
+    public int cellWidth;
+    /**
+     * The height of the cell.
+     */
+    @Param({"20"})
+    public int cellHeight;
+    /**
+     * The renderer.
+     */
+    private JSparklinesTableCellRenderer renderer;
+    /**
+     * The table passed to the renderer.
+     */
+    private JTable table;
+    /**
+     * The values rendered in turn.
+     */
+    private JSparklinesDataset[] values;
+    /**
+     * The image the cells are painted into.
+     */
+    private BufferedImage image;
+    /**
+     * The index of the next value to render.
+     */
+    private int index = 0;
+
+    /**
+     * Sets up the renderer and the data.
+     */
+    @Setup
+    public void setUp() {
+
+        PlotType type = PlotType.valueOf(plotType);
+        renderer = new JSparklinesTableCellRenderer(type, PlotOrientation.VERTICAL, 0.0, BenchmarkData.MAX_VALUE);
+        renderer.setReuseCharts(reuseCharts);
+        table = BenchmarkData.createTable();
+        image = new BufferedImage(cellWidth, cellHeight, BufferedImage.TYPE_INT_ARGB);
+
+        // the difference charts only use the first data series
+        int numberOfSeries = type == PlotType.difference ? 1 : 3;
+
+        Random random = BenchmarkData.createRandom();
+        values = new JSparklinesDataset[BenchmarkData.NUMBER_OF_VALUES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = BenchmarkData.createDataset(random, numberOfSeries, numberOfPoints);
+        }
+    }
+
+    /**
+     * Gets the renderer component and paints it.
+     *
+     * @return the painted image
+     */
+    @Benchmark
+    public BufferedImage renderAndPaint() {
+        int row = index++ % values.length;
+        return BenchmarkData.renderAndPaint(renderer, table, values[row], row, image);
+    }
+}
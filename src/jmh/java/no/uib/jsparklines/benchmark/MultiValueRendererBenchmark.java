@@ -0,0 +1,156 @@
+package no.uib.jsparklines.benchmark;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.data.ArrrayListDataPoints;
+import no.uib.jsparklines.data.StartIndexes;
+import no.uib.jsparklines.renderers.JSparklines3dTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesArrayListBarChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesArrayListBarChartTableCellRenderer.ValueDisplayType;
+import no.uib.jsparklines.renderers.JSparklinesHeatMapTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesMultiIntervalChartTableCellRenderer;
+import no.uib.jsparklines.renderers.util.DensityGrid;
+import no.uib.jsparklines.renderers.util.GradientColorCoding.ColorGradient;
+import org.jfree.chart.plot.PlotOrientation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks getTableCellRendererComponent followed by painting the cell for
+ * the renderers displaying several values per cell, other than the
+ * JSparklinesTableCellRenderer.
+ *
+ * @author Harald Barsnes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MultiValueRendererBenchmark {
+
+    /**
+     * The renderer to benchmark.
+     */
+    @Param({"heatMap", "heatMapDirect", "scatterPlot", "scatterPlotDensity", "bubblePlot", "arrayListBarChart", "multiIntervalChart"})
+    public String renderer;
+    /**
+     * The number of values per cell.
+     */
+    @Param({"1", "10", "100", "1000"})
+    public int numberOfPoints;
+    /**
+     * The width of the cell.
+     */
+    @Param({"150"})
+    public int cellWidth;
+    /**
+     * The height of the cell.
+     */
+    @Param({"20"})
+    public int cellHeight;
+    /**
+     * The table cell renderer.
+     */
+    private TableCellRenderer tableCellRenderer;
+    /**
+     * The table passed to the renderer.
+     */
+    private JTable table;
+    /**
+     * The values rendered in turn.
+     */
+    private Object[] values;
+    /**
+     * The image the cells are painted into.
+     */
+    private BufferedImage image;
+    /**
+     * The index of the next value to render.
+     */
+    private int index = 0;
+
+    /**
+     * Sets up the renderer and the data.
+     */
+    @Setup
+    public void setUp() {
+
+        table = BenchmarkData.createTable();
+        image = new BufferedImage(cellWidth, cellHeight, BufferedImage.TYPE_INT_ARGB);
+
+        Random random = BenchmarkData.createRandom();
+        values = new Object[BenchmarkData.NUMBER_OF_VALUES];
+
+        for (int i = 0; i < values.length; i++) {
+
+            if (renderer.equals("heatMap") || renderer.equals("heatMapDirect")) {
+                values[i] = BenchmarkData.createDataSeries(random, numberOfPoints, Color.RED, "Series");
+            } else if (renderer.equals("scatterPlot") || renderer.equals("scatterPlotDensity") || renderer.equals("bubblePlot")) {
+                values[i] = BenchmarkData.create3dDataset(random, numberOfPoints);
+            } else if (renderer.equals("arrayListBarChart")) {
+                ArrayList<Double> data = new ArrayList<>(numberOfPoints);
+                for (int j = 0; j < numberOfPoints; j++) {
+                    data.add(random.nextDouble() * BenchmarkData.MAX_VALUE / numberOfPoints);
+                }
+                values[i] = new ArrrayListDataPoints(data, ValueDisplayType.sumOfNumbers);
+            } else if (renderer.equals("multiIntervalChart")) {
+                values[i] = BenchmarkData.createStartIndexes(random, numberOfPoints);
+            } else {
+                throw new IllegalArgumentException("Unknown renderer: " + renderer + ".");
+            }
+        }
+
+        if (renderer.equals("heatMap")) {
+            tableCellRenderer = new JSparklinesHeatMapTableCellRenderer(ColorGradient.RedBlackGreen, BenchmarkData.MAX_VALUE);
+        } else if (renderer.equals("heatMapDirect")) {
+            JSparklinesHeatMapTableCellRenderer heatMapRenderer = new JSparklinesHeatMapTableCellRenderer(ColorGradient.RedBlackGreen, BenchmarkData.MAX_VALUE);
+            heatMapRenderer.setDirectRendering(true);
+            tableCellRenderer = heatMapRenderer;
+        } else if (renderer.equals("scatterPlot")) {
+            tableCellRenderer = new JSparklines3dTableCellRenderer(JSparklines3dTableCellRenderer.PlotType.scatterPlot,
+                    0.0, BenchmarkData.MAX_VALUE, 0.0, BenchmarkData.MAX_VALUE);
+        } else if (renderer.equals("scatterPlotDensity")) {
+            JSparklines3dTableCellRenderer scatterPlotRenderer = new JSparklines3dTableCellRenderer(JSparklines3dTableCellRenderer.PlotType.scatterPlot,
+                    0.0, BenchmarkData.MAX_VALUE, 0.0, BenchmarkData.MAX_VALUE);
+            scatterPlotRenderer.setDensityAggregation(DensityGrid.Aggregation.count);
+            tableCellRenderer = scatterPlotRenderer;
+        } else if (renderer.equals("bubblePlot")) {
+            tableCellRenderer = new JSparklines3dTableCellRenderer(JSparklines3dTableCellRenderer.PlotType.bubblePlot,
+                    0.0, BenchmarkData.MAX_VALUE, 0.0, BenchmarkData.MAX_VALUE);
+        } else if (renderer.equals("arrayListBarChart")) {
+            tableCellRenderer = new JSparklinesArrayListBarChartTableCellRenderer(PlotOrientation.HORIZONTAL,
+                    BenchmarkData.MAX_VALUE, BenchmarkData.createColors(numberOfPoints), ValueDisplayType.sumOfNumbers);
+        } else {
+            int maxIndex = ((StartIndexes) values[0]).getIndex(numberOfPoints - 1);
+            tableCellRenderer = new JSparklinesMultiIntervalChartTableCellRenderer(PlotOrientation.HORIZONTAL,
+                    maxIndex * 1.5, 1.0, Color.RED);
+        }
+    }
+
+    /**
+     * Gets the renderer component and paints it.
+     *
+     * @return the painted image
+     */
+    @Benchmark
+    public BufferedImage renderAndPaint() {
+        int row = index++ % values.length;
+        return BenchmarkData.renderAndPaint(tableCellRenderer, table, values[row], row, image);
+    }
+}
@@ -0,0 +1,194 @@
+package no.uib.jsparklines.benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.ImageIcon;
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.data.JSparklinesMultiLabel;
+import no.uib.jsparklines.data.JSparklinesMultiLabelDataset;
+import no.uib.jsparklines.data.XYDataPoint;
+import no.uib.jsparklines.renderers.JSparklinesBarChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesBubbleHeatMapTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesColorTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesErrorBarChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesIntegerColorTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesIntegerIconTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesIntervalChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesMultiLabelTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesTwoValueBarChartTableCellRenderer;
+import no.uib.jsparklines.renderers.util.GradientColorCoding.ColorGradient;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.statistics.DefaultStatisticalCategoryDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks getTableCellRendererComponent followed by painting the cell for
+ * the renderers displaying a single value per cell.
+ *
+ * @author Harald Barsnes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SingleValueRendererBenchmark {
+
+    /**
+     * The renderer to benchmark.
+     */
+    @Param({"barChart", "barChartDirect", "bubbleHeatMap", "color", "errorBarChart", "integerColor",
+        "integerIcon", "intervalChart", "multiLabel", "multiLabelGlyphs", "twoValueBarChart"})
+    public String renderer;
+    /**
+     * The width of the cell.
+     */
+    @Param({"150"})
+    public int cellWidth;
+    /**
+     * The height of the cell.
+     */
+    @Param({"20"})
+    public int cellHeight;
+    /**
+     * The table cell renderer.
+     */
+    private TableCellRenderer tableCellRenderer;
+    /**
+     * The table passed to the renderer.
+     */
+    private JTable table;
+    /**
+     * The values rendered in turn.
+     */
+    private Object[] values;
+    /**
+     * The image the cells are painted into.
+     */
+    private BufferedImage image;
+    /**
+     * The index of the next value to render.
+     */
+    private int index = 0;
+
+    /**
+     * Sets up the renderer and the data.
+     */
+    @Setup
+    public void setUp() {
+
+        table = BenchmarkData.createTable();
+        image = new BufferedImage(cellWidth, cellHeight, BufferedImage.TYPE_INT_ARGB);
+
+        Random random = BenchmarkData.createRandom();
+        Color[] colors = {Color.RED, Color.GREEN, Color.BLUE, Color.ORANGE};
+        values = new Object[BenchmarkData.NUMBER_OF_VALUES];
+
+        for (int i = 0; i < values.length; i++) {
+
+            double value = random.nextDouble() * BenchmarkData.MAX_VALUE;
+
+            if (renderer.equals("barChart") || renderer.equals("barChartDirect") || renderer.equals("intervalChart")) {
+                values[i] = value;
+            } else if (renderer.equals("bubbleHeatMap")) {
+                values[i] = value * 2 - BenchmarkData.MAX_VALUE;
+            } else if (renderer.equals("color")) {
+                values[i] = colors[i % colors.length];
+            } else if (renderer.equals("errorBarChart")) {
+                DefaultStatisticalCategoryDataset dataset = new DefaultStatisticalCategoryDataset();
+                dataset.add(value, random.nextDouble() * 10, "1", "1");
+                values[i] = dataset;
+            } else if (renderer.equals("integerColor") || renderer.equals("integerIcon")) {
+                values[i] = i % colors.length;
+            } else if (renderer.equals("multiLabel") || renderer.equals("multiLabelGlyphs")) {
+                values[i] = new JSparklinesMultiLabelDataset(
+                        new JSparklinesMultiLabel("A", colors[i % colors.length]),
+                        new JSparklinesMultiLabel("B", colors[(i + 1) % colors.length]),
+                        new JSparklinesMultiLabel("C", colors[(i + 2) % colors.length]));
+            } else if (renderer.equals("twoValueBarChart")) {
+                values[i] = new XYDataPoint(value / 2, random.nextDouble() * BenchmarkData.MAX_VALUE / 2);
+            } else {
+                throw new IllegalArgumentException("Unknown renderer: " + renderer + ".");
+            }
+        }
+
+        if (renderer.equals("barChart")) {
+            tableCellRenderer = new JSparklinesBarChartTableCellRenderer(PlotOrientation.HORIZONTAL, BenchmarkData.MAX_VALUE, true);
+        } else if (renderer.equals("barChartDirect")) {
+            JSparklinesBarChartTableCellRenderer barChartRenderer = new JSparklinesBarChartTableCellRenderer(PlotOrientation.HORIZONTAL, BenchmarkData.MAX_VALUE, true);
+            barChartRenderer.setDirectRendering(true);
+            tableCellRenderer = barChartRenderer;
+        } else if (renderer.equals("bubbleHeatMap")) {
+            tableCellRenderer = new JSparklinesBubbleHeatMapTableCellRenderer(BenchmarkData.MAX_VALUE, ColorGradient.RedBlackGreen, false);
+        } else if (renderer.equals("color")) {
+            tableCellRenderer = new JSparklinesColorTableCellRenderer();
+        } else if (renderer.equals("errorBarChart")) {
+            tableCellRenderer = new JSparklinesErrorBarChartTableCellRenderer(PlotOrientation.HORIZONTAL, BenchmarkData.MAX_VALUE, true);
+        } else if (renderer.equals("integerColor")) {
+            HashMap<Integer, Color> colorMap = new HashMap<>();
+            for (int i = 0; i < colors.length; i++) {
+                colorMap.put(i, colors[i]);
+            }
+            tableCellRenderer = new JSparklinesIntegerColorTableCellRenderer(Color.GRAY, colorMap);
+        } else if (renderer.equals("integerIcon")) {
+            HashMap<Integer, ImageIcon> icons = new HashMap<>();
+            for (int i = 0; i < colors.length; i++) {
+                icons.put(i, createIcon(colors[i]));
+            }
+            tableCellRenderer = new JSparklinesIntegerIconTableCellRenderer(icons);
+        } else if (renderer.equals("intervalChart")) {
+            tableCellRenderer = new JSparklinesIntervalChartTableCellRenderer(PlotOrientation.HORIZONTAL, BenchmarkData.MAX_VALUE, 2.0);
+        } else if (renderer.equals("multiLabel")) {
+            tableCellRenderer = new JSparklinesMultiLabelTableCellRenderer();
+        } else if (renderer.equals("multiLabelGlyphs")) {
+            JSparklinesMultiLabelTableCellRenderer multiLabelRenderer = new JSparklinesMultiLabelTableCellRenderer();
+            multiLabelRenderer.setGlyphCaching(true);
+            tableCellRenderer = multiLabelRenderer;
+        } else {
+            tableCellRenderer = new JSparklinesTwoValueBarChartTableCellRenderer(PlotOrientation.HORIZONTAL, BenchmarkData.MAX_VALUE,
+                    Color.RED, Color.BLUE, false);
+        }
+    }
+
+    /**
+     * Creates a small icon filled with the given color.
+     *
+     * @param color the color
+     * @return the icon
+     */
+    private static ImageIcon createIcon(Color color) {
+        BufferedImage iconImage = new BufferedImage(12, 12, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = iconImage.createGraphics();
+        g2.setColor(color);
+        g2.fillOval(0, 0, 12, 12);
+        g2.dispose();
+        return new ImageIcon(iconImage);
+    }
+
+    /**
+     * Gets the renderer component and paints it.
+     *
+     * @return the painted image
+     */
+    @Benchmark
+    public BufferedImage renderAndPaint() {
+        int row = index++ % values.length;
+        return BenchmarkData.renderAndPaint(tableCellRenderer, table, values[row], row, image);
+    }
+}
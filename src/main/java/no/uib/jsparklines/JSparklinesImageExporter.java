@@ -0,0 +1,278 @@
+package no.uib.jsparklines;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.imageio.ImageIO;
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.renderers.util.CacheableTableCellRenderer;
+import no.uib.jsparklines.renderers.util.Util;
+
+/**
+ * Renders sparklines to images without a visible table, e.g., for use in HTML
+ * or PDF reports. Works in headless mode (java.awt.headless=true). The
+ * sparklines are drawn by the normal table cell renderers, so any renderer
+ * configuration can be used, and the supported values are the ones supported
+ * by the renderer: JSparklinesDataset, XYDataPoint, StartIndexes, numbers,
+ * etc.
+ * <br><br>
+ * The exporter is thread-safe. When created with a RendererFactory every
+ * thread gets its own renderer, and the images can be rendered in parallel.
+ * When created with a single renderer the rendering is synchronized on the
+ * renderer.
+ *
+ * @author Harald Barsnes
+ */
+public class JSparklinesImageExporter {
+
+    /**
+     * Factory creating the renderers used by the exporter.
+     */
+    public interface RendererFactory {
+
+        /**
+         * Creates a new configured renderer. Called once per thread using the
+         * exporter.
+         *
+         * @return a new renderer
+         */
+        public TableCellRenderer createRenderer();
+    }
+
+    /**
+     * The factory creating the renderers, null if a single renderer is used.
+     */
+    private final RendererFactory rendererFactory;
+    /**
+     * The rendering context used with a single renderer, null if a factory is
+     * used.
+     */
+    private final RenderingContext sharedContext;
+    /**
+     * The rendering contexts of the threads, only used with a factory.
+     */
+    private final ThreadLocal<RenderingContext> threadContexts = new ThreadLocal<>();
+    /**
+     * The background color of the images, null uses the default table
+     * background.
+     */
+    private volatile Color background = Color.WHITE;
+
+    /**
+     * Creates a new exporter where each thread uses its own renderer created
+     * by the given factory.
+     *
+     * @param rendererFactory the factory creating the renderers
+     */
+    public JSparklinesImageExporter(RendererFactory rendererFactory) {
+        this.rendererFactory = rendererFactory;
+        this.sharedContext = null;
+    }
+
+    /**
+     * Creates a new exporter using the given renderer. The rendering is
+     * synchronized on the renderer, use the RendererFactory constructor to
+     * render in parallel.
+     *
+     * @param renderer the renderer
+     */
+    public JSparklinesImageExporter(TableCellRenderer renderer) {
+        this.rendererFactory = null;
+        this.sharedContext = new RenderingContext(renderer);
+    }
+
+    /**
+     * Returns the background color of the images.
+     *
+     * @return the background color of the images, null if the default table
+     * background is used
+     */
+    public Color getBackground() {
+        return background;
+    }
+
+    /**
+     * Set the background color of the images. White by default, null uses the
+     * default table background.
+     *
+     * @param background the background color of the images
+     */
+    public void setBackground(Color background) {
+        this.background = background;
+    }
+
+    /**
+     * Renders the given value to a new image.
+     *
+     * @param value the value to render
+     * @param width the width of the image
+     * @param height the height of the image
+     * @return the image
+     */
+    public BufferedImage createImage(Object value, int width, int height) {
+        return createImage(value, width, height, background);
+    }
+
+    /**
+     * Renders the given value to a new image using the given background
+     * color.
+     *
+     * @param value the value to render
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param background the background color of the image, null uses the
+     * default table background
+     * @return the image
+     */
+    public BufferedImage createImage(Object value, int width, int height, Color background) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        paintImage(value, image, background);
+        return image;
+    }
+
+    /**
+     * Renders the given value into the given image, using the size of the
+     * image. Makes it possible to reuse the same image for several values.
+     *
+     * @param value the value to render
+     * @param image the image to render into
+     */
+    public void paintImage(Object value, BufferedImage image) {
+        paintImage(value, image, background);
+    }
+
+    /**
+     * Renders the given value into the given image, using the size of the
+     * image and the given background color.
+     *
+     * @param value the value to render
+     * @param image the image to render into
+     * @param background the background color of the image, null uses the
+     * default table background
+     */
+    public void paintImage(Object value, BufferedImage image, Color background) {
+
+        if (sharedContext != null) {
+            synchronized (sharedContext.renderer) {
+                sharedContext.paint(value, image, background);
+            }
+        } else {
+            RenderingContext context = threadContexts.get();
+            if (context == null) {
+                context = new RenderingContext(rendererFactory.createRenderer());
+                threadContexts.set(context);
+            }
+            context.paint(value, image, background);
+        }
+    }
+
+    /**
+     * Renders the given value to a PNG image.
+     *
+     * @param value the value to render
+     * @param width the width of the image
+     * @param height the height of the image
+     * @return the PNG image as a byte array
+     * @throws IOException if the PNG image could not be written
+     */
+    public byte[] createPng(Object value, int width, int height) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writePng(value, width, height, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Renders the given value to a PNG image written to the given stream. The
+     * stream is not closed.
+     *
+     * @param value the value to render
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param outputStream the stream to write to
+     * @throws IOException if the PNG image could not be written
+     */
+    public void writePng(Object value, int width, int height, OutputStream outputStream) throws IOException {
+        BufferedImage image = createImage(value, width, height);
+        if (!ImageIO.write(image, "png", outputStream)) {
+            throw new IOException("No PNG image writer found.");
+        }
+    }
+
+    /**
+     * A renderer together with the table passed to it. Only to be used by one
+     * thread at the time.
+     */
+    private static class RenderingContext {
+
+        /**
+         * The renderer.
+         */
+        private final TableCellRenderer renderer;
+        /**
+         * The table passed to the renderer.
+         */
+        private final JTable table;
+        /**
+         * The default background color of the table.
+         */
+        private final Color defaultBackground;
+
+        /**
+         * Creates a new rendering context.
+         *
+         * @param renderer the renderer
+         */
+        private RenderingContext(TableCellRenderer renderer) {
+            this.renderer = renderer;
+            this.table = new JTable(1, 1);
+            this.defaultBackground = table.getBackground();
+        }
+
+        /**
+         * Renders the given value into the given image.
+         *
+         * @param value the value to render
+         * @param image the image to render into
+         * @param background the background color, null uses the default table
+         * background
+         */
+        private void paint(Object value, BufferedImage image, Color background) {
+
+            Color tableBackground = background != null ? background : defaultBackground;
+            table.setBackground(tableBackground);
+
+            // give the cell the size of the image, used by the decimation
+            if (table.getColumnModel().getColumn(0).getWidth() != image.getWidth()) {
+                table.getColumnModel().getColumn(0).setWidth(image.getWidth());
+            }
+            if (table.getRowHeight() != image.getHeight()) {
+                table.setRowHeight(Math.max(1, image.getHeight()));
+            }
+
+            // clear the image, as it may be reused
+            Graphics2D g2 = image.createGraphics();
+            try {
+                g2.setBackground(tableBackground);
+                g2.clearRect(0, 0, image.getWidth(), image.getHeight());
+            } finally {
+                g2.dispose();
+            }
+
+            Component component;
+
+            // the image caches are bound to the event dispatch thread
+            if (renderer instanceof CacheableTableCellRenderer) {
+                component = ((CacheableTableCellRenderer) renderer).getUncachedTableCellRendererComponent(table, value, false, false, 0, 0);
+            } else {
+                component = renderer.getTableCellRendererComponent(table, value, false, false, 0, 0);
+            }
+
+            Util.paintToImage(component, image);
+        }
+    }
+}
@@ -0,0 +1,1040 @@
+package no.uib.jsparklines;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JComponent;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.ToolTipManager;
+import no.uib.jsparklines.renderers.util.GradientColorCoding;
+import no.uib.jsparklines.renderers.util.GradientColorCoding.ColorGradient;
+
+/**
+ * Heat map component displaying a matrix of values, e.g., expression values
+ * with one row per gene and one column per sample. Unlike the heat map table
+ * cell renderers, which create one chart per cell, the matrix is painted as
+ * fixed size image tiles rendered on background threads. The tiles are kept in
+ * a least recently used cache, such that scrolling, and returning to a
+ * previous zoom level, only draws cached tiles, and only the missing tiles are
+ * rendered. The area of a tile being rendered is filled with the background
+ * color, and repainted when the tile is ready.
+ * <br><br>
+ * The colors are found using GradientColorCoding, values without a color,
+ * e.g., NaN, are shown using the background color. The matrix is not copied,
+ * call clear after changing its values. Place the heat map in a JScrollPane to
+ * scroll, and use setCellSize to zoom. For cell sizes below one pixel every
+ * n-th value is shown, i.e., the values are sampled and not averaged.
+ * <br><br>
+ * Call dispose when the heat map is no longer used, to stop the background
+ * threads.
+ *
+ * @author Harald Barsnes
+ */
+public class JSparklinesMatrixHeatMap extends JComponent implements Scrollable {
+
+    /**
+     * The width and height of the tiles in pixels.
+     */
+    public static final int TILE_SIZE = 256;
+    /**
+     * The default memory budget of the tiles in bytes.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64 * 1024 * 1024;
+    /**
+     * The default width and height of the cells in pixels.
+     */
+    public static final double DEFAULT_CELL_SIZE = 4;
+    /**
+     * The number of bytes used per pixel.
+     */
+    private static final int BYTES_PER_PIXEL = 4;
+    /**
+     * The counter used to name the background threads.
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    /**
+     * The background threads.
+     */
+    private final ThreadPoolExecutor executor;
+    /**
+     * The rendered tiles in least recently used order.
+     */
+    private final LinkedHashMap<TileKey, BufferedImage> tiles = new LinkedHashMap<>(256, 0.75f, true);
+    /**
+     * The pending rendering jobs.
+     */
+    private final HashMap<TileKey, TileJob> pendingJobs = new HashMap<>();
+    /**
+     * Key reused for the lookups, only used on the event dispatch thread.
+     */
+    private final TileKey lookupKey = new TileKey();
+    /**
+     * Rectangle reused when looking up the visible area.
+     */
+    private final Rectangle visibleRectangle = new Rectangle();
+    /**
+     * The matrix of values, one array per row.
+     */
+    private double[][] matrix;
+    /**
+     * The number of columns, i.e., the length of the longest row.
+     */
+    private int numberOfColumns;
+    /**
+     * The min value, shown using the first color of the gradient.
+     */
+    private double minValue;
+    /**
+     * The max value, shown using the third color of the gradient.
+     */
+    private double maxValue;
+    /**
+     * The color gradient.
+     */
+    private ColorGradient colorGradient;
+    /**
+     * If true only positive values are expected and the middle gradient color
+     * is used for the halfway point between the min and max values.
+     */
+    private boolean positiveValuesOnly = false;
+    /**
+     * The width of the cells in pixels.
+     */
+    private double cellWidth = DEFAULT_CELL_SIZE;
+    /**
+     * The height of the cells in pixels.
+     */
+    private double cellHeight = DEFAULT_CELL_SIZE;
+    /**
+     * Incremented every time the colors of the tiles change, i.e., when the
+     * matrix, the value range, the color gradient or the background changes.
+     */
+    private int version = 0;
+    /**
+     * The settings used to render the tiles, null if they have to be
+     * recreated.
+     */
+    private TileSettings tileSettings = null;
+    /**
+     * The memory budget of the tiles in bytes.
+     */
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    /**
+     * The visible tiles, i.e., the tiles never removed from the cache. Empty
+     * until the heat map is painted.
+     */
+    private final Rectangle visibleTiles = new Rectangle();
+    /**
+     * The memory currently used by the tiles in bytes.
+     */
+    private long memoryUsage = 0;
+    /**
+     * The number of rendered tiles.
+     */
+    private long renderedTileCount = 0;
+    /**
+     * The number of jobs cancelled because their tiles were scrolled away.
+     */
+    private long cancelledJobCount = 0;
+
+    /**
+     * Creates a new JSparklinesMatrixHeatMap using one background thread per
+     * available processor, minus one for the event dispatch thread.
+     *
+     * @param matrix the matrix of values, one array per row
+     * @param minValue the min value, shown using the first color of the
+     * gradient
+     * @param maxValue the max value, shown using the third color of the
+     * gradient
+     * @param colorGradient the color gradient
+     */
+    public JSparklinesMatrixHeatMap(double[][] matrix, double minValue, double maxValue, ColorGradient colorGradient) {
+        this(matrix, minValue, maxValue, colorGradient, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Creates a new JSparklinesMatrixHeatMap.
+     *
+     * @param matrix the matrix of values, one array per row
+     * @param minValue the min value, shown using the first color of the
+     * gradient
+     * @param maxValue the max value, shown using the third color of the
+     * gradient
+     * @param colorGradient the color gradient
+     * @param numberOfThreads the number of background threads
+     * @throws IllegalArgumentException if numberOfThreads &lt; 1
+     */
+    public JSparklinesMatrixHeatMap(double[][] matrix, double minValue, double maxValue, ColorGradient colorGradient, int numberOfThreads) {
+
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("The number of threads has to be at least one! Current value: " + numberOfThreads + ".");
+        }
+
+        setMatrixValues(matrix);
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.colorGradient = colorGradient;
+
+        this.executor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "JSparklines-heat-map-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        ToolTipManager.sharedInstance().registerComponent(this);
+    }
+
+    /**
+     * Set the matrix and the number of columns.
+     *
+     * @param matrix the matrix of values, one array per row
+     */
+    private void setMatrixValues(double[][] matrix) {
+
+        this.matrix = matrix != null ? matrix : new double[0][];
+
+        numberOfColumns = 0;
+        for (double[] row : this.matrix) {
+            if (row != null) {
+                numberOfColumns = Math.max(numberOfColumns, row.length);
+            }
+        }
+    }
+
+    /**
+     * Returns the matrix of values.
+     *
+     * @return the matrix of values
+     */
+    public double[][] getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Set the matrix of values. The matrix is not copied.
+     *
+     * @param matrix the matrix of values, one array per row
+     */
+    public void setMatrix(double[][] matrix) {
+        setMatrixValues(matrix);
+        invalidateTiles();
+        revalidate();
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows
+     */
+    public int getNumberOfRows() {
+        return matrix.length;
+    }
+
+    /**
+     * Returns the number of columns, i.e., the length of the longest row.
+     *
+     * @return the number of columns
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * Returns the min value.
+     *
+     * @return the min value
+     */
+    public double getMinValue() {
+        return minValue;
+    }
+
+    /**
+     * Returns the max value.
+     *
+     * @return the max value
+     */
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Set the value range of the color gradient.
+     *
+     * @param minValue the min value, shown using the first color of the
+     * gradient
+     * @param maxValue the max value, shown using the third color of the
+     * gradient
+     */
+    public void setValueRange(double minValue, double maxValue) {
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        invalidateTiles();
+    }
+
+    /**
+     * Returns the color gradient.
+     *
+     * @return the color gradient
+     */
+    public ColorGradient getColorGradient() {
+        return colorGradient;
+    }
+
+    /**
+     * Set the color gradient.
+     *
+     * @param colorGradient the color gradient
+     */
+    public void setColorGradient(ColorGradient colorGradient) {
+        this.colorGradient = colorGradient;
+        invalidateTiles();
+    }
+
+    /**
+     * Returns true if only positive values are expected.
+     *
+     * @return true if only positive values are expected
+     */
+    public boolean isPositiveValuesOnly() {
+        return positiveValuesOnly;
+    }
+
+    /**
+     * Set if only positive values are expected, in which case the middle
+     * gradient color is used for the halfway point between the min and max
+     * values. See GradientColorCoding for details.
+     *
+     * @param positiveValuesOnly if true only positive values are expected
+     */
+    public void setPositiveValuesOnly(boolean positiveValuesOnly) {
+        this.positiveValuesOnly = positiveValuesOnly;
+        invalidateTiles();
+    }
+
+    @Override
+    public void setBackground(Color background) {
+        super.setBackground(background);
+        if (tiles != null) {
+            invalidateTiles();
+        }
+    }
+
+    /**
+     * Returns the width of the cells in pixels.
+     *
+     * @return the width of the cells
+     */
+    public double getCellWidth() {
+        return cellWidth;
+    }
+
+    /**
+     * Returns the height of the cells in pixels.
+     *
+     * @return the height of the cells
+     */
+    public double getCellHeight() {
+        return cellHeight;
+    }
+
+    /**
+     * Set the size of the cells in pixels, i.e., the zoom level. The tiles of
+     * the previous zoom levels are kept in the cache.
+     *
+     * @param cellWidth the width of the cells, has to be positive
+     * @param cellHeight the height of the cells, has to be positive
+     * @throws IllegalArgumentException if the width or height is not positive
+     */
+    public void setCellSize(double cellWidth, double cellHeight) {
+
+        if (!(cellWidth > 0) || !(cellHeight > 0)) {
+            throw new IllegalArgumentException("The cell size has to be positive! Current value: " + cellWidth + " x " + cellHeight + ".");
+        }
+
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        tileSettings = null;
+
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Returns the memory budget of the tiles in bytes.
+     *
+     * @return the memory budget in bytes
+     */
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Set the memory budget of the tiles in bytes. The least recently used
+     * tiles are removed when the budget is exceeded. The visible tiles are
+     * never removed, i.e., the budget is exceeded if smaller than the memory
+     * used by the visible tiles.
+     *
+     * @param memoryBudget the memory budget in bytes
+     * @throws IllegalArgumentException if memoryBudget &lt; 0
+     */
+    public synchronized void setMemoryBudget(long memoryBudget) {
+
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("The memory budget cannot be negative! Current value: " + memoryBudget + ".");
+        }
+
+        this.memoryBudget = memoryBudget;
+        evict();
+    }
+
+    /**
+     * Returns the number of tiles in the cache.
+     *
+     * @return the number of tiles
+     */
+    public synchronized int getNumberOfTiles() {
+        return tiles.size();
+    }
+
+    /**
+     * Returns the number of pending rendering jobs.
+     *
+     * @return the number of pending jobs
+     */
+    public synchronized int getNumberOfPendingJobs() {
+        return pendingJobs.size();
+    }
+
+    /**
+     * Returns the number of tiles rendered so far.
+     *
+     * @return the number of rendered tiles
+     */
+    public synchronized long getRenderedTileCount() {
+        return renderedTileCount;
+    }
+
+    /**
+     * Returns the number of jobs cancelled because their tiles were scrolled
+     * away.
+     *
+     * @return the number of cancelled jobs
+     */
+    public synchronized long getCancelledJobCount() {
+        return cancelledJobCount;
+    }
+
+    /**
+     * Removes all the tiles and cancels the pending jobs, e.g., after
+     * changing values in the matrix.
+     */
+    public void clear() {
+        invalidateTiles();
+    }
+
+    /**
+     * Cancels the pending jobs and stops the background threads.
+     */
+    public void dispose() {
+        synchronized (this) {
+            cancelPendingJobs();
+            tiles.clear();
+            memoryUsage = 0;
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the row at the given point.
+     *
+     * @param point the point
+     * @return the row index, -1 if outside the matrix
+     */
+    public int rowAtPoint(Point point) {
+        int row = (int) (point.y / cellHeight);
+        return point.y >= 0 && row < matrix.length ? row : -1;
+    }
+
+    /**
+     * Returns the column at the given point.
+     *
+     * @param point the point
+     * @return the column index, -1 if outside the matrix
+     */
+    public int columnAtPoint(Point point) {
+        int column = (int) (point.x / cellWidth);
+        return point.x >= 0 && column < numberOfColumns ? column : -1;
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+
+        int row = rowAtPoint(event.getPoint());
+        int column = columnAtPoint(event.getPoint());
+
+        if (row == -1 || column == -1 || matrix[row] == null || column >= matrix[row].length) {
+            return null;
+        }
+
+        return "<html>Row: " + row + "<br>Column: " + column + "<br>Value: " + matrix[row][column] + "</html>";
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        return new Dimension(getMatrixWidth(), getMatrixHeight());
+    }
+
+    /**
+     * Returns the width of the matrix in pixels at the current zoom level.
+     *
+     * @return the width of the matrix in pixels
+     */
+    private int getMatrixWidth() {
+        return (int) Math.ceil(numberOfColumns * cellWidth);
+    }
+
+    /**
+     * Returns the height of the matrix in pixels at the current zoom level.
+     *
+     * @return the height of the matrix in pixels
+     */
+    private int getMatrixHeight() {
+        return (int) Math.ceil(matrix.length * cellHeight);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        Color background = getBackground();
+
+        if (isOpaque()) {
+            g.setColor(background);
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        }
+
+        int matrixWidth = getMatrixWidth();
+        int matrixHeight = getMatrixHeight();
+
+        if (matrixWidth == 0 || matrixHeight == 0 || executor.isShutdown()) {
+            return;
+        }
+
+        if (tileSettings == null) {
+            tileSettings = new TileSettings(this, matrixWidth, matrixHeight, background.getRGB());
+        }
+
+        cancelInvisibleJobs(matrixWidth, matrixHeight);
+
+        int firstTileX = Math.max(0, clip.x / TILE_SIZE);
+        int lastTileX = Math.min((matrixWidth - 1) / TILE_SIZE, (clip.x + clip.width - 1) / TILE_SIZE);
+        int firstTileY = Math.max(0, clip.y / TILE_SIZE);
+        int lastTileY = Math.min((matrixHeight - 1) / TILE_SIZE, (clip.y + clip.height - 1) / TILE_SIZE);
+
+        for (int tileY = firstTileY; tileY <= lastTileY; tileY++) {
+            for (int tileX = firstTileX; tileX <= lastTileX; tileX++) {
+
+                BufferedImage tile;
+
+                synchronized (this) {
+                    lookupKey.set(version, cellWidth, cellHeight, tileX, tileY);
+                    tile = tiles.get(lookupKey);
+                }
+
+                if (tile != null) {
+                    g.drawImage(tile, tileX * TILE_SIZE, tileY * TILE_SIZE, null);
+                } else {
+                    submit(tileX, tileY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels the pending jobs for the tiles outside the visible area,
+     * including a margin of one tile, or rendered for another zoom level.
+     * Also updates the visible tiles protected from the eviction.
+     *
+     * @param matrixWidth the width of the matrix in pixels
+     * @param matrixHeight the height of the matrix in pixels
+     */
+    private void cancelInvisibleJobs(int matrixWidth, int matrixHeight) {
+
+        computeVisibleRect(visibleRectangle);
+
+        int firstTileX = visibleRectangle.x / TILE_SIZE - 1;
+        int lastTileX = (visibleRectangle.x + visibleRectangle.width - 1) / TILE_SIZE + 1;
+        int firstTileY = visibleRectangle.y / TILE_SIZE - 1;
+        int lastTileY = (visibleRectangle.y + visibleRectangle.height - 1) / TILE_SIZE + 1;
+
+        synchronized (this) {
+
+            if (visibleRectangle.isEmpty()) {
+                visibleTiles.setBounds(0, 0, 0, 0);
+            } else {
+                visibleTiles.setBounds(firstTileX + 1, firstTileY + 1, lastTileX - firstTileX - 1, lastTileY - firstTileY - 1);
+            }
+
+            Iterator<TileJob> iterator = pendingJobs.values().iterator();
+            while (iterator.hasNext()) {
+                TileJob job = iterator.next();
+                TileKey key = job.key;
+                if (key.tileX < firstTileX || key.tileX > lastTileX
+                        || key.tileY < firstTileY || key.tileY > lastTileY
+                        || key.cellWidth != cellWidth || key.cellHeight != cellHeight) {
+                    job.cancel(false);
+                    executor.remove(job);
+                    iterator.remove();
+                    cancelledJobCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits a rendering job, unless the tile is already being rendered.
+     *
+     * @param tileX the tile column
+     * @param tileY the tile row
+     */
+    private synchronized void submit(int tileX, int tileY) {
+
+        lookupKey.set(version, cellWidth, cellHeight, tileX, tileY);
+
+        if (pendingJobs.containsKey(lookupKey)) {
+            return;
+        }
+
+        TileKey key = new TileKey();
+        key.set(version, cellWidth, cellHeight, tileX, tileY);
+
+        TileJob job = new TileJob(new TileRenderer(tileSettings, key), key);
+        pendingJobs.put(key, job);
+        executor.execute(job);
+    }
+
+    /**
+     * Called from the background threads when a tile is ready. Stores the
+     * tile and repaints its area.
+     *
+     * @param job the job
+     * @param tile the tile
+     */
+    private void tileRendered(TileJob job, BufferedImage tile) {
+
+        final TileKey key = job.key;
+
+        synchronized (this) {
+
+            if (pendingJobs.get(key) != job) {
+                return;
+            }
+
+            pendingJobs.remove(key);
+            renderedTileCount++;
+
+            BufferedImage oldTile = tiles.put(key, tile);
+            if (oldTile != null) {
+                memoryUsage -= getBytes(oldTile);
+            }
+            memoryUsage += getBytes(tile);
+            evict();
+        }
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (key.version == version && key.cellWidth == cellWidth && key.cellHeight == cellHeight) {
+                    repaint(key.tileX * TILE_SIZE, key.tileY * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes the tiles and cancels the pending jobs after a change of the
+     * colors, and repaints the heat map.
+     */
+    private void invalidateTiles() {
+
+        synchronized (this) {
+            version++;
+            cancelPendingJobs();
+            tiles.clear();
+            memoryUsage = 0;
+        }
+
+        tileSettings = null;
+        repaint();
+    }
+
+    /**
+     * Cancels all the pending jobs.
+     */
+    private synchronized void cancelPendingJobs() {
+        for (TileJob job : pendingJobs.values()) {
+            job.cancel(false);
+            executor.remove(job);
+        }
+        pendingJobs.clear();
+    }
+
+    /**
+     * Removes the least recently used tiles until the memory budget is
+     * respected. The visible tiles are kept, as removing them would only
+     * make the next repaint render them again.
+     */
+    private synchronized void evict() {
+        Iterator<Map.Entry<TileKey, BufferedImage>> iterator = tiles.entrySet().iterator();
+        while (memoryUsage > memoryBudget && iterator.hasNext()) {
+            Map.Entry<TileKey, BufferedImage> entry = iterator.next();
+            if (!isVisible(entry.getKey())) {
+                memoryUsage -= getBytes(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given tile is currently visible.
+     *
+     * @param key the key of the tile
+     * @return true if the tile is visible
+     */
+    private synchronized boolean isVisible(TileKey key) {
+        return key.version == version && key.cellWidth == cellWidth && key.cellHeight == cellHeight
+                && visibleTiles.contains(key.tileX, key.tileY);
+    }
+
+    /**
+     * Returns the memory used by the given tile in bytes.
+     *
+     * @param tile the tile
+     * @return the memory used in bytes
+     */
+    private static long getBytes(BufferedImage tile) {
+        return ((long) tile.getWidth()) * tile.getHeight() * BYTES_PER_PIXEL;
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.VERTICAL) {
+            return Math.max(1, (int) Math.ceil(cellHeight));
+        }
+        return Math.max(1, (int) Math.ceil(cellWidth));
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.VERTICAL) {
+            return Math.max(1, visibleRect.height);
+        }
+        return Math.max(1, visibleRect.width);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /**
+     * The settings used to render the tiles, copied such that the background
+     * threads are not affected by later changes.
+     */
+    private static class TileSettings {
+
+        /**
+         * The matrix of values.
+         */
+        private final double[][] matrix;
+        /**
+         * The width of the cells in pixels.
+         */
+        private final double cellWidth;
+        /**
+         * The height of the cells in pixels.
+         */
+        private final double cellHeight;
+        /**
+         * The width of the matrix in pixels.
+         */
+        private final int matrixWidth;
+        /**
+         * The height of the matrix in pixels.
+         */
+        private final int matrixHeight;
+        /**
+         * The min value.
+         */
+        private final double minValue;
+        /**
+         * The max value.
+         */
+        private final double maxValue;
+        /**
+         * The color gradient.
+         */
+        private final ColorGradient colorGradient;
+        /**
+         * If true only positive values are expected.
+         */
+        private final boolean positiveValuesOnly;
+        /**
+         * The background color as an RGB value.
+         */
+        private final int background;
+
+        /**
+         * Creates new TileSettings.
+         *
+         * @param heatMap the heat map
+         * @param matrixWidth the width of the matrix in pixels
+         * @param matrixHeight the height of the matrix in pixels
+         * @param background the background color as an RGB value
+         */
+        private TileSettings(JSparklinesMatrixHeatMap heatMap, int matrixWidth, int matrixHeight, int background) {
+            this.matrix = heatMap.matrix;
+            this.cellWidth = heatMap.cellWidth;
+            this.cellHeight = heatMap.cellHeight;
+            this.matrixWidth = matrixWidth;
+            this.matrixHeight = matrixHeight;
+            this.minValue = heatMap.minValue;
+            this.maxValue = heatMap.maxValue;
+            this.colorGradient = heatMap.colorGradient;
+            this.positiveValuesOnly = heatMap.positiveValuesOnly;
+            this.background = background;
+        }
+
+        /**
+         * Renders the given tile.
+         *
+         * @param tileX the tile column
+         * @param tileY the tile row
+         * @return the tile
+         */
+        private BufferedImage renderTile(int tileX, int tileY) {
+
+            int x0 = tileX * TILE_SIZE;
+            int y0 = tileY * TILE_SIZE;
+            int width = Math.min(TILE_SIZE, matrixWidth - x0);
+            int height = Math.min(TILE_SIZE, matrixHeight - y0);
+
+            int[] pixels = new int[width * height];
+            int previousRow = -1;
+
+            for (int y = 0; y < height; y++) {
+
+                int row = Math.min(matrix.length - 1, (int) ((y0 + y) / cellHeight));
+
+                // the pixel rows of the same matrix row are identical
+                if (row == previousRow) {
+                    System.arraycopy(pixels, (y - 1) * width, pixels, y * width, width);
+                    continue;
+                }
+
+                double[] values = matrix[row];
+                int previousColumn = -1;
+                int rgb = background;
+
+                for (int x = 0; x < width; x++) {
+
+                    int column = (int) ((x0 + x) / cellWidth);
+
+                    if (column != previousColumn) {
+                        rgb = background;
+                        if (values != null && column < values.length) {
+                            Color color = GradientColorCoding.getGradientColor(values[column], minValue, maxValue, colorGradient, positiveValuesOnly);
+                            if (color != null) {
+                                rgb = color.getRGB();
+                            }
+                        }
+                        previousColumn = column;
+                    }
+
+                    pixels[y * width + x] = rgb;
+                }
+
+                previousRow = row;
+            }
+
+            BufferedImage tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            tile.getRaster().setDataElements(0, 0, width, height, pixels);
+
+            return tile;
+        }
+    }
+
+    /**
+     * Renders a tile on a background thread.
+     */
+    private class TileRenderer implements Runnable {
+
+        /**
+         * The settings used to render the tile.
+         */
+        private final TileSettings tileSettings;
+        /**
+         * The key of the tile.
+         */
+        private final TileKey key;
+        /**
+         * The job running this renderer, set after creation.
+         */
+        private TileJob job;
+
+        /**
+         * Creates a new TileRenderer.
+         *
+         * @param tileSettings the settings used to render the tile
+         * @param key the key of the tile
+         */
+        private TileRenderer(TileSettings tileSettings, TileKey key) {
+            this.tileSettings = tileSettings;
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            if (job.isCancelled()) {
+                return;
+            }
+            tileRendered(job, tileSettings.renderTile(key.tileX, key.tileY));
+        }
+    }
+
+    /**
+     * A pending tile rendering job.
+     */
+    private static class TileJob extends FutureTask<Object> {
+
+        /**
+         * The key of the tile.
+         */
+        private final TileKey key;
+
+        /**
+         * Creates a new TileJob.
+         *
+         * @param tileRenderer the renderer of the tile
+         * @param key the key of the tile
+         */
+        private TileJob(TileRenderer tileRenderer, TileKey key) {
+            super(tileRenderer, null);
+            tileRenderer.job = this;
+            this.key = key;
+        }
+    }
+
+    /**
+     * The key of a tile.
+     */
+    private static class TileKey {
+
+        /**
+         * The version of the colors.
+         */
+        private int version;
+        /**
+         * The width of the cells in pixels.
+         */
+        private double cellWidth;
+        /**
+         * The height of the cells in pixels.
+         */
+        private double cellHeight;
+        /**
+         * The tile column.
+         */
+        private int tileX;
+        /**
+         * The tile row.
+         */
+        private int tileY;
+        /**
+         * The hash code.
+         */
+        private int hashCode;
+
+        /**
+         * Set the key values.
+         *
+         * @param version the version of the colors
+         * @param cellWidth the width of the cells in pixels
+         * @param cellHeight the height of the cells in pixels
+         * @param tileX the tile column
+         * @param tileY the tile row
+         */
+        private void set(int version, double cellWidth, double cellHeight, int tileX, int tileY) {
+
+            this.version = version;
+            this.cellWidth = cellWidth;
+            this.cellHeight = cellHeight;
+            this.tileX = tileX;
+            this.tileY = tileY;
+
+            int hash = version;
+            hash = 31 * hash + Double.hashCode(cellWidth);
+            hash = 31 * hash + Double.hashCode(cellHeight);
+            hash = 31 * hash + tileX;
+            hash = 31 * hash + tileY;
+            hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TileKey)) {
+                return false;
+            }
+            TileKey other = (TileKey) obj;
+            return version == other.version
+                    && cellWidth == other.cellWidth
+                    && cellHeight == other.cellHeight
+                    && tileX == other.tileX
+                    && tileY == other.tileY;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package no.uib.jsparklines.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.jfree.data.statistics.BoxAndWhiskerItem;
+
+/**
+ * Calculates the box and whisker statistics of a JSparklinesDataSeries
+ * directly from the primitive values. The exact statistics are identical to
+ * the ones calculated by the JFreeChart BoxAndWhiskerCalculator, but without
+ * boxing the values. The estimated statistics are based on a
+ * KllQuantileSketch, using bounded memory for series with millions of values.
+ * NaN values are ignored.
+ * <br><br>
+ * The statistics are normally accessed via the cached
+ * JSparklinesDataSeries.getBoxAndWhiskerItem and
+ * getApproximateBoxAndWhiskerItem methods.
+ *
+ * @author Harald Barsnes
+ */
+public class BoxPlotStatistics {
+
+    /**
+     * The distance from the quartiles, relative to the interquartile range,
+     * beyond which values are outliers.
+     */
+    private static final double OUTLIER_DISTANCE = 1.5;
+    /**
+     * The distance from the quartiles, relative to the interquartile range,
+     * beyond which values are far out.
+     */
+    private static final double FAR_OUT_DISTANCE = 2.0;
+
+    /**
+     * Empty default constructor.
+     */
+    private BoxPlotStatistics() {
+    }
+
+    /**
+     * Calculates the exact box and whisker statistics of the given series.
+     *
+     * @param dataSeries the data series
+     * @return the box and whisker statistics
+     */
+    public static BoxAndWhiskerItem calculate(JSparklinesDataSeries dataSeries) {
+
+        double[] values = new double[dataSeries.size()];
+        int count = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            double value = dataSeries.getValue(i);
+            if (!Double.isNaN(value)) {
+                values[count++] = value;
+            }
+        }
+
+        Arrays.sort(values, 0, count);
+
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+        }
+
+        double mean = count > 0 ? sum / count : Double.NaN;
+        double median = getMedian(values, 0, count - 1);
+        double q1 = Double.NaN;
+        double q3 = Double.NaN;
+
+        // the quartiles are the medians of the lower and upper halves, both
+        // including the median for an odd number of values
+        if (count == 1) {
+            q1 = values[0];
+            q3 = values[0];
+        } else if (count > 1) {
+            if (count % 2 == 1) {
+                q1 = getMedian(values, 0, count / 2);
+            } else {
+                q1 = getMedian(values, 0, count / 2 - 1);
+            }
+            q3 = getMedian(values, count / 2, count - 1);
+        }
+
+        return createItem(mean, median, q1, q3, values, count);
+    }
+
+    /**
+     * Estimates the box and whisker statistics of the given series using a
+     * KllQuantileSketch. The mean, and the min and max values, are exact,
+     * while the quartiles are approximate. The outliers are the values
+     * retained by the sketch outside the whiskers, i.e., a sample of the
+     * outliers, always including the min and max values.
+     *
+     * @param dataSeries the data series
+     * @param k the size parameter of the sketch
+     * @return the box and whisker statistics
+     */
+    public static BoxAndWhiskerItem estimate(JSparklinesDataSeries dataSeries, int k) {
+
+        KllQuantileSketch sketch = new KllQuantileSketch(k);
+
+        for (int i = 0; i < dataSeries.size(); i++) {
+            sketch.update(dataSeries.getValue(i));
+        }
+
+        return estimate(sketch);
+    }
+
+    /**
+     * Estimates the box and whisker statistics of the values added to the
+     * given sketch. See estimate(JSparklinesDataSeries, int).
+     *
+     * @param sketch the sketch
+     * @return the box and whisker statistics
+     */
+    public static BoxAndWhiskerItem estimate(KllQuantileSketch sketch) {
+
+        if (sketch.getN() == 0) {
+            return createItem(Double.NaN, Double.NaN, Double.NaN, Double.NaN, new double[0], 0);
+        }
+
+        // the retained values, with the exact min and max values at the ends
+        int numberOfRetainedValues = sketch.getNumberOfRetainedValues();
+        double[] values = new double[numberOfRetainedValues + 2];
+        int count = 0;
+
+        values[count++] = sketch.getMinValue();
+        for (int i = 0; i < numberOfRetainedValues; i++) {
+            double value = sketch.getRetainedValue(i);
+            if (i > 0 || value != sketch.getMinValue()) {
+                values[count++] = value;
+            }
+        }
+        if (values[count - 1] != sketch.getMaxValue()) {
+            values[count++] = sketch.getMaxValue();
+        }
+
+        return createItem(sketch.getMean(), sketch.getQuantile(0.5), sketch.getQuantile(0.25), sketch.getQuantile(0.75), values, count);
+    }
+
+    /**
+     * Returns the median of the given range of sorted values.
+     *
+     * @param sortedValues the sorted values
+     * @param start the index of the first value
+     * @param end the index of the last value
+     * @return the median, NaN if the range is empty
+     */
+    private static double getMedian(double[] sortedValues, int start, int end) {
+
+        int count = end - start + 1;
+
+        if (count <= 0) {
+            return Double.NaN;
+        } else if (count % 2 == 1) {
+            return sortedValues[start + (count - 1) / 2];
+        }
+
+        return (sortedValues[start + count / 2 - 1] + sortedValues[start + count / 2]) / 2.0;
+    }
+
+    /**
+     * Creates the box and whisker item, finding the whiskers and outliers
+     * among the given values as done by the JFreeChart
+     * BoxAndWhiskerCalculator.
+     *
+     * @param mean the mean
+     * @param median the median
+     * @param q1 the first quartile
+     * @param q3 the third quartile
+     * @param values the values
+     * @param count the number of values to use
+     * @return the box and whisker item
+     */
+    private static BoxAndWhiskerItem createItem(double mean, double median, double q1, double q3, double[] values, int count) {
+
+        double interQuartileRange = q3 - q1;
+        double upperOutlierThreshold = q3 + interQuartileRange * OUTLIER_DISTANCE;
+        double lowerOutlierThreshold = q1 - interQuartileRange * OUTLIER_DISTANCE;
+        double upperFarOutThreshold = q3 + interQuartileRange * FAR_OUT_DISTANCE;
+        double lowerFarOutThreshold = q1 - interQuartileRange * FAR_OUT_DISTANCE;
+
+        double minRegularValue = Double.POSITIVE_INFINITY;
+        double maxRegularValue = Double.NEGATIVE_INFINITY;
+        double minOutlier = Double.POSITIVE_INFINITY;
+        double maxOutlier = Double.NEGATIVE_INFINITY;
+        ArrayList<Double> outliers = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+
+            double value = values[i];
+
+            if (value > upperOutlierThreshold) {
+                outliers.add(value);
+                if (value > maxOutlier && value <= upperFarOutThreshold) {
+                    maxOutlier = value;
+                }
+            } else if (value < lowerOutlierThreshold) {
+                outliers.add(value);
+                if (value < minOutlier && value >= lowerFarOutThreshold) {
+                    minOutlier = value;
+                }
+            } else {
+                minRegularValue = Math.min(minRegularValue, value);
+                maxRegularValue = Math.max(maxRegularValue, value);
+            }
+
+            minOutlier = Math.min(minOutlier, minRegularValue);
+            maxOutlier = Math.max(maxOutlier, maxRegularValue);
+        }
+
+        return new BoxAndWhiskerItem(mean, median, q1, q3, minRegularValue, maxRegularValue, minOutlier, maxOutlier, outliers);
+    }
+}
@@ -74,6 +74,15 @@ public class Chromosome implements Comparable<Chromosome>, Serializable {
         }
     }
 
+    /**
+     * Returns the chromosome name.
+     *
+     * @return the chromosome name, can be null
+     */
+    public String getChromosomeName() {
+        return chromosomeName;
+    }
+
     /**
      * Returns the chromosome as a string.
      *
@@ -0,0 +1,939 @@
+package no.uib.jsparklines.data;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import no.uib.jsparklines.renderers.JSparklinesArrayListBarChartTableCellRenderer.ValueDisplayType;
+
+/**
+ * Compact binary format for columns of the serializable data classes, as an
+ * alternative to default Java serialization. Each column is written as
+ * primitive arrays, e.g., all the x values followed by all the y values for a
+ * column of XYDataPoints, without per element class descriptors or boxing.
+ * The stream starts with a header containing the format version, followed by
+ * any number of columns. Supported column types: ArrrayListDataPoints,
+ * XYDataPoint, XYZDataPoint, StartIndexes, Chromosome,
+ * ValueAndBooleanDataPoint and JSparklinesMultiLabelDataset. The columns may
+ * contain null values.
+ * <br><br>
+ * Example:
+ * <pre>
+ * try (JSparklinesDataCodec.Writer writer = new JSparklinesDataCodec.Writer(outputStream)) {
+ *     writer.writeColumn(XYDataPoint.class, points);
+ *     writer.writeColumn(Chromosome.class, chromosomes);
+ * }
+ * try (JSparklinesDataCodec.Reader reader = new JSparklinesDataCodec.Reader(inputStream)) {
+ *     ArrayList&lt;XYDataPoint&gt; points = reader.readColumn(XYDataPoint.class);
+ *     ArrayList&lt;Chromosome&gt; chromosomes = reader.readColumn(Chromosome.class);
+ * }
+ * </pre>
+ *
+ * @author Harald Barsnes
+ */
+public class JSparklinesDataCodec {
+
+    /**
+     * The current version of the format.
+     */
+    public static final int FORMAT_VERSION = 1;
+    /**
+     * The magic number starting the streams, "JSPK".
+     */
+    private static final int MAGIC_NUMBER = 0x4A53504B;
+    /**
+     * The size of the stream buffers in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The type code of ArrrayListDataPoints columns.
+     */
+    private static final byte ARRAY_LIST_DATA_POINTS = 1;
+    /**
+     * The type code of XYDataPoint columns.
+     */
+    private static final byte XY_DATA_POINT = 2;
+    /**
+     * The type code of XYZDataPoint columns.
+     */
+    private static final byte XYZ_DATA_POINT = 3;
+    /**
+     * The type code of StartIndexes columns.
+     */
+    private static final byte START_INDEXES = 4;
+    /**
+     * The type code of Chromosome columns.
+     */
+    private static final byte CHROMOSOME = 5;
+    /**
+     * The type code of ValueAndBooleanDataPoint columns.
+     */
+    private static final byte VALUE_AND_BOOLEAN_DATA_POINT = 6;
+    /**
+     * The type code of JSparklinesMultiLabelDataset columns.
+     */
+    private static final byte MULTI_LABEL_DATASET = 7;
+
+    /**
+     * Empty default constructor.
+     */
+    private JSparklinesDataCodec() {
+    }
+
+    /**
+     * Returns the type code of the given class.
+     *
+     * @param type the class
+     * @return the type code
+     * @throws IllegalArgumentException if the class is not supported
+     */
+    private static byte getTypeCode(Class<?> type) {
+        if (type == ArrrayListDataPoints.class) {
+            return ARRAY_LIST_DATA_POINTS;
+        } else if (type == XYDataPoint.class) {
+            return XY_DATA_POINT;
+        } else if (type == XYZDataPoint.class) {
+            return XYZ_DATA_POINT;
+        } else if (type == StartIndexes.class) {
+            return START_INDEXES;
+        } else if (type == Chromosome.class) {
+            return CHROMOSOME;
+        } else if (type == ValueAndBooleanDataPoint.class) {
+            return VALUE_AND_BOOLEAN_DATA_POINT;
+        } else if (type == JSparklinesMultiLabelDataset.class) {
+            return MULTI_LABEL_DATASET;
+        }
+        throw new IllegalArgumentException("Unsupported column type: " + type.getName() + ".");
+    }
+
+    /**
+     * Writes columns to a stream.
+     */
+    public static class Writer implements Closeable, Flushable {
+
+        /**
+         * The channel to write to.
+         */
+        private final WritableByteChannel channel;
+        /**
+         * The buffer collecting the values.
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * Creates a new Writer and writes the header.
+         *
+         * @param outputStream the stream to write to
+         * @throws IOException if the header cannot be written
+         */
+        public Writer(OutputStream outputStream) throws IOException {
+            this(Channels.newChannel(outputStream));
+        }
+
+        /**
+         * Creates a new Writer and writes the header.
+         *
+         * @param channel the channel to write to
+         * @throws IOException if the header cannot be written
+         */
+        public Writer(WritableByteChannel channel) throws IOException {
+            this.channel = channel;
+            putInt(MAGIC_NUMBER);
+            putInt(FORMAT_VERSION);
+        }
+
+        /**
+         * Writes a column.
+         *
+         * @param <T> the type of the values
+         * @param type the class of the values, one of the supported types
+         * @param values the values, can contain null values
+         * @throws IOException if the column cannot be written
+         * @throws IllegalArgumentException if the type is not supported, or
+         * if an ArrrayListDataPoints contains a null data point, in which case
+         * nothing is written
+         */
+        public <T> void writeColumn(Class<T> type, List<? extends T> values) throws IOException {
+
+            byte typeCode = getTypeCode(type);
+            int size = values.size();
+
+            if (typeCode == ARRAY_LIST_DATA_POINTS) {
+                checkArrayListDataPoints(values);
+            }
+
+            putByte(typeCode);
+            putInt(size);
+
+            // the null values
+            for (int i = 0; i < size; i += 8) {
+                int bits = 0;
+                for (int j = i; j < Math.min(size, i + 8); j++) {
+                    if (values.get(j) == null) {
+                        bits |= 1 << (j - i);
+                    }
+                }
+                putByte((byte) bits);
+            }
+
+            switch (typeCode) {
+                case ARRAY_LIST_DATA_POINTS:
+                    writeArrayListDataPoints(values);
+                    break;
+                case XY_DATA_POINT:
+                    writeXYDataPoints(values);
+                    break;
+                case XYZ_DATA_POINT:
+                    writeXYZDataPoints(values);
+                    break;
+                case START_INDEXES:
+                    writeStartIndexes(values);
+                    break;
+                case CHROMOSOME:
+                    for (Object value : values) {
+                        if (value != null) {
+                            putString(((Chromosome) value).getChromosomeName());
+                        }
+                    }
+                    break;
+                case VALUE_AND_BOOLEAN_DATA_POINT:
+                    writeValueAndBooleanDataPoints(values);
+                    break;
+                default: // MULTI_LABEL_DATASET
+                    writeMultiLabelDatasets(values);
+                    break;
+            }
+        }
+
+        /**
+         * Checks that the ArrrayListDataPoints do not contain null data
+         * points, which cannot be encoded as primitive values.
+         *
+         * @param values the values
+         * @throws IllegalArgumentException if a data point is null
+         */
+        private void checkArrayListDataPoints(List<?> values) {
+
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.get(i);
+                if (value != null && ((ArrrayListDataPoints) value).getData() != null
+                        && ((ArrrayListDataPoints) value).getData().contains(null)) {
+                    throw new IllegalArgumentException("Null data point in the ArrrayListDataPoints at index " + i + ".");
+                }
+            }
+        }
+
+        /**
+         * Writes the display types, the sizes and then all the values.
+         *
+         * @param values the values
+         * @throws IOException if the values cannot be written
+         */
+        private void writeArrayListDataPoints(List<?> values) throws IOException {
+
+            for (Object value : values) {
+                if (value != null) {
+                    ValueDisplayType displayType = ((ArrrayListDataPoints) value).getDataSortingType();
+                    putByte((byte) (displayType == null ? -1 : displayType.ordinal()));
+                }
+            }
+            for (Object value : values) {
+                if (value != null) {
+                    ArrayList<Double> data = ((ArrrayListDataPoints) value).getData();
+                    putInt(data == null ? -1 : data.size());
+                }
+            }
+            for (Object value : values) {
+                if (value != null && ((ArrrayListDataPoints) value).getData() != null) {
+                    for (Double dataPoint : ((ArrrayListDataPoints) value).getData()) {
+                        putDouble(dataPoint);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Writes the x values, the y values and then the compare flags.
+         *
+         * @param values the values
+         * @throws IOException if the values cannot be written
+         */
+        private void writeXYDataPoints(List<?> values) throws IOException {
+
+            for (Object value : values) {
+                if (value != null) {
+                    putDouble(((XYDataPoint) value).getX());
+                }
+            }
+            for (Object value : values) {
+                if (value != null) {
+                    putDouble(((XYDataPoint) value).getY());
+                }
+            }
+            for (Object value : values) {
+                if (value != null) {
+                    putByte((byte) (((XYDataPoint) value).isCompareBasedOnFirstDataPoint() ? 1 : 0));
+                }
+            }
+        }
+
+        /**
+         * Writes the x, y and then the z values.
+         *
+         * @param values the values
+         * @throws IOException if the values cannot be written
+         */
+        private void writeXYZDataPoints(List<?> values) throws IOException {
+
+            for (Object value : values) {
+                if (value != null) {
+                    putDouble(((XYZDataPoint) value).getX());
+                }
+            }
+            for (Object value : values) {
+                if (value != null) {
+                    putDouble(((XYZDataPoint) value).getY());
+                }
+            }
+            for (Object value : values) {
+                if (value != null) {
+                    putDouble(((XYZDataPoint) value).getZ());
+                }
+            }
+        }
+
+        /**
+         * Writes the number of indexes and then all the indexes.
+         *
+         * @param values the values
+         * @throws IOException if the values cannot be written
+         */
+        private void writeStartIndexes(List<?> values) throws IOException {
+
+            for (Object value : values) {
+                if (value != null) {
+                    putInt(((StartIndexes) value).size());
+                }
+            }
+            for (Object value : values) {
+                if (value != null) {
+                    StartIndexes startIndexes = (StartIndexes) value;
+                    for (int i = 0; i < startIndexes.size(); i++) {
+                        putInt(startIndexes.getIndex(i));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Writes the values and then the significance flags.
+         *
+         * @param values the values
+         * @throws IOException if the values cannot be written
+         */
+        private void writeValueAndBooleanDataPoints(List<?> values) throws IOException {
+
+            for (Object value : values) {
+                if (value != null) {
+                    putDouble(((ValueAndBooleanDataPoint) value).getValue());
+                }
+            }
+            for (Object value : values) {
+                if (value != null) {
+                    putByte((byte) (((ValueAndBooleanDataPoint) value).isSignificant() ? 1 : 0));
+                }
+            }
+        }
+
+        /**
+         * Writes the number of labels and then the labels, each as the text
+         * followed by the color.
+         *
+         * @param values the values
+         * @throws IOException if the values cannot be written
+         */
+        private void writeMultiLabelDatasets(List<?> values) throws IOException {
+
+            for (Object value : values) {
+                if (value != null) {
+                    ArrayList<JSparklinesMultiLabel> labels = ((JSparklinesMultiLabelDataset) value).getLabels();
+                    putInt(labels == null ? -1 : labels.size());
+                }
+            }
+            for (Object value : values) {
+                if (value != null && ((JSparklinesMultiLabelDataset) value).getLabels() != null) {
+                    for (JSparklinesMultiLabel label : ((JSparklinesMultiLabelDataset) value).getLabels()) {
+                        if (label == null) {
+                            putByte((byte) 0);
+                        } else {
+                            Color color = label.getColor();
+                            putByte((byte) (color == null ? 1 : 2));
+                            putString(label.getLabel());
+                            if (color != null) {
+                                putInt(color.getRGB());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Makes sure that the buffer has room for the given number of bytes.
+         *
+         * @param numberOfBytes the number of bytes
+         * @throws IOException if the buffer cannot be written
+         */
+        private void ensureCapacity(int numberOfBytes) throws IOException {
+            if (buffer.remaining() < numberOfBytes) {
+                writeBuffer();
+            }
+        }
+
+        /**
+         * Writes a byte.
+         *
+         * @param value the value
+         * @throws IOException if the buffer cannot be written
+         */
+        private void putByte(byte value) throws IOException {
+            ensureCapacity(1);
+            buffer.put(value);
+        }
+
+        /**
+         * Writes an int.
+         *
+         * @param value the value
+         * @throws IOException if the buffer cannot be written
+         */
+        private void putInt(int value) throws IOException {
+            ensureCapacity(4);
+            buffer.putInt(value);
+        }
+
+        /**
+         * Writes a double.
+         *
+         * @param value the value
+         * @throws IOException if the buffer cannot be written
+         */
+        private void putDouble(double value) throws IOException {
+            ensureCapacity(8);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * Writes a string as the number of UTF-8 bytes followed by the bytes,
+         * -1 for null.
+         *
+         * @param value the string, can be null
+         * @throws IOException if the buffer cannot be written
+         */
+        private void putString(String value) throws IOException {
+
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensureCapacity(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * Writes the buffer to the channel.
+         *
+         * @throws IOException if the buffer cannot be written
+         */
+        private void writeBuffer() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBuffer();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writeBuffer();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the columns written by a Writer.
+     */
+    public static class Reader implements Closeable {
+
+        /**
+         * The channel to read from.
+         */
+        private final ReadableByteChannel channel;
+        /**
+         * The buffer holding the bytes read but not yet decoded.
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        /**
+         * The format version of the stream.
+         */
+        private final int formatVersion;
+
+        /**
+         * Creates a new Reader and reads the header.
+         *
+         * @param inputStream the stream to read from
+         * @throws IOException if the header cannot be read, or the stream is
+         * not in a supported format
+         */
+        public Reader(InputStream inputStream) throws IOException {
+            this(Channels.newChannel(inputStream));
+        }
+
+        /**
+         * Creates a new Reader and reads the header.
+         *
+         * @param channel the channel to read from
+         * @throws IOException if the header cannot be read, or the stream is
+         * not in a supported format
+         */
+        public Reader(ReadableByteChannel channel) throws IOException {
+
+            this.channel = channel;
+            buffer.limit(0);
+
+            if (getInt() != MAGIC_NUMBER) {
+                throw new IOException("Not a JSparklines data stream.");
+            }
+
+            formatVersion = getInt();
+
+            if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+                throw new IOException("Unsupported format version: " + formatVersion + ".");
+            }
+        }
+
+        /**
+         * Returns the format version of the stream.
+         *
+         * @return the format version
+         */
+        public int getFormatVersion() {
+            return formatVersion;
+        }
+
+        /**
+         * Reads the next column.
+         *
+         * @param <T> the type of the values
+         * @param type the class of the values, has to be the class the column
+         * was written with
+         * @return the values, null if the end of the stream is reached
+         * @throws IOException if the column cannot be read, or the column is
+         * not of the given type
+         */
+        public <T> ArrayList<T> readColumn(Class<T> type) throws IOException {
+
+            byte typeCode = getTypeCode(type);
+
+            if (!fill(1)) {
+                return null;
+            }
+
+            byte columnTypeCode = buffer.get();
+
+            if (columnTypeCode != typeCode) {
+                throw new IOException("Expected a column of type " + typeCode + ", found " + columnTypeCode + ".");
+            }
+
+            int size = getInt();
+
+            if (size < 0) {
+                throw new IOException("Invalid column size: " + size + ".");
+            }
+
+            boolean[] isNull = new boolean[size];
+            int numberOfValues = size;
+
+            for (int i = 0; i < size; i += 8) {
+                int bits = getByte();
+                for (int j = i; j < Math.min(size, i + 8); j++) {
+                    if ((bits & (1 << (j - i))) != 0) {
+                        isNull[j] = true;
+                        numberOfValues--;
+                    }
+                }
+            }
+
+            Object[] values;
+
+            switch (typeCode) {
+                case ARRAY_LIST_DATA_POINTS:
+                    values = readArrayListDataPoints(numberOfValues);
+                    break;
+                case XY_DATA_POINT:
+                    values = readXYDataPoints(numberOfValues);
+                    break;
+                case XYZ_DATA_POINT:
+                    values = readXYZDataPoints(numberOfValues);
+                    break;
+                case START_INDEXES:
+                    values = readStartIndexes(numberOfValues);
+                    break;
+                case CHROMOSOME:
+                    values = new Object[numberOfValues];
+                    for (int i = 0; i < numberOfValues; i++) {
+                        values[i] = new Chromosome(getString());
+                    }
+                    break;
+                case VALUE_AND_BOOLEAN_DATA_POINT:
+                    values = readValueAndBooleanDataPoints(numberOfValues);
+                    break;
+                default: // MULTI_LABEL_DATASET
+                    values = readMultiLabelDatasets(numberOfValues);
+                    break;
+            }
+
+            ArrayList<T> column = new ArrayList<>(size);
+
+            for (int i = 0, j = 0; i < size; i++) {
+                column.add(isNull[i] ? null : type.cast(values[j++]));
+            }
+
+            return column;
+        }
+
+        /**
+         * Reads ArrrayListDataPoints.
+         *
+         * @param numberOfValues the number of non-null values
+         * @return the values
+         * @throws IOException if the values cannot be read
+         */
+        private Object[] readArrayListDataPoints(int numberOfValues) throws IOException {
+
+            ValueDisplayType[] displayTypes = ValueDisplayType.values();
+            byte[] displayTypeIndexes = new byte[numberOfValues];
+            int[] sizes = new int[numberOfValues];
+
+            for (int i = 0; i < numberOfValues; i++) {
+                displayTypeIndexes[i] = getByte();
+            }
+            for (int i = 0; i < numberOfValues; i++) {
+                sizes[i] = getInt();
+            }
+
+            Object[] values = new Object[numberOfValues];
+
+            for (int i = 0; i < numberOfValues; i++) {
+
+                ArrayList<Double> data = null;
+
+                if (sizes[i] >= 0) {
+                    data = new ArrayList<>(sizes[i]);
+                    for (int j = 0; j < sizes[i]; j++) {
+                        data.add(getDouble());
+                    }
+                }
+
+                int displayTypeIndex = displayTypeIndexes[i];
+                if (displayTypeIndex >= displayTypes.length) {
+                    throw new IOException("Unknown value display type: " + displayTypeIndex + ".");
+                }
+
+                values[i] = new ArrrayListDataPoints(data, displayTypeIndex < 0 ? null : displayTypes[displayTypeIndex]);
+            }
+
+            return values;
+        }
+
+        /**
+         * Reads XYDataPoints.
+         *
+         * @param numberOfValues the number of non-null values
+         * @return the values
+         * @throws IOException if the values cannot be read
+         */
+        private Object[] readXYDataPoints(int numberOfValues) throws IOException {
+
+            double[] x = getDoubles(numberOfValues);
+            double[] y = getDoubles(numberOfValues);
+            Object[] values = new Object[numberOfValues];
+
+            for (int i = 0; i < numberOfValues; i++) {
+                values[i] = new XYDataPoint(x[i], y[i], getByte() != 0);
+            }
+
+            return values;
+        }
+
+        /**
+         * Reads XYZDataPoints.
+         *
+         * @param numberOfValues the number of non-null values
+         * @return the values
+         * @throws IOException if the values cannot be read
+         */
+        private Object[] readXYZDataPoints(int numberOfValues) throws IOException {
+
+            double[] x = getDoubles(numberOfValues);
+            double[] y = getDoubles(numberOfValues);
+            Object[] values = new Object[numberOfValues];
+
+            for (int i = 0; i < numberOfValues; i++) {
+                values[i] = new XYZDataPoint(x[i], y[i], getDouble());
+            }
+
+            return values;
+        }
+
+        /**
+         * Reads StartIndexes.
+         *
+         * @param numberOfValues the number of non-null values
+         * @return the values
+         * @throws IOException if the values cannot be read
+         */
+        private Object[] readStartIndexes(int numberOfValues) throws IOException {
+
+            int[] sizes = new int[numberOfValues];
+
+            for (int i = 0; i < numberOfValues; i++) {
+                sizes[i] = getInt();
+            }
+
+            Object[] values = new Object[numberOfValues];
+
+            for (int i = 0; i < numberOfValues; i++) {
+
+                int[] indexes = new int[Math.max(0, sizes[i])];
+
+                for (int j = 0; j < indexes.length; j++) {
+                    indexes[j] = getInt();
+                }
+
+                values[i] = new StartIndexes(indexes);
+            }
+
+            return values;
+        }
+
+        /**
+         * Reads ValueAndBooleanDataPoints.
+         *
+         * @param numberOfValues the number of non-null values
+         * @return the values
+         * @throws IOException if the values cannot be read
+         */
+        private Object[] readValueAndBooleanDataPoints(int numberOfValues) throws IOException {
+
+            double[] dataPoints = getDoubles(numberOfValues);
+            Object[] values = new Object[numberOfValues];
+
+            for (int i = 0; i < numberOfValues; i++) {
+                values[i] = new ValueAndBooleanDataPoint(dataPoints[i], getByte() != 0);
+            }
+
+            return values;
+        }
+
+        /**
+         * Reads JSparklinesMultiLabelDatasets.
+         *
+         * @param numberOfValues the number of non-null values
+         * @return the values
+         * @throws IOException if the values cannot be read
+         */
+        private Object[] readMultiLabelDatasets(int numberOfValues) throws IOException {
+
+            int[] sizes = new int[numberOfValues];
+
+            for (int i = 0; i < numberOfValues; i++) {
+                sizes[i] = getInt();
+            }
+
+            Object[] values = new Object[numberOfValues];
+
+            for (int i = 0; i < numberOfValues; i++) {
+
+                ArrayList<JSparklinesMultiLabel> labels = null;
+
+                if (sizes[i] >= 0) {
+                    labels = new ArrayList<>(sizes[i]);
+                    for (int j = 0; j < sizes[i]; j++) {
+                        byte labelType = getByte();
+                        if (labelType == 0) {
+                            labels.add(null);
+                        } else {
+                            String label = getString();
+                            Color color = labelType == 2 ? new Color(getInt(), true) : null;
+                            labels.add(new JSparklinesMultiLabel(label, color));
+                        }
+                    }
+                }
+
+                values[i] = new JSparklinesMultiLabelDataset(labels);
+            }
+
+            return values;
+        }
+
+        /**
+         * Makes sure that the buffer contains at least the given number of
+         * bytes.
+         *
+         * @param numberOfBytes the number of bytes, at most the buffer size
+         * @return false if the end of the stream was reached before any bytes
+         * were read
+         * @throws IOException if the stream cannot be read, or it ends in the
+         * middle of a value
+         */
+        private boolean fill(int numberOfBytes) throws IOException {
+
+            if (buffer.remaining() >= numberOfBytes) {
+                return true;
+            }
+
+            boolean empty = !buffer.hasRemaining();
+            buffer.compact();
+
+            try {
+                while (buffer.position() < numberOfBytes) {
+                    if (channel.read(buffer) == -1) {
+                        if (empty && buffer.position() == 0) {
+                            return false;
+                        }
+                        throw new EOFException("Unexpected end of the JSparklines data stream.");
+                    }
+                }
+            } finally {
+                buffer.flip();
+            }
+
+            return true;
+        }
+
+        /**
+         * Reads a byte.
+         *
+         * @return the value
+         * @throws IOException if the value cannot be read
+         */
+        private byte getByte() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        /**
+         * Reads an int.
+         *
+         * @return the value
+         * @throws IOException if the value cannot be read
+         */
+        private int getInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        /**
+         * Reads a double.
+         *
+         * @return the value
+         * @throws IOException if the value cannot be read
+         */
+        private double getDouble() throws IOException {
+            require(8);
+            return buffer.getDouble();
+        }
+
+        /**
+         * Reads the given number of doubles.
+         *
+         * @param numberOfValues the number of values
+         * @return the values
+         * @throws IOException if the values cannot be read
+         */
+        private double[] getDoubles(int numberOfValues) throws IOException {
+            double[] values = new double[numberOfValues];
+            for (int i = 0; i < numberOfValues; i++) {
+                values[i] = getDouble();
+            }
+            return values;
+        }
+
+        /**
+         * Reads a string written as the number of UTF-8 bytes followed by the
+         * bytes.
+         *
+         * @return the string, can be null
+         * @throws IOException if the string cannot be read
+         */
+        private String getString() throws IOException {
+
+            int length = getInt();
+
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0) {
+                throw new IOException("Invalid string length: " + length + ".");
+            }
+
+            byte[] bytes = new byte[length];
+            int offset = 0;
+
+            while (offset < length) {
+                require(1);
+                int chunk = Math.min(buffer.remaining(), length - offset);
+                buffer.get(bytes, offset, chunk);
+                offset += chunk;
+            }
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Makes sure that the buffer contains at least the given number of
+         * bytes.
+         *
+         * @param numberOfBytes the number of bytes
+         * @throws IOException if the stream ends before the bytes are read
+         */
+        private void require(int numberOfBytes) throws IOException {
+            if (!fill(numberOfBytes)) {
+                throw new EOFException("Unexpected end of the JSparklines data stream.");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -2,21 +2,42 @@ package no.uib.jsparklines.data;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import no.uib.jsparklines.renderers.util.Util;
+import org.jfree.data.statistics.BoxAndWhiskerItem;
 
 /**
  * Object containing a sparkline data series to be added to a
- * JSparklinesDataset.
+ * JSparklinesDataset. The values are either stored in an ArrayList of Doubles,
+ * or in a primitive double array when created from a double array. The
+ * primitive accessors, size, getValue and getValues, work for both and do not
+ * box the values.
  *
  * @author Harald Barsnes
  */
 public class JSparklinesDataSeries {
 
     /**
-     * The data to plot.
+     * The data to plot, null if the values are stored in the primitive array.
      */
     private ArrayList<Double> data;
+    /**
+     * The data to plot as a primitive array, null if the values are stored in
+     * the list.
+     */
+    private double[] values;
+    /**
+     * The list returned by getData for a series backed by the primitive
+     * array, null if not created. Becomes the backing data the first time it
+     * is changed.
+     */
+    private DataList dataList = null;
     /**
      * The color to use for this data series.
      */
@@ -33,6 +54,30 @@ public class JSparklinesDataSeries {
      * The default width of the lines in line plots.
      */
     private float lineWidth = 5;
+    /**
+     * Incremented every time the data is set or changed through the list
+     * returned by getData. Used by the datasets to detect when their cached sort keys are outdated.
+     */
+    private int version = 0;
+    /**
+     * The cached box and whisker statistics, null if not calculated.
+     */
+    private BoxAndWhiskerItem boxAndWhiskerItem = null;
+    /**
+     * The version of the data the box and whisker statistics were calculated
+     * for.
+     */
+    private int boxAndWhiskerItemVersion;
+    /**
+     * The cached approximate box and whisker statistics, null if not
+     * calculated.
+     */
+    private BoxAndWhiskerItem approximateBoxAndWhiskerItem = null;
+    /**
+     * The version of the data the approximate box and whisker statistics were
+     * calculated for.
+     */
+    private int approximateBoxAndWhiskerItemVersion;
 
     /**
      * Creates a new JSparklinesDataSeries.
@@ -65,12 +110,54 @@ public class JSparklinesDataSeries {
     }
 
     /**
-     * Returns the sparkline data.
+     * Creates a new JSparklinesDataSeries backed by a primitive double array.
+     * The array is used as is, i.e., not copied.
+     *
+     * @param values the data to plot
+     * @param seriesColor the color to use for the series
+     * @param seriesLabel the data series label
+     */
+    public JSparklinesDataSeries(double[] values, Color seriesColor, String seriesLabel) {
+        this.values = values;
+        this.seriesColor = seriesColor;
+        this.seriesLabel = seriesLabel;
+
+        lineType = new BasicStroke(lineWidth, BasicStroke.JOIN_ROUND, BasicStroke.CAP_ROUND);
+    }
+
+    /**
+     * Creates a new JSparklinesDataSeries backed by a primitive double array.
+     * The array is used as is, i.e., not copied.
+     *
+     * @param values the data to plot
+     * @param seriesColor the color to use for the series
+     * @param seriesLabel the data series label
+     * @param lineType the properties of the line when displayed as a line chart
+     */
+    public JSparklinesDataSeries(double[] values, Color seriesColor, String seriesLabel, BasicStroke lineType) {
+        this.values = values;
+        this.seriesColor = seriesColor;
+        this.seriesLabel = seriesLabel;
+        this.lineType = lineType;
+    }
+
+    /**
+     * Returns the sparkline data. If the series is backed by a primitive
+     * array, a list with the values is returned, and the series keeps using
+     * the array until the list is changed. The list then becomes the backing
+     * data, such that the changes are reflected in the series, and the
+     * version of the data is incremented. Note that changes made to a list
+     * given to the constructor or to setData are not detected, call setData
+     * again in that case. Use size, getValue or getValues to access the
+     * values without boxing.
      *
      * @return the sparkline data
      */
     public ArrayList<Double> getData() {
-        return data;
+        if (values != null && dataList == null) {
+            dataList = new DataList(values);
+        }
+        return values != null ? dataList : data;
     }
 
     /**
@@ -80,6 +167,149 @@ public class JSparklinesDataSeries {
      */
     public void setData(ArrayList<Double> data) {
         this.data = data;
+        this.values = null;
+        dataList = null;
+        version++;
+        clearBoxAndWhiskerItems();
+    }
+
+    /**
+     * Sets the sparkline data as a primitive array. The array is used as is,
+     * i.e., not copied.
+     *
+     * @param values the data to set
+     */
+    public void setValues(double[] values) {
+        this.values = values;
+        this.data = null;
+        dataList = null;
+        version++;
+        clearBoxAndWhiskerItems();
+    }
+
+    /**
+     * Returns a read-only view of the sparkline data. If the series is backed
+     * by a list the values are copied into a new array.
+     *
+     * @return a read-only view of the sparkline data
+     */
+    public DoubleBuffer getValues() {
+        if (values != null) {
+            return DoubleBuffer.wrap(values).asReadOnlyBuffer();
+        }
+        double[] copy = new double[data.size()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = data.get(i);
+        }
+        return DoubleBuffer.wrap(copy).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the number of values in the series.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        if (values != null) {
+            return values.length;
+        }
+        return data.size();
+    }
+
+    /**
+     * Returns the value at the given index.
+     *
+     * @param index the index
+     * @return the value at the given index
+     */
+    public double getValue(int index) {
+        if (values != null) {
+            return values[index];
+        }
+        return data.get(index);
+    }
+
+    /**
+     * Returns the version of the data. The version is incremented every time
+     * the data is set, and every time the data is changed through a list
+     * returned by getData for a series created from a primitive array.
+     *
+     * @return the version of the data
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the box and whisker statistics of the values, as calculated by
+     * BoxPlotStatistics.calculate. The statistics are cached until the version
+     * of the data changes, i.e., the values are sorted once and not every time
+     * the box plot is drawn.
+     *
+     * @return the box and whisker statistics
+     */
+    public BoxAndWhiskerItem getBoxAndWhiskerItem() {
+        int currentVersion = getVersion();
+        if (boxAndWhiskerItem == null || boxAndWhiskerItemVersion != currentVersion) {
+            boxAndWhiskerItem = BoxPlotStatistics.calculate(this);
+            boxAndWhiskerItemVersion = currentVersion;
+        }
+        return boxAndWhiskerItem;
+    }
+
+    /**
+     * Returns the approximate box and whisker statistics of the values,
+     * estimated by BoxPlotStatistics.estimate using a KllQuantileSketch with
+     * the default size parameter. Uses bounded memory and avoids sorting, and
+     * is therefore recommended for series with millions of values. The
+     * statistics are cached until the version of the data changes.
+     *
+     * @return the approximate box and whisker statistics
+     */
+    public BoxAndWhiskerItem getApproximateBoxAndWhiskerItem() {
+        int currentVersion = getVersion();
+        if (approximateBoxAndWhiskerItem == null || approximateBoxAndWhiskerItemVersion != currentVersion) {
+            approximateBoxAndWhiskerItem = BoxPlotStatistics.estimate(this, KllQuantileSketch.DEFAULT_K);
+            approximateBoxAndWhiskerItemVersion = currentVersion;
+        }
+        return approximateBoxAndWhiskerItem;
+    }
+
+    /**
+     * Clears the cached box and whisker statistics.
+     */
+    private void clearBoxAndWhiskerItems() {
+        boxAndWhiskerItem = null;
+        approximateBoxAndWhiskerItem = null;
+    }
+
+    /**
+     * Called before the given list returned by getData is changed. Makes the
+     * list the backing data if the series is still backed by the primitive
+     * array the list was created from, and increments the version. Changes to
+     * lists no longer used by the series are ignored.
+     *
+     * @param list the list to be changed
+     */
+    private void dataListChanged(DataList list) {
+        if (list == dataList) {
+            data = list;
+            values = null;
+            dataList = null;
+        }
+        if (list == data) {
+            version++;
+            clearBoxAndWhiskerItems();
+        }
+    }
+
+    /**
+     * Returns true if the values are stored in a primitive array.
+     *
+     * @return true if the values are stored in a primitive array
+     */
+    public boolean isPrimitive() {
+        return values != null;
     }
 
     /**
@@ -146,17 +376,145 @@ public class JSparklinesDataSeries {
      */
     public String toString() {
 
-        if (data.isEmpty()) {
-            return "";
+        StringBuilder temp = new StringBuilder();
+        appendValues(temp);
+
+        return temp.toString();
+    }
+
+    /**
+     * Appends the values to the given string builder, separated by commas.
+     * Note that the values are rounded to two decimals.
+     *
+     * @param stringBuilder the string builder to append the values to
+     */
+    public void appendValues(StringBuilder stringBuilder) {
+
+        int size = size();
+
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                stringBuilder.append(",");
+            }
+            stringBuilder.append(Util.roundDouble(getValue(i), 2));
         }
+    }
 
-        StringBuilder temp = new StringBuilder();
-        temp.append(Util.roundDouble(data.get(0), 2));
+    /**
+     * The list returned by getData for a series backed by a primitive array.
+     * Holds a copy of the values, and notifies the series before the first
+     * change, such that the series only switches to the list when the values
+     * are actually changed. The iterators change the list via set, add and
+     * remove, while the sub lists change the list directly, and are therefore
+     * treated as changes when created.
+     */
+    private class DataList extends ArrayList<Double> {
 
-        for (int i = 1; i < data.size(); i++) {
-            temp.append(",").append(Util.roundDouble(data.get(i), 2));
+        /**
+         * The serial version UID.
+         */
+        static final long serialVersionUID = -3384529823557617127L;
+
+        /**
+         * Creates a new DataList with the given values.
+         *
+         * @param values the values
+         */
+        DataList(double[] values) {
+            super(values.length);
+            for (double value : values) {
+                super.add(value);
+            }
         }
 
-        return temp.toString();
+        @Override
+        public Double set(int index, Double element) {
+            dataListChanged(this);
+            return super.set(index, element);
+        }
+
+        @Override
+        public boolean add(Double element) {
+            dataListChanged(this);
+            return super.add(element);
+        }
+
+        @Override
+        public void add(int index, Double element) {
+            dataListChanged(this);
+            super.add(index, element);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Double> elements) {
+            dataListChanged(this);
+            return super.addAll(elements);
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends Double> elements) {
+            dataListChanged(this);
+            return super.addAll(index, elements);
+        }
+
+        @Override
+        public Double remove(int index) {
+            dataListChanged(this);
+            return super.remove(index);
+        }
+
+        @Override
+        public boolean remove(Object element) {
+            dataListChanged(this);
+            return super.remove(element);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> elements) {
+            dataListChanged(this);
+            return super.removeAll(elements);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> elements) {
+            dataListChanged(this);
+            return super.retainAll(elements);
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Double> filter) {
+            dataListChanged(this);
+            return super.removeIf(filter);
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            dataListChanged(this);
+            super.removeRange(fromIndex, toIndex);
+        }
+
+        @Override
+        public void replaceAll(UnaryOperator<Double> operator) {
+            dataListChanged(this);
+            super.replaceAll(operator);
+        }
+
+        @Override
+        public void sort(Comparator<? super Double> comparator) {
+            dataListChanged(this);
+            super.sort(comparator);
+        }
+
+        @Override
+        public void clear() {
+            dataListChanged(this);
+            super.clear();
+        }
+
+        @Override
+        public List<Double> subList(int fromIndex, int toIndex) {
+            dataListChanged(this);
+            return super.subList(fromIndex, toIndex);
+        }
     }
 }
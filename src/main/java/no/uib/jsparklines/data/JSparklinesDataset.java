@@ -1,6 +1,7 @@
 package no.uib.jsparklines.data;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 
 /**
  * Object storing a set of JSparklineDataSeries in an array.
@@ -9,10 +10,50 @@ import java.util.ArrayList;
  */
 public class JSparklinesDataset implements Comparable<JSparklinesDataset> {
 
+    /**
+     * The supported sort keys.
+     */
+    public enum SortKey {
+
+        /**
+         * The summed absolute value of all the values. Used by compareTo.
+         */
+        sumOfAbsoluteValues,
+        /**
+         * The mean of all the values.
+         */
+        mean,
+        /**
+         * The maximum value.
+         */
+        max,
+        /**
+         * The last value of the last non-empty data series.
+         */
+        lastValue,
+        /**
+         * The slope of the least squares line through all the values, using
+         * the index of the value in its data series as the x value.
+         */
+        slope
+    }
     /**
      * The list of sparklines data series.
      */
     private ArrayList<JSparklinesDataSeries> data;
+    /**
+     * The cached sort keys, indexed by the SortKey ordinal. Null if not
+     * computed.
+     */
+    private double[] sortKeys = null;
+    /**
+     * The data series the sort keys were computed from.
+     */
+    private JSparklinesDataSeries[] sortKeysSeries = null;
+    /**
+     * The versions of the data series when the sort keys were computed.
+     */
+    private int[] sortKeysSeriesVersions = null;
 
     /**
      * Creates a new JSparklineDataset.
@@ -39,6 +80,7 @@ public class JSparklinesDataset implements Comparable<JSparklinesDataset> {
      */
     public void setData(ArrayList<JSparklinesDataSeries> data) {
         this.data = data;
+        invalidateSortKeys();
     }
 
     /**
@@ -49,60 +91,223 @@ public class JSparklinesDataset implements Comparable<JSparklinesDataset> {
      */
     public String toString() {
 
-        if (data.isEmpty()) {
-            return "";
+        StringBuilder temp = new StringBuilder();
+
+        for (int i = 0; i < data.size(); i++) {
+            if (i > 0) {
+                temp.append(", ");
+            }
+            temp.append("[");
+            data.get(i).appendValues(temp);
+            temp.append("]");
         }
 
-        String temp = "";
+        return temp.toString();
+    }
 
-        temp += "[" + data.get(0).toString() + "]";
+    /**
+     * Returns the summed absolute value of all the values in the dataset.
+     *
+     * @return the summed absolute value
+     */
+    public double getSummedAbsoluteValue() {
+        return getSortKey(SortKey.sumOfAbsoluteValues);
+    }
 
-        for (int i = 1; i < data.size(); i++) {
-            temp += ", [" + data.get(i).toString() + "]";
+    /**
+     * Returns the given sort key. The sort keys are computed in one pass over
+     * the data and cached until the data changes, i.e., until setData is
+     * called on the dataset or on one of its data series, or a data series is
+     * added, removed or replaced. Changes made directly to a list given to a
+     * data series are not detected, use invalidateSortKeys in that case.
+     * Changes made through the list returned by JSparklinesDataSeries.getData
+     * for a series created from a primitive array are detected.
+     *
+     * @param sortKey the sort key
+     * @return the value of the sort key
+     */
+    public double getSortKey(SortKey sortKey) {
+        if (!sortKeysValid()) {
+            computeSortKeys();
         }
+        return sortKeys[sortKey.ordinal()];
+    }
 
-        return temp;
+    /**
+     * Clears the cached sort keys, forcing them to be computed again the next
+     * time they are needed.
+     */
+    public void invalidateSortKeys() {
+        sortKeys = null;
+        sortKeysSeries = null;
+        sortKeysSeriesVersions = null;
     }
 
     /**
-     * Compares based on the summed absolute value of each dataset.
+     * Returns the version of the data. The version changes every time the
+     * list of data series is set, a data series is added, removed or
+     * replaced, or the version of one of the data series changes. Used by the
+     * image caches to detect changes to the data. As for the sort keys,
+     * changes made directly to a list given to a data series are not
+     * detected.
+     *
+     * @return the version of the data
      */
-    public int compareTo(JSparklinesDataset o) {
+    public int getVersion() {
 
-        if (o == null) {
-            return 1;
+        int version = 31 * System.identityHashCode(data) + data.size();
+
+        for (int i = 0; i < data.size(); i++) {
+            JSparklinesDataSeries series = data.get(i);
+            version = 31 * version + System.identityHashCode(series);
+            version = 31 * version + series.getVersion();
         }
 
-        double sumThis = 0.0;
-        for (int i = 0; i < this.getData().size(); i++) {
-            JSparklinesDataSeries series = this.getData().get(i);
+        return version;
+    }
 
-            for (int j = 0; j < series.getData().size(); j++) {
-                sumThis += Math.abs(series.getData().get(j));
+    /**
+     * Returns true if the cached sort keys are still valid for the current
+     * data.
+     *
+     * @return true if the cached sort keys are valid
+     */
+    private boolean sortKeysValid() {
+
+        if (sortKeys == null || sortKeysSeries.length != data.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < sortKeysSeries.length; i++) {
+            JSparklinesDataSeries series = data.get(i);
+            if (series != sortKeysSeries[i] || series.getVersion() != sortKeysSeriesVersions[i]) {
+                return false;
             }
         }
 
-        double sumOther = 0.0;
-        for (int i = 0; i < o.getData().size(); i++) {
-            JSparklinesDataSeries series = o.getData().get(i);
+        return true;
+    }
 
-            for (int j = 0; j < series.getData().size(); j++) {
-                sumOther += Math.abs(series.getData().get(j));
+    /**
+     * Computes all the sort keys in one pass over the data.
+     */
+    private void computeSortKeys() {
+
+        int numberOfSeries = data.size();
+        JSparklinesDataSeries[] series = new JSparklinesDataSeries[numberOfSeries];
+        int[] versions = new int[numberOfSeries];
+
+        double sumOfAbsoluteValues = 0.0;
+        double sum = 0.0;
+        double max = Double.NaN;
+        double lastValue = Double.NaN;
+        long count = 0;
+        double sumX = 0.0, sumXX = 0.0, sumXY = 0.0;
+
+        for (int i = 0; i < numberOfSeries; i++) {
+
+            JSparklinesDataSeries dataSeries = data.get(i);
+            series[i] = dataSeries;
+            versions[i] = dataSeries.getVersion();
+
+            int size = dataSeries.size();
+
+            for (int j = 0; j < size; j++) {
+
+                double value = dataSeries.getValue(j);
+
+                sumOfAbsoluteValues += Math.abs(value);
+                sum += value;
+
+                if (!Double.isNaN(value) && (Double.isNaN(max) || value > max)) {
+                    max = value;
+                }
+
+                sumX += j;
+                sumXX += ((double) j) * j;
+                sumXY += j * value;
+                count++;
             }
+
+            if (size > 0) {
+                lastValue = dataSeries.getValue(size - 1);
+            }
+        }
+
+        double[] keys = new double[SortKey.values().length];
+        keys[SortKey.sumOfAbsoluteValues.ordinal()] = sumOfAbsoluteValues;
+        keys[SortKey.mean.ordinal()] = count > 0 ? sum / count : Double.NaN;
+        keys[SortKey.max.ordinal()] = max;
+        keys[SortKey.lastValue.ordinal()] = lastValue;
+
+        double denominator = count * sumXX - sumX * sumX;
+        if (denominator != 0) {
+            keys[SortKey.slope.ordinal()] = (count * sumXY - sumX * sum) / denominator;
+        } else {
+            keys[SortKey.slope.ordinal()] = count > 0 ? 0.0 : Double.NaN;
+        }
+
+        sortKeys = keys;
+        sortKeysSeries = series;
+        sortKeysSeriesVersions = versions;
+    }
+
+    /**
+     * Compares based on the summed absolute value of each dataset.
+     */
+    public int compareTo(JSparklinesDataset o) {
+
+        if (o == null) {
+            return 1;
         }
 
-        if (Double.isNaN(sumThis) && Double.isNaN(sumOther)) {
+        return compareSortKeys(getSortKey(SortKey.sumOfAbsoluteValues), o.getSortKey(SortKey.sumOfAbsoluteValues));
+    }
+
+    /**
+     * Compares two sort key values, with NaN values sorted before all other
+     * values.
+     *
+     * @param keyThis the first sort key value
+     * @param keyOther the second sort key value
+     * @return the comparison result
+     */
+    private static int compareSortKeys(double keyThis, double keyOther) {
+
+        if (Double.isNaN(keyThis) && Double.isNaN(keyOther)) {
             return 0;
         }
 
-        if (Double.isNaN(sumThis)) {
+        if (Double.isNaN(keyThis)) {
             return -1;
         }
 
-        if (Double.isNaN(sumOther)) {
+        if (Double.isNaN(keyOther)) {
             return 1;
         }
 
-        return Double.compare(sumThis, sumOther);
+        return Double.compare(keyThis, keyOther);
+    }
+
+    /**
+     * Returns a comparator comparing the datasets based on the given sort key,
+     * for example for use in a TableRowSorter. Null datasets are sorted first.
+     *
+     * @param sortKey the sort key
+     * @return a comparator for the given sort key
+     */
+    public static Comparator<JSparklinesDataset> getComparator(final SortKey sortKey) {
+        return new Comparator<JSparklinesDataset>() {
+            @Override
+            public int compare(JSparklinesDataset o1, JSparklinesDataset o2) {
+                if (o1 == null) {
+                    return o2 == null ? 0 : -1;
+                }
+                if (o2 == null) {
+                    return 1;
+                }
+                return compareSortKeys(o1.getSortKey(sortKey), o2.getSortKey(sortKey));
+            }
+        };
     }
 }
@@ -72,6 +72,16 @@ public class JSparklinesMultiLabelDataset implements Serializable {
         labels.add(labelD);
     }
 
+    /**
+     * Constructor for a list of labels. The list is used as is, i.e., not
+     * copied.
+     *
+     * @param labels the labels
+     */
+    public JSparklinesMultiLabelDataset(ArrayList<JSparklinesMultiLabel> labels) {
+        this.labels = labels;
+    }
+
     /**
      * Returns the labels (1-4).
      *
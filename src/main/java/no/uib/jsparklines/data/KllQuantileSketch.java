@@ -0,0 +1,379 @@
+package no.uib.jsparklines.data;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Streaming quantile sketch using bounded memory, based on the KLL sketch by
+ * Karnin, Lang and Liberty. The values are kept in levels of compactors,
+ * where a value on level h represents 2^h input values. When the sketch is
+ * full the lowest full level is sorted and every other value is promoted to
+ * the next level. The capacity of the levels decreases geometrically from the
+ * top level down, such that the sketch retains about 3k values regardless of
+ * the number of values added. The rank error is roughly 1.65 / k, i.e., about
+ * 1% for the default k of 200.
+ * <br><br>
+ * The number of values, the mean, and the min and max values are exact. NaN
+ * values are ignored. The compactions use a fixed seed, such that the same
+ * values always give the same sketch.
+ *
+ * @author Harald Barsnes
+ */
+public class KllQuantileSketch {
+
+    /**
+     * The default size parameter.
+     */
+    public static final int DEFAULT_K = 200;
+    /**
+     * The minimum capacity of a level.
+     */
+    private static final int MIN_LEVEL_CAPACITY = 2;
+    /**
+     * The capacity of a level relative to the capacity of the level above.
+     */
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+    /**
+     * The size parameter, i.e., the capacity of the top level.
+     */
+    private final int k;
+    /**
+     * The values retained per level.
+     */
+    private double[][] levels = new double[1][];
+    /**
+     * The number of values on each level.
+     */
+    private int[] levelSizes = new int[1];
+    /**
+     * The number of levels.
+     */
+    private int numberOfLevels = 1;
+    /**
+     * The total number of retained values.
+     */
+    private int numberOfRetainedValues = 0;
+    /**
+     * The total capacity of the levels.
+     */
+    private int totalCapacity;
+    /**
+     * The number of values added, NaN values excluded.
+     */
+    private long n = 0;
+    /**
+     * The sum of the values added.
+     */
+    private double sum = 0;
+    /**
+     * The smallest value added.
+     */
+    private double minValue = Double.NaN;
+    /**
+     * The largest value added.
+     */
+    private double maxValue = Double.NaN;
+    /**
+     * Decides which half of a level is promoted.
+     */
+    private final Random random = new Random(42);
+    /**
+     * The retained values in sorted order, null if they have to be sorted.
+     */
+    private double[] sortedValues = null;
+    /**
+     * The cumulative weights of the sorted values.
+     */
+    private long[] cumulativeWeights = null;
+
+    /**
+     * Creates a new KllQuantileSketch with the default size parameter.
+     */
+    public KllQuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates a new KllQuantileSketch.
+     *
+     * @param k the size parameter, larger values give more accurate quantiles
+     * at the cost of more memory
+     * @throws IllegalArgumentException if k is less than two
+     */
+    public KllQuantileSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("The size parameter has to be at least " + MIN_LEVEL_CAPACITY + "! Current value: " + k + ".");
+        }
+        this.k = k;
+        levels[0] = new double[k];
+        totalCapacity = getCapacity(0);
+    }
+
+    /**
+     * Adds a value to the sketch. NaN values are ignored.
+     *
+     * @param value the value to add
+     */
+    public void update(double value) {
+
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        if (n == 0) {
+            minValue = value;
+            maxValue = value;
+        } else {
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+        }
+
+        n++;
+        sum += value;
+
+        add(0, value);
+
+        while (numberOfRetainedValues >= totalCapacity) {
+            compress();
+        }
+
+        sortedValues = null;
+    }
+
+    /**
+     * Returns the size parameter.
+     *
+     * @return the size parameter
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Returns the number of values added, NaN values excluded.
+     *
+     * @return the number of values added
+     */
+    public long getN() {
+        return n;
+    }
+
+    /**
+     * Returns the mean of the values added.
+     *
+     * @return the mean, NaN if no values were added
+     */
+    public double getMean() {
+        return n == 0 ? Double.NaN : sum / n;
+    }
+
+    /**
+     * Returns the smallest value added.
+     *
+     * @return the smallest value, NaN if no values were added
+     */
+    public double getMinValue() {
+        return minValue;
+    }
+
+    /**
+     * Returns the largest value added.
+     *
+     * @return the largest value, NaN if no values were added
+     */
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Returns the number of values retained by the sketch.
+     *
+     * @return the number of retained values
+     */
+    public int getNumberOfRetainedValues() {
+        return numberOfRetainedValues;
+    }
+
+    /**
+     * Returns the retained value at the given index, in sorted order.
+     *
+     * @param index the index
+     * @return the retained value
+     */
+    public double getRetainedValue(int index) {
+        sort();
+        if (index < 0 || index >= numberOfRetainedValues) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", number of retained values: " + numberOfRetainedValues + ".");
+        }
+        return sortedValues[index];
+    }
+
+    /**
+     * Returns the approximate quantile, i.e., the smallest retained value with
+     * an estimated rank of at least the given fraction of the values. The
+     * fractions 0 and 1 return the exact min and max values.
+     *
+     * @param fraction the fraction, between 0 and 1
+     * @return the approximate quantile, NaN if no values were added
+     * @throws IllegalArgumentException if the fraction is not between 0 and 1
+     */
+    public double getQuantile(double fraction) {
+
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("The fraction has to be between 0 and 1! Current value: " + fraction + ".");
+        }
+
+        if (n == 0) {
+            return Double.NaN;
+        } else if (fraction == 0) {
+            return minValue;
+        } else if (fraction == 1) {
+            return maxValue;
+        }
+
+        sort();
+
+        double rank = fraction * n;
+        int low = 0;
+        int high = numberOfRetainedValues - 1;
+
+        // binary search for the first cumulative weight reaching the rank
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] < rank) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return sortedValues[low];
+    }
+
+    /**
+     * Returns the capacity of the given level.
+     *
+     * @param level the level
+     * @return the capacity
+     */
+    private int getCapacity(int level) {
+        int depth = numberOfLevels - level - 1;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+    }
+
+    /**
+     * Adds a value to the given level.
+     *
+     * @param level the level
+     * @param value the value
+     */
+    private void add(int level, double value) {
+        if (levelSizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(MIN_LEVEL_CAPACITY, levels[level].length * 2));
+        }
+        levels[level][levelSizes[level]++] = value;
+        numberOfRetainedValues++;
+    }
+
+    /**
+     * Adds a new top level and updates the capacities.
+     */
+    private void addLevel() {
+
+        levels = Arrays.copyOf(levels, numberOfLevels + 1);
+        levelSizes = Arrays.copyOf(levelSizes, numberOfLevels + 1);
+        levels[numberOfLevels] = new double[k];
+        numberOfLevels++;
+
+        totalCapacity = 0;
+        for (int level = 0; level < numberOfLevels; level++) {
+            totalCapacity += getCapacity(level);
+        }
+    }
+
+    /**
+     * Compacts the lowest level at or above its capacity, promoting every
+     * other value to the level above. An odd value out stays on the level,
+     * such that the total weight equals the number of values added.
+     */
+    private void compress() {
+
+        for (int level = 0; level < numberOfLevels; level++) {
+
+            int size = levelSizes[level];
+
+            if (size >= getCapacity(level)) {
+
+                if (level + 1 == numberOfLevels) {
+                    addLevel();
+                }
+
+                double[] values = levels[level];
+                Arrays.sort(values, 0, size);
+
+                // the largest value stays if the number of values is odd
+                int compacted = size - size % 2;
+                int offset = random.nextBoolean() ? 1 : 0;
+
+                for (int i = offset; i < compacted; i += 2) {
+                    add(level + 1, values[i]);
+                }
+
+                if (compacted < size) {
+                    values[0] = values[size - 1];
+                }
+
+                levelSizes[level] = size - compacted;
+                numberOfRetainedValues -= compacted;
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sorts the retained values and calculates their cumulative weights,
+     * unless already done since the last update.
+     */
+    private void sort() {
+
+        if (sortedValues != null) {
+            return;
+        }
+
+        double[] values = new double[numberOfRetainedValues];
+        long[] weights = new long[numberOfRetainedValues];
+        int index = 0;
+
+        for (int level = 0; level < numberOfLevels; level++) {
+            for (int i = 0; i < levelSizes[level]; i++) {
+                values[index] = levels[level][i];
+                weights[index] = 1L << level;
+                index++;
+            }
+        }
+
+        // sort the values and weights together via the indexes
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return Double.compare(values[first], values[second]);
+            }
+        });
+
+        sortedValues = new double[values.length];
+        cumulativeWeights = new long[values.length];
+        long cumulativeWeight = 0;
+
+        for (int i = 0; i < order.length; i++) {
+            sortedValues[i] = values[order[i]];
+            cumulativeWeight += weights[order[i]];
+            cumulativeWeights[i] = cumulativeWeight;
+        }
+    }
+}
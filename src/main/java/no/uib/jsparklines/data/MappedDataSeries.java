@@ -0,0 +1,124 @@
+package no.uib.jsparklines.data;
+
+import java.awt.Color;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+
+/**
+ * Read-only JSparklinesDataSeries reading its values straight from a
+ * DoubleBuffer, e.g., a view of a memory mapped file. The values are not
+ * copied to the heap, the series is only a lightweight view of the buffer.
+ * Used by the MappedSparklineTableModel.
+ *
+ * @author Harald Barsnes
+ */
+public class MappedDataSeries extends JSparklinesDataSeries {
+
+    /**
+     * The values, from position zero to the limit of the buffer.
+     */
+    private final DoubleBuffer buffer;
+
+    /**
+     * Creates a new MappedDataSeries. The values are read from the current
+     * position to the limit of the buffer, the buffer is not copied.
+     *
+     * @param buffer the buffer containing the values
+     * @param seriesColor the color to use for the series
+     * @param seriesLabel the data series label
+     */
+    public MappedDataSeries(DoubleBuffer buffer, Color seriesColor, String seriesLabel) {
+        super(new double[0], seriesColor, seriesLabel);
+        this.buffer = buffer.slice();
+    }
+
+    /**
+     * Returns the number of values in the series.
+     *
+     * @return the number of values
+     */
+    @Override
+    public int size() {
+        return buffer.limit();
+    }
+
+    /**
+     * Returns the value at the given index.
+     *
+     * @param index the index
+     * @return the value at the given index
+     */
+    @Override
+    public double getValue(int index) {
+        return buffer.get(index);
+    }
+
+    /**
+     * Returns a read-only view of the values. The values are not copied.
+     *
+     * @return a read-only view of the values
+     */
+    @Override
+    public DoubleBuffer getValues() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a copy of the values. Note that, as the series is read-only,
+     * changes to the returned list are not reflected in the series.
+     *
+     * @return a copy of the values
+     */
+    @Override
+    public ArrayList<Double> getData() {
+        int size = buffer.limit();
+        ArrayList<Double> data = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            data.add(buffer.get(i));
+        }
+        return data;
+    }
+
+    /**
+     * Not supported, the series is read-only.
+     *
+     * @param data the data to set
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setData(ArrayList<Double> data) {
+        throw new UnsupportedOperationException("Mapped data series are read-only.");
+    }
+
+    /**
+     * Not supported, the series is read-only.
+     *
+     * @param values the values to set
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setValues(double[] values) {
+        throw new UnsupportedOperationException("Mapped data series are read-only.");
+    }
+
+    /**
+     * Returns the version of the data, always zero as the series is
+     * read-only.
+     *
+     * @return zero
+     */
+    @Override
+    public int getVersion() {
+        return 0;
+    }
+
+    /**
+     * Returns true, the values are stored as primitives.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isPrimitive() {
+        return true;
+    }
+}
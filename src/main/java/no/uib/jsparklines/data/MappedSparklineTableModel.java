@@ -0,0 +1,383 @@
+package no.uib.jsparklines.data;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Read-only table model storing the data in a memory mapped file, for tables
+ * too large to be kept on the heap. Each row is stored as a fixed size
+ * record: first the numeric columns, one double each, then the values of each
+ * data series column, seriesLength doubles each. The files are written using
+ * the Writer class.
+ * <br><br>
+ * The numeric columns are returned as Doubles, and the data series columns as
+ * JSparklinesDatasets containing one MappedDataSeries, i.e., lightweight views
+ * of the mapped file that the renderers read without copying the values. The
+ * most recently used views are kept, such that the same row returns the same
+ * object while visible, as expected by the image caches. Opening the table
+ * hence uses a constant amount of heap, independent of the number of rows.
+ * <br><br>
+ * The numeric columns are displayed first, followed by the data series
+ * columns.
+ *
+ * @author Harald Barsnes
+ */
+public class MappedSparklineTableModel extends AbstractTableModel {
+
+    /**
+     * The default number of data series views kept.
+     */
+    public static final int DEFAULT_VIEW_CACHE_SIZE = 1024;
+    /**
+     * The number of bytes per value.
+     */
+    private static final int BYTES_PER_VALUE = 8;
+    /**
+     * The byte order used in the files.
+     */
+    private static final ByteOrder BYTE_ORDER = ByteOrder.BIG_ENDIAN;
+    /**
+     * The names of the numeric columns.
+     */
+    private final String[] numericColumnNames;
+    /**
+     * The names of the data series columns.
+     */
+    private final String[] seriesColumnNames;
+    /**
+     * The colors of the data series columns.
+     */
+    private final Color[] seriesColors;
+    /**
+     * The number of values in each data series.
+     */
+    private final int seriesLength;
+    /**
+     * The size of a record in bytes.
+     */
+    private final int recordSize;
+    /**
+     * The number of rows.
+     */
+    private final int rowCount;
+    /**
+     * The number of rows per mapped segment. A segment can be at most 2 GB.
+     */
+    private final int rowsPerSegment;
+    /**
+     * The mapped segments of the file.
+     */
+    private final MappedByteBuffer[] segments;
+    /**
+     * The most recently used data series views, indexed by row and column.
+     */
+    private final LinkedHashMap<Long, JSparklinesDataset> views;
+
+    /**
+     * Creates a new MappedSparklineTableModel mapping the given file, using
+     * the default view cache size.
+     *
+     * @param file the file written by a Writer with the same layout
+     * @param numericColumnNames the names of the numeric columns
+     * @param seriesColumnNames the names of the data series columns
+     * @param seriesLength the number of values in each data series
+     * @param seriesColors the colors of the data series columns
+     * @throws IOException if the file cannot be mapped, or its size is not a
+     * multiple of the record size
+     */
+    public MappedSparklineTableModel(File file, String[] numericColumnNames, String[] seriesColumnNames,
+            int seriesLength, Color[] seriesColors) throws IOException {
+        this(file, numericColumnNames, seriesColumnNames, seriesLength, seriesColors, DEFAULT_VIEW_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new MappedSparklineTableModel mapping the given file.
+     *
+     * @param file the file written by a Writer with the same layout
+     * @param numericColumnNames the names of the numeric columns
+     * @param seriesColumnNames the names of the data series columns
+     * @param seriesLength the number of values in each data series
+     * @param seriesColors the colors of the data series columns
+     * @param viewCacheSize the number of data series views kept
+     * @throws IOException if the file cannot be mapped, or its size is not a
+     * multiple of the record size
+     */
+    public MappedSparklineTableModel(File file, String[] numericColumnNames, String[] seriesColumnNames,
+            int seriesLength, Color[] seriesColors, final int viewCacheSize) throws IOException {
+
+        if (seriesColors.length != seriesColumnNames.length) {
+            throw new IllegalArgumentException("One color per data series column is required.");
+        }
+
+        this.numericColumnNames = numericColumnNames.clone();
+        this.seriesColumnNames = seriesColumnNames.clone();
+        this.seriesColors = seriesColors.clone();
+        this.seriesLength = seriesLength;
+        this.recordSize = getRecordSize(numericColumnNames.length, seriesColumnNames.length, seriesLength);
+        this.rowsPerSegment = Math.max(1, Integer.MAX_VALUE / recordSize);
+
+        views = new LinkedHashMap<Long, JSparklinesDataset>(2 * viewCacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, JSparklinesDataset> eldest) {
+                return size() > viewCacheSize;
+            }
+        };
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            long fileSize = channel.size();
+
+            if (fileSize % recordSize != 0) {
+                throw new IOException("The size of " + file.getName() + " (" + fileSize + " bytes) is not a multiple of the record size ("
+                        + recordSize + " bytes).");
+            }
+            if (fileSize / recordSize > Integer.MAX_VALUE) {
+                throw new IOException(file.getName() + " contains more than " + Integer.MAX_VALUE + " rows.");
+            }
+
+            rowCount = (int) (fileSize / recordSize);
+            segments = new MappedByteBuffer[(rowCount + rowsPerSegment - 1) / rowsPerSegment];
+
+            // the mappings stay valid after the channel is closed
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i * rowsPerSegment * recordSize;
+                long size = Math.min((long) rowsPerSegment * recordSize, fileSize - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+                segments[i].order(BYTE_ORDER);
+            }
+        }
+    }
+
+    /**
+     * Returns the size of a record in bytes.
+     *
+     * @param numberOfNumericColumns the number of numeric columns
+     * @param numberOfSeriesColumns the number of data series columns
+     * @param seriesLength the number of values in each data series
+     * @return the size of a record in bytes
+     */
+    private static int getRecordSize(int numberOfNumericColumns, int numberOfSeriesColumns, int seriesLength) {
+
+        long recordSize = (long) BYTES_PER_VALUE * (numberOfNumericColumns + (long) numberOfSeriesColumns * seriesLength);
+
+        if (recordSize <= 0 || recordSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported record size: " + recordSize + " bytes.");
+        }
+
+        return (int) recordSize;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return numericColumnNames.length + seriesColumnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column < numericColumnNames.length) {
+            return numericColumnNames[column];
+        }
+        return seriesColumnNames[column - numericColumnNames.length];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column < numericColumnNames.length) {
+            return Double.class;
+        }
+        return JSparklinesDataset.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (column < numericColumnNames.length) {
+            return getNumericValue(row, column);
+        }
+        return getDataset(row, column - numericColumnNames.length);
+    }
+
+    /**
+     * Returns the value of the given numeric column without boxing.
+     *
+     * @param row the row index
+     * @param numericColumn the index of the numeric column
+     * @return the value
+     */
+    public double getNumericValue(int row, int numericColumn) {
+        return segments[row / rowsPerSegment].getDouble((row % rowsPerSegment) * recordSize + numericColumn * BYTES_PER_VALUE);
+    }
+
+    /**
+     * Returns the dataset view of the given data series column. The view is
+     * reused as long as it is among the most recently used views.
+     *
+     * @param row the row index
+     * @param seriesColumn the index of the data series column
+     * @return the dataset view
+     */
+    public JSparklinesDataset getDataset(int row, int seriesColumn) {
+
+        Long key = (((long) row) << 32) | seriesColumn;
+        JSparklinesDataset dataset = views.get(key);
+
+        if (dataset == null) {
+            ArrayList<JSparklinesDataSeries> data = new ArrayList<>(1);
+            data.add(getSeries(row, seriesColumn));
+            dataset = new JSparklinesDataset(data);
+            views.put(key, dataset);
+        }
+
+        return dataset;
+    }
+
+    /**
+     * Returns a new view of the given data series. The values are not copied.
+     *
+     * @param row the row index
+     * @param seriesColumn the index of the data series column
+     * @return the data series view
+     */
+    public MappedDataSeries getSeries(int row, int seriesColumn) {
+
+        ByteBuffer segment = segments[row / rowsPerSegment].duplicate();
+        int offset = (row % rowsPerSegment) * recordSize
+                + (numericColumnNames.length + seriesColumn * seriesLength) * BYTES_PER_VALUE;
+        segment.position(offset);
+        segment.limit(offset + seriesLength * BYTES_PER_VALUE);
+
+        return new MappedDataSeries(segment.slice().order(BYTE_ORDER).asDoubleBuffer(),
+                seriesColors[seriesColumn], seriesColumnNames[seriesColumn]);
+    }
+
+    /**
+     * Returns the number of values in each data series.
+     *
+     * @return the number of values in each data series
+     */
+    public int getSeriesLength() {
+        return seriesLength;
+    }
+
+    /**
+     * Writes the records read by a MappedSparklineTableModel.
+     */
+    public static class Writer implements Closeable {
+
+        /**
+         * The file channel.
+         */
+        private final FileChannel channel;
+        /**
+         * The buffer collecting the records.
+         */
+        private final ByteBuffer buffer;
+        /**
+         * The number of numeric columns.
+         */
+        private final int numberOfNumericColumns;
+        /**
+         * The number of data series columns.
+         */
+        private final int numberOfSeriesColumns;
+        /**
+         * The number of values in each data series.
+         */
+        private final int seriesLength;
+
+        /**
+         * Creates a new Writer, replacing the file if it already exists.
+         *
+         * @param file the file to write to
+         * @param numberOfNumericColumns the number of numeric columns
+         * @param numberOfSeriesColumns the number of data series columns
+         * @param seriesLength the number of values in each data series
+         * @throws IOException if the file cannot be opened
+         */
+        public Writer(File file, int numberOfNumericColumns, int numberOfSeriesColumns, int seriesLength) throws IOException {
+            this.numberOfNumericColumns = numberOfNumericColumns;
+            this.numberOfSeriesColumns = numberOfSeriesColumns;
+            this.seriesLength = seriesLength;
+            int recordSize = getRecordSize(numberOfNumericColumns, numberOfSeriesColumns, seriesLength);
+            buffer = ByteBuffer.allocate(Math.max(recordSize, 1 << 16)).order(BYTE_ORDER);
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Writes a row.
+         *
+         * @param numericValues the values of the numeric columns
+         * @param series the values of the data series columns, seriesLength
+         * values each
+         * @throws IOException if the row cannot be written
+         * @throws IllegalArgumentException if the number of values does not
+         * match the layout
+         */
+        public void writeRow(double[] numericValues, double[]... series) throws IOException {
+
+            if (numericValues.length != numberOfNumericColumns || series.length != numberOfSeriesColumns) {
+                throw new IllegalArgumentException("Expected " + numberOfNumericColumns + " numeric values and "
+                        + numberOfSeriesColumns + " data series.");
+            }
+
+            for (double[] values : series) {
+                if (values.length != seriesLength) {
+                    throw new IllegalArgumentException("Expected " + seriesLength + " values per data series, got "
+                            + values.length + ".");
+                }
+            }
+
+            if (buffer.remaining() < BYTES_PER_VALUE * (numberOfNumericColumns + numberOfSeriesColumns * seriesLength)) {
+                flush();
+            }
+
+            for (double value : numericValues) {
+                buffer.putDouble(value);
+            }
+
+            for (double[] values : series) {
+                for (double value : values) {
+                    buffer.putDouble(value);
+                }
+            }
+        }
+
+        /**
+         * Writes the buffered records to the file.
+         *
+         * @throws IOException if the records cannot be written
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package no.uib.jsparklines.data;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+
+/**
+ * JSparklinesDataSeries with a fixed capacity, storing the values in a
+ * primitive ring buffer. Appending a value is O(1) and, when the buffer is
+ * full, drops the oldest value. Intended for live updating sparklines, where
+ * a new value is regularly appended to the series of each row. The rolling
+ * minimum and maximum of the values in the buffer are maintained in amortized
+ * O(1) time per append, ignoring NaN values.
+ * <br><br>
+ * The version is incremented on every change, such that the datasets and
+ * image caches containing the series can detect the changes. Like other Swing
+ * models the series is not thread safe, i.e., it should only be changed on
+ * the event dispatch thread, for example via a CoalescingTableModelUpdater.
+ *
+ * @author Harald Barsnes
+ */
+public class RingBufferDataSeries extends JSparklinesDataSeries {
+
+    /**
+     * The values in the ring buffer.
+     */
+    private final double[] buffer;
+    /**
+     * The total number of values appended, i.e., the sequence number of the
+     * next value.
+     */
+    private long appendCount = 0;
+    /**
+     * The number of values in the buffer.
+     */
+    private int size = 0;
+    /**
+     * The sequence numbers of the candidates for the rolling minimum, with
+     * increasing values.
+     */
+    private final long[] minCandidates;
+    /**
+     * The index of the first minimum candidate.
+     */
+    private int minHead = 0;
+    /**
+     * The number of minimum candidates.
+     */
+    private int minCount = 0;
+    /**
+     * The sequence numbers of the candidates for the rolling maximum, with
+     * decreasing values.
+     */
+    private final long[] maxCandidates;
+    /**
+     * The index of the first maximum candidate.
+     */
+    private int maxHead = 0;
+    /**
+     * The number of maximum candidates.
+     */
+    private int maxCount = 0;
+    /**
+     * Incremented every time the values change.
+     */
+    private int version = 0;
+
+    /**
+     * Creates a new empty RingBufferDataSeries.
+     *
+     * @param capacity the maximum number of values kept
+     * @param seriesColor the color to use for the series
+     * @param seriesLabel the data series label
+     * @throws IllegalArgumentException if the capacity is less than one
+     */
+    public RingBufferDataSeries(int capacity, Color seriesColor, String seriesLabel) {
+        super(new double[0], seriesColor, seriesLabel);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity has to be at least one! Current value: " + capacity + ".");
+        }
+        buffer = new double[capacity];
+        minCandidates = new long[capacity];
+        maxCandidates = new long[capacity];
+    }
+
+    /**
+     * Creates a new empty RingBufferDataSeries.
+     *
+     * @param capacity the maximum number of values kept
+     * @param seriesColor the color to use for the series
+     * @param seriesLabel the data series label
+     * @param lineType the properties of the line when displayed as a line chart
+     * @throws IllegalArgumentException if the capacity is less than one
+     */
+    public RingBufferDataSeries(int capacity, Color seriesColor, String seriesLabel, BasicStroke lineType) {
+        super(new double[0], seriesColor, seriesLabel, lineType);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity has to be at least one! Current value: " + capacity + ".");
+        }
+        buffer = new double[capacity];
+        minCandidates = new long[capacity];
+        maxCandidates = new long[capacity];
+    }
+
+    /**
+     * Appends a value to the series. If the buffer is full the oldest value
+     * is dropped.
+     *
+     * @param value the value to append
+     */
+    public void append(double value) {
+
+        long sequence = appendCount;
+        buffer[(int) (sequence % buffer.length)] = value;
+        appendCount++;
+
+        if (size < buffer.length) {
+            size++;
+        }
+
+        long firstSequence = appendCount - size;
+
+        // drop the candidates that have left the buffer
+        if (minCount > 0 && minCandidates[minHead] < firstSequence) {
+            minHead = (minHead + 1) % buffer.length;
+            minCount--;
+        }
+        if (maxCount > 0 && maxCandidates[maxHead] < firstSequence) {
+            maxHead = (maxHead + 1) % buffer.length;
+            maxCount--;
+        }
+
+        if (!Double.isNaN(value)) {
+
+            // drop the candidates that can no longer be the minimum or maximum
+            while (minCount > 0 && getValueAt(minCandidates[(minHead + minCount - 1) % buffer.length]) >= value) {
+                minCount--;
+            }
+            minCandidates[(minHead + minCount) % buffer.length] = sequence;
+            minCount++;
+
+            while (maxCount > 0 && getValueAt(maxCandidates[(maxHead + maxCount - 1) % buffer.length]) <= value) {
+                maxCount--;
+            }
+            maxCandidates[(maxHead + maxCount) % buffer.length] = sequence;
+            maxCount++;
+        }
+
+        version++;
+    }
+
+    /**
+     * Appends the given values to the series.
+     *
+     * @param values the values to append
+     */
+    public void append(double[] values) {
+        for (double value : values) {
+            append(value);
+        }
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public void clear() {
+        size = 0;
+        minCount = 0;
+        maxCount = 0;
+        version++;
+    }
+
+    /**
+     * Returns the value with the given sequence number.
+     *
+     * @param sequence the sequence number
+     * @return the value
+     */
+    private double getValueAt(long sequence) {
+        return buffer[(int) (sequence % buffer.length)];
+    }
+
+    /**
+     * Returns the maximum number of values kept.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Returns the total number of values appended, including the values that
+     * have been dropped.
+     *
+     * @return the total number of values appended
+     */
+    public long getAppendCount() {
+        return appendCount;
+    }
+
+    /**
+     * Returns the smallest value in the buffer, ignoring NaN values. NaN if
+     * there are no such values.
+     *
+     * @return the smallest value
+     */
+    public double getMinValue() {
+        if (minCount == 0) {
+            return Double.NaN;
+        }
+        return getValueAt(minCandidates[minHead]);
+    }
+
+    /**
+     * Returns the largest value in the buffer, ignoring NaN values. NaN if
+     * there are no such values.
+     *
+     * @return the largest value
+     */
+    public double getMaxValue() {
+        if (maxCount == 0) {
+            return Double.NaN;
+        }
+        return getValueAt(maxCandidates[maxHead]);
+    }
+
+    /**
+     * Returns the number of values in the buffer.
+     *
+     * @return the number of values
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value at the given index, where index 0 is the oldest value
+     * in the buffer.
+     *
+     * @param index the index
+     * @return the value at the given index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public double getValue(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size + ".");
+        }
+        return getValueAt(appendCount - size + index);
+    }
+
+    /**
+     * Returns a read-only copy of the values, from the oldest to the newest.
+     *
+     * @return a read-only copy of the values
+     */
+    @Override
+    public DoubleBuffer getValues() {
+        double[] copy = new double[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = getValueAt(appendCount - size + i);
+        }
+        return DoubleBuffer.wrap(copy).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a copy of the values, from the oldest to the newest. Note that,
+     * unlike for the other data series, changes to the returned list are not
+     * reflected in the series.
+     *
+     * @return a copy of the values
+     */
+    @Override
+    public ArrayList<Double> getData() {
+        ArrayList<Double> data = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            data.add(getValueAt(appendCount - size + i));
+        }
+        return data;
+    }
+
+    /**
+     * Replaces the values by the given values. Only the last values are kept
+     * if there are more values than the capacity.
+     *
+     * @param data the data to set
+     */
+    @Override
+    public void setData(ArrayList<Double> data) {
+        clear();
+        for (int i = Math.max(0, data.size() - buffer.length); i < data.size(); i++) {
+            append(data.get(i));
+        }
+    }
+
+    /**
+     * Replaces the values by the given values. Only the last values are kept
+     * if there are more values than the capacity. The array is copied.
+     *
+     * @param values the values to set
+     */
+    @Override
+    public void setValues(double[] values) {
+        clear();
+        for (int i = Math.max(0, values.length - buffer.length); i < values.length; i++) {
+            append(values[i]);
+        }
+    }
+
+    /**
+     * Returns the version of the data. The version is incremented every time
+     * the values change.
+     *
+     * @return the version of the data
+     */
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns true, the values are stored in a primitive array.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isPrimitive() {
+        return true;
+    }
+}
@@ -1,11 +1,30 @@
 package no.uib.jsparklines.data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * Object storing start indexes for use in the
- * JSparklinesMultiIntervalChartTableCellRenderer.
+ * JSparklinesMultiIntervalChartTableCellRenderer. The indexes are stored in a
+ * primitive int array, use size, getIndex or getValues to access them without
+ * boxing. The indexes can be changed via the list returned by getIndexes.
  *
  * @author Harald Barsnes
  */
@@ -16,57 +35,487 @@ public class StartIndexes implements Comparable<StartIndexes>, Serializable {
      */
     static final long serialVersionUID = 3564559645965619316L;
     /**
-     * The start indexes.
+     * The serialized fields, kept as the original list of start indexes for
+     * compatibility with the objects serialized before the indexes were
+     * stored in an array.
      */
-    private ArrayList<Integer> startIndexes;
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("startIndexes", ArrayList.class)
+    };
+    /**
+     * The start indexes. The array can be longer than the number of start
+     * indexes, leaving room for the indexes added via getIndexes.
+     */
+    private transient int[] startIndexes;
+    /**
+     * The number of start indexes.
+     */
+    private transient int size;
+    /**
+     * The first start index, used by compareTo. Integer.MIN_VALUE if there
+     * are no start indexes.
+     */
+    private transient int firstIndex;
+    /**
+     * The list returned by getIndexes, created on demand.
+     */
+    private transient IndexList indexList = null;
 
     /**
-     * Create a new StartIndexes.
+     * Create a new StartIndexes. The indexes are copied into the primitive
+     * array, i.e., later changes to the given list are not reflected in this
+     * object. Use the list returned by getIndexes to change the indexes.
      *
      * @param indexes the start indexes
      */
     public StartIndexes(ArrayList<Integer> indexes) {
-        this.startIndexes = indexes;
+        setIndexes(indexes);
+    }
+
+    /**
+     * Create a new StartIndexes. The array is used as is, i.e., not copied.
+     *
+     * @param indexes the start indexes
+     */
+    public StartIndexes(int[] indexes) {
+        this.startIndexes = indexes != null ? indexes : new int[0];
+        size = startIndexes.length;
+        updateFirstIndex();
+    }
+
+    /**
+     * Set the start indexes from a list.
+     *
+     * @param indexes the start indexes, null is treated as an empty list
+     */
+    private void setIndexes(ArrayList<Integer> indexes) {
+
+        size = indexes != null ? indexes.size() : 0;
+        startIndexes = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            startIndexes[i] = indexes.get(i);
+        }
+
+        updateFirstIndex();
     }
 
     /**
-     * Returns the start indexes.
-     * 
+     * Returns the start indexes as a list backed by the primitive array.
+     * Changes to the list, including adding and removing indexes, are written
+     * through to this object, growing the array in place as an ArrayList
+     * does. Use size, getIndex or getValues to access the indexes without
+     * boxing.
+     *
      * @return the start indexes
      */
     public ArrayList<Integer> getIndexes() {
-        return startIndexes;
+
+        if (indexList == null) {
+            indexList = new IndexList();
+        }
+
+        return indexList;
     }
 
     /**
-     * Compares based on the first value in the list.
+     * Returns a read-only view of the start indexes. The indexes are not
+     * copied.
+     *
+     * @return a read-only view of the start indexes
      */
-    public int compareTo(StartIndexes o) {
+    public IntBuffer getValues() {
+        return IntBuffer.wrap(startIndexes, 0, size).slice().asReadOnlyBuffer();
+    }
 
-        if (this.getIndexes().get(0) == o.getIndexes().get(0)) {
-            return 0;
-        }
+    /**
+     * Returns the number of start indexes.
+     *
+     * @return the number of start indexes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the start index at the given position.
+     *
+     * @param index the position
+     * @return the start index
+     */
+    public int getIndex(int index) {
+        checkIndex(index);
+        return startIndexes[index];
+    }
+
+    /**
+     * Compares based on the first value in the list. Objects without start
+     * indexes are sorted first.
+     */
+    public int compareTo(StartIndexes o) {
 
-        if (this.getIndexes().get(0) > o.getIndexes().get(0)) {
+        if (o == null) {
             return 1;
         }
 
-        return -1;
+        return Integer.compare(firstIndex, o.firstIndex);
     }
 
     @Override
     public String toString() {
 
-        String tempString = "";
+        StringBuilder temp = new StringBuilder();
+        appendIndexes(temp);
+
+        return temp.toString();
+    }
+
+    /**
+     * Appends the start indexes to the given string builder, separated by
+     * commas.
+     *
+     * @param stringBuilder the string builder to append the indexes to
+     */
+    public void appendIndexes(StringBuilder stringBuilder) {
+
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                stringBuilder.append(',');
+            }
+            stringBuilder.append(startIndexes[i]);
+        }
+    }
+
+    /**
+     * Writes the start indexes as a list, as in the original serialized form.
+     *
+     * @param out the object output stream
+     * @throws IOException if the object cannot be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("startIndexes", new ArrayList<>(getIndexes()));
+        out.writeFields();
+    }
+
+    /**
+     * Reads the start indexes from the list in the serialized form.
+     *
+     * @param in the object input stream
+     * @throws IOException if the object cannot be read
+     * @throws ClassNotFoundException if a class cannot be found
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        setIndexes((ArrayList<Integer>) fields.get("startIndexes", null));
+    }
+
+    /**
+     * Inserts a start index at the given position, growing the array if
+     * needed.
+     *
+     * @param index the position
+     * @param value the start index
+     */
+    private void insert(int index, int value) {
+
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size + ".");
+        }
+
+        if (size == startIndexes.length) {
+            startIndexes = Arrays.copyOf(startIndexes, Math.max(size + (size >> 1), size + 1));
+        }
+
+        System.arraycopy(startIndexes, index, startIndexes, index + 1, size - index);
+        startIndexes[index] = value;
+        size++;
+        updateFirstIndex();
+    }
+
+    /**
+     * Removes the start index at the given position.
+     *
+     * @param index the position
+     * @return the start index removed
+     */
+    private int delete(int index) {
+
+        checkIndex(index);
+
+        int oldValue = startIndexes[index];
+        System.arraycopy(startIndexes, index + 1, startIndexes, index, size - index - 1);
+        size--;
+        updateFirstIndex();
+
+        return oldValue;
+    }
+
+    /**
+     * Throws an IndexOutOfBoundsException if the given position is outside
+     * the start indexes.
+     *
+     * @param index the position
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size + ".");
+        }
+    }
+
+    /**
+     * Updates the first start index used by compareTo.
+     */
+    private void updateFirstIndex() {
+        firstIndex = size > 0 ? startIndexes[0] : Integer.MIN_VALUE;
+    }
+
+    /**
+     * List view of the start indexes, writing the changes through to the
+     * primitive array.
+     */
+    private class IndexView extends AbstractList<Integer> implements RandomAccess {
+
+        @Override
+        public Integer get(int index) {
+            checkIndex(index);
+            return startIndexes[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Integer set(int index, Integer element) {
+            checkIndex(index);
+            int oldValue = startIndexes[index];
+            startIndexes[index] = element;
+            updateFirstIndex();
+            return oldValue;
+        }
+
+        @Override
+        public void add(int index, Integer element) {
+            insert(index, element);
+            modCount++;
+        }
+
+        @Override
+        public Integer remove(int index) {
+            int oldValue = delete(index);
+            modCount++;
+            return oldValue;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            System.arraycopy(startIndexes, toIndex, startIndexes, fromIndex, size - toIndex);
+            size -= toIndex - fromIndex;
+            updateFirstIndex();
+            modCount++;
+        }
+    }
+
+    /**
+     * ArrayList returned by getIndexes. The elements of the ArrayList itself
+     * are not used, all the methods are forwarded to the view of the
+     * primitive array.
+     */
+    private class IndexList extends ArrayList<Integer> {
+
+        /**
+         * The serial version UID.
+         */
+        static final long serialVersionUID = -5861425313186738921L;
+        /**
+         * The view of the primitive array.
+         */
+        private final IndexView view = new IndexView();
+
+        @Override
+        public void trimToSize() {
+            if (size < startIndexes.length) {
+                startIndexes = Arrays.copyOf(startIndexes, size);
+            }
+        }
+
+        @Override
+        public void ensureCapacity(int minCapacity) {
+            if (minCapacity > startIndexes.length) {
+                startIndexes = Arrays.copyOf(startIndexes, minCapacity);
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public boolean contains(Object element) {
+            return view.contains(element);
+        }
+
+        @Override
+        public int indexOf(Object element) {
+            return view.indexOf(element);
+        }
+
+        @Override
+        public int lastIndexOf(Object element) {
+            return view.lastIndexOf(element);
+        }
+
+        @Override
+        public Object clone() {
+            return new ArrayList<>(view);
+        }
+
+        @Override
+        public Object[] toArray() {
+            return view.toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] array) {
+            return view.toArray(array);
+        }
+
+        @Override
+        public Integer get(int index) {
+            return view.get(index);
+        }
+
+        @Override
+        public Integer set(int index, Integer element) {
+            return view.set(index, element);
+        }
+
+        @Override
+        public boolean add(Integer element) {
+            return view.add(element);
+        }
+
+        @Override
+        public void add(int index, Integer element) {
+            view.add(index, element);
+        }
+
+        @Override
+        public Integer remove(int index) {
+            return view.remove(index);
+        }
+
+        @Override
+        public boolean remove(Object element) {
+            return view.remove(element);
+        }
+
+        @Override
+        public void clear() {
+            view.clear();
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Integer> elements) {
+            return view.addAll(elements);
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends Integer> elements) {
+            return view.addAll(index, elements);
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            view.removeRange(fromIndex, toIndex);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> elements) {
+            return view.removeAll(elements);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> elements) {
+            return view.retainAll(elements);
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Integer> filter) {
+            return view.removeIf(filter);
+        }
+
+        @Override
+        public void replaceAll(UnaryOperator<Integer> operator) {
+            view.replaceAll(operator);
+        }
+
+        @Override
+        public void sort(Comparator<? super Integer> comparator) {
+            view.sort(comparator);
+        }
+
+        @Override
+        public void forEach(Consumer<? super Integer> action) {
+            view.forEach(action);
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return view.iterator();
+        }
 
-        for (int index : startIndexes) {
-            tempString += index + ",";
+        @Override
+        public ListIterator<Integer> listIterator() {
+            return view.listIterator();
         }
 
-        if (!startIndexes.isEmpty()) {
-            tempString = tempString.substring(0, tempString.length() - 1);
+        @Override
+        public ListIterator<Integer> listIterator(int index) {
+            return view.listIterator(index);
         }
 
-        return tempString;
+        @Override
+        public List<Integer> subList(int fromIndex, int toIndex) {
+            return view.subList(fromIndex, toIndex);
+        }
+
+        @Override
+        public Spliterator<Integer> spliterator() {
+            return view.spliterator();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return view.equals(other);
+        }
+
+        @Override
+        public int hashCode() {
+            return view.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return view.toString();
+        }
+
+        /**
+         * Serializes the list as a plain ArrayList of the start indexes.
+         *
+         * @return an ArrayList with the start indexes
+         */
+        private Object writeReplace() {
+            return new ArrayList<>(view);
+        }
     }
 }
@@ -59,6 +59,16 @@ public class XYDataPoint implements Comparable<XYDataPoint>, Serializable {
         this.compareBasedOnFirstDataPoint = compareBasedOnFirstDataPoint;
     }
 
+    /**
+     * Returns true if the compare method uses the first data point, false if
+     * it uses the sum.
+     *
+     * @return true if the compare method uses the first data point
+     */
+    public boolean isCompareBasedOnFirstDataPoint() {
+        return compareBasedOnFirstDataPoint;
+    }
+
     /**
      * Returns the x value.
      *
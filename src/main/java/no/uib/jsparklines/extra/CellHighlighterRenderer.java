@@ -4,8 +4,8 @@ import java.awt.Color;
 import java.awt.Component;
 import javax.swing.JLabel;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
 
 /**
  * Table cell render highlighting columns ending with a given string, by using a
@@ -34,6 +34,10 @@ public class CellHighlighterRenderer implements TableCellRenderer {
      * The label the strings have to end with in order to be highlighted.
      */
     private String highlightLabel;
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
 
     /**
      * Creates a new CellHighlighterRenderer.
@@ -55,7 +59,7 @@ public class CellHighlighterRenderer implements TableCellRenderer {
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JLabel label = (JLabel) new DefaultTableCellRenderer().getTableCellRendererComponent(
+        JLabel label = cellStyleResolver.getTableCellRendererComponent(
                 table, value, isSelected, hasFocus, row, column);
 
         label.setHorizontalAlignment(align);
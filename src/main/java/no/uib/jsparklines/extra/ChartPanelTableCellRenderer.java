@@ -5,8 +5,8 @@ import java.awt.Component;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
 import org.jfree.chart.ChartPanel;
 
 /**
@@ -17,6 +17,11 @@ import org.jfree.chart.ChartPanel;
  */
 public class ChartPanelTableCellRenderer extends JLabel implements TableCellRenderer {
 
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+
     /**
      * Create a new ChartPanelTableCellRenderer.
      */
@@ -26,8 +31,7 @@ public class ChartPanelTableCellRenderer extends JLabel implements TableCellRend
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // respect focus and hightlighting
         setBorder(c.getBorder());
@@ -40,9 +44,9 @@ public class ChartPanelTableCellRenderer extends JLabel implements TableCellRend
 
             // respect cell highlighting
             Color bg = c.getBackground();
-            chartPanel.getChart().getPlot().setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chartPanel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chartPanel.getChart().setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            chartPanel.getChart().getPlot().setBackgroundPaint(bg);
+            chartPanel.setBackground(bg);
+            chartPanel.getChart().setBackgroundPaint(bg);
 
             // add border when cell is selected
             //        if (hasFocus) {
@@ -52,7 +56,7 @@ public class ChartPanelTableCellRenderer extends JLabel implements TableCellRend
             //        }
             return chartPanel;
         } else {
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
     }
 }
@@ -5,9 +5,9 @@ import java.awt.Component;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.Chromosome;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
 
 /**
  * Table cell renderer for chromosome objects, i.e., 1-n and X, Y, Z and W.
@@ -26,6 +26,10 @@ public class ChromosomeTableCellRenderer extends JLabel implements TableCellRend
      * The font color to use for the selected cells.
      */
     private Color notSelectedFontColor;
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
     
     /**
      * Create a new ChartPanelTableCellRenderer.
@@ -52,8 +56,7 @@ public class ChromosomeTableCellRenderer extends JLabel implements TableCellRend
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // respect focus and hightlighting
         setBorder(c.getBorder());
@@ -69,7 +72,7 @@ public class ChromosomeTableCellRenderer extends JLabel implements TableCellRend
 
         valueLabel.setBorder(c.getBorder());
         valueLabel.setOpaque(c.isOpaque());
-        valueLabel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+        valueLabel.setBackground(bg);
   
         // update the link color depending on if the row is selected or not
         if (isSelected) {
@@ -1,11 +1,10 @@
 package no.uib.jsparklines.extra;
 
-import java.awt.Color;
 import java.awt.Component;
 import javax.swing.JLabel;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
 
 /**
  * Table cell renderer using different HTML tag colors for selected and not
@@ -31,6 +30,10 @@ public class HtmlLinksRenderer implements TableCellRenderer {
      * HTML color code, i.e., #000000 for black.
      */
     private String notSelectedRowFontColor;
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
 
     /**
      * Default constructor.
@@ -49,15 +52,9 @@ public class HtmlLinksRenderer implements TableCellRenderer {
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JLabel label = (JLabel) new DefaultTableCellRenderer().getTableCellRendererComponent(
+        JLabel label = cellStyleResolver.getTableCellRendererComponent(
                 table, value, isSelected, hasFocus, row, column);
 
-        Color bg = label.getBackground();
-
-        // We have to create a new color object because Nimbus returns
-        // a color of type DerivedColor, which behaves strange, not sure why.
-        label.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-
         if (value != null && value instanceof String) {
 
             String link = (String) value;
@@ -1,13 +1,12 @@
 package no.uib.jsparklines.extra;
 
-import java.awt.Color;
 import java.awt.Component;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
 
 /**
  * Table cell render displaying icons instead of boolean values. Supported
@@ -42,6 +41,10 @@ public class TrueFalseIconRenderer implements TableCellRenderer {
      * The tooltip to use for the null values.
      */
     private String nullToolTip = null;
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
 
     /**
      * Creates a new IconRenderer.
@@ -93,14 +96,9 @@ public class TrueFalseIconRenderer implements TableCellRenderer {
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JLabel label = (JLabel) new DefaultTableCellRenderer().getTableCellRendererComponent(
+        JLabel label = cellStyleResolver.getTableCellRendererComponent(
                 table, value, isSelected, hasFocus, row, column);
 
-        Color bg = label.getBackground();
-        // We have to create a new color object because Nimbus returns
-        // a color of type DerivedColor, which behaves strange, not sure why.
-        label.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-
         // set the icon to use for the boolean values
         if (value != null && value instanceof Boolean) {
 
@@ -1,27 +1,32 @@
 package no.uib.jsparklines.renderers;
 
-import java.awt.BasicStroke;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.JSparklines3dDataSeries;
 import no.uib.jsparklines.data.JSparklines3dDataset;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.DensityGrid;
+import no.uib.jsparklines.renderers.util.DirectDensityPlotPanel;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
 import no.uib.jsparklines.renderers.util.ReferenceArea;
 import no.uib.jsparklines.renderers.util.ReferenceLine;
+import no.uib.jsparklines.renderers.util.ReferenceOverlay;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.plot.IntervalMarker;
 import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.plot.ValueMarker;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.data.xy.DefaultXYDataset;
 import org.jfree.data.xy.DefaultXYZDataset;
@@ -33,7 +38,7 @@ import org.jfree.data.xy.DefaultXYZDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklines3dTableCellRenderer extends JLabel implements TableCellRenderer {
+public class JSparklines3dTableCellRenderer extends JLabel implements LazyToolTipRenderer, MeteredTableCellRenderer {
 
     /**
      * List of supported plot types for JSparklines3dTableCellRenderer.
@@ -97,6 +102,40 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      * reference area.
      */
     private HashMap<String, ReferenceArea> referenceAreasYAxis;
+    /**
+     * The x-axis reference lines and areas precompiled for painting, null
+     * if they have changed, or have been handed out for changing, since they
+     * were last compiled.
+     */
+    private ReferenceOverlay referenceOverlayXAxis = ReferenceOverlay.EMPTY;
+    /**
+     * The y-axis reference lines and areas precompiled for painting, null
+     * if they have changed, or have been handed out for changing, since they
+     * were last compiled.
+     */
+    private ReferenceOverlay referenceOverlayYAxis = ReferenceOverlay.EMPTY;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The dataset of the last rendered chart, used to create the tooltip when
+     * the user hovers the cell.
+     */
+    private Object tooltipValue = null;
+    /**
+     * The aggregation of the points per pixel, DensityGrid.Aggregation.none
+     * if the points are plotted individually via JFreeChart.
+     */
+    private DensityGrid.Aggregation densityAggregation = DensityGrid.Aggregation.none;
+    /**
+     * The panel used for painting the density maps.
+     */
+    private final DirectDensityPlotPanel directDensityPlotPanel = new DirectDensityPlotPanel();
 
     /**
      * Creates a new JSparkLines3dTableCellRenderer.
@@ -141,12 +180,48 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
         }
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, plotType.name(), value, row, column);
+    }
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // respect focus and hightlighting
         setBorder(c.getBorder());
@@ -155,31 +230,40 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
 
         // if the cell is empty, simply return
         if (value == null) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         if (value instanceof String) {
             //((JLabel) c).setHorizontalAlignment(SwingConstants.RIGHT);
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         if (!(value instanceof JSparklines3dDataset)) {
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // get the dataset
         JSparklines3dDataset sparkline3dDataset = (JSparklines3dDataset) value;
-        ArrayList<Color> colors = new ArrayList<Color>();
 
-        String tooltip = "<html>";
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = sparkline3dDataset;
+
+        // paint the points as a density map, without going via JFreeChart
+        if (densityAggregation != DensityGrid.Aggregation.none) {
+
+            directDensityPlotPanel.setBackground(c.getBackground());
+            directDensityPlotPanel.setDataset(sparkline3dDataset, densityAggregation, minXValue, maxXValue, minYValue, maxYValue);
+            directDensityPlotPanel.setReferenceOverlays(getXAxisReferenceOverlay(), getYAxisReferenceOverlay());
+
+            if (directDensityPlotPanel.getParent() != this) {
+                this.removeAll();
+                this.add(directDensityPlotPanel);
+            }
+
+            return this;
+        }
+
+        ArrayList<Color> colors = new ArrayList<Color>();
 
         // create the chart
         if (plotType == PlotType.scatterPlot || plotType == PlotType.bubblePlot) {
@@ -200,12 +284,6 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
 
                 JSparklines3dDataSeries sparkline3dDataSeries = sparkline3dDataset.getData().get(i);
 
-                tooltip += "<font color=rgb("
-                        + sparkline3dDataSeries.getSeriesColor().getRed() + ","
-                        + sparkline3dDataSeries.getSeriesColor().getGreen() + ","
-                        + sparkline3dDataSeries.getSeriesColor().getBlue() + ")>"
-                        + sparkline3dDataSeries.getSeriesLabel() + "<br>";
-
                 colors.add(sparkline3dDataSeries.getSeriesColor());
 
                 double[][] data;
@@ -245,42 +323,6 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
             plot.getDomainAxis().setUpperMargin(0);
             plot.getDomainAxis().setLowerMargin(0);
 
-            // add x-axis reference lines, if any
-            Iterator<String> allReferencesLines = referenceLinesXAxis.keySet().iterator();
-
-            while (allReferencesLines.hasNext()) {
-                ReferenceLine currentReferenceLine = referenceLinesXAxis.get(allReferencesLines.next());
-                plot.addDomainMarker(new ValueMarker(currentReferenceLine.getValue(), currentReferenceLine.getLineColor(), new BasicStroke(currentReferenceLine.getLineWidth())));
-            }
-
-            // add x-axis reference areas, if any
-            Iterator<String> allReferenceAreas = referenceAreasXAxis.keySet().iterator();
-
-            while (allReferenceAreas.hasNext()) {
-                ReferenceArea currentReferenceArea = referenceAreasXAxis.get(allReferenceAreas.next());
-                IntervalMarker marker = new IntervalMarker(currentReferenceArea.getStart(), currentReferenceArea.getEnd(), currentReferenceArea.getAreaColor());
-                marker.setAlpha(currentReferenceArea.getAlpha());
-                plot.addDomainMarker(marker);
-            }
-
-            // add y-axis reference lines, if any
-            allReferencesLines = referenceLinesYAxis.keySet().iterator();
-
-            while (allReferencesLines.hasNext()) {
-                ReferenceLine currentReferenceLine = referenceLinesYAxis.get(allReferencesLines.next());
-                plot.addRangeMarker(new ValueMarker(currentReferenceLine.getValue(), currentReferenceLine.getLineColor(), new BasicStroke(currentReferenceLine.getLineWidth())));
-            }
-
-            // add y-axis reference areas, if any
-            allReferenceAreas = referenceAreasYAxis.keySet().iterator();
-
-            while (allReferenceAreas.hasNext()) {
-                ReferenceArea currentReferenceArea = referenceAreasYAxis.get(allReferenceAreas.next());
-                IntervalMarker marker = new IntervalMarker(currentReferenceArea.getStart(), currentReferenceArea.getEnd(), currentReferenceArea.getAreaColor());
-                marker.setAlpha(currentReferenceArea.getAlpha());
-                plot.addRangeMarker(marker);
-            }
-
             // set the axis ranges
             plot.getDomainAxis().setRange(minXValue, maxXValue);
             plot.getRangeAxis().setRange(minYValue, maxYValue);
@@ -303,9 +345,6 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
             }
         }
 
-        // set the tooltip
-        setToolTipText(tooltip + "</html>");
-
         // hide the outline
         chart.getPlot().setOutlineVisible(false);
 
@@ -316,6 +355,14 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
         // create the chart panel and add it to the table cell
         chartPanel = new ChartPanel(chart);
         chartPanel.setBackground(c.getBackground());
+
+        // the reference lines and areas are painted on top of the chart
+        if (!getXAxisReferenceOverlay().isEmpty()) {
+            chartPanel.addOverlay(getXAxisReferenceOverlay());
+        }
+        if (!getYAxisReferenceOverlay().isEmpty()) {
+            chartPanel.addOverlay(getYAxisReferenceOverlay());
+        }
         this.removeAll();
         this.add(chartPanel);
 
@@ -332,6 +379,7 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void addXAxisReferenceLine(String label, double value, float lineWidth, Color lineColor) {
         referenceLinesXAxis.put(label, new ReferenceLine(label, value, lineWidth, lineColor));
+        referenceOverlayXAxis = null;
     }
 
     /**
@@ -342,6 +390,7 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void removeXAxisReferenceLine(String label) {
         referenceLinesXAxis.remove(label);
+        referenceOverlayXAxis = null;
     }
 
     /**
@@ -349,15 +398,20 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void removeAllXAxisReferenceLines() {
         referenceLinesXAxis = new HashMap<String, ReferenceLine>();
+        referenceOverlayXAxis = null;
     }
 
     /**
      * Returns all the x-axis references lines as a hashmap, with the labels as
-     * the keys.
+     * the keys. The reference lines can be changed via the returned map. The
+     * x-axis reference lines and areas are recompiled for painting the next
+     * time a cell is rendered, changes made after that are only painted once
+     * the map is retrieved again.
      *
      * @return hashmap of all reference lines
      */
     public HashMap<String, ReferenceLine> getAllXAxisReferenceLines() {
+        referenceOverlayXAxis = null;
         return referenceLinesXAxis;
     }
 
@@ -372,6 +426,7 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void addXAxisReferenceArea(String label, double start, double end, Color areaColor, float alpha) {
         referenceAreasXAxis.put(label, new ReferenceArea(label, start, end, areaColor, alpha));
+        referenceOverlayXAxis = null;
     }
 
     /**
@@ -382,6 +437,7 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void removeXAxisReferenceArea(String label) {
         referenceAreasXAxis.remove(label);
+        referenceOverlayXAxis = null;
     }
 
     /**
@@ -389,15 +445,20 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void removeAllXAxisReferenceAreas() {
         referenceAreasXAxis = new HashMap<String, ReferenceArea>();
+        referenceOverlayXAxis = null;
     }
 
     /**
      * Returns all the x-axis references areas as a hashmap, with the labels as
-     * the keys.
+     * the keys. The reference areas can be changed via the returned map. The
+     * x-axis reference lines and areas are recompiled for painting the next
+     * time a cell is rendered, changes made after that are only painted once
+     * the map is retrieved again.
      *
      * @return hashmap of all reference areas
      */
     public HashMap<String, ReferenceArea> getXAxisAllReferenceAreas() {
+        referenceOverlayXAxis = null;
         return referenceAreasXAxis;
     }
 
@@ -411,6 +472,7 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void addYAxisReferenceLine(String label, double value, float lineWidth, Color lineColor) {
         referenceLinesYAxis.put(label, new ReferenceLine(label, value, lineWidth, lineColor));
+        referenceOverlayYAxis = null;
     }
 
     /**
@@ -421,6 +483,7 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void removeYAxisReferenceLine(String label) {
         referenceLinesYAxis.remove(label);
+        referenceOverlayYAxis = null;
     }
 
     /**
@@ -428,15 +491,20 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void removeAllYAxisReferenceLines() {
         referenceLinesYAxis = new HashMap<String, ReferenceLine>();
+        referenceOverlayYAxis = null;
     }
 
     /**
      * Returns all the y-axis references lines as a hashmap, with the labels as
-     * the keys.
+     * the keys. The reference lines can be changed via the returned map. The
+     * y-axis reference lines and areas are recompiled for painting the next
+     * time a cell is rendered, changes made after that are only painted once
+     * the map is retrieved again.
      *
      * @return hashmap of all reference lines
      */
     public HashMap<String, ReferenceLine> getAllYAxisReferenceLines() {
+        referenceOverlayYAxis = null;
         return referenceLinesYAxis;
     }
 
@@ -451,6 +519,7 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void addYAxisReferenceArea(String label, double start, double end, Color areaColor, float alpha) {
         referenceAreasYAxis.put(label, new ReferenceArea(label, start, end, areaColor, alpha));
+        referenceOverlayYAxis = null;
     }
 
     /**
@@ -461,6 +530,7 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void removeYAxisReferenceArea(String label) {
         referenceAreasYAxis.remove(label);
+        referenceOverlayYAxis = null;
     }
 
     /**
@@ -468,18 +538,51 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
      */
     public void removeAllYAxisReferenceAreas() {
         referenceAreasYAxis = new HashMap<String, ReferenceArea>();
+        referenceOverlayYAxis = null;
     }
 
     /**
      * Returns all the y-axis references areas as a hashmap, with the labels as
-     * the keys.
+     * the keys. The reference areas can be changed via the returned map. The
+     * y-axis reference lines and areas are recompiled for painting the next
+     * time a cell is rendered, changes made after that are only painted once
+     * the map is retrieved again.
      *
      * @return hashmap of all reference areas
      */
     public HashMap<String, ReferenceArea> getYAxisAllReferenceAreas() {
+        referenceOverlayYAxis = null;
         return referenceAreasYAxis;
     }
 
+    /**
+     * Returns the x-axis reference lines and areas precompiled for painting.
+     *
+     * @return the x-axis reference lines and areas precompiled for painting
+     */
+    public ReferenceOverlay getXAxisReferenceOverlay() {
+
+        if (referenceOverlayXAxis == null) {
+            referenceOverlayXAxis = new ReferenceOverlay(referenceLinesXAxis.values(), referenceAreasXAxis.values(), true);
+        }
+
+        return referenceOverlayXAxis;
+    }
+
+    /**
+     * Returns the y-axis reference lines and areas precompiled for painting.
+     *
+     * @return the y-axis reference lines and areas precompiled for painting
+     */
+    public ReferenceOverlay getYAxisReferenceOverlay() {
+
+        if (referenceOverlayYAxis == null) {
+            referenceOverlayYAxis = new ReferenceOverlay(referenceLinesYAxis.values(), referenceAreasYAxis.values());
+        }
+
+        return referenceOverlayYAxis;
+    }
+
     /**
      * Set the maximum x value.
      *
@@ -525,6 +628,56 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
         this.plotType = plotType;
     }
 
+    /**
+     * Set the aggregation of the points per pixel. If not none, the scatter
+     * and bubble plots are painted as density maps where each pixel is
+     * colored by the series with the last point, for counts, or with the
+     * maximum z value, and the transparency shows the number of points or the
+     * z value. The points are binned in a single pass and painted as one
+     * image, making the rendering time depend on the size of the cell rather
+     * than on the number of points. Note that the size of the bubbles is not
+     * shown. The points are plotted individually via JFreeChart by default.
+     *
+     * @param densityAggregation the aggregation of the points per pixel,
+     * DensityGrid.Aggregation.none disables the density maps
+     */
+    public void setDensityAggregation(DensityGrid.Aggregation densityAggregation) {
+        this.densityAggregation = densityAggregation;
+    }
+
+    /**
+     * Returns the aggregation of the points per pixel.
+     *
+     * @return the aggregation of the points per pixel,
+     * DensityGrid.Aggregation.none if the points are plotted individually
+     */
+    public DensityGrid.Aggregation getDensityAggregation() {
+        return densityAggregation;
+    }
+
+    /**
+     * Set the executor used to bin the points of the density maps in
+     * parallel. Intended for exporting plots with millions of points, as the
+     * rendering waits for the binning to finish.
+     *
+     * @param binningExecutor the executor, null bins the points on the
+     * rendering thread
+     */
+    public void setBinningExecutor(ExecutorService binningExecutor) {
+        directDensityPlotPanel.setBinningExecutor(binningExecutor);
+    }
+
+    /**
+     * Returns the executor used to bin the points of the density maps in
+     * parallel.
+     *
+     * @return the executor, null if the points are binned on the rendering
+     * thread
+     */
+    public ExecutorService getBinningExecutor() {
+        return directDensityPlotPanel.getBinningExecutor();
+    }
+
     /**
      * Returns a reference to the chart panel.
      *
@@ -533,4 +686,37 @@ public class JSparklines3dTableCellRenderer extends JLabel implements TableCellR
     public ChartPanel getChartPanel() {
         return chartPanel;
     }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        if (!(value instanceof JSparklines3dDataset)) {
+            return null;
+        }
+
+        StringBuilder tooltip = new StringBuilder("<html>");
+
+        for (JSparklines3dDataSeries sparkline3dDataSeries : ((JSparklines3dDataset) value).getData()) {
+            tooltip.append("<font color=rgb(")
+                    .append(sparkline3dDataSeries.getSeriesColor().getRed()).append(',')
+                    .append(sparkline3dDataSeries.getSeriesColor().getGreen()).append(',')
+                    .append(sparkline3dDataSeries.getSeriesColor().getBlue()).append(")>")
+                    .append(sparkline3dDataSeries.getSeriesLabel()).append("<br>");
+        }
+
+        return tooltip.append("</html>").toString();
+    }
 }
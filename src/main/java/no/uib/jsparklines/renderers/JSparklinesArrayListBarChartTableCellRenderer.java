@@ -1,34 +1,36 @@
 package no.uib.jsparklines.renderers;
 
-import java.awt.BasicStroke;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Locale;
 import javax.swing.BoxLayout;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.ArrrayListDataPoints;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
 import no.uib.jsparklines.renderers.util.ReferenceArea;
 import no.uib.jsparklines.renderers.util.ReferenceLine;
+import no.uib.jsparklines.renderers.util.ReferenceOverlay;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.CategoryPlot;
-import org.jfree.chart.plot.IntervalMarker;
 import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.plot.ValueMarker;
 import org.jfree.chart.renderer.category.BarRenderer;
 import org.jfree.chart.renderer.category.StackedBarRenderer;
 import org.jfree.chart.renderer.category.StandardBarPainter;
@@ -41,7 +43,7 @@ import org.jfree.data.category.DefaultCategoryDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implements TableCellRenderer {
+public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implements LazyToolTipRenderer, MeteredTableCellRenderer {
 
     /**
      * List of supported value display options.
@@ -111,6 +113,12 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      * reference area.
      */
     private HashMap<String, ReferenceArea> referenceAreas;
+    /**
+     * The reference lines and areas precompiled for painting, null if they
+     * have changed, or have been handed out for changing, since they were
+     * last compiled.
+     */
+    private ReferenceOverlay referenceOverlay = ReferenceOverlay.EMPTY;
     /**
      * The decimal format for use when showing the numbers.
      */
@@ -136,6 +144,19 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      * The label used to display the number and the bar chart at the same time.
      */
     private JLabel valueLabel;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The value of the last rendered chart, used to create the tooltip when
+     * the user hovers the cell.
+     */
+    private Object tooltipValue = null;
 
     /**
      * Creates a new JSparkLinesTableCellRenderer.
@@ -393,12 +414,48 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
         this.currentValueDisplayType = valueDisplayType;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // respect focus and hightlighting
         setBorder(c.getBorder());
@@ -412,23 +469,15 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
 
         // if the cell is empty, simply return
         if (value == null) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         if (value instanceof String) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         if (!(value instanceof ArrrayListDataPoints)) {
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // get the dataset
@@ -456,24 +505,16 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
 
             if (showNumbers) {
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, numberFormat.format(tempValue),
+                c = cellStyleResolver.getTableCellRendererComponent(table, numberFormat.format(tempValue),
                         isSelected, hasFocus, row, column);
                 ((JLabel) c).setHorizontalAlignment(SwingConstants.RIGHT);
 
-                Color bg = c.getBackground();
-                // We have to create a new color object because Nimbus returns
-                // a color of type DerivedColor, which behaves strange, not sure why.
-                c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-
                 return c;
             }
 
             valueLabel.setText(numberFormat.format(tempValue));
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            Color bg = c.getBackground();
-            valueLabel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            valueLabel.setBackground(c.getBackground());
 
             // add some padding
             if (labelHorizontalAlignement == SwingConstants.RIGHT) {
@@ -504,14 +545,9 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
         StackedBarRenderer renderer = new StackedBarRenderer();
         renderer.setShadowVisible(false);
 
-        String tooltip = "";
         for (int i = 0; i < values.getData().size(); i++) {
             barChartDataset.addValue(values.getData().get(i), "" + i, "" + 0);
             renderer.setSeriesPaint(i, colors.get(i));
-            tooltip += numberFormat.format(values.getData().get(i));
-            if (i < values.getData().size() - 1) {
-                tooltip += " / ";
-            }
         }
 
         if (fillColor != null) {
@@ -536,24 +572,6 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
         plot.getRangeAxis().setUpperMargin(0);
         plot.getRangeAxis().setLowerMargin(0);
 
-        // add reference lines, if any
-        Iterator<String> allReferencesLines = referenceLines.keySet().iterator();
-
-        while (allReferencesLines.hasNext()) {
-            ReferenceLine currentReferenceLine = referenceLines.get(allReferencesLines.next());
-            plot.addRangeMarker(new ValueMarker(currentReferenceLine.getValue(), currentReferenceLine.getLineColor(), new BasicStroke(currentReferenceLine.getLineWidth())));
-        }
-
-        // add reference areas, if any
-        Iterator<String> allReferenceAreas = referenceAreas.keySet().iterator();
-
-        while (allReferenceAreas.hasNext()) {
-            ReferenceArea currentReferenceArea = referenceAreas.get(allReferenceAreas.next());
-            IntervalMarker marker = new IntervalMarker(currentReferenceArea.getStart(), currentReferenceArea.getEnd(), currentReferenceArea.getAreaColor());
-            marker.setAlpha(currentReferenceArea.getAlpha());
-            plot.addRangeMarker(marker);
-        }
-
         plot.getRangeAxis().setRange(0, maxValue);
 
         // add the dataset
@@ -568,8 +586,8 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
         // set up the chart renderer
         plot.setRenderer(0, renderer);
 
-        // set the tooltip
-        setToolTipText(tooltip);
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = values;
 
         // hide the outline
         chart.getPlot().setOutlineVisible(false);
@@ -586,6 +604,12 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
         // create the chart panel and add it to the table cell
         chartPanel = new ChartPanel(chart);
 
+        // the reference lines and areas are painted on top of the chart
+        ReferenceOverlay overlay = getReferenceOverlay();
+        if (!overlay.isEmpty()) {
+            chartPanel.addOverlay(overlay);
+        }
+
         if (backgroundColor != null) {
             chartPanel.setBackground(backgroundColor);
         } else {
@@ -608,6 +632,7 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      */
     public void addReferenceLine(String label, double value, float lineWidth, Color lineColor) {
         referenceLines.put(label, new ReferenceLine(label, value, lineWidth, lineColor));
+        referencesChanged();
     }
 
     /**
@@ -617,6 +642,7 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      */
     public void addReferenceLine(ReferenceLine referenceLine) {
         referenceLines.put(referenceLine.getLabel(), referenceLine);
+        referencesChanged();
     }
 
     /**
@@ -627,6 +653,7 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      */
     public void removeReferenceLine(String label) {
         referenceLines.remove(label);
+        referencesChanged();
     }
 
     /**
@@ -634,15 +661,20 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      */
     public void removeAllReferenceLines() {
         referenceLines = new HashMap<String, ReferenceLine>();
+        referencesChanged();
     }
 
     /**
      * Returns all the references lines as a hashmap, with the labels as the
-     * keys.
+     * keys. The reference lines can be changed via the returned map. The
+     * reference lines and areas are recompiled for painting the next time a
+     * cell is rendered, changes made after that are only painted once the
+     * map is retrieved again.
      *
      * @return hashmap of all reference lines
      */
     public HashMap<String, ReferenceLine> getAllReferenceLines() {
+        referencesChanged();
         return referenceLines;
     }
 
@@ -657,6 +689,7 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      */
     public void addReferenceArea(String label, double start, double end, Color areaColor, float alpha) {
         referenceAreas.put(label, new ReferenceArea(label, start, end, areaColor, alpha));
+        referencesChanged();
     }
 
     /**
@@ -666,6 +699,7 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      */
     public void addReferenceArea(ReferenceArea referenceArea) {
         referenceAreas.put(referenceArea.getLabel(), referenceArea);
+        referencesChanged();
     }
 
     /**
@@ -676,6 +710,7 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      */
     public void removeReferenceArea(String label) {
         referenceAreas.remove(label);
+        referencesChanged();
     }
 
     /**
@@ -683,18 +718,46 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
      */
     public void removeAllReferenceAreas() {
         referenceAreas = new HashMap<String, ReferenceArea>();
+        referencesChanged();
     }
 
     /**
      * Returns all the references areas as a hashmap, with the labels as the
-     * keys.
+     * keys. The reference areas can be changed via the returned map. The
+     * reference lines and areas are recompiled for painting the next time a
+     * cell is rendered, changes made after that are only painted once the
+     * map is retrieved again.
      *
      * @return hashmap of all reference areas
      */
     public HashMap<String, ReferenceArea> getAllReferenceAreas() {
+        referencesChanged();
         return referenceAreas;
     }
 
+    /**
+     * Returns the reference lines and areas precompiled for painting. Can for
+     * example be used to paint the reference lines and areas once for the
+     * whole column.
+     *
+     * @return the reference lines and areas precompiled for painting
+     */
+    public ReferenceOverlay getReferenceOverlay() {
+
+        if (referenceOverlay == null) {
+            referenceOverlay = new ReferenceOverlay(referenceLines.values(), referenceAreas.values());
+        }
+
+        return referenceOverlay;
+    }
+
+    /**
+     * Marks the reference lines and areas for recompiling.
+     */
+    private void referencesChanged() {
+        referenceOverlay = null;
+    }
+
     /**
      * Set the maximum value.
      *
@@ -772,4 +835,37 @@ public class JSparklinesArrayListBarChartTableCellRenderer extends JLabel implem
     public double getMaxValue() {
         return maxValue;
     }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        if (!(value instanceof ArrrayListDataPoints)) {
+            return null;
+        }
+
+        ArrayList<Double> data = ((ArrrayListDataPoints) value).getData();
+        StringBuilder tooltip = new StringBuilder();
+
+        for (int i = 0; i < data.size(); i++) {
+            tooltip.append(numberFormat.format(data.get(i)));
+            if (i < data.size() - 1) {
+                tooltip.append(" / ");
+            }
+        }
+
+        return tooltip.toString();
+    }
 }
@@ -1,21 +1,29 @@
 package no.uib.jsparklines.renderers;
 
 import no.uib.jsparklines.renderers.util.BarChartColorRenderer;
+import no.uib.jsparklines.renderers.util.DirectBarChartPanel;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
 import javax.swing.*;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.ValueAndBooleanDataPoint;
 import no.uib.jsparklines.data.XYDataPoint;
+import no.uib.jsparklines.renderers.util.CacheableTableCellRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
 import no.uib.jsparklines.renderers.util.GradientColorCoding;
 import no.uib.jsparklines.renderers.util.GradientColorCoding.ColorGradient;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
+import no.uib.jsparklines.renderers.util.SparklineImageCache;
 import org.jdesktop.swingx.JXTable;
 import org.jdesktop.swingx.decorator.ColorHighlighter;
 import org.jfree.chart.ChartFactory;
@@ -23,7 +31,6 @@ import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.renderer.category.CategoryItemRenderer;
 import org.jfree.data.category.DefaultCategoryDataset;
 
 /**
@@ -34,7 +41,7 @@ import org.jfree.data.category.DefaultCategoryDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesBarChartTableCellRenderer extends JPanel implements TableCellRenderer {
+public class JSparklinesBarChartTableCellRenderer extends JPanel implements CacheableTableCellRenderer, LazyToolTipRenderer, MeteredTableCellRenderer {
 
     /**
      * The horizontal alignment of the label when showing number and chart.
@@ -164,6 +171,38 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      * of the values.
      */
     private boolean logScale = false;
+    /**
+     * If true, the bars are painted directly onto the cell instead of via a
+     * JFreeChart bar chart.
+     */
+    private boolean directRendering = false;
+    /**
+     * The panel used to paint the bars when direct rendering is used.
+     */
+    private DirectBarChartPanel directBarChartPanel;
+    /**
+     * The image cache used to speed up repeated paints of the same cells, null
+     * if the cells are rendered every time.
+     */
+    private SparklineImageCache imageCache = null;
+    /**
+     * Incremented every time a setting affecting the rendering changes. Used
+     * to decide when the cached images can no longer be used.
+     */
+    private int configurationVersion = 0;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The value of the last rendered chart, used to create the tooltip when
+     * the user hovers the cell.
+     */
+    private Object tooltipValue = null;
 
     /**
      * Creates a new JSparklinesBarChartTableCellRenderer. Use this constructor
@@ -352,9 +391,36 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
         chart = ChartFactory.createBarChart(null, null, null, dataset, plotOrientation, false, false, false);
         this.chartPanel = new ChartPanel(chart);
 
+        directBarChartPanel = new DirectBarChartPanel(plotOrientation);
+        directBarChartPanel.setVisible(false);
+
         this.setLayout(new BoxLayout(this, BoxLayout.LINE_AXIS));
         this.add(valueLabel);
         add(chartPanel);
+        add(directBarChartPanel);
+    }
+
+    /**
+     * If true, the bars, heat maps and significance colors are painted directly
+     * onto the table cell instead of via a JFreeChart bar chart. This is
+     * considerably faster for large tables. The JFreeChart based rendering is
+     * used by default.
+     *
+     * @param directRendering if true, the bars are painted directly
+     */
+    public void setDirectRendering(boolean directRendering) {
+        this.directRendering = directRendering;
+        configurationVersion++;
+    }
+
+    /**
+     * Returns true if the bars are painted directly onto the table cell
+     * instead of via a JFreeChart bar chart.
+     *
+     * @return true if the bars are painted directly
+     */
+    public boolean isDirectRendering() {
+        return directRendering;
     }
 
     /**
@@ -392,6 +458,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                 maxValue = Math.abs(minValue);
             }
         }
+        configurationVersion++;
     }
 
     /**
@@ -453,6 +520,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                 maxValue = Math.abs(minValue);
             }
         }
+        configurationVersion++;
     }
 
     /**
@@ -462,6 +530,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setBackgroundColor(Color plotBackgroundColor) {
         this.plotBackgroundColor = plotBackgroundColor;
+        configurationVersion++;
     }
 
     /**
@@ -493,6 +562,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
         this.showNumberAndChart = showNumberAndChart;
         this.widthOfValueLabel = widthOfLabel;
         this.numberFormat = numberFormat;
+        configurationVersion++;
     }
 
     /**
@@ -534,6 +604,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
         labelHorizontalAlignement = horizontalAlignement;
         valueLabel.setFont(font);
         this.numberFormat = numberFormat;
+        configurationVersion++;
     }
 
     /**
@@ -543,6 +614,10 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setMaxValue(double maxValue) {
         this.maxValue = maxValue;
+        if (maxValue != 0) {
+            maxLogValue = Math.log10(maxValue);
+        }
+        configurationVersion++;
     }
 
     /**
@@ -552,6 +627,10 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setMinValue(double minValue) {
         this.minValue = minValue;
+        if (minValue != 0) {
+            minLogValue = Math.log10(minValue);
+        }
+        configurationVersion++;
     }
 
     /**
@@ -561,14 +640,90 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void showNumbers(boolean showNumbers) {
         this.showNumbers = showNumbers;
+        configurationVersion++;
+    }
+
+    /**
+     * Set the image cache to use. The cached images are used when the same
+     * cell value is painted again with the same cell size, colors and renderer
+     * settings, avoiding rendering the chart again. The cache can be shared by
+     * several renderers. Note that the cell values are compared by identity,
+     * and the settings of the renderer only via the setters of this class.
+     * Null disables the cache, which is the default.
+     *
+     * @param imageCache the image cache, null disables the cache
+     */
+    public void setImageCache(SparklineImageCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
+    /**
+     * Returns the image cache, null if not set.
+     *
+     * @return the image cache
+     */
+    public SparklineImageCache getImageCache() {
+        return imageCache;
+    }
+
+    @Override
+    public int getConfigurationVersion() {
+        return configurationVersion;
+    }
+
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
     }
 
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(imageCache);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        if (imageCache != null) {
+            return imageCache.getTableCellRendererComponent(this, table, value, isSelected, hasFocus, row, column);
+        }
+
+        return getUncachedTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+    }
+
+    @Override
+    public Component getUncachedTableCellRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // check if the input is of a supported type
         boolean supportedObjectType = false;
@@ -585,11 +740,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
         }
 
         if (!supportedObjectType) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // if show numbers, format as number and return
@@ -601,13 +752,9 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                     value = ((Float) value).doubleValue();
                 }
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, roundDouble(((Double) value).doubleValue(), 2),
+                c = cellStyleResolver.getTableCellRendererComponent(table, roundDouble(((Double) value).doubleValue(), 2),
                         isSelected, hasFocus, row, column);
 
-                if (Math.abs(Double.valueOf("" + value)) < tooltipLowerValue) {
-                    c.setToolTipText("" + roundDouble(Double.valueOf("" + value).doubleValue(), 8));
-                }
-
             } else if (value instanceof Integer
                     || value instanceof Short
                     || value instanceof Long
@@ -621,82 +768,40 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                     value = ((Byte) value).intValue();
                 }
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, (Integer) value,
+                c = cellStyleResolver.getTableCellRendererComponent(table, (Integer) value,
                         isSelected, hasFocus, row, column);
 
             } else if (value instanceof XYDataPoint) {
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, ((XYDataPoint) value).toString(),
+                c = cellStyleResolver.getTableCellRendererComponent(table, ((XYDataPoint) value).toString(),
                         isSelected, hasFocus, row, column);
 
-                if (Math.abs(Double.valueOf("" + ((XYDataPoint) value).getX())) < tooltipLowerValue) {
-                    c.setToolTipText("" + roundDouble(Double.valueOf("" + ((XYDataPoint) value).getX()).doubleValue(), 8));
-                }
-
             } else if (value instanceof ValueAndBooleanDataPoint) {
 
                 if (Double.isInfinite(((ValueAndBooleanDataPoint) value).getValue())) {
-                    c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, ((ValueAndBooleanDataPoint) value).getValue(),
+                    c = cellStyleResolver.getTableCellRendererComponent(table, ((ValueAndBooleanDataPoint) value).getValue(),
                             isSelected, hasFocus, row, column);
                 } else {
-                    c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, ((ValueAndBooleanDataPoint) value).toString(),
+                    c = cellStyleResolver.getTableCellRendererComponent(table, ((ValueAndBooleanDataPoint) value).toString(),
                             isSelected, hasFocus, row, column);
-
-                    if (Math.abs(Double.valueOf("" + ((ValueAndBooleanDataPoint) value).getValue())) < tooltipLowerValue) {
-                        c.setToolTipText("" + roundDouble(Double.valueOf("" + ((ValueAndBooleanDataPoint) value).getValue()).doubleValue(), 8));
-                    }
                 }
             }
 
-            ((JLabel) c).setHorizontalAlignment(SwingConstants.RIGHT);
+            // the tooltip is created when the user hovers the cell
+            cellStyleResolver.setLazyToolTip(this, value);
 
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            ((JLabel) c).setHorizontalAlignment(SwingConstants.RIGHT);
 
             return c;
         }
 
-        // set the tooltip text
-        if (value instanceof Double || value instanceof Float) {
-
-            if (value instanceof Float) {
-                value = ((Float) value).doubleValue();
-            }
-
-            if (Math.abs(Double.valueOf("" + value)) < tooltipLowerValue) {
-                this.setToolTipText("" + roundDouble(Double.valueOf("" + value).doubleValue(), 8));
-            } else {
-                this.setToolTipText("" + roundDouble(Double.valueOf("" + value).doubleValue(), 2));
-            }
-
-        } else if (value instanceof Integer
-                || value instanceof Short
-                || value instanceof Long
-                || value instanceof Byte) {
-
-            this.setToolTipText("" + value);
-
-        } else if (value instanceof XYDataPoint) {
-            if (Math.abs(((XYDataPoint) value).getX()) < tooltipLowerValue) {
-                this.setToolTipText("" + roundDouble(((XYDataPoint) value).getX(), 8));
-            } else {
-                this.setToolTipText("" + roundDouble(((XYDataPoint) value).getX(), 2));
-            }
-        } else if (value instanceof ValueAndBooleanDataPoint) {
-
-            if (Double.isInfinite(((ValueAndBooleanDataPoint) value).getValue())) {
-                this.setToolTipText("" + ((ValueAndBooleanDataPoint) value).getValue());
-            } else {
-                this.setToolTipText("" + roundDouble(((ValueAndBooleanDataPoint) value).getValue(), 2));
-
-                if (Math.abs(Double.valueOf("" + ((ValueAndBooleanDataPoint) value).getValue())) < tooltipLowerValue) {
-                    this.setToolTipText("" + roundDouble(((ValueAndBooleanDataPoint) value).getValue(), 8));
-                }
-            }
+        if (value instanceof Float) {
+            value = ((Float) value).doubleValue();
         }
 
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = value;
+
         // show the number _and_ the chart if option selected
         if (showNumberAndChart) {
 
@@ -719,10 +824,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                 valueLabel.setText(numberFormat.format(temp));
             }
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            Color bg = c.getBackground();
-            valueLabel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            valueLabel.setBackground(c.getBackground());
 
             // add some padding
             if (labelHorizontalAlignement == SwingConstants.RIGHT) {
@@ -751,8 +853,8 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
         setOpaque(c.isOpaque());
         setBackground(c.getBackground());
 
-        // create the bar chart
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        // find the value to plot
+        double barValue = 0;
 
         if (value instanceof Double || value instanceof Float) {
 
@@ -770,12 +872,12 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
 
             if (showAsHeatMap) {
                 if (logScale) {
-                    dataset.addValue(maxValue, "1", "1");
+                    barValue = maxValue;
                 } else {
-                    dataset.addValue(maxLogValue, "1", "1");
+                    barValue = maxLogValue;
                 }
             } else {
-                dataset.addValue(((Double) value), "1", "1");
+                barValue = (Double) value;
             }
 
         } else if (value instanceof Integer
@@ -801,15 +903,15 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
 
             if (showAsHeatMap) {
                 if (logScale) {
-                    dataset.addValue(maxLogValue, "1", "1");
+                    barValue = maxLogValue;
                 } else {
-                    dataset.addValue(maxValue, "1", "1");
+                    barValue = maxValue;
                 }
             } else {
                 if (value instanceof Integer) {
-                    dataset.addValue(((Integer) value), "1", "1");
+                    barValue = (Integer) value;
                 } else {
-                    dataset.addValue(((Double) value), "1", "1");
+                    barValue = (Double) value;
                 }
             }
 
@@ -821,18 +923,18 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                 tempX = minimumChartValue;
             }
 
-            if (logScale && ((Double) tempX).doubleValue() != 0) {
+            if (logScale && tempX != 0) {
                 tempX = Math.log10(tempX);
             }
 
             if (showAsHeatMap) {
                 if (logScale) {
-                    dataset.addValue(maxLogValue, "1", "1");
+                    barValue = maxLogValue;
                 } else {
-                    dataset.addValue(maxValue, "1", "1");
+                    barValue = maxValue;
                 }
             } else {
-                dataset.addValue(tempX, "1", "1");
+                barValue = tempX;
             }
 
         } else if (value instanceof ValueAndBooleanDataPoint) {
@@ -843,51 +945,42 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                 tempX = minimumChartValue;
             }
 
-            if (logScale && ((Double) tempX).doubleValue() != 0) {
+            if (logScale && tempX != 0) {
                 tempX = Math.log10(tempX);
             }
 
             if (showAsHeatMap) {
                 if (logScale) {
-                    dataset.addValue(maxLogValue, "1", "1");
+                    barValue = maxLogValue;
                 } else {
-                    dataset.addValue(maxValue, "1", "1");
+                    barValue = maxValue;
                 }
             } else {
-                dataset.addValue(tempX, "1", "1");
+                barValue = tempX;
             }
         }
 
-        // fine tune the chart properites
-        CategoryPlot plot = chart.getCategoryPlot();
+        // find the axis range
+        double lowerBound, upperBound;
 
-        // set the axis range
         if (showAsHeatMap) {
+            lowerBound = 0;
             if (logScale) {
-                plot.getRangeAxis().setRange(0, maxLogValue);
+                upperBound = maxLogValue;
             } else {
-                plot.getRangeAxis().setRange(0, maxValue);
+                upperBound = maxValue;
             }
         } else {
             if (logScale) {
-                plot.getRangeAxis().setRange(minLogValue, maxLogValue);
+                lowerBound = minLogValue;
+                upperBound = maxLogValue;
             } else {
-                plot.getRangeAxis().setRange(minValue, maxValue);
+                lowerBound = minValue;
+                upperBound = maxValue;
             }
         }
 
-        // add the dataset
-        plot.setDataset(dataset);
-
-        // hide unwanted chart details
-        plot.setOutlineVisible(false);
-        plot.getRangeAxis().setVisible(false);
-        plot.getDomainAxis().setVisible(false);
-        plot.setRangeGridlinesVisible(false);
-
-        // set up the chart renderer
-        CategoryItemRenderer renderer = null;
-
+        // find the bar color
         Color currentColor = c.getBackground();
 
         if (value instanceof Double || value instanceof Float) {
@@ -898,18 +991,15 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
 
             if (gradientColoring) {
                 if (logScale) {
-                    currentColor = GradientColorCoding.findGradientColor((Double) value, minLogValue, maxLogValue, currentColorGradient, positiveColorGradient);
+                    currentColor = GradientColorCoding.getGradientColor((Double) value, minLogValue, maxLogValue, currentColorGradient, positiveColorGradient);
                 } else {
-                    currentColor = GradientColorCoding.findGradientColor((Double) value, minValue, maxValue, currentColorGradient, positiveColorGradient);
+                    currentColor = GradientColorCoding.getGradientColor((Double) value, minValue, maxValue, currentColorGradient, positiveColorGradient);
                 }
-                renderer = new BarChartColorRenderer(currentColor);
             } else {
                 if (((Double) value).doubleValue() >= 0) {
                     currentColor = positiveValuesColor;
-                    renderer = new BarChartColorRenderer(currentColor);
                 } else {
                     currentColor = negativeValuesColor;
-                    renderer = new BarChartColorRenderer(negativeValuesColor);
                 }
             }
 
@@ -929,14 +1019,13 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
             if (gradientColoring) {
                 if (logScale) {
                     if (value instanceof Integer) {
-                        currentColor = GradientColorCoding.findGradientColor(((Integer) value).doubleValue(), minLogValue, maxLogValue, currentColorGradient, positiveColorGradient);
+                        currentColor = GradientColorCoding.getGradientColor(((Integer) value).doubleValue(), minLogValue, maxLogValue, currentColorGradient, positiveColorGradient);
                     } else {
-                        currentColor = GradientColorCoding.findGradientColor((Double) value, minLogValue, maxLogValue, currentColorGradient, positiveColorGradient);
+                        currentColor = GradientColorCoding.getGradientColor((Double) value, minLogValue, maxLogValue, currentColorGradient, positiveColorGradient);
                     }
                 } else {
-                    currentColor = GradientColorCoding.findGradientColor(((Integer) value).doubleValue(), minValue, maxValue, currentColorGradient, positiveColorGradient);
+                    currentColor = GradientColorCoding.getGradientColor(((Integer) value).doubleValue(), minValue, maxValue, currentColorGradient, positiveColorGradient);
                 }
-                renderer = new BarChartColorRenderer(currentColor);
             } else {
 
                 boolean positiveValue;
@@ -949,55 +1038,35 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
 
                 if (positiveValue) {
                     currentColor = positiveValuesColor;
-                    renderer = new BarChartColorRenderer(currentColor);
                 } else {
                     currentColor = negativeValuesColor;
-                    renderer = new BarChartColorRenderer(negativeValuesColor);
                 }
             }
 
         } else if (value instanceof XYDataPoint) {
 
-            if (((XYDataPoint) value).getX() >= 0) {
-                if (((XYDataPoint) value).getY() >= significanceLevel) {
-                    currentColor = nonSignificantColor;
-                    renderer = new BarChartColorRenderer(currentColor);
-                } else {
-                    currentColor = positiveValuesColor;
-                    renderer = new BarChartColorRenderer(currentColor);
-                }
+            if (((XYDataPoint) value).getY() >= significanceLevel) {
+                currentColor = nonSignificantColor;
+            } else if (((XYDataPoint) value).getX() >= 0) {
+                currentColor = positiveValuesColor;
             } else {
-                if (((XYDataPoint) value).getY() >= significanceLevel) {
-                    currentColor = nonSignificantColor;
-                    renderer = new BarChartColorRenderer(currentColor);
-                } else {
-                    currentColor = negativeValuesColor;
-                    renderer = new BarChartColorRenderer(currentColor);
-                }
+                currentColor = negativeValuesColor;
             }
 
         } else if (value instanceof ValueAndBooleanDataPoint) {
 
-            if (((ValueAndBooleanDataPoint) value).getValue() >= 0) {
-                if (!((ValueAndBooleanDataPoint) value).isSignificant()) {
-                    currentColor = nonSignificantColor;
-                    renderer = new BarChartColorRenderer(currentColor);
-                } else {
-                    currentColor = positiveValuesColor;
-                    renderer = new BarChartColorRenderer(currentColor);
-                }
+            if (!((ValueAndBooleanDataPoint) value).isSignificant()) {
+                currentColor = nonSignificantColor;
+            } else if (((ValueAndBooleanDataPoint) value).getValue() >= 0) {
+                currentColor = positiveValuesColor;
             } else {
-                if (!((ValueAndBooleanDataPoint) value).isSignificant()) {
-                    currentColor = nonSignificantColor;
-                    renderer = new BarChartColorRenderer(currentColor);
-                } else {
-                    currentColor = negativeValuesColor;
-                    renderer = new BarChartColorRenderer(currentColor);
-                }
+                currentColor = negativeValuesColor;
             }
         }
 
-        // make sure the background is the same as the table row color
+        // find the plot background color, null means the row color is used
+        Color plotBackground = null;
+
         if (showAsHeatMap) {
 
             if (isSelected) {
@@ -1008,16 +1077,12 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                 }
             }
 
-            plot.setBackgroundPaint(currentColor);
-            chartPanel.setBackground(currentColor);
-            chart.setBackgroundPaint(currentColor);
+            plotBackground = currentColor;
             this.setBackground(currentColor);
 
         } else {
             if (plotBackgroundColor != null && !isSelected) {
-                plot.setBackgroundPaint(plotBackgroundColor);
-                chartPanel.setBackground(plotBackgroundColor);
-                chart.setBackgroundPaint(plotBackgroundColor);
+                plotBackground = plotBackgroundColor;
             } else {
 
                 if (table instanceof JXTable) {
@@ -1044,9 +1109,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                                 if (row % 2 == 0 || isSelected) {
                                     useDefaultBackgroundColorApproach = true;
                                 } else {
-                                    plot.setBackgroundPaint(tempColor);
-                                    chartPanel.setBackground(tempColor);
-                                    chart.setBackgroundPaint(tempColor);
+                                    plotBackground = tempColor;
                                     this.setBackground(tempColor);
                                 }
 
@@ -1064,29 +1127,56 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                     }
 
                     if (useDefaultBackgroundColorApproach) {
-                        // We have to create a new color object because Nimbus returns
-                        // a color of type DerivedColor, which behaves strange, not sure why.
-                        Color bg = c.getBackground();
-                        plot.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-                        chartPanel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-                        chart.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-                        this.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+                        plotBackground = c.getBackground();
+                        this.setBackground(plotBackground);
                     }
                 } else {
                     // we have a normal JTable
 
-                    // We have to create a new color object because Nimbus returns
-                    // a color of type DerivedColor, which behaves strange, not sure why.
-                    Color bg = c.getBackground();
-                    plot.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-                    chartPanel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-                    chart.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-                    this.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+                    plotBackground = c.getBackground();
+                    this.setBackground(plotBackground);
                 }
             }
         }
 
-        plot.setRenderer(renderer);
+        chartPanel.setVisible(!directRendering);
+        directBarChartPanel.setVisible(directRendering);
+
+        // paint the bar directly, without going via JFreeChart
+        if (directRendering) {
+            directBarChartPanel.setBackground(plotBackground);
+            directBarChartPanel.setBar(barValue, lowerBound, upperBound, currentColor);
+            return this;
+        }
+
+        // create the bar chart
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        dataset.addValue(barValue, "1", "1");
+
+        // fine tune the chart properites
+        CategoryPlot plot = chart.getCategoryPlot();
+
+        // set the axis range
+        plot.getRangeAxis().setRange(lowerBound, upperBound);
+
+        // add the dataset
+        plot.setDataset(dataset);
+
+        // hide unwanted chart details
+        plot.setOutlineVisible(false);
+        plot.getRangeAxis().setVisible(false);
+        plot.getDomainAxis().setVisible(false);
+        plot.setRangeGridlinesVisible(false);
+
+        // make sure the background is the same as the table row color
+        if (plotBackground != null) {
+            plot.setBackgroundPaint(plotBackground);
+            chartPanel.setBackground(plotBackground);
+            chart.setBackgroundPaint(plotBackground);
+        }
+
+        // set up the chart renderer
+        plot.setRenderer(new BarChartColorRenderer(currentColor));
 
         return this;
     }
@@ -1098,6 +1188,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setNegativeValuesColor(Color negativeValuesColor) {
         this.negativeValuesColor = negativeValuesColor;
+        configurationVersion++;
     }
 
     /**
@@ -1107,6 +1198,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setPositiveValuesColor(Color positiveValuesColor) {
         this.positiveValuesColor = positiveValuesColor;
+        configurationVersion++;
     }
 
     /**
@@ -1136,6 +1228,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setMinimumChartValue(double minimumChartValue) {
         this.minimumChartValue = minimumChartValue;
+        configurationVersion++;
     }
 
     /**
@@ -1155,6 +1248,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setTooltipLowerValue(double tooltipLowerValue) {
         this.tooltipLowerValue = tooltipLowerValue;
+        configurationVersion++;
     }
 
     /**
@@ -1173,6 +1267,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setNonSignificantColor(Color nonSignificantColor) {
         this.nonSignificantColor = nonSignificantColor;
+        configurationVersion++;
     }
 
     /**
@@ -1195,6 +1290,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setSignificanceLevel(double significanceLevel) {
         this.significanceLevel = significanceLevel;
+        configurationVersion++;
     }
 
     /**
@@ -1213,6 +1309,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
      */
     public void setHeatMapBorderColor(Color heatMapBorderColor) {
         this.heatMapBorderColor = heatMapBorderColor;
+        configurationVersion++;
     }
 
     /**
@@ -1239,6 +1336,7 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
                 minLogValue = Math.log10(minValue);
             }
         }
+        configurationVersion++;
     }
 
     /**
@@ -1258,4 +1356,94 @@ public class JSparklinesBarChartTableCellRenderer extends JPanel implements Tabl
     public double getMinValue() {
         return minValue;
     }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        if (showNumbers) {
+            return createNumberToolTipText(value);
+        }
+
+        if (value instanceof Double || value instanceof Float) {
+
+            double doubleValue = ((Number) value).doubleValue();
+
+            if (Math.abs(doubleValue) < tooltipLowerValue) {
+                return "" + roundDouble(doubleValue, 8);
+            } else {
+                return "" + roundDouble(doubleValue, 2);
+            }
+
+        } else if (value instanceof Integer
+                || value instanceof Short
+                || value instanceof Long
+                || value instanceof Byte) {
+
+            return "" + value;
+
+        } else if (value instanceof XYDataPoint) {
+
+            if (Math.abs(((XYDataPoint) value).getX()) < tooltipLowerValue) {
+                return "" + roundDouble(((XYDataPoint) value).getX(), 8);
+            } else {
+                return "" + roundDouble(((XYDataPoint) value).getX(), 2);
+            }
+
+        } else if (value instanceof ValueAndBooleanDataPoint) {
+
+            double doubleValue = ((ValueAndBooleanDataPoint) value).getValue();
+
+            if (Double.isInfinite(doubleValue)) {
+                return "" + doubleValue;
+            } else if (Math.abs(doubleValue) < tooltipLowerValue) {
+                return "" + roundDouble(doubleValue, 8);
+            } else {
+                return "" + roundDouble(doubleValue, 2);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the tooltip for the given cell value when showing the numbers,
+     * i.e., the more precise value for values too small to be shown with two
+     * decimals.
+     *
+     * @param value the value of the cell
+     * @return the tooltip, null if no tooltip is to be shown
+     */
+    private String createNumberToolTipText(Object value) {
+
+        double doubleValue;
+
+        if (value instanceof Double || value instanceof Float) {
+            doubleValue = ((Number) value).doubleValue();
+        } else if (value instanceof XYDataPoint) {
+            doubleValue = ((XYDataPoint) value).getX();
+        } else if (value instanceof ValueAndBooleanDataPoint) {
+            doubleValue = ((ValueAndBooleanDataPoint) value).getValue();
+        } else {
+            return null;
+        }
+
+        if (Double.isInfinite(doubleValue) || !(Math.abs(doubleValue) < tooltipLowerValue)) {
+            return null;
+        }
+
+        return "" + roundDouble(doubleValue, 8);
+    }
 }
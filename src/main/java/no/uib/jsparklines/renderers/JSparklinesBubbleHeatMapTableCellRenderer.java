@@ -3,14 +3,19 @@ package no.uib.jsparklines.renderers;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
 import no.uib.jsparklines.renderers.util.GradientColorCoding;
 import no.uib.jsparklines.renderers.util.GradientColorCoding.ColorGradient;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -25,7 +30,7 @@ import org.jfree.data.xy.DefaultXYZDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements TableCellRenderer {
+public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements LazyToolTipRenderer, MeteredTableCellRenderer {
 
     /**
      * The minimum value to display as a chart. Values smaller than this lower
@@ -69,6 +74,19 @@ public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements
      * gradient color is used for values around zero.
      */
     private boolean positiveColorGradient = false;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The value of the last rendered bubble, used to create the tooltip
+     * when the user hovers the cell.
+     */
+    private Object tooltipValue = null;
 
     /**
      * Creates a new JSparklinesBubbleHeatMapTableCellRenderer.
@@ -125,12 +143,48 @@ public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements
         this.showNumbers = showNumbers;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // check if the input is of a supported type
         boolean supportedObjectType = false;
@@ -145,11 +199,7 @@ public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements
         }
 
         if (!supportedObjectType) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // if show numbers, format as number and return
@@ -161,12 +211,11 @@ public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements
                     value = ((Float) value).doubleValue();
                 }
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, roundDouble(((Double) value).doubleValue(), 2),
+                c = cellStyleResolver.getTableCellRendererComponent(table, roundDouble(((Double) value).doubleValue(), 2),
                         isSelected, hasFocus, row, column);
 
-                if (Math.abs(Double.valueOf("" + value)) < tooltipLowerValue) {
-                    c.setToolTipText("" + roundDouble(Double.valueOf("" + value).doubleValue(), 8));
-                }
+                // the tooltip is created when the user hovers the cell
+                cellStyleResolver.setLazyToolTip(this, value);
 
             } else if (value instanceof Integer
                     || value instanceof Short
@@ -181,7 +230,7 @@ public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements
                     value = ((Byte) value).intValue();
                 }
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, (Integer) value,
+                c = cellStyleResolver.getTableCellRendererComponent(table, (Integer) value,
                         isSelected, hasFocus, row, column);
 
             }
@@ -191,28 +240,13 @@ public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements
             return c;
         }
 
-        // set the tooltip text
-        if (value instanceof Double || value instanceof Float) {
-
-            if (value instanceof Float) {
-                value = ((Float) value).doubleValue();
-            }
-
-            if (Math.abs(Double.valueOf("" + value)) < tooltipLowerValue) {
-                this.setToolTipText("" + roundDouble(Double.valueOf("" + value).doubleValue(), 8));
-            } else {
-                this.setToolTipText("" + roundDouble(Double.valueOf("" + value).doubleValue(), 2));
-            }
-
-        } else if (value instanceof Integer
-                || value instanceof Short
-                || value instanceof Long
-                || value instanceof Byte) {
-
-            this.setToolTipText("" + value);
-
+        if (value instanceof Float) {
+            value = ((Float) value).doubleValue();
         }
 
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = value;
+
         // respect focus and hightlighting
         setBorder(c.getBorder());
         setOpaque(c.isOpaque());
@@ -243,7 +277,7 @@ public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements
             }
 
             xyzDataset.addSeries("1", data);
-            bubbleColor = GradientColorCoding.findGradientColor(((Double) value).doubleValue(), -maxAbsValue, maxAbsValue, currentColorGradient, positiveColorGradient);
+            bubbleColor = GradientColorCoding.getGradientColor(((Double) value).doubleValue(), -maxAbsValue, maxAbsValue, currentColorGradient, positiveColorGradient);
 
         } else if (value instanceof Integer
                 || value instanceof Short
@@ -274,7 +308,7 @@ public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements
             }
 
             xyzDataset.addSeries("1", data);
-            bubbleColor = GradientColorCoding.findGradientColor(((Integer) value).doubleValue(), -maxAbsValue, maxAbsValue, currentColorGradient, positiveColorGradient);
+            bubbleColor = GradientColorCoding.getGradientColor(((Integer) value).doubleValue(), -maxAbsValue, maxAbsValue, currentColorGradient, positiveColorGradient);
         }
 
         chart = ChartFactory.createBubbleChart(null, null, null, xyzDataset, PlotOrientation.VERTICAL, false, false, false);
@@ -366,4 +400,53 @@ public class JSparklinesBubbleHeatMapTableCellRenderer extends JLabel implements
     public void setTooltipLowerValue(double tooltipLowerValue) {
         this.tooltipLowerValue = tooltipLowerValue;
     }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        // when showing the numbers, only the values too small to be shown
+        // with two decimals have a tooltip
+        if (showNumbers) {
+            if (value instanceof Double || value instanceof Float) {
+                double doubleValue = ((Number) value).doubleValue();
+                if (Math.abs(doubleValue) < tooltipLowerValue) {
+                    return "" + roundDouble(doubleValue, 8);
+                }
+            }
+            return null;
+        }
+
+        if (value instanceof Double || value instanceof Float) {
+
+            double doubleValue = ((Number) value).doubleValue();
+
+            if (Math.abs(doubleValue) < tooltipLowerValue) {
+                return "" + roundDouble(doubleValue, 8);
+            } else {
+                return "" + roundDouble(doubleValue, 2);
+            }
+
+        } else if (value instanceof Integer
+                || value instanceof Short
+                || value instanceof Long
+                || value instanceof Byte) {
+
+            return "" + value;
+        }
+
+        return null;
+    }
 }
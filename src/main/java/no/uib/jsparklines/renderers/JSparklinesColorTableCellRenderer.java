@@ -1,16 +1,19 @@
 package no.uib.jsparklines.renderers;
 
 import no.uib.jsparklines.renderers.util.BarChartColorRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Graphics;
 import java.util.HashMap;
 import javax.swing.BoxLayout;
 import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -29,7 +32,7 @@ import org.jfree.data.category.DefaultCategoryDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesColorTableCellRenderer extends JPanel implements TableCellRenderer {
+public class JSparklinesColorTableCellRenderer extends JPanel implements MeteredTableCellRenderer {
 
     /**
      * The chart panel to be displayed.
@@ -49,6 +52,14 @@ public class JSparklinesColorTableCellRenderer extends JPanel implements TableCe
      * The color tooltip mappings.
      */
     private HashMap<Color, String> tooltips;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
 
     /**
      * Creates a new JSparklinesColorTableCellRenderer.
@@ -95,20 +106,52 @@ public class JSparklinesColorTableCellRenderer extends JPanel implements TableCe
         this.plotBackgroundColor = plotBackgroundColor;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // check if the cell contains a color object
         if (value == null || !(value instanceof Color)) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // set the tooltip text
@@ -149,13 +192,11 @@ public class JSparklinesColorTableCellRenderer extends JPanel implements TableCe
             chartPanel.setBackground(plotBackgroundColor);
             chart.setBackgroundPaint(plotBackgroundColor);
         } else {
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
             Color bg = c.getBackground();
-            plot.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chartPanel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chart.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            this.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            plot.setBackgroundPaint(bg);
+            chartPanel.setBackground(bg);
+            chart.setBackgroundPaint(bg);
+            this.setBackground(bg);
         }
 
         plot.setRenderer(renderer);
@@ -6,6 +6,8 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
@@ -15,10 +17,13 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.SignificantStatisticalCategoryDataset;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
 import no.uib.jsparklines.renderers.util.GradientColorCoding;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import no.uib.jsparklines.renderers.util.StatisticalBarChartColorRenderer;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
@@ -35,7 +40,7 @@ import org.jfree.data.statistics.DefaultStatisticalCategoryDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesErrorBarChartTableCellRenderer extends JPanel implements TableCellRenderer {
+public class JSparklinesErrorBarChartTableCellRenderer extends JPanel implements LazyToolTipRenderer, MeteredTableCellRenderer {
 
     /**
      * The minimum value to display as a chart. Values smaller than this lower
@@ -141,6 +146,19 @@ public class JSparklinesErrorBarChartTableCellRenderer extends JPanel implements
      * The width of the error stroke bars.
      */
     private float errorBarWidth = 4;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The dataset of the last rendered chart, used to create the tooltip when
+     * the user hovers the cell.
+     */
+    private Object tooltipValue = null;
 
     /**
      * Creates a new JSparklinesBarChartTableCellRenderer. Use this constructor
@@ -376,26 +394,58 @@ public class JSparklinesErrorBarChartTableCellRenderer extends JPanel implements
         this.errorBarWidth = errorBarWidth;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // check if the cell contain a color object
         if (value == null || !(value instanceof DefaultStatisticalCategoryDataset)) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
-        // set the tooltip text
         DefaultStatisticalCategoryDataset tempSet = (DefaultStatisticalCategoryDataset) value;
-        this.setToolTipText("<html>Intensity: " + roundDouble((Double) tempSet.getMeanValue(0, 0), 4) + "<br>"
-                + "STDEV: " + roundDouble((Double) tempSet.getStdDevValue(0, 0), 4) + "</html>");
+
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = value;
 
         // check if significance is to be indicated
         if (indicateSignificance && value instanceof SignificantStatisticalCategoryDataset) {
@@ -421,10 +471,7 @@ public class JSparklinesErrorBarChartTableCellRenderer extends JPanel implements
             double temp = tempSet.getMeanValue(0, 0).doubleValue();
             valueLabel.setText(numberFormat.format(temp));
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            Color bg = c.getBackground();
-            valueLabel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            valueLabel.setBackground(c.getBackground());
 
             // add some padding
             if (labelHorizontalAlignement == SwingConstants.RIGHT) {
@@ -473,7 +520,7 @@ public class JSparklinesErrorBarChartTableCellRenderer extends JPanel implements
         StatisticalBarChartColorRenderer renderer;
 
         if (gradientColoring) {
-            Color currentColor = GradientColorCoding.findGradientColor((Double) tempSet.getMeanValue(0, 0), minValue, maxValue, currentColorGradient, positiveColorGradient);
+            Color currentColor = GradientColorCoding.getGradientColor((Double) tempSet.getMeanValue(0, 0), minValue, maxValue, currentColorGradient, positiveColorGradient);
             renderer = new StatisticalBarChartColorRenderer(currentColor);
         } else {
             if ((Double) tempSet.getMeanValue(0, 0) >= 0) {
@@ -492,13 +539,11 @@ public class JSparklinesErrorBarChartTableCellRenderer extends JPanel implements
             chartPanel.setBackground(plotBackgroundColor);
             chart.setBackgroundPaint(plotBackgroundColor);
         } else {
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
             Color bg = c.getBackground();
-            plot.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chartPanel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chart.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            this.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            plot.setBackgroundPaint(bg);
+            chartPanel.setBackground(bg);
+            chart.setBackgroundPaint(bg);
+            this.setBackground(bg);
         }
 
         return this;
@@ -651,4 +696,30 @@ public class JSparklinesErrorBarChartTableCellRenderer extends JPanel implements
         valueLabel.setFont(font);
         this.numberFormat = numberFormat;
     }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        if (!(value instanceof DefaultStatisticalCategoryDataset)) {
+            return null;
+        }
+
+        DefaultStatisticalCategoryDataset tempSet = (DefaultStatisticalCategoryDataset) value;
+
+        return "<html>Intensity: " + roundDouble((Double) tempSet.getMeanValue(0, 0), 4) + "<br>"
+                + "STDEV: " + roundDouble((Double) tempSet.getStdDevValue(0, 0), 4) + "</html>";
+    }
 }
@@ -3,14 +3,18 @@ package no.uib.jsparklines.renderers;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Graphics;
 import javax.swing.BoxLayout;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.DirectHeatMapPanel;
 import no.uib.jsparklines.renderers.util.GradientColorCoding;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -29,7 +33,7 @@ import org.jfree.data.category.DefaultCategoryDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesHeatMapTableCellRenderer extends JLabel implements TableCellRenderer {
+public class JSparklinesHeatMapTableCellRenderer extends JLabel implements MeteredTableCellRenderer {
 
     /**
      * The background color, if null the row color is used.
@@ -69,6 +73,23 @@ public class JSparklinesHeatMapTableCellRenderer extends JLabel implements Table
      * gradient color is used for values around zero.
      */
     private boolean positiveColorGradient = false;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * If true, the heat maps are painted directly onto the table cell instead
+     * of via a JFreeChart stacked bar chart.
+     */
+    private boolean directRendering = false;
+    /**
+     * The panel used for painting the heat maps directly.
+     */
+    private DirectHeatMapPanel directHeatMapPanel;
 
     /**
      * Creates a new JSparkLinesTableCellRenderer. Use this constructor when
@@ -89,6 +110,8 @@ public class JSparklinesHeatMapTableCellRenderer extends JLabel implements Table
         chart = ChartFactory.createBarChart(null, null, null, dataset, PlotOrientation.VERTICAL, false, false, false);
         this.chartPanel = new ChartPanel(chart);
 
+        directHeatMapPanel = new DirectHeatMapPanel();
+
         this.setLayout(new BoxLayout(this, BoxLayout.LINE_AXIS));
         add(chartPanel);
     }
@@ -149,12 +172,72 @@ public class JSparklinesHeatMapTableCellRenderer extends JLabel implements Table
         this.currentColorGradient = colorGradient;
     }
 
+    /**
+     * If true, the heat maps are painted directly onto the table cell instead
+     * of via a JFreeChart stacked bar chart. Each value is painted as one
+     * colored block in a single pass over the values, without creating any
+     * chart objects, which is considerably faster for long data series. The
+     * blocks are laid out as in the bar chart. The JFreeChart based rendering
+     * is used by default.
+     *
+     * @param directRendering if true, the heat maps are painted directly
+     */
+    public void setDirectRendering(boolean directRendering) {
+        this.directRendering = directRendering;
+    }
+
+    /**
+     * Returns true if the heat maps are painted directly onto the table cell
+     * instead of via a JFreeChart stacked bar chart.
+     *
+     * @return true if the heat maps are painted directly
+     */
+    public boolean isDirectRendering() {
+        return directRendering;
+    }
+
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // respect focus and hightlighting
         setBorder(c.getBorder());
@@ -168,27 +251,40 @@ public class JSparklinesHeatMapTableCellRenderer extends JLabel implements Table
 
         // check for valid object type
         if (value == null || !(value instanceof JSparklinesDataSeries)) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // get the dataset
         JSparklinesDataSeries dataSeries = (JSparklinesDataSeries) value;
 
-        StringBuilder tooltip = new StringBuilder(); // @TODO: add tooltip?
-        tooltip.append("<html>");
+        // paint the heat map directly, without going via JFreeChart
+        if (directRendering) {
+
+            // make sure the background is the same as the table row color
+            if (backgroundColor != null) {
+                directHeatMapPanel.setBackground(backgroundColor);
+            } else {
+                directHeatMapPanel.setBackground(c.getBackground());
+            }
+
+            directHeatMapPanel.setValues(dataSeries, -maxValue, maxValue, currentColorGradient, positiveColorGradient);
+
+            if (directHeatMapPanel.getParent() != this) {
+                this.removeAll();
+                this.add(directHeatMapPanel);
+            }
+
+            return this;
+        }
 
         DefaultCategoryDataset barChartDataset = new DefaultCategoryDataset();
 
         StackedBarRenderer renderer = new StackedBarRenderer();
         renderer.setShadowVisible(false);
 
-        for (int i = 0; i < dataSeries.getData().size(); i++) {
+        for (int i = 0; i < dataSeries.size(); i++) {
             barChartDataset.addValue(1.0, "" + i, "" + i);
-            Color currentColor = GradientColorCoding.findGradientColor(dataSeries.getData().get(i), -maxValue, maxValue, currentColorGradient, positiveColorGradient);
+            Color currentColor = GradientColorCoding.getGradientColor(dataSeries.getValue(i), -maxValue, maxValue, currentColorGradient, positiveColorGradient);
             renderer.setSeriesPaint(i, currentColor);
         }
 
@@ -217,13 +313,6 @@ public class JSparklinesHeatMapTableCellRenderer extends JLabel implements Table
         // set up the chart renderer
         plot.setRenderer(0, renderer);
 
-        // set the tooltip
-        if (!tooltip.toString().equalsIgnoreCase("<html>")) {
-            setToolTipText(tooltip.append("</html>").toString());
-        } else {
-            setToolTipText(null);
-        }
-
         // hide the outline
         chart.getPlot().setOutlineVisible(false);
 
@@ -1,11 +1,16 @@
 package no.uib.jsparklines.renderers;
 
 import no.uib.jsparklines.renderers.util.BarChartColorRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Graphics;
 import java.util.HashMap;
 import javax.swing.BoxLayout;
 import javax.swing.JComponent;
@@ -13,8 +18,6 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -30,7 +33,7 @@ import org.jfree.data.category.DefaultCategoryDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesIntegerColorTableCellRenderer extends JPanel implements TableCellRenderer {
+public class JSparklinesIntegerColorTableCellRenderer extends JPanel implements MeteredTableCellRenderer {
 
     /**
      * The horizontal alignment of the label when showing number and chart.
@@ -79,6 +82,14 @@ public class JSparklinesIntegerColorTableCellRenderer extends JPanel implements
      * The integer to color tooltip mappings.
      */
     private HashMap<Integer, String> tooltips;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
 
     /**
      * Creates a new JSparklinesIntegerColorTableCellRenderer, where all integer
@@ -190,35 +201,62 @@ public class JSparklinesIntegerColorTableCellRenderer extends JPanel implements
         this.showNumbers = showNumbers;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // check if the cell contains an integer object
         if (value == null || !(value instanceof Integer)) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // if show numbers, format as number and return
         if (showNumbers) {
 
-            c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, (Integer) value,
+            c = cellStyleResolver.getTableCellRendererComponent(table, (Integer) value,
                     isSelected, hasFocus, row, column);
 
             ((JLabel) c).setHorizontalAlignment(SwingConstants.RIGHT);
 
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-
             return c;
         }
 
@@ -234,10 +272,7 @@ public class JSparklinesIntegerColorTableCellRenderer extends JPanel implements
 
             valueLabel.setText("" + Integer.valueOf("" + value).intValue());
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            Color bg = c.getBackground();
-            valueLabel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            valueLabel.setBackground(c.getBackground());
 
             // add some padding
             if (labelHorizontalAlignement == SwingConstants.RIGHT) {
@@ -297,13 +332,11 @@ public class JSparklinesIntegerColorTableCellRenderer extends JPanel implements
             chartPanel.setBackground(plotBackgroundColor);
             chart.setBackgroundPaint(plotBackgroundColor);
         } else {
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
             Color bg = c.getBackground();
-            plot.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chartPanel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chart.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            this.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            plot.setBackgroundPaint(bg);
+            chartPanel.setBackground(bg);
+            chart.setBackgroundPaint(bg);
+            this.setBackground(bg);
         }
 
         plot.setRenderer(renderer);
@@ -1,15 +1,17 @@
 package no.uib.jsparklines.renderers;
 
-import java.awt.Color;
 import java.awt.Component;
+import java.awt.Graphics;
 import java.util.HashMap;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 
 /**
  * Table cell renderer displaying integers as icons. Supported input: Integer
@@ -17,7 +19,7 @@ import javax.swing.table.TableCellRenderer;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesIntegerIconTableCellRenderer extends JPanel implements TableCellRenderer {
+public class JSparklinesIntegerIconTableCellRenderer extends JPanel implements MeteredTableCellRenderer {
 
     /**
      * The integer to icon mappings.
@@ -35,6 +37,14 @@ public class JSparklinesIntegerIconTableCellRenderer extends JPanel implements T
      * The default tooltip, can be null.
      */
     private String defaultTooltip;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
 
     /**
      * Creates a new JSparklinesIntegerIconTableCellRenderer, where all integer
@@ -86,17 +96,49 @@ public class JSparklinesIntegerIconTableCellRenderer extends JPanel implements T
         this.tooltips = tooltips;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
 
-        JLabel label = (JLabel) new DefaultTableCellRenderer().getTableCellRendererComponent(
-                table, value, isSelected, hasFocus, row, column);
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
 
-        Color bg = label.getBackground();
-        // We have to create a new color object because Nimbus returns
-        // a color of type DerivedColor, which behaves strange, not sure why.
-        label.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+        JLabel label = cellStyleResolver.getTableCellRendererComponent(
+                table, value, isSelected, hasFocus, row, column);
 
         // set the icon to use for the boolean values
         if (value != null && value instanceof Integer) {
@@ -5,6 +5,8 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
@@ -14,11 +16,14 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.XYDataPoint;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
 import no.uib.jsparklines.renderers.util.GradientColorCoding;
 import no.uib.jsparklines.renderers.util.GradientColorCoding.ColorGradient;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -41,7 +46,7 @@ import org.jfree.data.category.DefaultIntervalCategoryDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements TableCellRenderer {
+public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements LazyToolTipRenderer, MeteredTableCellRenderer {
 
     /**
      * Turns of the gradient painting for the interval charts.
@@ -151,6 +156,19 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
      * The reference line color.
      */
     private Color referenceLineColor = Color.BLACK;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The value of the last rendered chart, used to create the tooltip when
+     * the user hovers the cell.
+     */
+    private Object tooltipValue = null;
 
     /**
      * Creates a new JSparklinesIntervalChartTableCellRenderer. Use this
@@ -459,12 +477,48 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
         this.showNumbers = showNumbers;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // check if the input is of a supported type
         boolean supportedObjectType = false;
@@ -481,11 +535,7 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
         }
 
         if (!supportedObjectType) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         if (xyDataPointRequied) {
@@ -504,12 +554,11 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
                     value = ((Float) value).doubleValue();
                 }
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, roundDouble(((Double) value).doubleValue(), 2),
+                c = cellStyleResolver.getTableCellRendererComponent(table, roundDouble(((Double) value).doubleValue(), 2),
                         isSelected, hasFocus, row, column);
 
-                if (Math.abs(Double.valueOf("" + value)) < tooltipLowerValue) {
-                    c.setToolTipText("" + roundDouble(Double.valueOf("" + value).doubleValue(), 8));
-                }
+                // the tooltip is created when the user hovers the cell
+                cellStyleResolver.setLazyToolTip(this, value);
 
             } else if (value instanceof Integer
                     || value instanceof Short
@@ -524,11 +573,11 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
                     value = ((Byte) value).intValue();
                 }
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, (Integer) value,
+                c = cellStyleResolver.getTableCellRendererComponent(table, (Integer) value,
                         isSelected, hasFocus, row, column);
             } else if (value instanceof XYDataPoint) {
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table,
+                c = cellStyleResolver.getTableCellRendererComponent(table,
                         "[" + roundDouble(((XYDataPoint) value).getX(), 2) + ", " + roundDouble(((XYDataPoint) value).getY(), 2) + "]",
                         isSelected, hasFocus, row, column);
             } else if (value instanceof XYDataPoint[]) {
@@ -540,70 +589,21 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
                     temp += "[" + roundDouble(tempValue.getX(), 2) + ", " + roundDouble(tempValue.getY(), 2) + "] ";
                 }
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, temp, isSelected, hasFocus, row, column);
+                c = cellStyleResolver.getTableCellRendererComponent(table, temp, isSelected, hasFocus, row, column);
             }
 
             ((JLabel) c).setHorizontalAlignment(SwingConstants.RIGHT);
 
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-
             return c;
         }
 
-        // set the tooltip text
-        if (value instanceof Double || value instanceof Float) {
-
-            if (value instanceof Float) {
-                value = ((Float) value).doubleValue();
-            }
-
-            if (Math.abs(Double.valueOf("" + value)) < tooltipLowerValue) {
-                this.setToolTipText("" + roundDouble(Double.valueOf("" + value).doubleValue(), 8));
-            } else {
-                this.setToolTipText("" + roundDouble(Double.valueOf("" + value).doubleValue(), 2));
-            }
-
-        } else if (value instanceof Integer
-                || value instanceof Short
-                || value instanceof Long
-                || value instanceof Byte) {
-
-            this.setToolTipText("" + value);
-
-        } else if (value instanceof XYDataPoint) {
-
-            double x = ((XYDataPoint) value).getX();
-            double y = ((XYDataPoint) value).getY();
-
-            if (Math.floor(x) == x && Math.floor(y) == y) {
-                this.setToolTipText("[" + (int) x + ", " + (int) y + "]");
-            } else {
-                this.setToolTipText("[" + roundDouble(x, 2) + ", " + roundDouble(y, 2) + "]");
-            }
-
-        } else if (value instanceof XYDataPoint[]) {
-
-            String temp = "<html>";
-            XYDataPoint[] tempValues = (XYDataPoint[]) value;
-
-            for (XYDataPoint tempValue : tempValues) {
-                double x = tempValue.getX();
-                double y = tempValue.getY();
-                if (Math.floor(x) == x && Math.floor(y) == y) {
-                    temp += "[" + (int) x + ", " + (int) y + "]<br>";
-                } else {
-                    temp += "[" + roundDouble(x, 2) + ", " + roundDouble(y, 2) + "]<br>";
-                }
-            }
-
-            temp += "</html>";
-
-            this.setToolTipText(temp);
+        if (value instanceof Float) {
+            value = ((Float) value).doubleValue();
         }
 
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = value;
+
         // show the number _and_ the chart if option selected
         if (showNumberAndChart) {
 
@@ -640,10 +640,7 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
                 valueLabel.setText(temp);
             }
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            Color bg = c.getBackground();
-            valueLabel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            valueLabel.setBackground(c.getBackground());
 
             // add some padding
             if (labelHorizontalAlignement == SwingConstants.RIGHT) {
@@ -776,7 +773,7 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
             }
 
             if (gradientColoring) {
-                renderer.setSeriesPaint(0, GradientColorCoding.findGradientColor((Double) value, minValue, maxValue, currentColorGradient, positiveColorGradient));
+                renderer.setSeriesPaint(0, GradientColorCoding.getGradientColor((Double) value, minValue, maxValue, currentColorGradient, positiveColorGradient));
             } else {
 
                 if ((Double) value >= 0) {
@@ -800,7 +797,7 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
             }
 
             if (gradientColoring) {
-                renderer.setSeriesPaint(0, GradientColorCoding.findGradientColor(((Integer) value).doubleValue(), minValue, maxValue, currentColorGradient, positiveColorGradient));
+                renderer.setSeriesPaint(0, GradientColorCoding.getGradientColor(((Integer) value).doubleValue(), minValue, maxValue, currentColorGradient, positiveColorGradient));
             } else {
 
                 if ((Integer) value >= 0) {
@@ -816,7 +813,7 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
             temp /= 2;
 
             if (gradientColoring) {
-                renderer.setSeriesPaint(0, GradientColorCoding.findGradientColor(temp, minValue, maxValue, currentColorGradient, positiveColorGradient));
+                renderer.setSeriesPaint(0, GradientColorCoding.getGradientColor(temp, minValue, maxValue, currentColorGradient, positiveColorGradient));
             } else {
 
                 if (temp >= 0) {
@@ -837,7 +834,7 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
                 temp /= 2;
 
                 if (gradientColoring) {
-                    renderer.setSeriesPaint(i, GradientColorCoding.findGradientColor(temp, minValue, maxValue, currentColorGradient, positiveColorGradient));
+                    renderer.setSeriesPaint(i, GradientColorCoding.getGradientColor(temp, minValue, maxValue, currentColorGradient, positiveColorGradient));
                 } else {
 
                     if (temp >= 0) {
@@ -869,13 +866,11 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
             chart.setBackgroundPaint(plotBackgroundColor);
         } else {
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
             Color bg = c.getBackground();
-            plot.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chartPanel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chart.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            this.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            plot.setBackgroundPaint(bg);
+            chartPanel.setBackground(bg);
+            chart.setBackgroundPaint(bg);
+            this.setBackground(bg);
         }
 
         plot.setRenderer(renderer);
@@ -948,4 +943,90 @@ public class JSparklinesIntervalChartTableCellRenderer extends JPanel implements
     public void setPositiveValuesColor(Color positiveValuesColor) {
         this.positiveValuesColor = positiveValuesColor;
     }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        // when showing the numbers, only the values too small to be shown
+        // with two decimals have a tooltip
+        if (showNumbers) {
+            if (value instanceof Double || value instanceof Float) {
+                double doubleValue = ((Number) value).doubleValue();
+                if (Math.abs(doubleValue) < tooltipLowerValue) {
+                    return "" + roundDouble(doubleValue, 8);
+                }
+            }
+            return null;
+        }
+
+        if (value instanceof Double || value instanceof Float) {
+
+            double doubleValue = ((Number) value).doubleValue();
+
+            if (Math.abs(doubleValue) < tooltipLowerValue) {
+                return "" + roundDouble(doubleValue, 8);
+            } else {
+                return "" + roundDouble(doubleValue, 2);
+            }
+
+        } else if (value instanceof Integer
+                || value instanceof Short
+                || value instanceof Long
+                || value instanceof Byte) {
+
+            return "" + value;
+
+        } else if (value instanceof XYDataPoint) {
+
+            StringBuilder tooltip = new StringBuilder();
+            appendDataPoint(tooltip, (XYDataPoint) value);
+
+            return tooltip.toString();
+
+        } else if (value instanceof XYDataPoint[]) {
+
+            StringBuilder tooltip = new StringBuilder("<html>");
+
+            for (XYDataPoint tempValue : (XYDataPoint[]) value) {
+                appendDataPoint(tooltip, tempValue);
+                tooltip.append("<br>");
+            }
+
+            return tooltip.append("</html>").toString();
+        }
+
+        return null;
+    }
+
+    /**
+     * Appends the given data point to the tooltip as [x, y], without decimals
+     * if both values are integers and with two decimals otherwise.
+     *
+     * @param tooltip the tooltip
+     * @param dataPoint the data point
+     */
+    private void appendDataPoint(StringBuilder tooltip, XYDataPoint dataPoint) {
+
+        double x = dataPoint.getX();
+        double y = dataPoint.getY();
+
+        if (Math.floor(x) == x && Math.floor(y) == y) {
+            tooltip.append('[').append((int) x).append(", ").append((int) y).append(']');
+        } else {
+            tooltip.append('[').append(roundDouble(x, 2)).append(", ").append(roundDouble(y, 2)).append(']');
+        }
+    }
 }
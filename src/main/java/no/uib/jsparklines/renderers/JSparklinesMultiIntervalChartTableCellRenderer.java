@@ -5,16 +5,22 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.util.ArrayList;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
 import javax.swing.BoxLayout;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.StartIndexes;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.ChartPanelLayout;
+import no.uib.jsparklines.renderers.util.DirectIntervalChartPanel;
 import no.uib.jsparklines.renderers.util.GradientColorCoding.ColorGradient;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -33,7 +39,7 @@ import org.jfree.data.category.DefaultCategoryDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel implements TableCellRenderer {
+public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel implements LazyToolTipRenderer, MeteredTableCellRenderer {
 
     /**
      * Turns of the gradient painting for the interval charts.
@@ -125,6 +131,28 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
      * The plot orientation.
      */
     private PlotOrientation plotOrientation;
+    /**
+     * If true, the intervals are painted directly onto the cell instead of
+     * via a JFreeChart stacked bar chart.
+     */
+    private boolean directRendering = false;
+    /**
+     * The panel used to paint the intervals when direct rendering is used.
+     */
+    private DirectIntervalChartPanel directIntervalChartPanel;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The start indexes of the last rendered chart, used to create the
+     * tooltip when the user hovers the cell.
+     */
+    private Object tooltipValue = null;
 
     /**
      * Creates a new JSparklinesIntervalChartTableCellRenderer. Use this
@@ -171,9 +199,39 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
         chart = ChartFactory.createBarChart(null, null, null, dataset, plotOrientation, false, false, false);
         this.chartPanel = new ChartPanel(chart);
 
+        directIntervalChartPanel = new DirectIntervalChartPanel(plotOrientation);
+        directIntervalChartPanel.setVisible(false);
+
         this.setLayout(new BoxLayout(this, BoxLayout.LINE_AXIS));
         this.add(valueLabel);
         add(chartPanel);
+        add(directIntervalChartPanel);
+    }
+
+    /**
+     * If true, the intervals are painted directly onto the table cell instead
+     * of via a JFreeChart stacked bar chart. Overlapping and adjacent
+     * intervals are merged at pixel resolution, making the rendering time
+     * depend on the width of the cell rather than on the number of indexes.
+     * This is considerably faster for cells with thousands of indexes. Note
+     * that overlapping intervals are drawn at their actual position, while
+     * the stacked bar chart shifts them to the end of the previous interval.
+     * The JFreeChart based rendering is used by default.
+     *
+     * @param directRendering if true, the intervals are painted directly
+     */
+    public void setDirectRendering(boolean directRendering) {
+        this.directRendering = directRendering;
+    }
+
+    /**
+     * Returns true if the intervals are painted directly onto the table cell
+     * instead of via a JFreeChart stacked bar chart.
+     *
+     * @return true if the intervals are painted directly
+     */
+    public boolean isDirectRendering() {
+        return directRendering;
     }
 
     /**
@@ -304,12 +362,48 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
         this.showNumbers = showNumbers;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // respect focus and hightlighting
         setBorder(c.getBorder());
@@ -323,78 +417,44 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
 
         // if the cell is empty, simply return
         if (value == null || !(value instanceof StartIndexes)) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // get the actual data to display
-        StartIndexes startIndexes = (StartIndexes) value;
-        ArrayList<Integer> indexes = startIndexes.getIndexes();
+        StartIndexes indexes = (StartIndexes) value;
 
         // if show numbers, format as number and return
         if (showNumbers) {
 
-            String numbersAsString = "";
+            String numbersAsString = null;
 
-            if (indexes.isEmpty()) {
-                numbersAsString = null;
-            } else {
-                for (int i = 0; i < indexes.size() - 1; i++) {
-                    numbersAsString += indexes.get(i) + ",";
-                }
-
-                numbersAsString += indexes.get(indexes.size() - 1);
+            if (indexes.size() > 0) {
+                numbersAsString = indexes.toString();
             }
 
-            c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, numbersAsString,
+            c = cellStyleResolver.getTableCellRendererComponent(table, numbersAsString,
                     isSelected, hasFocus, row, column);
 
             ((JLabel) c).setHorizontalAlignment(SwingConstants.RIGHT);
 
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-
             return c;
         }
 
-        // set the tooltip text
-        String numbersAsString;
-
-        if (indexes.isEmpty()) {
-            numbersAsString = null;
-        } else {
-            numbersAsString = "<html>";
-
-            for (int i = 0; i < indexes.size() - 1; i++) {
-                numbersAsString += indexes.get(i) + ",";
-            }
-
-            numbersAsString += indexes.get(indexes.size() - 1);
-            numbersAsString += "</html>";
-        }
-
-        this.setToolTipText(numbersAsString);
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = indexes;
 
         // show the number _and_ the chart if option selected
         if (showNumberAndChart) {
 
-            if (indexes.isEmpty()) {
+            if (indexes.size() == 0) {
                 valueLabel.setText(null);
             } else if (indexes.size() > 1) {
                 valueLabel.setText(indexes.size() + "x");
             } else { // == 1
-                valueLabel.setText("" + indexes.get(0));
+                valueLabel.setText("" + indexes.getIndex(0));
             }
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            Color bg = c.getBackground();
-            valueLabel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            valueLabel.setBackground(c.getBackground());
 
             // add some padding
             if (labelHorizontalAlignement == SwingConstants.RIGHT) {
@@ -418,6 +478,36 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
             valueLabel.setVisible(false);
         }
 
+        chartPanel.setVisible(!directRendering);
+        directIntervalChartPanel.setVisible(directRendering);
+
+        // paint the intervals directly, without going via JFreeChart
+        if (directRendering) {
+
+            // make sure the background is the same as the table row color,
+            // as for the chart below
+            if (plotBackgroundColor != null) {
+                directIntervalChartPanel.setBackground(plotBackgroundColor);
+            } else {
+                directIntervalChartPanel.setBackground(c.getBackground());
+            }
+
+            if (plotBackgroundColor == null || isSelected) {
+                this.setBackground(c.getBackground());
+            }
+
+            directIntervalChartPanel.setIntervals(indexes, widthOfInterval, minValue,
+                    maxValue * ChartPanelLayout.INTERVAL_RANGE_FACTOR, positiveValuesColor);
+
+            if (showReferenceLine) {
+                directIntervalChartPanel.setReferenceLine(referenceLineColor, referenceLineWidth);
+            } else {
+                directIntervalChartPanel.setReferenceLine(null, 0);
+            }
+
+            return this;
+        }
+
         // create the chart
         DefaultCategoryDataset barChartDataset = new DefaultCategoryDataset();
 
@@ -430,9 +520,9 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
         for (int i = 0; i < indexes.size(); i++) {
 
             // add filler to the left
-            barChartDataset.addValue(indexes.get(i) - 1 - indexCounter, "" + seriesCounter, "1");
+            barChartDataset.addValue(indexes.getIndex(i) - 1 - indexCounter, "" + seriesCounter, "1");
             renderer.setSeriesPaint(seriesCounter++, new Color(0, 0, 0, 0));
-            indexCounter += indexes.get(i) - 1 - indexCounter;
+            indexCounter += indexes.getIndex(i) - 1 - indexCounter;
 
             // add the mark
             barChartDataset.addValue(widthOfInterval, "" + seriesCounter, "1");
@@ -440,7 +530,7 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
             indexCounter += widthOfInterval;
         }
 
-        if (!indexes.isEmpty()) {
+        if (indexes.size() > 0) {
             // add filler to the right
             barChartDataset.addValue(maxValue - indexCounter, "" + seriesCounter, "1");
             renderer.setSeriesPaint(seriesCounter++, new Color(0, 0, 0, 0));
@@ -452,7 +542,7 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
         CategoryPlot plot = chart.getCategoryPlot();
 
         // set the axis range
-        plot.getRangeAxis().setRange(minValue, maxValue * 1.02);
+        plot.getRangeAxis().setRange(minValue, maxValue * ChartPanelLayout.INTERVAL_RANGE_FACTOR);
 
         // remove space before/after the domain axis
         plot.getDomainAxis().setUpperMargin(0);
@@ -471,7 +561,7 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
         // add a reference line in the middle of the dataset
         if (showReferenceLine) {
             DefaultCategoryDataset referenceLineDataset = new DefaultCategoryDataset();
-            referenceLineDataset.addValue(maxValue * 1.02, "A", "B");
+            referenceLineDataset.addValue(maxValue * ChartPanelLayout.INTERVAL_RANGE_FACTOR, "A", "B");
             plot.setDataset(1, referenceLineDataset);
             LayeredBarRenderer referenceLineRenderer = new LayeredBarRenderer();
             referenceLineRenderer.setSeriesBarWidth(0, referenceLineWidth);
@@ -487,13 +577,11 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
             chart.setBackgroundPaint(plotBackgroundColor);
         } else {
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
             Color bg = c.getBackground();
-            plot.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chartPanel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chart.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            this.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            plot.setBackgroundPaint(bg);
+            chartPanel.setBackground(bg);
+            chart.setBackgroundPaint(bg);
+            this.setBackground(bg);
         }
 
         plot.setRenderer(0, renderer);
@@ -517,7 +605,7 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
         }
 
         this.remove(1);
-        this.add(chartPanel);
+        this.add(chartPanel, 1);
 
         return this;
     }
@@ -567,4 +655,30 @@ public class JSparklinesMultiIntervalChartTableCellRenderer extends JLabel imple
     public void setPositiveValuesColor(Color positiveValuesColor) {
         this.positiveValuesColor = positiveValuesColor;
     }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        if (!(value instanceof StartIndexes) || ((StartIndexes) value).size() == 0) {
+            return null;
+        }
+
+        StringBuilder tooltip = new StringBuilder("<html>");
+        ((StartIndexes) value).appendIndexes(tooltip);
+
+        return tooltip.append("</html>").toString();
+    }
 }
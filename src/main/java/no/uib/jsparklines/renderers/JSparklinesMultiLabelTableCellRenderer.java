@@ -4,12 +4,19 @@ import java.awt.BasicStroke;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import javax.swing.BoxLayout;
 import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.data.JSparklinesMultiLabel;
 import no.uib.jsparklines.data.JSparklinesMultiLabelDataset;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
@@ -22,6 +29,11 @@ import org.jfree.chart.renderer.LookupPaintScale;
 import org.jfree.chart.renderer.xy.XYBlockRenderer;
 import org.jfree.data.general.DefaultPieDataset;
 import org.jfree.data.xy.DefaultXYZDataset;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 
 /**
  * Table cell renderer for 1-4 color labels displayed either a pie chart or as
@@ -32,7 +44,12 @@ import org.jfree.data.xy.DefaultXYZDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesMultiLabelTableCellRenderer extends JPanel implements TableCellRenderer {
+public class JSparklinesMultiLabelTableCellRenderer extends JPanel implements LazyToolTipRenderer, MeteredTableCellRenderer {
+
+    /**
+     * The maximum number of glyphs kept in the glyph cache.
+     */
+    public static final int MAX_NUMBER_OF_GLYPHS = 256;
 
     /**
      * The chart panel to be displayed.
@@ -53,6 +70,38 @@ public class JSparklinesMultiLabelTableCellRenderer extends JPanel implements Ta
      * square. False is the default.
      */
     private boolean circle = false;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The dataset of the last rendered chart, used to create the tooltip when
+     * the user hovers the cell.
+     */
+    private Object tooltipValue = null;
+    /**
+     * If true, the charts are drawn once per combination of colors, size,
+     * background and selection state, and the cells only draw the cached
+     * image.
+     */
+    private boolean glyphCaching = false;
+    /**
+     * The cached glyphs in least recently used order.
+     */
+    private final LinkedHashMap<GlyphKey, BufferedImage> glyphs = new LinkedHashMap<GlyphKey, BufferedImage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GlyphKey, BufferedImage> eldest) {
+            return size() > MAX_NUMBER_OF_GLYPHS;
+        }
+    };
+    /**
+     * The component drawing the cached glyphs.
+     */
+    private final GlyphPanel glyphPanel = new GlyphPanel();
 
     /**
      * Creates a new JSparklinesColorTableCellRenderer.
@@ -72,6 +121,47 @@ public class JSparklinesMultiLabelTableCellRenderer extends JPanel implements Ta
         this.circle = circle;
     }
 
+    /**
+     * If true, the chart for a given combination of label colors, cell size,
+     * background color and selection state is only drawn once, and then
+     * reused as an image for all the cells with the same combination. As a
+     * column only contains a handful of label combinations, this reduces the
+     * painting of a cell to drawing an image. Disabled by default.
+     *
+     * @param glyphCaching if true, the charts are cached as images
+     */
+    public void setGlyphCaching(boolean glyphCaching) {
+        this.glyphCaching = glyphCaching;
+        if (!glyphCaching) {
+            clearGlyphCache();
+        }
+    }
+
+    /**
+     * Returns true if the charts are cached as images.
+     *
+     * @return true if the charts are cached as images
+     */
+    public boolean isGlyphCaching() {
+        return glyphCaching;
+    }
+
+    /**
+     * Returns the number of glyphs in the glyph cache.
+     *
+     * @return the number of glyphs
+     */
+    public int getNumberOfGlyphs() {
+        return glyphs.size();
+    }
+
+    /**
+     * Removes all the glyphs from the glyph cache.
+     */
+    public void clearGlyphCache() {
+        glyphs.clear();
+    }
+
     /**
      * Sets up the table cell renderer.
      *
@@ -94,82 +184,82 @@ public class JSparklinesMultiLabelTableCellRenderer extends JPanel implements Ta
         this.plotBackgroundColor = plotBackgroundColor;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // if the cell is empty, simply return
         if (value == null || !(value instanceof JSparklinesMultiLabelDataset)) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         JSparklinesMultiLabelDataset dataset = (JSparklinesMultiLabelDataset) value;
-        String tooltips = null;
+
+        // draw the cached image of the chart
+        if (glyphCaching) {
+            return getGlyphComponent(dataset, isSelected, c);
+        }
 
         if (dataset.getLabels().size() == 1) {
             chart = createChart((Color) dataset.getLabels().get(0).getColor());
-            tooltips = dataset.getLabels().get(0).getLabel();
         } else if (dataset.getLabels().size() == 2) {
             chart = createChart((Color) dataset.getLabels().get(0).getColor(),
                     (Color) dataset.getLabels().get(1).getColor());
-            if (circle) {
-                tooltips = "<html><table border=\"0\">"
-                        + "<tr><td>" + dataset.getLabels().get(1).getLabel() + "</td>"
-                        + "<td>" + dataset.getLabels().get(0).getLabel() + "</td></tr></table></html>";
-            } else {
-                tooltips = "<html><table border=\"0\">"
-                        + "<tr><td>" + dataset.getLabels().get(0).getLabel() + "</td>"
-                        + "<td>" + dataset.getLabels().get(1).getLabel() + "</td></tr></table></html>";
-            }
         } else if (dataset.getLabels().size() == 3) {
             chart = createChart((Color) dataset.getLabels().get(0).getColor(),
                     (Color) dataset.getLabels().get(1).getColor(),
                     (Color) dataset.getLabels().get(2).getColor());
-            if (circle) {
-                tooltips = "<html><table border=\"0\">"
-                        + "<tr><td>" + dataset.getLabels().get(1).getLabel() + "</td>"
-                        + "<td>" + dataset.getLabels().get(0).getLabel() + "</td></tr>"
-                        + "<tr><td>" + dataset.getLabels().get(2).getLabel() + "</td>"
-                        + "<td></td></tr></table></html>";
-            } else {
-                tooltips = "<html><table border=\"0\">"
-                        + "<tr><td>" + dataset.getLabels().get(0).getLabel() + "</td>"
-                        + "<td>" + dataset.getLabels().get(1).getLabel() + "</td></tr>"
-                        + "<tr><td></td>"
-                        + "<td>" + dataset.getLabels().get(2).getLabel() + "</td></tr></table></html>";
-            }
         } else if (dataset.getLabels().size() == 4) {
             chart = createChart((Color) dataset.getLabels().get(0).getColor(),
                     (Color) dataset.getLabels().get(1).getColor(),
                     (Color) dataset.getLabels().get(2).getColor(),
                     (Color) dataset.getLabels().get(3).getColor(), true);
-            if (circle) {
-                tooltips = "<html><table border=\"0\">"
-                        + "<tr><td>" + dataset.getLabels().get(3).getLabel() + "</td>"
-                        + "<td>" + dataset.getLabels().get(0).getLabel() + "</td></tr>"
-                        + "<tr><td>" + dataset.getLabels().get(2).getLabel() + "</td>"
-                        + "<td>" + dataset.getLabels().get(1).getLabel() + "</td></tr></table></html>";
-            } else {
-                tooltips = "<html><table border=\"0\">"
-                        + "<tr><td>" + dataset.getLabels().get(0).getLabel() + "</td>"
-                        + "<td>" + dataset.getLabels().get(1).getLabel() + "</td></tr>"
-                        + "<tr><td>" + dataset.getLabels().get(3).getLabel() + "</td>"
-                        + "<td>" + dataset.getLabels().get(2).getLabel() + "</td></tr></table></html>";
-            }
         } else {
             throw new IllegalArgumentException("JSparklinesMultiLabelTableCellRenderer only supports JSparklinesMultiLabelDataset objects of size 1-4!");
         }
 
         // if we get this far we should have created the chart
-        // set the tooltip text
-        this.setToolTipText(tooltips);
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = dataset;
 
         // respect focus and hightlighting
         setBorder(c.getBorder());
@@ -180,31 +270,114 @@ public class JSparklinesMultiLabelTableCellRenderer extends JPanel implements Ta
 
         // make sure the background is the same as the table row color
         if (plotBackgroundColor != null && !isSelected) {
-            chart.getPlot().setBackgroundPaint(plotBackgroundColor);
-            chartPanel.setBackground(plotBackgroundColor);
-            chart.setBackgroundPaint(plotBackgroundColor);
+            styleChart(chart, chartPanel, plotBackgroundColor, false);
         } else {
+            styleChart(chart, chartPanel, c.getBackground(), isSelected);
+        }
+
+        this.removeAll();
+        this.add(chartPanel);
+
+        return this;
+    }
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            Color bg = c.getBackground();
-            chart.getPlot().setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chartPanel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            chart.setBackgroundPaint(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            this.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+    /**
+     * Returns the component drawing the cached image of the chart for the
+     * given dataset.
+     *
+     * @param dataset the dataset
+     * @param isSelected true if the cell is selected
+     * @param c the component with the style of the cell
+     * @return the component used for drawing the cell
+     */
+    private Component getGlyphComponent(JSparklinesMultiLabelDataset dataset, boolean isSelected, JComponent c) {
+
+        ArrayList<JSparklinesMultiLabel> labels = dataset.getLabels();
+        Color labelA = labels.isEmpty() ? null : labels.get(0).getColor();
+
+        // the colors in the order used by the createChart methods
+        if (labels.size() == 1) {
+            glyphPanel.setColors(labelA, labelA, labelA, labelA, false);
+        } else if (labels.size() == 2) {
+            glyphPanel.setColors(labelA, labelA, labels.get(1).getColor(), labels.get(1).getColor(), false);
+        } else if (labels.size() == 3) {
+            glyphPanel.setColors(labelA, labelA, labels.get(2).getColor(), labels.get(1).getColor(), false);
+        } else if (labels.size() == 4) {
+            glyphPanel.setColors(labelA, labels.get(1).getColor(),
+                    labels.get(2).getColor(), labels.get(3).getColor(), true);
+        } else {
+            throw new IllegalArgumentException("JSparklinesMultiLabelTableCellRenderer only supports JSparklinesMultiLabelDataset objects of size 1-4!");
         }
 
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = dataset;
+
+        // respect focus and hightlighting
+        setBorder(c.getBorder());
+        setOpaque(c.isOpaque());
+        setBackground(c.getBackground());
+
+        // make sure the background is the same as the table row color
+        if (plotBackgroundColor != null && !isSelected) {
+            glyphPanel.setStyle(plotBackgroundColor, false);
+        } else {
+            glyphPanel.setStyle(c.getBackground(), isSelected);
+        }
+
+        if (glyphPanel.getParent() != this) {
+            this.removeAll();
+            this.add(glyphPanel);
+        }
+
+        return this;
+    }
+
+    /**
+     * Draws the given chart as a glyph, at the given size and in the same way
+     * as the chart panel used when the glyphs are not cached.
+     *
+     * @param glyphChart the chart
+     * @param width the width of the glyph
+     * @param height the height of the glyph
+     * @param background the background color
+     * @param isSelected true if the cell is selected
+     * @return the glyph
+     */
+    private static BufferedImage createGlyph(JFreeChart glyphChart, int width, int height, Color background, boolean isSelected) {
+
+        ChartPanel glyphChartPanel = new ChartPanel(glyphChart);
+        styleChart(glyphChart, glyphChartPanel, background, isSelected);
+        glyphChartPanel.setSize(width, height);
+
+        BufferedImage glyph = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = glyph.createGraphics();
+        glyphChartPanel.paint(g2);
+        g2.dispose();
+
+        return glyph;
+    }
+
+    /**
+     * Set the background and outline colors of the given chart and chart
+     * panel.
+     *
+     * @param chart the chart
+     * @param chartPanel the chart panel
+     * @param background the background color
+     * @param isSelected true if the cell is selected
+     */
+    private static void styleChart(JFreeChart chart, ChartPanel chartPanel, Color background, boolean isSelected) {
+
+        chart.getPlot().setBackgroundPaint(background);
+        chart.setBackgroundPaint(background);
+        chartPanel.setBackground(background);
+
         // @TODO: perhaps the colors below should not be hardcoded...
         if (isSelected) {
             chart.getPlot().setOutlinePaint(Color.WHITE);
         } else {
             chart.getPlot().setOutlinePaint(Color.DARK_GRAY);
         }
-
-        this.removeAll();
-        this.add(chartPanel);
-
-        return this;
     }
 
     /**
@@ -346,4 +519,235 @@ public class JSparklinesMultiLabelTableCellRenderer extends JPanel implements Ta
         tempChart.setBackgroundPaint(Color.white);
         return tempChart;
     }
+
+    /**
+     * Component drawing the cached glyph for the current colors, style and
+     * size, creating the glyph if not in the cache.
+     */
+    private class GlyphPanel extends JComponent {
+
+        /**
+         * The key of the glyph to draw.
+         */
+        private final GlyphKey key = new GlyphKey();
+
+        /**
+         * Set the label colors, in the order used by the createChart methods.
+         *
+         * @param labelA the color for label A
+         * @param labelB the color for label B
+         * @param labelC the color for label C
+         * @param labelD the color for label D
+         * @param all if true, the provided label order is used
+         */
+        private void setColors(Color labelA, Color labelB, Color labelC, Color labelD, boolean all) {
+            key.labelA = labelA;
+            key.labelB = labelB;
+            key.labelC = labelC;
+            key.labelD = labelD;
+            key.all = all;
+        }
+
+        /**
+         * Set the background color and the selection state.
+         *
+         * @param background the background color
+         * @param isSelected true if the cell is selected
+         */
+        private void setStyle(Color background, boolean isSelected) {
+            key.background = background;
+            key.selected = isSelected;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+
+            if (getWidth() <= 0 || getHeight() <= 0) {
+                return;
+            }
+
+            key.circle = circle;
+            key.width = getWidth();
+            key.height = getHeight();
+
+            BufferedImage glyph = glyphs.get(key);
+
+            if (glyph == null) {
+                JFreeChart glyphChart = createChart(key.labelA, key.labelB, key.labelC, key.labelD, key.all);
+                glyph = createGlyph(glyphChart, key.width, key.height, key.background, key.selected);
+                glyphs.put(key.copy(), glyph);
+            }
+
+            g.drawImage(glyph, 0, 0, null);
+        }
+    }
+
+    /**
+     * The key of a glyph, i.e., the label colors, the chart type, the size,
+     * the background color and the selection state.
+     */
+    private static class GlyphKey {
+
+        /**
+         * The color for label A.
+         */
+        private Color labelA;
+        /**
+         * The color for label B.
+         */
+        private Color labelB;
+        /**
+         * The color for label C.
+         */
+        private Color labelC;
+        /**
+         * The color for label D.
+         */
+        private Color labelD;
+        /**
+         * True if the provided label order is used.
+         */
+        private boolean all;
+        /**
+         * True if a pie chart is used.
+         */
+        private boolean circle;
+        /**
+         * The width of the glyph.
+         */
+        private int width;
+        /**
+         * The height of the glyph.
+         */
+        private int height;
+        /**
+         * The background color.
+         */
+        private Color background;
+        /**
+         * True if the cell is selected.
+         */
+        private boolean selected;
+
+        /**
+         * Returns a copy of the key.
+         *
+         * @return a copy of the key
+         */
+        private GlyphKey copy() {
+            GlyphKey copy = new GlyphKey();
+            copy.labelA = labelA;
+            copy.labelB = labelB;
+            copy.labelC = labelC;
+            copy.labelD = labelD;
+            copy.all = all;
+            copy.circle = circle;
+            copy.width = width;
+            copy.height = height;
+            copy.background = background;
+            copy.selected = selected;
+            return copy;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Objects.hashCode(labelA);
+            hash = 31 * hash + Objects.hashCode(labelB);
+            hash = 31 * hash + Objects.hashCode(labelC);
+            hash = 31 * hash + Objects.hashCode(labelD);
+            hash = 31 * hash + Objects.hashCode(background);
+            hash = 31 * hash + width;
+            hash = 31 * hash + height;
+            hash = 31 * hash + (all ? 1 : 0);
+            hash = 31 * hash + (circle ? 1 : 0);
+            hash = 31 * hash + (selected ? 1 : 0);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof GlyphKey)) {
+                return false;
+            }
+            GlyphKey other = (GlyphKey) obj;
+            return all == other.all
+                    && circle == other.circle
+                    && width == other.width
+                    && height == other.height
+                    && selected == other.selected
+                    && Objects.equals(labelA, other.labelA)
+                    && Objects.equals(labelB, other.labelB)
+                    && Objects.equals(labelC, other.labelC)
+                    && Objects.equals(labelD, other.labelD)
+                    && Objects.equals(background, other.background);
+        }
+    }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        if (!(value instanceof JSparklinesMultiLabelDataset)) {
+            return null;
+        }
+
+        JSparklinesMultiLabelDataset dataset = (JSparklinesMultiLabelDataset) value;
+        String tooltips = null;
+
+        if (dataset.getLabels().size() == 1) {
+            tooltips = dataset.getLabels().get(0).getLabel();
+        } else if (dataset.getLabels().size() == 2) {
+            if (circle) {
+                tooltips = "<html><table border=\"0\">"
+                        + "<tr><td>" + dataset.getLabels().get(1).getLabel() + "</td>"
+                        + "<td>" + dataset.getLabels().get(0).getLabel() + "</td></tr></table></html>";
+            } else {
+                tooltips = "<html><table border=\"0\">"
+                        + "<tr><td>" + dataset.getLabels().get(0).getLabel() + "</td>"
+                        + "<td>" + dataset.getLabels().get(1).getLabel() + "</td></tr></table></html>";
+            }
+        } else if (dataset.getLabels().size() == 3) {
+            if (circle) {
+                tooltips = "<html><table border=\"0\">"
+                        + "<tr><td>" + dataset.getLabels().get(1).getLabel() + "</td>"
+                        + "<td>" + dataset.getLabels().get(0).getLabel() + "</td></tr>"
+                        + "<tr><td>" + dataset.getLabels().get(2).getLabel() + "</td>"
+                        + "<td></td></tr></table></html>";
+            } else {
+                tooltips = "<html><table border=\"0\">"
+                        + "<tr><td>" + dataset.getLabels().get(0).getLabel() + "</td>"
+                        + "<td>" + dataset.getLabels().get(1).getLabel() + "</td></tr>"
+                        + "<tr><td></td>"
+                        + "<td>" + dataset.getLabels().get(2).getLabel() + "</td></tr></table></html>";
+            }
+        } else if (dataset.getLabels().size() == 4) {
+            if (circle) {
+                tooltips = "<html><table border=\"0\">"
+                        + "<tr><td>" + dataset.getLabels().get(3).getLabel() + "</td>"
+                        + "<td>" + dataset.getLabels().get(0).getLabel() + "</td></tr>"
+                        + "<tr><td>" + dataset.getLabels().get(2).getLabel() + "</td>"
+                        + "<td>" + dataset.getLabels().get(1).getLabel() + "</td></tr></table></html>";
+            } else {
+                tooltips = "<html><table border=\"0\">"
+                        + "<tr><td>" + dataset.getLabels().get(0).getLabel() + "</td>"
+                        + "<td>" + dataset.getLabels().get(1).getLabel() + "</td></tr>"
+                        + "<tr><td>" + dataset.getLabels().get(3).getLabel() + "</td>"
+                        + "<td>" + dataset.getLabels().get(2).getLabel() + "</td></tr></table></html>";
+            }
+        }
+
+        return tooltips;
+    }
 }
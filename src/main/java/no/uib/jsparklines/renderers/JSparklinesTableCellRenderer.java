@@ -9,23 +9,36 @@ import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.GradientPaint;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import javax.swing.BoxLayout;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.JSparklinesDataSeries;
 import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.renderers.util.CacheableTableCellRenderer;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
 import no.uib.jsparklines.renderers.util.ReferenceArea;
 import no.uib.jsparklines.renderers.util.ReferenceLine;
+import no.uib.jsparklines.renderers.util.ReferenceOverlay;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
+import no.uib.jsparklines.renderers.util.SeriesDecimator;
+import no.uib.jsparklines.renderers.util.SeriesDecimator.Decimation;
+import no.uib.jsparklines.renderers.util.SparklineCategoryDataset;
+import no.uib.jsparklines.renderers.util.SparklineImageCache;
+import no.uib.jsparklines.renderers.util.SparklineXYDataset;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -34,8 +47,8 @@ import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.IntervalMarker;
 import org.jfree.chart.plot.PiePlot;
+import org.jfree.chart.plot.Plot;
 import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.plot.ValueMarker;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.category.BarRenderer;
 import org.jfree.chart.renderer.category.BoxAndWhiskerRenderer;
@@ -48,6 +61,7 @@ import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.jfree.chart.ui.Layer;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
+import org.jfree.data.statistics.BoxAndWhiskerItem;
 import org.jfree.data.statistics.DefaultBoxAndWhiskerCategoryDataset;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
@@ -59,7 +73,7 @@ import org.jfree.data.xy.XYSeriesCollection;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesTableCellRenderer extends JLabel implements TableCellRenderer {
+public class JSparklinesTableCellRenderer extends JLabel implements CacheableTableCellRenderer, LazyToolTipRenderer, MeteredTableCellRenderer {
 
     /**
      * List of supported plot types.
@@ -226,6 +240,122 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      * The label used to display the number and the bar chart at the same time.
      */
     private JLabel valueLabel;
+    /**
+     * If true, one chart per plot type is created and reused for all the
+     * cells, only replacing the data displayed.
+     */
+    private boolean reuseCharts = false;
+    /**
+     * The reusable charts, one per plot type.
+     */
+    private final EnumMap<PlotType, ReusableChart> reusableCharts = new EnumMap<>(PlotType.class);
+    /**
+     * The gradient paints used for the area charts, key is the series color.
+     */
+    private final HashMap<Color, GradientPaint> areaChartGradients = new HashMap<>();
+    /**
+     * The reference lines and areas precompiled for painting, null if they
+     * have changed, or have been handed out for changing, since they were
+     * last compiled.
+     */
+    private ReferenceOverlay referenceOverlay = ReferenceOverlay.EMPTY;
+    /**
+     * The image cache used to speed up repeated paints of the same cells, null
+     * if the cells are rendered every time.
+     */
+    private SparklineImageCache imageCache = null;
+    /**
+     * Incremented every time a setting affecting the rendering changes. Used
+     * to decide when the cached images can no longer be used.
+     */
+    private int configurationVersion = 0;
+    /**
+     * The decimation used to reduce the data series in the line, area and
+     * difference charts to the number of pixels available.
+     */
+    private Decimation decimation = Decimation.none;
+    /**
+     * The decimator used when the charts are not reused.
+     */
+    private final SeriesDecimator seriesDecimator = new SeriesDecimator();
+    /**
+     * The number of values above which the box plots use the approximate
+     * statistics.
+     */
+    private int approximateBoxPlotThreshold = Integer.MAX_VALUE;
+
+    /**
+     * A chart created once and reused for all the cells with the same plot
+     * type, together with the objects needed to update it.
+     */
+    private static class ReusableChart {
+
+        /**
+         * The chart.
+         */
+        private JFreeChart chart;
+        /**
+         * The chart panel displaying the chart.
+         */
+        private ChartPanel chartPanel;
+        /**
+         * The category dataset, if any.
+         */
+        private SparklineCategoryDataset categoryDataset;
+        /**
+         * The XY dataset, if any.
+         */
+        private SparklineXYDataset xyDataset;
+        /**
+         * The pie dataset, if any.
+         */
+        private DefaultPieDataset pieDataset;
+        /**
+         * The box plot dataset, if any.
+         */
+        private DefaultBoxAndWhiskerCategoryDataset boxPlotDataset;
+        /**
+         * The reference line dataset used by the protein sequence plots.
+         */
+        private DefaultCategoryDataset referenceLineDataset;
+        /**
+         * The colors of the individual bars, shared with the renderer.
+         */
+        private final ArrayList<Color> colors = new ArrayList<>();
+        /**
+         * The reference lines and areas currently added to the chart panel.
+         */
+        private ReferenceOverlay referenceOverlay;
+        /**
+         * The marker highlighting the max value.
+         */
+        private final IntervalMarker maxValueMarker = createHighlightMarker();
+        /**
+         * The marker highlighting the min value.
+         */
+        private final IntervalMarker minValueMarker = createHighlightMarker();
+        /**
+         * The max value color the max value marker was last painted for.
+         */
+        private Color maxValueMarkerColor;
+        /**
+         * The min value color the min value marker was last painted for.
+         */
+        private Color minValueMarkerColor;
+    }
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The value of the last rendered chart, used to create the tooltip when
+     * the user hovers the cell.
+     */
+    private Object tooltipValue = null;
 
     /**
      * Creates a new JSparkLinesTableCellRenderer. Use this constructor when
@@ -323,6 +453,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
         this.showNumberAndChart = showNumberAndChart;
         this.widthOfValueLabel = widthOfLabel;
         this.numberFormat = numberFormat;
+        configurationVersion++;
     }
 
     /**
@@ -366,6 +497,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
         labelHorizontalAlignement = horizontalAlignement;
         valueLabel.setFont(font);
         this.numberFormat = numberFormat;
+        configurationVersion++;
     }
 
     /**
@@ -378,6 +510,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void showNumbers(boolean showNumbers) {
         this.showNumbers = showNumbers;
+        configurationVersion++;
     }
 
     /**
@@ -389,6 +522,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void showProteinSequenceReferenceLine(boolean showProteinSequenceReferenceLine) {
         this.showProteinSequenceReferenceLine = showProteinSequenceReferenceLine;
+        configurationVersion++;
     }
 
     /**
@@ -403,14 +537,90 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
         this.showProteinSequenceReferenceLine = showProteinSequenceReferenceLine;
         this.referenceLineWidth = lineWidth;
         this.referenceLineColor = color;
+        configurationVersion++;
+    }
+
+    /**
+     * Set the image cache to use. The cached images are used when the same
+     * cell value is painted again with the same cell size, colors and renderer
+     * settings, avoiding rendering the chart again. The cache can be shared by
+     * several renderers. Note that the cell values are compared by identity,
+     * and the settings of the renderer only via the setters of this class.
+     * Null disables the cache, which is the default.
+     *
+     * @param imageCache the image cache, null disables the cache
+     */
+    public void setImageCache(SparklineImageCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
+    /**
+     * Returns the image cache, null if not set.
+     *
+     * @return the image cache
+     */
+    public SparklineImageCache getImageCache() {
+        return imageCache;
+    }
+
+    @Override
+    public int getConfigurationVersion() {
+        return configurationVersion;
+    }
+
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
     }
 
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(imageCache);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, plotType.name(), value, row, column);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        if (imageCache != null) {
+            return imageCache.getTableCellRendererComponent(this, table, value, isSelected, hasFocus, row, column);
+        }
+
+        return getUncachedTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+    }
+
+    @Override
+    public Component getUncachedTableCellRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // respect focus and hightlighting
         setBorder(c.getBorder());
@@ -424,11 +634,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
 
         // check for valid object type
         if (value == null || !(value instanceof JSparklinesDataset)) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // get the dataset
@@ -436,9 +642,6 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
         ArrayList<Color> colors = new ArrayList<>();
         int dataCounter = 0;
 
-        StringBuilder tooltip = new StringBuilder();
-        tooltip.append("<html>");
-
         // show the number and/or the chart if option selected
         if ((showNumberAndChart || showNumbers) && plotType == PlotType.stackedBarChartIntegerWithUpperRange) {
 
@@ -450,32 +653,24 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
             for (int i = 0; i < sparklineDataset.getData().size(); i++) {
                 JSparklinesDataSeries series = sparklineDataset.getData().get(i);
 
-                for (int j = 0; j < series.getData().size(); j++) {
-                    sum += series.getData().get(j);
+                for (int j = 0; j < series.size(); j++) {
+                    sum += series.getValue(j);
                 }
             }
 
             if (showNumbers) {
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, (int) sum,
+                c = cellStyleResolver.getTableCellRendererComponent(table, (int) sum,
                         isSelected, hasFocus, row, column);
                 ((JLabel) c).setHorizontalAlignment(SwingConstants.RIGHT);
 
-                Color bg = c.getBackground();
-                // We have to create a new color object because Nimbus returns
-                // a color of type DerivedColor, which behaves strange, not sure why.
-                c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-
                 return c;
             }
 
             //valueLabel.setText(numberFormat.format(sum));
             valueLabel.setText("" + (int) sum);
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            Color bg = c.getBackground();
-            valueLabel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            valueLabel.setBackground(c.getBackground());
 
             // add some padding
             if (labelHorizontalAlignement == SwingConstants.RIGHT) {
@@ -500,8 +695,25 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
             valueLabel.setVisible(false);
         }
 
+        // the number of pixels available for each data series
+        int numberOfPixels = 0;
+
+        if (decimation != Decimation.none) {
+            numberOfPixels = getNumberOfPixels(table, row, column);
+        }
+
+        // true if the reference lines and areas are to be shown
+        boolean addReferenceOverlay = false;
+
         // create the chart
-        if (plotType == PlotType.barChart) {
+        if (reuseCharts) {
+
+            //////////////////
+            // REUSED CHARTS
+            //////////////////
+            chart = updateReusableChart(sparklineDataset, numberOfPixels);
+
+        } else if (plotType == PlotType.barChart) {
 
             /////////////
             // BAR CHART
@@ -512,16 +724,8 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
 
                 JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
 
-                if (sparklineDataSeries.getSeriesLabel() != null) {
-                    tooltip.append("<font color=rgb(");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getRed()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getGreen()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getBlue()).append(")>");
-                    tooltip.append(sparklineDataSeries.getSeriesLabel()).append("<br>");
-                }
-
-                for (int j = 0; j < sparklineDataSeries.getData().size(); j++) {
-                    barChartDataset.addValue(sparklineDataSeries.getData().get(j), "1", Integer.valueOf(dataCounter++));
+                for (int j = 0; j < sparklineDataSeries.size(); j++) {
+                    barChartDataset.addValue(sparklineDataSeries.getValue(j), "1", Integer.valueOf(dataCounter++));
                     colors.add(sparklineDataSeries.getSeriesColor());
                 }
             }
@@ -535,23 +739,8 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
             plot.getDomainAxis().setUpperMargin(0);
             plot.getDomainAxis().setLowerMargin(0);
 
-            // add reference lines, if any
-            Iterator<String> allReferencesLines = referenceLines.keySet().iterator();
-
-            while (allReferencesLines.hasNext()) {
-                ReferenceLine currentReferenceLine = referenceLines.get(allReferencesLines.next());
-                plot.addRangeMarker(new ValueMarker(currentReferenceLine.getValue(), currentReferenceLine.getLineColor(), new BasicStroke(currentReferenceLine.getLineWidth())));
-            }
-
-            // add reference areas, if any
-            Iterator<String> allReferenceAreas = referenceAreas.keySet().iterator();
-
-            while (allReferenceAreas.hasNext()) {
-                ReferenceArea currentReferenceArea = referenceAreas.get(allReferenceAreas.next());
-                IntervalMarker marker = new IntervalMarker(currentReferenceArea.getStart(), currentReferenceArea.getEnd(), currentReferenceArea.getAreaColor());
-                marker.setAlpha(currentReferenceArea.getAlpha());
-                plot.addRangeMarker(marker);
-            }
+            // the reference lines and areas are painted on top of the chart
+            addReferenceOverlay = true;
 
             // set the axis range
             if (maxValue > 0) {
@@ -601,29 +790,28 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
 
                 JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
 
-                if (sparklineDataSeries.getSeriesLabel() != null) {
-                    tooltip.append("<font color=rgb(");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getRed()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getGreen()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getBlue()).append(")>");
-                    tooltip.append(sparklineDataSeries.getSeriesLabel()).append("<br>");
-                }
-
                 XYSeries tempSeries = new XYSeries(i);
                 XYSeries xAxisSeries = new XYSeries("x-axis");
 
-                for (int j = 0; j < sparklineDataSeries.getData().size(); j++) {
-                    tempSeries.add(j, sparklineDataSeries.getData().get(j));
-                    xAxisSeries.add(j, 0);
+                seriesDecimator.decimate(sparklineDataSeries, decimation, numberOfPixels);
 
-                    if (sparklineDataSeries.getData().get(j) > plotMaxValue) {
-                        plotMaxValue = sparklineDataSeries.getData().get(j);
-                        indexOfMaxValue = j;
-                    }
+                for (int j = 0; j < seriesDecimator.size(); j++) {
+                    tempSeries.add(seriesDecimator.getXValue(j), seriesDecimator.getYValue(j));
+                    xAxisSeries.add(seriesDecimator.getXValue(j), 0);
+                }
+
+                if (highlightMaxAndMin) {
+                    for (int j = 0; j < sparklineDataSeries.size(); j++) {
+
+                        if (sparklineDataSeries.getValue(j) > plotMaxValue) {
+                            plotMaxValue = sparklineDataSeries.getValue(j);
+                            indexOfMaxValue = j;
+                        }
 
-                    if (sparklineDataSeries.getData().get(j) < plotMinValue) {
-                        plotMinValue = sparklineDataSeries.getData().get(j);
-                        indexOfMinValue = j;
+                        if (sparklineDataSeries.getValue(j) < plotMinValue) {
+                            plotMinValue = sparklineDataSeries.getValue(j);
+                            indexOfMinValue = j;
+                        }
                     }
                 }
 
@@ -666,23 +854,8 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
                         new BasicStroke(1.0f), Color.lightGray, new BasicStroke(0.1f), 0.5f), Layer.BACKGROUND);
             }
 
-            // add reference lines, if any
-            Iterator<String> allReferencesLines = referenceLines.keySet().iterator();
-
-            while (allReferencesLines.hasNext()) {
-                ReferenceLine currentReferenceLine = referenceLines.get(allReferencesLines.next());
-                plot.addRangeMarker(new ValueMarker(currentReferenceLine.getValue(), currentReferenceLine.getLineColor(), new BasicStroke(currentReferenceLine.getLineWidth())));
-            }
-
-            // add reference areas, if any
-            Iterator<String> allReferenceAreas = referenceAreas.keySet().iterator();
-
-            while (allReferenceAreas.hasNext()) {
-                ReferenceArea currentReferenceArea = referenceAreas.get(allReferenceAreas.next());
-                IntervalMarker marker = new IntervalMarker(currentReferenceArea.getStart(), currentReferenceArea.getEnd(), currentReferenceArea.getAreaColor());
-                marker.setAlpha(currentReferenceArea.getAlpha());
-                plot.addRangeMarker(marker);
-            }
+            // the reference lines and areas are painted on top of the chart
+            addReferenceOverlay = true;
 
             // set the axis range
             if (maxValue > 0) {
@@ -712,18 +885,10 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
 
                 JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
 
-                if (sparklineDataSeries.getSeriesLabel() != null) {
-                    tooltip.append("<font color=rgb(");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getRed()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getGreen()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getBlue()).append(")>");
-                    tooltip.append(sparklineDataSeries.getSeriesLabel()).append("<br>");
-                }
-
                 double sumOfValues = 0.0;
 
-                for (int j = 0; j < sparklineDataSeries.getData().size(); j++) {
-                    sumOfValues += sparklineDataSeries.getData().get(j);
+                for (int j = 0; j < sparklineDataSeries.size(); j++) {
+                    sumOfValues += sparklineDataSeries.getValue(j);
                 }
 
                 pieDataset.setValue(sparklineDataSeries.getSeriesLabel(), sumOfValues);
@@ -759,28 +924,10 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
 
                 JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
 
-                if (plotType != PlotType.stackedBarChartIntegerWithUpperRange) {
-                    if (sparklineDataSeries.getSeriesLabel() != null) {
-                        tooltip.append("<font color=rgb(");
-                        tooltip.append(sparklineDataSeries.getSeriesColor().getRed()).append(",");
-                        tooltip.append(sparklineDataSeries.getSeriesColor().getGreen()).append(",");
-                        tooltip.append(sparklineDataSeries.getSeriesColor().getBlue()).append(")>");
-                        tooltip.append(sparklineDataSeries.getSeriesLabel()).append("<br>");
-                    }
-                }
-
-                for (int j = 0; j < sparklineDataSeries.getData().size(); j++) {
+                for (int j = 0; j < sparklineDataSeries.size(); j++) {
 
-                    barChartDataset.addValue(sparklineDataSeries.getData().get(j), "" + i, "" + j);
+                    barChartDataset.addValue(sparklineDataSeries.getValue(j), "" + i, "" + j);
                     renderer.setSeriesPaint(i, sparklineDataSeries.getSeriesColor());
-
-                    if (sparklineDataSeries.getSeriesLabel() != null && plotType == PlotType.stackedBarChartIntegerWithUpperRange) {
-                        tooltip.append(sparklineDataSeries.getData().get(j).intValue());
-
-                        if (i < sparklineDataset.getData().size() - 1) {
-                            tooltip.append(" / ");
-                        }
-                    }
                 }
             }
 
@@ -797,23 +944,8 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
             plot.getRangeAxis().setUpperMargin(0);
             plot.getRangeAxis().setLowerMargin(0);
 
-            // add reference lines, if any
-            Iterator<String> allReferencesLines = referenceLines.keySet().iterator();
-
-            while (allReferencesLines.hasNext()) {
-                ReferenceLine currentReferenceLine = referenceLines.get(allReferencesLines.next());
-                plot.addRangeMarker(new ValueMarker(currentReferenceLine.getValue(), currentReferenceLine.getLineColor(), new BasicStroke(currentReferenceLine.getLineWidth())));
-            }
-
-            // add reference areas, if any
-            Iterator<String> allReferenceAreas = referenceAreas.keySet().iterator();
-
-            while (allReferenceAreas.hasNext()) {
-                ReferenceArea currentReferenceArea = referenceAreas.get(allReferenceAreas.next());
-                IntervalMarker marker = new IntervalMarker(currentReferenceArea.getStart(), currentReferenceArea.getEnd(), currentReferenceArea.getAreaColor());
-                marker.setAlpha(currentReferenceArea.getAlpha());
-                plot.addRangeMarker(marker);
-            }
+            // the reference lines and areas are painted on top of the chart
+            addReferenceOverlay = true;
 
             if (plotType == PlotType.stackedPercentBarChart || plotType == PlotType.proteinSequence) {
                 renderer.setRenderAsPercentages(true);
@@ -863,22 +995,8 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
 
                 JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
 
-                ArrayList<Double> listValues = new ArrayList();
-
-                if (sparklineDataSeries.getSeriesLabel() != null) {
-                    tooltip.append("<font color=rgb(");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getRed()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getGreen()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getBlue()).append(")>");
-                    tooltip.append(sparklineDataSeries.getSeriesLabel()).append("<br>");
-                }
-
-                for (int j = 0; j < sparklineDataSeries.getData().size(); j++) {
-                    listValues.add(sparklineDataSeries.getData().get(j));
-                    renderer.setSeriesPaint(i, sparklineDataSeries.getSeriesColor());
-                }
-
-                boxPlotDataset.add(listValues, sparklineDataSeries.getSeriesLabel(), "1");
+                renderer.setSeriesPaint(i, sparklineDataSeries.getSeriesColor());
+                boxPlotDataset.add(getBoxAndWhiskerItem(sparklineDataSeries), sparklineDataSeries.getSeriesLabel(), "1");
             }
 
             renderer.setMeanVisible(false);
@@ -915,17 +1033,9 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
 
                 JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
 
-                if (sparklineDataSeries.getSeriesLabel() != null) {
-                    tooltip.append("<font color=rgb(");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getRed()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getGreen()).append(",");
-                    tooltip.append(sparklineDataSeries.getSeriesColor().getBlue()).append(")>");
-                    tooltip.append(sparklineDataSeries.getSeriesLabel()).append("<br>");
-                }
-
-                for (int j = 0; j < sparklineDataSeries.getData().size(); j++) {
+                for (int j = 0; j < sparklineDataSeries.size(); j++) {
 
-                    if (sparklineDataSeries.getData().get(j) > 0) {
+                    if (sparklineDataSeries.getValue(j) > 0) {
                         barChartDataset.addValue(1, "1", Integer.valueOf(dataCounter++));
                         colors.add(upColor);
                     } else {
@@ -962,12 +1072,8 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
             plot.setRenderer(renderer);
         }
 
-        // set the tooltip
-        if (!tooltip.toString().equalsIgnoreCase("<html>")) {
-            setToolTipText(tooltip.append("</html>").toString());
-        } else {
-            setToolTipText(null);
-        }
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = sparklineDataset;
 
         // hide the outline
         chart.getPlot().setOutlineVisible(false);
@@ -982,7 +1088,16 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
         }
 
         // create the chart panel and add it to the table cell
-        chartPanel = new ChartPanel(chart);
+        if (reuseCharts) {
+            chart.setNotify(true);
+            chartPanel = reusableCharts.get(plotType).chartPanel;
+        } else {
+            chartPanel = new ChartPanel(chart);
+
+            if (addReferenceOverlay && !getReferenceOverlay().isEmpty()) {
+                chartPanel.addOverlay(getReferenceOverlay());
+            }
+        }
 
         if (backgroundColor != null) {
             chartPanel.setBackground(backgroundColor);
@@ -990,109 +1105,763 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
             chartPanel.setBackground(c.getBackground());
         }
 
-        this.remove(1);
-        this.add(chartPanel);
+        if (getComponent(1) != chartPanel) {
+            this.remove(1);
+            this.add(chartPanel);
+        }
 
         return this;
     }
 
     /**
-     * Add a reference line at a given data value.
+     * Returns the number of pixels available along the x-axis of the line,
+     * area and difference charts in the given cell.
      *
-     * @param label the label for the reference
-     * @param value the reference line value
-     * @param lineWidth the line width, has to non-negative
-     * @param lineColor the line color
+     * @param table the table
+     * @param row the row index
+     * @param column the column index
+     * @return the number of pixels available along the x-axis
      */
-    public void addReferenceLine(String label, double value, float lineWidth, Color lineColor) {
-        referenceLines.put(label, new ReferenceLine(label, value, lineWidth, lineColor));
+    private int getNumberOfPixels(JTable table, int row, int column) {
+        if (plotOrientation == PlotOrientation.VERTICAL) {
+            return table.getColumnModel().getColumn(column).getWidth() - table.getColumnModel().getColumnMargin();
+        }
+        return table.getRowHeight(row) - table.getRowMargin();
     }
 
     /**
-     * Add a reference line at a given data value.
+     * Appends the series labels, or for the plot type
+     * 'stackedBarChartIntegerWithUpperRange' the values, to the tooltip.
      *
-     * @param referenceLine the reference line
+     * @param tooltip the tooltip to append to
+     * @param sparklineDataset the dataset
      */
-    public void addReferenceLine(ReferenceLine referenceLine) {
-        referenceLines.put(referenceLine.getLabel(), referenceLine);
-    }
+    private void appendTooltip(StringBuilder tooltip, JSparklinesDataset sparklineDataset) {
 
-    /**
-     * Removes the reference line with the given label. Does nothing if no
-     * reference with the given label is found.
-     *
-     * @param label the reference to remove
-     */
-    public void removeReferenceLine(String label) {
-        referenceLines.remove(label);
-    }
+        for (int i = 0; i < sparklineDataset.getData().size(); i++) {
 
-    /**
-     * Removes all the reference lines.
-     */
-    public void removeAllReferenceLines() {
-        referenceLines = new HashMap<String, ReferenceLine>();
-    }
+            JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
 
-    /**
-     * Returns all the references lines as a hashmap, with the labels as the
-     * keys.
-     *
-     * @return hashmap of all reference lines
-     */
-    public HashMap<String, ReferenceLine> getAllReferenceLines() {
-        return referenceLines;
-    }
+            if (sparklineDataSeries.getSeriesLabel() != null) {
 
-    /**
-     * Add a reference area.
-     *
-     * @param label the label for the reference area
-     * @param start the start of the reference area
-     * @param end the end of the reference area
-     * @param areaColor the color of the reference area
-     * @param alpha the alpha level of the reference area, range: 0.0 to 1.0
-     */
-    public void addReferenceArea(String label, double start, double end, Color areaColor, float alpha) {
-        referenceAreas.put(label, new ReferenceArea(label, start, end, areaColor, alpha));
-    }
+                if (plotType != PlotType.stackedBarChartIntegerWithUpperRange) {
+                    tooltip.append("<font color=rgb(");
+                    tooltip.append(sparklineDataSeries.getSeriesColor().getRed()).append(",");
+                    tooltip.append(sparklineDataSeries.getSeriesColor().getGreen()).append(",");
+                    tooltip.append(sparklineDataSeries.getSeriesColor().getBlue()).append(")>");
+                    tooltip.append(sparklineDataSeries.getSeriesLabel()).append("<br>");
+                } else {
+                    for (int j = 0; j < sparklineDataSeries.size(); j++) {
+                        tooltip.append((int) sparklineDataSeries.getValue(j));
 
-    /**
-     * Add a reference area.
-     *
-     * @param referenceArea the reference area
-     */
-    public void addReferenceArea(ReferenceArea referenceArea) {
-        referenceAreas.put(referenceArea.getLabel(), referenceArea);
+                        if (i < sparklineDataset.getData().size() - 1) {
+                            tooltip.append(" / ");
+                        }
+                    }
+                }
+            }
+        }
     }
 
     /**
-     * Removes the reference area with the given label. Does nothing if no
-     * reference with the given label is found.
+     * Returns the reusable chart for the current plot type updated with the
+     * given dataset. The chart is created the first time it is needed. Note
+     * that the chart notifications are turned off, and have to be turned on
+     * again when the cell specific properties have been set.
      *
-     * @param label the reference to remove
+     * @param sparklineDataset the dataset to display
+     * @param numberOfPixels the number of pixels available for each data
+     * series, only used if decimation is used
+     * @return the updated chart
      */
-    public void removeReferenceArea(String label) {
-        referenceAreas.remove(label);
-    }
+    private JFreeChart updateReusableChart(JSparklinesDataset sparklineDataset, int numberOfPixels) {
 
-    /**
-     * Removes all the reference areas.
-     */
+        ReusableChart reusableChart = reusableCharts.get(plotType);
+
+        if (reusableChart == null) {
+            reusableChart = createReusableChart();
+            reusableCharts.put(plotType, reusableChart);
+        }
+
+        JFreeChart reusedChart = reusableChart.chart;
+        reusedChart.setNotify(false);
+
+        if (plotType == PlotType.barChart) {
+
+            CategoryPlot plot = reusedChart.getCategoryPlot();
+
+            reusableChart.colors.clear();
+
+            for (int i = 0; i < sparklineDataset.getData().size(); i++) {
+                JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
+                for (int j = 0; j < sparklineDataSeries.size(); j++) {
+                    reusableChart.colors.add(sparklineDataSeries.getSeriesColor());
+                }
+            }
+
+            reusableChart.categoryDataset.setDataset(sparklineDataset, SparklineCategoryDataset.Layout.bars);
+            updateReferenceOverlay(reusableChart);
+
+            if (maxValue > 0) {
+                plot.getRangeAxis().setRange(minValue, maxValue);
+            } else {
+                plot.getRangeAxis().setAutoRange(true);
+            }
+
+        } else if (plotType == PlotType.lineChart || plotType == PlotType.areaChart || plotType == PlotType.difference) {
+
+            XYPlot plot = reusedChart.getXYPlot();
+            AbstractXYItemRenderer renderer = (AbstractXYItemRenderer) plot.getRenderer();
+
+            // variables for storing the max and min values
+            double plotMaxValue = Double.MIN_VALUE;
+            double plotMinValue = Double.MAX_VALUE;
+            int indexOfMaxValue = -1;
+            int indexOfMinValue = -1;
+
+            for (int i = 0; i < sparklineDataset.getData().size(); i++) {
+
+                JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
+
+                if (highlightMaxAndMin) {
+                    for (int j = 0; j < sparklineDataSeries.size(); j++) {
+
+                        if (sparklineDataSeries.getValue(j) > plotMaxValue) {
+                            plotMaxValue = sparklineDataSeries.getValue(j);
+                            indexOfMaxValue = j;
+                        }
+
+                        if (sparklineDataSeries.getValue(j) < plotMinValue) {
+                            plotMinValue = sparklineDataSeries.getValue(j);
+                            indexOfMinValue = j;
+                        }
+                    }
+                }
+
+                if (plotType == PlotType.lineChart) {
+                    renderer.setSeriesPaint(i, sparklineDataSeries.getSeriesColor(), false);
+                    renderer.setSeriesStroke(i, sparklineDataSeries.getLineType(), false);
+                } else if (plotType == PlotType.areaChart) {
+                    renderer.setSeriesFillPaint(i, getAreaChartGradient(sparklineDataSeries.getSeriesColor()), false);
+                    renderer.setSeriesOutlinePaint(i, sparklineDataSeries.getSeriesColor(), false);
+                }
+            }
+
+            if (plotType == PlotType.difference) {
+                XYDifferenceRenderer differenceRenderer = (XYDifferenceRenderer) renderer;
+                if (!downColor.equals(differenceRenderer.getPositivePaint())) {
+                    differenceRenderer.setPositivePaint(downColor);
+                }
+                if (!upColor.equals(differenceRenderer.getNegativePaint())) {
+                    differenceRenderer.setNegativePaint(upColor);
+                }
+            }
+
+            // add markers of max and min, removing the markers of the
+            // previous cell also when the highlighting has been turned off
+            // note: experimental feature, not finished
+            plot.clearDomainMarkers();
+
+            if (highlightMaxAndMin) {
+
+                if (!maxValueColor.equals(reusableChart.maxValueMarkerColor)) {
+                    reusableChart.maxValueMarker.setPaint(maxValueColor.brighter().brighter().brighter());
+                    reusableChart.maxValueMarkerColor = maxValueColor;
+                }
+                if (!minValueColor.equals(reusableChart.minValueMarkerColor)) {
+                    reusableChart.minValueMarker.setPaint(minValueColor.brighter().brighter().brighter());
+                    reusableChart.minValueMarkerColor = minValueColor;
+                }
+
+                reusableChart.maxValueMarker.setStartValue(indexOfMaxValue - widthOfMaxAndMinHighlight);
+                reusableChart.maxValueMarker.setEndValue(indexOfMaxValue + widthOfMaxAndMinHighlight);
+                reusableChart.minValueMarker.setStartValue(indexOfMinValue - widthOfMaxAndMinHighlight);
+                reusableChart.minValueMarker.setEndValue(indexOfMinValue + widthOfMaxAndMinHighlight);
+
+                plot.addDomainMarker(reusableChart.maxValueMarker, Layer.BACKGROUND);
+                plot.addDomainMarker(reusableChart.minValueMarker, Layer.BACKGROUND);
+            }
+
+            reusableChart.xyDataset.setDataset(sparklineDataset, plotType == PlotType.difference, decimation, numberOfPixels);
+            updateReferenceOverlay(reusableChart);
+
+            if (maxValue > 0) {
+                plot.getRangeAxis().setRange(minValue, maxValue);
+            } else {
+                plot.getRangeAxis().setAutoRange(true);
+            }
+
+        } else if (plotType == PlotType.pieChart) {
+
+            PiePlot piePlot = (PiePlot) reusedChart.getPlot();
+            DefaultPieDataset pieDataset = reusableChart.pieDataset;
+            pieDataset.setNotify(false);
+
+            // the values are updated in place if the sections are the same
+            if (!hasKeys(pieDataset.getKeys(), sparklineDataset)) {
+                pieDataset.clear();
+            }
+
+            for (int i = 0; i < sparklineDataset.getData().size(); i++) {
+
+                JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
+
+                double sumOfValues = 0.0;
+
+                for (int j = 0; j < sparklineDataSeries.size(); j++) {
+                    sumOfValues += sparklineDataSeries.getValue(j);
+                }
+
+                pieDataset.setValue(sparklineDataSeries.getSeriesLabel(), sumOfValues);
+                piePlot.setSectionPaint(sparklineDataSeries.getSeriesLabel(), sparklineDataSeries.getSeriesColor());
+            }
+
+            pieDataset.setNotify(true);
+
+        } else if (plotType == PlotType.stackedBarChart || plotType == PlotType.stackedPercentBarChart
+                || plotType == PlotType.stackedBarChartIntegerWithUpperRange || plotType == PlotType.proteinSequence) {
+
+            CategoryPlot plot = reusedChart.getCategoryPlot();
+            StackedBarRenderer renderer = (StackedBarRenderer) plot.getRenderer(0);
+
+            for (int i = 0; i < sparklineDataset.getData().size(); i++) {
+                renderer.setSeriesPaint(i, sparklineDataset.getData().get(i).getSeriesColor(), false);
+            }
+
+            reusableChart.categoryDataset.setDataset(sparklineDataset, SparklineCategoryDataset.Layout.stacked);
+            updateReferenceOverlay(reusableChart);
+
+            if (plotType == PlotType.stackedBarChartIntegerWithUpperRange) {
+                plot.getRangeAxis().setRange(0, maxValue);
+            } else if (plotType != PlotType.stackedPercentBarChart && plotType != PlotType.proteinSequence) {
+                if (maxValue > 0) {
+                    plot.getRangeAxis().setRange(minValue * sparklineDataset.getData().size(), maxValue * sparklineDataset.getData().size());
+                } else {
+                    plot.getRangeAxis().setAutoRange(true);
+                }
+            }
+
+            if (plotType == PlotType.proteinSequence) {
+                if (showProteinSequenceReferenceLine) {
+                    LayeredBarRenderer referenceLineRenderer = (LayeredBarRenderer) plot.getRenderer(1);
+                    referenceLineRenderer.setSeriesBarWidth(0, referenceLineWidth);
+                    referenceLineRenderer.setSeriesFillPaint(0, referenceLineColor, false);
+                    referenceLineRenderer.setSeriesPaint(0, referenceLineColor, false);
+                    if (plot.getDataset(1) == null) {
+                        plot.setDataset(1, reusableChart.referenceLineDataset);
+                    }
+                } else if (plot.getDataset(1) != null) {
+                    plot.setDataset(1, null);
+                }
+            }
+
+        } else if (plotType == PlotType.boxPlot) {
+
+            CategoryPlot plot = reusedChart.getCategoryPlot();
+            BoxAndWhiskerRenderer renderer = (BoxAndWhiskerRenderer) plot.getRenderer();
+            DefaultBoxAndWhiskerCategoryDataset boxPlotDataset = reusableChart.boxPlotDataset;
+            boxPlotDataset.setNotify(false);
+
+            // the items are replaced in place if the series are the same
+            if (!hasKeys(boxPlotDataset.getRowKeys(), sparklineDataset)) {
+                boxPlotDataset.clear();
+            }
+
+            for (int i = 0; i < sparklineDataset.getData().size(); i++) {
+                JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
+                boxPlotDataset.add(getBoxAndWhiskerItem(sparklineDataSeries), sparklineDataSeries.getSeriesLabel(), "1");
+                renderer.setSeriesPaint(i, sparklineDataSeries.getSeriesColor(), false);
+            }
+
+            boxPlotDataset.setNotify(true);
+
+        } else if (plotType == PlotType.upDownChart) {
+
+            reusableChart.colors.clear();
+
+            for (int i = 0; i < sparklineDataset.getData().size(); i++) {
+                JSparklinesDataSeries sparklineDataSeries = sparklineDataset.getData().get(i);
+                for (int j = 0; j < sparklineDataSeries.size(); j++) {
+                    if (sparklineDataSeries.getValue(j) > 0) {
+                        reusableChart.colors.add(upColor);
+                    } else {
+                        reusableChart.colors.add(downColor);
+                    }
+                }
+            }
+
+            reusableChart.categoryDataset.setDataset(sparklineDataset, SparklineCategoryDataset.Layout.upDown);
+        }
+
+        return reusedChart;
+    }
+
+    /**
+     * Creates the reusable chart for the current plot type. Only the settings
+     * that are the same for all the cells are set here.
+     *
+     * @return the reusable chart
+     */
+    private ReusableChart createReusableChart() {
+
+        ReusableChart reusableChart = new ReusableChart();
+
+        if (plotType == PlotType.barChart || plotType == PlotType.upDownChart) {
+
+            reusableChart.categoryDataset = new SparklineCategoryDataset();
+            reusableChart.chart = ChartFactory.createBarChart(null, null, null, reusableChart.categoryDataset, plotOrientation, false, false, false);
+
+            CategoryPlot plot = reusableChart.chart.getCategoryPlot();
+
+            // remove space before/after the domain axis
+            plot.getDomainAxis().setUpperMargin(0);
+            plot.getDomainAxis().setLowerMargin(0);
+
+            if (plotType == PlotType.upDownChart) {
+                plot.getRangeAxis().setRange(-1, 1);
+            }
+
+            // hide unwanted chart details
+            plot.getRangeAxis().setVisible(false);
+            plot.getDomainAxis().setVisible(false);
+            plot.setRangeGridlinesVisible(false);
+            plot.setDomainGridlinesVisible(false);
+
+            // set up the chart renderer
+            BarChartColorRenderer renderer = new BarChartColorRenderer(reusableChart.colors);
+            renderer.setShadowVisible(false);
+            plot.setRenderer(renderer);
+
+        } else if (plotType == PlotType.lineChart || plotType == PlotType.areaChart || plotType == PlotType.difference) {
+
+            AbstractXYItemRenderer renderer;
+
+            // set up the chart renderer
+            if (plotType == PlotType.lineChart) {
+                renderer = new XYLineAndShapeRenderer(true, false);
+            } else if (plotType == PlotType.areaChart) {
+                renderer = new AreaRenderer();
+                ((AreaRenderer) renderer).setOutline(true);
+            } else { // plotType == PlotType.difference
+                renderer = new XYDifferenceRenderer(downColor, upColor, false);
+                renderer.setSeriesStroke(0, new BasicStroke(0));
+                renderer.setSeriesStroke(1, new BasicStroke(0));
+            }
+
+            reusableChart.xyDataset = new SparklineXYDataset();
+            reusableChart.chart = ChartFactory.createXYLineChart(null, null, null, reusableChart.xyDataset, plotOrientation, false, false, false);
+
+            XYPlot plot = reusableChart.chart.getXYPlot();
+
+            // remove space before/after the domain axis
+            plot.getDomainAxis().setUpperMargin(0);
+            plot.getDomainAxis().setLowerMargin(0);
+
+            // hide unwanted chart details
+            plot.getRangeAxis().setVisible(false);
+            plot.getDomainAxis().setVisible(false);
+            plot.setRangeGridlinesVisible(false);
+            plot.setDomainGridlinesVisible(false);
+
+            // set the renderer
+            plot.setRenderer(renderer);
+
+        } else if (plotType == PlotType.pieChart) {
+
+            reusableChart.pieDataset = new DefaultPieDataset();
+            reusableChart.chart = ChartFactory.createPieChart(null, reusableChart.pieDataset, false, false, false);
+
+            // hide the labels and remove the shadow
+            PiePlot piePlot = ((PiePlot) reusableChart.chart.getPlot());
+            piePlot.setCircular(true);
+            piePlot.setLabelGenerator(null);
+            piePlot.setShadowXOffset(0);
+            piePlot.setShadowYOffset(0);
+
+        } else if (plotType == PlotType.stackedBarChart || plotType == PlotType.stackedPercentBarChart
+                || plotType == PlotType.stackedBarChartIntegerWithUpperRange || plotType == PlotType.proteinSequence) {
+
+            StackedBarRenderer renderer = new StackedBarRenderer();
+            renderer.setShadowVisible(false);
+
+            reusableChart.categoryDataset = new SparklineCategoryDataset();
+            reusableChart.chart = ChartFactory.createStackedBarChart(null, null, null, reusableChart.categoryDataset, plotOrientation, false, false, false);
+
+            CategoryPlot plot = reusableChart.chart.getCategoryPlot();
+
+            // remove space before/after the domain axis
+            plot.getDomainAxis().setUpperMargin(0);
+            plot.getDomainAxis().setLowerMargin(0);
+
+            // remove space before/after the range axis
+            plot.getRangeAxis().setUpperMargin(0);
+            plot.getRangeAxis().setLowerMargin(0);
+
+            if (plotType == PlotType.stackedPercentBarChart || plotType == PlotType.proteinSequence) {
+                renderer.setRenderAsPercentages(true);
+            }
+
+            // hide unwanted chart details
+            plot.getRangeAxis().setVisible(false);
+            plot.getDomainAxis().setVisible(false);
+            plot.setRangeGridlinesVisible(false);
+            plot.setDomainGridlinesVisible(false);
+
+            if (plotType == PlotType.proteinSequence) {
+
+                // the reference line in the middle of the dataset
+                reusableChart.referenceLineDataset = new DefaultCategoryDataset();
+                reusableChart.referenceLineDataset.addValue(1.0, "A", "B");
+                plot.setRenderer(1, new LayeredBarRenderer());
+            }
+
+            // set up the chart renderer
+            plot.setRenderer(0, renderer);
+
+        } else if (plotType == PlotType.boxPlot) {
+
+            reusableChart.boxPlotDataset = new DefaultBoxAndWhiskerCategoryDataset();
+
+            BoxAndWhiskerRenderer renderer = new BoxAndWhiskerRenderer();
+            renderer.setDefaultOutlinePaint(new Color(255, 255, 255, 0)); // remove unwanted outline
+            renderer.setMeanVisible(false);
+            renderer.setMaximumBarWidth(0.5);
+
+            CategoryPlot plot = new CategoryPlot(reusableChart.boxPlotDataset, new CategoryAxis(), new NumberAxis(), renderer);
+
+            // remove space before/after the domain axis
+            plot.getDomainAxis().setUpperMargin(0);
+            plot.getDomainAxis().setLowerMargin(0);
+
+            // hide unwanted chart details
+            plot.getRangeAxis().setVisible(false);
+            plot.getDomainAxis().setVisible(false);
+            plot.setRangeGridlinesVisible(false);
+            plot.setDomainGridlinesVisible(false);
+
+            plot.setOrientation(plotOrientation);
+
+            reusableChart.chart = new JFreeChart(
+                    null,
+                    null,
+                    plot,
+                    false);
+        }
+
+        reusableChart.chartPanel = new ChartPanel(reusableChart.chart);
+
+        return reusableChart;
+    }
+
+    /**
+     * Creates a marker used to highlight the max or min value of the reusable
+     * charts.
+     *
+     * @return the marker
+     */
+    private static IntervalMarker createHighlightMarker() {
+        return new IntervalMarker(0, 0, Color.WHITE, new BasicStroke(1.0f), Color.lightGray, new BasicStroke(0.1f), 0.5f);
+    }
+
+    /**
+     * Returns true if the given keys are the labels of the data series in the
+     * given dataset, in the same order.
+     *
+     * @param keys the keys
+     * @param sparklineDataset the dataset
+     * @return true if the keys are the labels of the data series
+     */
+    private static boolean hasKeys(List<?> keys, JSparklinesDataset sparklineDataset) {
+
+        ArrayList<JSparklinesDataSeries> data = sparklineDataset.getData();
+
+        if (keys.size() != data.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < data.size(); i++) {
+            if (!keys.get(i).equals(data.get(i).getSeriesLabel())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Updates the reference lines and areas of the given reusable chart if
+     * they have changed since the last update.
+     *
+     * @param reusableChart the reusable chart
+     */
+    private void updateReferenceOverlay(ReusableChart reusableChart) {
+
+        ReferenceOverlay overlay = getReferenceOverlay();
+
+        if (reusableChart.referenceOverlay == overlay) {
+            return;
+        }
+
+        if (reusableChart.referenceOverlay != null) {
+            reusableChart.chartPanel.removeOverlay(reusableChart.referenceOverlay);
+        }
+
+        if (!overlay.isEmpty()) {
+            reusableChart.chartPanel.addOverlay(overlay);
+        }
+
+        reusableChart.referenceOverlay = overlay;
+    }
+
+    /**
+     * Returns the gradient paint used to fill the area charts for the given
+     * series color.
+     *
+     * @param seriesColor the series color
+     * @return the gradient paint
+     */
+    private GradientPaint getAreaChartGradient(Color seriesColor) {
+
+        GradientPaint gradientPaint = areaChartGradients.get(seriesColor);
+
+        if (gradientPaint == null) {
+            gradientPaint = new GradientPaint(
+                    0f, 0f, seriesColor.brighter().brighter(),
+                    0f, 0f, seriesColor.darker().darker());
+            areaChartGradients.put(seriesColor, gradientPaint);
+        }
+
+        return gradientPaint;
+    }
+
+    /**
+     * If true, one chart per plot type is created and reused for all the
+     * cells, only replacing the data displayed in the chart. This avoids
+     * creating new charts, datasets, renderers and chart panels for every
+     * cell, which considerably speeds up the rendering of large tables. Off by
+     * default.
+     *
+     * @param reuseCharts if true, the charts are reused
+     */
+    public void setReuseCharts(boolean reuseCharts) {
+        this.reuseCharts = reuseCharts;
+        if (!reuseCharts) {
+            reusableCharts.clear();
+        }
+    }
+
+    /**
+     * Returns true if the charts are reused across the cells.
+     *
+     * @return true if the charts are reused across the cells
+     */
+    public boolean isReuseCharts() {
+        return reuseCharts;
+    }
+
+    /**
+     * Set the decimation used for the line, area and difference charts. When
+     * used, each data series is reduced to about two points per pixel of the
+     * cell before plotting, making the rendering time and memory use
+     * independent of the length of the data series. No decimation is used by
+     * default.
+     *
+     * @param decimation the decimation method, Decimation.none disables the
+     * decimation
+     */
+    public void setDecimation(Decimation decimation) {
+        this.decimation = decimation;
+        configurationVersion++;
+    }
+
+    /**
+     * Returns the decimation used for the line, area and difference charts.
+     *
+     * @return the decimation method
+     */
+    public Decimation getDecimation() {
+        return decimation;
+    }
+
+    /**
+     * Set the number of values above which the box plots are based on the
+     * approximate statistics of the data series, estimated using a bounded
+     * memory quantile sketch, instead of the exact statistics. In both cases
+     * the statistics are cached in the data series. The exact statistics are
+     * used by default.
+     *
+     * @param approximateBoxPlotThreshold the number of values above which the
+     * approximate statistics are used, Integer.MAX_VALUE disables the
+     * approximation
+     */
+    public void setApproximateBoxPlotThreshold(int approximateBoxPlotThreshold) {
+        this.approximateBoxPlotThreshold = approximateBoxPlotThreshold;
+        configurationVersion++;
+    }
+
+    /**
+     * Returns the number of values above which the box plots are based on the
+     * approximate statistics.
+     *
+     * @return the number of values above which the approximate statistics
+     * are used
+     */
+    public int getApproximateBoxPlotThreshold() {
+        return approximateBoxPlotThreshold;
+    }
+
+    /**
+     * Returns the cached box and whisker statistics of the given data series,
+     * approximate if the series has more values than the approximation
+     * threshold.
+     *
+     * @param dataSeries the data series
+     * @return the box and whisker statistics
+     */
+    private BoxAndWhiskerItem getBoxAndWhiskerItem(JSparklinesDataSeries dataSeries) {
+        if (dataSeries.size() > approximateBoxPlotThreshold) {
+            return dataSeries.getApproximateBoxAndWhiskerItem();
+        }
+        return dataSeries.getBoxAndWhiskerItem();
+    }
+
+    /**
+     * Add a reference line at a given data value.
+     *
+     * @param label the label for the reference
+     * @param value the reference line value
+     * @param lineWidth the line width, has to non-negative
+     * @param lineColor the line color
+     */
+    public void addReferenceLine(String label, double value, float lineWidth, Color lineColor) {
+        referenceLines.put(label, new ReferenceLine(label, value, lineWidth, lineColor));
+        referencesChanged();
+    }
+
+    /**
+     * Add a reference line at a given data value.
+     *
+     * @param referenceLine the reference line
+     */
+    public void addReferenceLine(ReferenceLine referenceLine) {
+        referenceLines.put(referenceLine.getLabel(), referenceLine);
+        referencesChanged();
+    }
+
+    /**
+     * Removes the reference line with the given label. Does nothing if no
+     * reference with the given label is found.
+     *
+     * @param label the reference to remove
+     */
+    public void removeReferenceLine(String label) {
+        referenceLines.remove(label);
+        referencesChanged();
+    }
+
+    /**
+     * Removes all the reference lines.
+     */
+    public void removeAllReferenceLines() {
+        referenceLines = new HashMap<String, ReferenceLine>();
+        referencesChanged();
+    }
+
+    /**
+     * Returns all the references lines as a hashmap, with the labels as the
+     * keys. The reference lines can be changed via the returned map. The
+     * reference lines and areas are recompiled for painting the next time a
+     * cell is rendered, changes made after that are only painted once the
+     * map is retrieved again.
+     *
+     * @return hashmap of all reference lines
+     */
+    public HashMap<String, ReferenceLine> getAllReferenceLines() {
+        referencesChanged();
+        return referenceLines;
+    }
+
+    /**
+     * Add a reference area.
+     *
+     * @param label the label for the reference area
+     * @param start the start of the reference area
+     * @param end the end of the reference area
+     * @param areaColor the color of the reference area
+     * @param alpha the alpha level of the reference area, range: 0.0 to 1.0
+     */
+    public void addReferenceArea(String label, double start, double end, Color areaColor, float alpha) {
+        referenceAreas.put(label, new ReferenceArea(label, start, end, areaColor, alpha));
+        referencesChanged();
+    }
+
+    /**
+     * Add a reference area.
+     *
+     * @param referenceArea the reference area
+     */
+    public void addReferenceArea(ReferenceArea referenceArea) {
+        referenceAreas.put(referenceArea.getLabel(), referenceArea);
+        referencesChanged();
+    }
+
+    /**
+     * Removes the reference area with the given label. Does nothing if no
+     * reference with the given label is found.
+     *
+     * @param label the reference to remove
+     */
+    public void removeReferenceArea(String label) {
+        referenceAreas.remove(label);
+        referencesChanged();
+    }
+
+    /**
+     * Removes all the reference areas.
+     */
     public void removeAllReferenceAreas() {
         referenceAreas = new HashMap<String, ReferenceArea>();
+        referencesChanged();
     }
 
     /**
      * Returns all the references areas as a hashmap, with the labels as the
-     * keys.
+     * keys. The reference areas can be changed via the returned map. The
+     * reference lines and areas are recompiled for painting the next time a
+     * cell is rendered, changes made after that are only painted once the
+     * map is retrieved again.
      *
      * @return hashmap of all reference areas
      */
     public HashMap<String, ReferenceArea> getAllReferenceAreas() {
+        referencesChanged();
         return referenceAreas;
     }
 
+    /**
+     * Returns the reference lines and areas precompiled for painting. Can for
+     * example be used to paint the reference lines and areas once for the
+     * whole column.
+     *
+     * @return the reference lines and areas precompiled for painting
+     */
+    public ReferenceOverlay getReferenceOverlay() {
+
+        if (referenceOverlay == null) {
+            referenceOverlay = new ReferenceOverlay(referenceLines.values(), referenceAreas.values());
+        }
+
+        return referenceOverlay;
+    }
+
+    /**
+     * Marks the reference lines and areas for recompiling, and invalidates the cached images.
+     */
+    private void referencesChanged() {
+        referenceOverlay = null;
+        configurationVersion++;
+    }
+
     /**
      * Set the maximum value.
      *
@@ -1100,6 +1869,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void setMaxValue(double maxValue) {
         this.maxValue = maxValue;
+        configurationVersion++;
     }
 
     /**
@@ -1109,6 +1879,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void setMinValue(double minValue) {
         this.minValue = minValue;
+        configurationVersion++;
     }
 
     /**
@@ -1118,6 +1889,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void setPlotType(PlotType plotType) {
         this.plotType = plotType;
+        configurationVersion++;
     }
 
     /**
@@ -1136,6 +1908,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void setMaxValueColor(Color maxValueColor) {
         this.maxValueColor = maxValueColor;
+        configurationVersion++;
     }
 
     /**
@@ -1155,6 +1928,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void setMinValueColor(Color minValueColor) {
         this.minValueColor = minValueColor;
+        configurationVersion++;
     }
 
     /**
@@ -1174,6 +1948,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void setUpColor(Color upColor) {
         this.upColor = upColor;
+        configurationVersion++;
     }
 
     /**
@@ -1194,6 +1969,7 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void setDownColor(Color downColor) {
         this.downColor = downColor;
+        configurationVersion++;
     }
 
     /**
@@ -1212,6 +1988,8 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void setPlotOrientation(PlotOrientation plotOrientation) {
         this.plotOrientation = plotOrientation;
+        reusableCharts.clear();
+        configurationVersion++;
     }
 
     /**
@@ -1231,10 +2009,37 @@ public class JSparklinesTableCellRenderer extends JLabel implements TableCellRen
      */
     public void setBackgroundColor(Color color) {
         backgroundColor = color;
+        configurationVersion++;
+    }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        if (!(value instanceof JSparklinesDataset)) {
+            return null;
+        }
+
+        StringBuilder tooltip = new StringBuilder();
+        tooltip.append("<html>");
+        appendTooltip(tooltip, (JSparklinesDataset) value);
+
+        if (tooltip.length() == "<html>".length()) {
+            return null;
+        }
+
+        return tooltip.append("</html>").toString();
     }
-    // @TODO: this ought to work but does not...
-//    @Override
-//    public String getToolTipText(MouseEvent event) {
-//        return chartPanel.getToolTipText(event);
-//    }   
 }
@@ -6,6 +6,8 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.HashMap;
@@ -16,11 +18,14 @@ import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import no.uib.jsparklines.data.XYDataPoint;
+import no.uib.jsparklines.renderers.util.CellStyleResolver;
+import no.uib.jsparklines.renderers.util.LazyToolTipRenderer;
+import no.uib.jsparklines.renderers.util.MeteredTableCellRenderer;
 import no.uib.jsparklines.renderers.util.ReferenceArea;
 import no.uib.jsparklines.renderers.util.ReferenceLine;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsSupport;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -40,7 +45,7 @@ import org.jfree.data.category.DefaultCategoryDataset;
  *
  * @author Harald Barsnes
  */
-public class JSparklinesTwoValueBarChartTableCellRenderer extends JLabel implements TableCellRenderer {
+public class JSparklinesTwoValueBarChartTableCellRenderer extends JLabel implements LazyToolTipRenderer, MeteredTableCellRenderer {
 
     /**
      * If true, the first number is shown as the value for plot. Otherwise the
@@ -122,6 +127,19 @@ public class JSparklinesTwoValueBarChartTableCellRenderer extends JLabel impleme
      * The label used to display the number and the bar chart at the same time.
      */
     private JLabel valueLabel;
+    /**
+     * Records the render times, if enabled via setRendererMetrics.
+     */
+    private final RendererMetricsSupport rendererMetricsSupport = new RendererMetricsSupport();
+    /**
+     * Resolves the border, colors and font of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The value of the last rendered chart, used to create the tooltip when
+     * the user hovers the cell.
+     */
+    private Object tooltipValue = null;
 
     /**
      * Creates a new JSparkLinesTableCellRenderer.
@@ -271,12 +289,48 @@ public class JSparklinesTwoValueBarChartTableCellRenderer extends JLabel impleme
         this.showFirstNumber = showFirstNumber;
     }
 
+    @Override
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        rendererMetricsSupport.setRendererMetrics(rendererMetrics, rendererName);
+    }
+
+    @Override
+    public RendererMetrics getRendererMetrics() {
+        return rendererMetricsSupport.getRendererMetrics();
+    }
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value,
             boolean isSelected, boolean hasFocus, int row, int column) {
+        rendererMetricsSupport.start(null);
+        Component component = getRendererComponent(table, value, isSelected, hasFocus, row, column);
+        return rendererMetricsSupport.prepared(component, this, null, value, row, column);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        rendererMetricsSupport.startPaint();
+        super.paint(g);
+        rendererMetricsSupport.painted();
+    }
+
+    /**
+     * Returns the component used for drawing the cell. Takes the same
+     * parameters as getTableCellRendererComponent, which adds the recording
+     * of the render times.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    private Component getRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JComponent c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, value,
-                isSelected, hasFocus, row, column);
+        JComponent c = cellStyleResolver.getCellStyle(table, isSelected, hasFocus, row, column);
 
         // respect focus and hightlighting
         setBorder(c.getBorder());
@@ -290,11 +344,7 @@ public class JSparklinesTwoValueBarChartTableCellRenderer extends JLabel impleme
 
         // check for valid object type
         if (value == null || !(value instanceof XYDataPoint)) {
-            Color bg = c.getBackground();
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-            return c;
+            return cellStyleResolver.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
         }
 
         // get the dataset
@@ -314,24 +364,16 @@ public class JSparklinesTwoValueBarChartTableCellRenderer extends JLabel impleme
 
             if (showNumbers) {
 
-                c = (JComponent) new DefaultTableCellRenderer().getTableCellRendererComponent(table, numberFormat.format(tempValue),
+                c = cellStyleResolver.getTableCellRendererComponent(table, numberFormat.format(tempValue),
                         isSelected, hasFocus, row, column);
                 ((JLabel) c).setHorizontalAlignment(SwingConstants.RIGHT);
 
-                Color bg = c.getBackground();
-                // We have to create a new color object because Nimbus returns
-                // a color of type DerivedColor, which behaves strange, not sure why.
-                c.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
-
                 return c;
             }
 
             valueLabel.setText(numberFormat.format(tempValue));
 
-            // We have to create a new color object because Nimbus returns
-            // a color of type DerivedColor, which behaves strange, not sure why.
-            Color bg = c.getBackground();
-            valueLabel.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+            valueLabel.setBackground(c.getBackground());
 
             // add some padding
             if (labelHorizontalAlignement == SwingConstants.RIGHT) {
@@ -376,8 +418,6 @@ public class JSparklinesTwoValueBarChartTableCellRenderer extends JLabel impleme
             }
         }
 
-        String tooltip = ((int) xyDataPoint.getX()) + " / " + ((int) (xyDataPoint.getX() + xyDataPoint.getY()));
-
         chart = ChartFactory.createStackedBarChart(null, null, null, barChartDataset, plotOrientation, false, false, false);
 
         // fine tune the chart properites
@@ -423,8 +463,8 @@ public class JSparklinesTwoValueBarChartTableCellRenderer extends JLabel impleme
         // set up the chart renderer
         plot.setRenderer(0, renderer);
 
-        // set the tooltip
-        setToolTipText(tooltip);
+        // the tooltip is created when the user hovers the cell
+        tooltipValue = xyDataPoint;
 
         // hide the outline
         chart.getPlot().setOutlineVisible(false);
@@ -645,4 +685,29 @@ public class JSparklinesTwoValueBarChartTableCellRenderer extends JLabel impleme
     public double getMaxValue() {
         return maxValue;
     }
+
+    /**
+     * Returns the tooltip of the last rendered chart. Called by the table
+     * when the user hovers the cell, such that the tooltip is not created
+     * every time the cell is painted.
+     *
+     * @param event the mouse event
+     * @return the tooltip
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return createToolTipText(tooltipValue);
+    }
+
+    @Override
+    public String createToolTipText(Object value) {
+
+        if (!(value instanceof XYDataPoint)) {
+            return null;
+        }
+
+        XYDataPoint xyDataPoint = (XYDataPoint) value;
+
+        return ((int) xyDataPoint.getX()) + " / " + ((int) (xyDataPoint.getX() + xyDataPoint.getY()));
+    }
 }
@@ -0,0 +1,774 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableCellRenderer;
+import no.uib.jsparklines.JSparklinesImageExporter;
+
+/**
+ * Table cell renderer rendering the sparklines on a pool of background
+ * threads, keeping the event dispatch thread responsive when scrolling
+ * through large tables. Until the image of a cell is ready a placeholder with
+ * the cell background is shown, and the cell is repainted when the image
+ * arrives. The rows in the viewport are rendered first, followed by the rows
+ * within the prefetch margin above and below the viewport. Pending jobs for
+ * rows that have been scrolled out of the viewport and the prefetch margin
+ * are cancelled.
+ * <br><br>
+ * The background threads render via a JSparklinesImageExporter, i.e., each
+ * thread uses its own renderer created by the RendererFactory. Selected and
+ * focused cells are rendered directly by a renderer owned by the event
+ * dispatch thread, as are null values and the cells whose rendering failed
+ * on the background threads. Note that the images are not updated when the
+ * settings of the renderers change, use clear to remove the images in that
+ * case. The cell values are compared by identity, together with the version
+ * of the data for JSparklinesDataset values, i.e., changes to the data
+ * series, e.g., of a RingBufferDataSeries, are rendered anew. For the
+ * rendered images, tooltips are only available if the renderer implements
+ * LazyToolTipRenderer, in which case they are created when the user hovers
+ * the cell.
+ * <br><br>
+ * Call dispose when the renderer is no longer used, to stop the background
+ * threads.
+ *
+ * @author Harald Barsnes
+ */
+public class AsyncTableCellRenderer implements TableCellRenderer {
+
+    /**
+     * The default number of rows prefetched above and below the viewport.
+     */
+    public static final int DEFAULT_PREFETCH_MARGIN = 50;
+    /**
+     * The number of bytes used per pixel.
+     */
+    private static final int BYTES_PER_PIXEL = 4;
+    /**
+     * The maximum number of failed images remembered.
+     */
+    private static final int MAX_FAILED_IMAGES = 1024;
+    /**
+     * The counter used to name the background threads.
+     */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    /**
+     * The exporter rendering the images on the background threads.
+     */
+    private final JSparklinesImageExporter imageExporter;
+    /**
+     * The renderer used on the event dispatch thread.
+     */
+    private final TableCellRenderer renderer;
+    /**
+     * The background threads.
+     */
+    private final ThreadPoolExecutor executor;
+    /**
+     * The rendered images in least recently used order.
+     */
+    private final LinkedHashMap<ImageKey, BufferedImage> images = new LinkedHashMap<>(256, 0.75f, true);
+    /**
+     * The pending rendering jobs.
+     */
+    private final HashMap<ImageKey, RenderingJob> pendingJobs = new HashMap<>();
+    /**
+     * The keys of the images whose rendering failed on the background
+     * threads, in least recently used order. These cells are rendered by the
+     * renderer used on the event dispatch thread.
+     */
+    private final LinkedHashMap<ImageKey, Boolean> failedImages = new LinkedHashMap<ImageKey, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ImageKey, Boolean> eldest) {
+            return size() > MAX_FAILED_IMAGES;
+        }
+    };
+    /**
+     * Key reused for the lookups, only used on the event dispatch thread.
+     */
+    private final ImageKey lookupKey = new ImageKey();
+    /**
+     * Resolves the background colors of the cells.
+     */
+    private final CellStyleResolver cellStyleResolver = new CellStyleResolver();
+    /**
+     * The component used to display the images.
+     */
+    private final ImageComponent imageComponent;
+    /**
+     * The view columns rendered by this renderer, used for the prefetching.
+     */
+    private final ArrayList<Integer> columns = new ArrayList<>();
+    /**
+     * The number of rows prefetched above and below the viewport.
+     */
+    private int prefetchMargin = DEFAULT_PREFETCH_MARGIN;
+    /**
+     * The memory budget of the images in bytes.
+     */
+    private long memoryBudget = SparklineImageCache.DEFAULT_MEMORY_BUDGET;
+    /**
+     * The memory currently used by the images in bytes.
+     */
+    private long memoryUsage = 0;
+    /**
+     * The visible rectangle of the table when the viewport was last checked.
+     */
+    private final Rectangle visibleRectangle = new Rectangle();
+    /**
+     * Rectangle reused when looking up the visible rectangle of the table.
+     */
+    private final Rectangle currentVisibleRectangle = new Rectangle();
+    /**
+     * The first visible row when the viewport was last checked.
+     */
+    private int firstVisibleRow = 0;
+    /**
+     * The last visible row when the viewport was last checked.
+     */
+    private int lastVisibleRow = -1;
+    /**
+     * True if the prefetching of the rows around the viewport has been
+     * scheduled but not yet run.
+     */
+    private boolean prefetchScheduled = false;
+    /**
+     * The first row to keep rendering, i.e., the first visible row minus the
+     * prefetch margin.
+     */
+    private int firstRow = 0;
+    /**
+     * The last row to keep rendering, i.e., the last visible row plus the
+     * prefetch margin.
+     */
+    private int lastRow = -1;
+    /**
+     * Point reused when looking up the visible rows.
+     */
+    private final Point point = new Point();
+    /**
+     * The number of cancelled jobs.
+     */
+    private long cancelledJobCount = 0;
+
+    /**
+     * Creates a new AsyncTableCellRenderer using one background thread per
+     * available processor, minus one for the event dispatch thread.
+     *
+     * @param rendererFactory the factory creating the renderers, called once
+     * per background thread and once for the event dispatch thread
+     */
+    public AsyncTableCellRenderer(JSparklinesImageExporter.RendererFactory rendererFactory) {
+        this(rendererFactory, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Creates a new AsyncTableCellRenderer.
+     *
+     * @param rendererFactory the factory creating the renderers, called once
+     * per background thread and once for the event dispatch thread
+     * @param numberOfThreads the number of background threads
+     * @throws IllegalArgumentException if numberOfThreads &lt; 1
+     */
+    public AsyncTableCellRenderer(JSparklinesImageExporter.RendererFactory rendererFactory, int numberOfThreads) {
+
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("The number of threads has to be at least one! Current value: " + numberOfThreads + ".");
+        }
+
+        this.imageExporter = new JSparklinesImageExporter(rendererFactory);
+        this.renderer = rendererFactory.createRenderer();
+        this.imageComponent = new ImageComponent(renderer);
+        this.executor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "JSparklines-async-renderer-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the number of rows prefetched above and below the viewport.
+     *
+     * @return the prefetch margin
+     */
+    public int getPrefetchMargin() {
+        return prefetchMargin;
+    }
+
+    /**
+     * Set the number of rows prefetched above and below the viewport.
+     *
+     * @param prefetchMargin the prefetch margin
+     */
+    public void setPrefetchMargin(int prefetchMargin) {
+        this.prefetchMargin = Math.max(0, prefetchMargin);
+        visibleRectangle.setBounds(0, 0, 0, 0);
+    }
+
+    /**
+     * Returns the memory budget of the images in bytes.
+     *
+     * @return the memory budget in bytes
+     */
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Set the memory budget of the images in bytes. The least recently used
+     * images are removed when the budget is exceeded.
+     *
+     * @param memoryBudget the memory budget in bytes
+     */
+    public synchronized void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        evict();
+    }
+
+    /**
+     * Returns the number of rendered images kept.
+     *
+     * @return the number of images
+     */
+    public synchronized int getNumberOfImages() {
+        return images.size();
+    }
+
+    /**
+     * Returns the number of pending rendering jobs.
+     *
+     * @return the number of pending jobs
+     */
+    public synchronized int getNumberOfPendingJobs() {
+        return pendingJobs.size();
+    }
+
+    /**
+     * Returns the number of images whose rendering failed on the background
+     * threads, and that are therefore rendered on the event dispatch thread.
+     *
+     * @return the number of failed images
+     */
+    public synchronized int getNumberOfFailedImages() {
+        return failedImages.size();
+    }
+
+    /**
+     * Returns the number of jobs cancelled because their rows were scrolled
+     * away.
+     *
+     * @return the number of cancelled jobs
+     */
+    public synchronized long getCancelledJobCount() {
+        return cancelledJobCount;
+    }
+
+    /**
+     * Returns the renderer used on the event dispatch thread, e.g., to
+     * display a legend.
+     *
+     * @return the renderer used on the event dispatch thread
+     */
+    public TableCellRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Removes all the images and cancels the pending jobs, e.g., after
+     * changing the settings of the renderers.
+     */
+    public synchronized void clear() {
+        for (RenderingJob job : pendingJobs.values()) {
+            job.cancel(false);
+            executor.remove(job);
+        }
+        pendingJobs.clear();
+        images.clear();
+        failedImages.clear();
+        memoryUsage = 0;
+    }
+
+    /**
+     * Cancels the pending jobs and stops the background threads.
+     */
+    public void dispose() {
+        clear();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        int width = table.getColumnModel().getColumn(column).getWidth() - table.getColumnModel().getColumnMargin();
+        int height = table.getRowHeight(row) - table.getRowMargin();
+
+        if (value == null || isSelected || hasFocus || width <= 0 || height <= 0 || executor.isShutdown()) {
+            return renderer.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        }
+
+        if (!columns.contains(column)) {
+            columns.add(column);
+            visibleRectangle.setBounds(0, 0, 0, 0);
+        }
+
+        updateViewport(table);
+
+        JComponent placeholder = cellStyleResolver.getTableCellRendererComponent(table, null, false, false, row, column);
+        Color background = placeholder.getBackground();
+        int dataVersion = SparklineImageCache.getDataVersion(value);
+        BufferedImage image;
+
+        synchronized (this) {
+            lookupKey.set(value, dataVersion, width, height, background);
+            image = images.get(lookupKey);
+            if (image == null && failedImages.containsKey(lookupKey)) {
+                return renderer.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            }
+        }
+
+        if (image == null) {
+            submit(table, value, dataVersion, width, height, background, row, column);
+            return placeholder;
+        }
+
+        imageComponent.image = image;
+        imageComponent.value = value;
+
+        return imageComponent;
+    }
+
+    /**
+     * Checks if the viewport has changed, in which case the jobs for the rows
+     * outside the viewport and the prefetch margin are cancelled, and the
+     * prefetching of the rows within the prefetch margin is scheduled. The
+     * prefetching runs after the current paint, such that the jobs for the
+     * visible cells are submitted first.
+     *
+     * @param table the table
+     */
+    private void updateViewport(final JTable table) {
+
+        Rectangle visibleRect = currentVisibleRectangle;
+        table.computeVisibleRect(visibleRect);
+
+        if (visibleRect.equals(visibleRectangle)) {
+            return;
+        }
+
+        visibleRectangle.setBounds(visibleRect);
+
+        point.setLocation(visibleRect.x, visibleRect.y);
+        firstVisibleRow = table.rowAtPoint(point);
+        point.setLocation(visibleRect.x, visibleRect.y + visibleRect.height - 1);
+        lastVisibleRow = table.rowAtPoint(point);
+
+        if (firstVisibleRow == -1) {
+            firstVisibleRow = 0;
+        }
+        if (lastVisibleRow == -1) {
+            lastVisibleRow = table.getRowCount() - 1;
+        }
+
+        firstRow = Math.max(0, firstVisibleRow - prefetchMargin);
+        lastRow = Math.min(table.getRowCount() - 1, lastVisibleRow + prefetchMargin);
+
+        // cancel the jobs for the rows scrolled away
+        synchronized (this) {
+            Iterator<RenderingJob> iterator = pendingJobs.values().iterator();
+            while (iterator.hasNext()) {
+                RenderingJob job = iterator.next();
+                if (job.row < firstRow || job.row > lastRow) {
+                    job.cancel(false);
+                    executor.remove(job);
+                    iterator.remove();
+                    cancelledJobCount++;
+                }
+            }
+        }
+
+        if (!prefetchScheduled) {
+            prefetchScheduled = true;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    prefetchScheduled = false;
+                    prefetch(table);
+                }
+            });
+        }
+    }
+
+    /**
+     * Submits the rows above and below the viewport, closest first.
+     *
+     * @param table the table
+     */
+    private void prefetch(JTable table) {
+
+        if (executor.isShutdown()) {
+            return;
+        }
+
+        for (int i = 1; i <= prefetchMargin; i++) {
+            prefetchRow(table, lastVisibleRow + i);
+            prefetchRow(table, firstVisibleRow - i);
+        }
+    }
+
+    /**
+     * Submits the cells of the given row, if not already rendered.
+     *
+     * @param table the table
+     * @param row the row index
+     */
+    private void prefetchRow(JTable table, int row) {
+
+        if (row < firstRow || row > lastRow || row >= table.getRowCount()) {
+            return;
+        }
+
+        int height = table.getRowHeight(row) - table.getRowMargin();
+
+        for (int column : columns) {
+
+            if (column >= table.getColumnCount() || table.getCellRenderer(row, column) != this) {
+                continue;
+            }
+
+            Object value = table.getValueAt(row, column);
+            int width = table.getColumnModel().getColumn(column).getWidth() - table.getColumnModel().getColumnMargin();
+
+            if (value == null || table.isCellSelected(row, column) || width <= 0 || height <= 0) {
+                continue;
+            }
+
+            Color background = cellStyleResolver.getCellStyle(table, false, false, row, column).getBackground();
+            int dataVersion = SparklineImageCache.getDataVersion(value);
+
+            synchronized (this) {
+                lookupKey.set(value, dataVersion, width, height, background);
+                if (images.containsKey(lookupKey) || failedImages.containsKey(lookupKey)) {
+                    continue;
+                }
+            }
+
+            submit(table, value, dataVersion, width, height, background, row, column);
+        }
+    }
+
+    /**
+     * Submits a rendering job, unless the image is already being rendered.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param dataVersion the version of the data of the cell value
+     * @param width the width of the cell
+     * @param height the height of the cell
+     * @param background the background color of the cell
+     * @param row the row index
+     * @param column the column index
+     */
+    private synchronized void submit(JTable table, Object value, int dataVersion, int width, int height, Color background, int row, int column) {
+
+        lookupKey.set(value, dataVersion, width, height, background);
+
+        if (pendingJobs.containsKey(lookupKey)) {
+            return;
+        }
+
+        ImageKey key = new ImageKey();
+        key.set(value, dataVersion, width, height, background);
+
+        RenderingJob job = new RenderingJob(new ImageRenderer(key), key, table, row, column);
+        pendingJobs.put(key, job);
+        executor.execute(job);
+    }
+
+    /**
+     * Called from the background threads when a job is done. Stores the image
+     * and repaints the cell. If the rendering failed, the cell is repainted
+     * by the renderer used on the event dispatch thread instead.
+     *
+     * @param job the job
+     * @param image the image, null if the rendering failed
+     */
+    private void imageRendered(final RenderingJob job, BufferedImage image) {
+
+        synchronized (this) {
+
+            if (pendingJobs.get(job.key) != job) {
+                return;
+            }
+
+            pendingJobs.remove(job.key);
+
+            if (image == null) {
+                failedImages.put(job.key, Boolean.TRUE);
+            } else {
+                storeImage(job.key, image);
+            }
+        }
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (job.row < job.table.getRowCount() && job.column < job.table.getColumnCount()) {
+                    job.table.repaint(job.table.getCellRect(job.row, job.column, false));
+                }
+            }
+        });
+    }
+
+    /**
+     * Stores an image and removes the least recently used images if the
+     * memory budget is exceeded.
+     *
+     * @param key the key of the image
+     * @param image the image
+     */
+    private synchronized void storeImage(ImageKey key, BufferedImage image) {
+
+        long bytes = ((long) image.getWidth()) * image.getHeight() * BYTES_PER_PIXEL;
+        BufferedImage oldImage = images.put(key, image);
+        if (oldImage != null) {
+            memoryUsage -= ((long) oldImage.getWidth()) * oldImage.getHeight() * BYTES_PER_PIXEL;
+        }
+        memoryUsage += bytes;
+        evict();
+    }
+
+    /**
+     * Removes the least recently used images until the memory budget is
+     * respected.
+     */
+    private synchronized void evict() {
+        Iterator<Map.Entry<ImageKey, BufferedImage>> iterator = images.entrySet().iterator();
+        while (memoryUsage > memoryBudget && iterator.hasNext()) {
+            BufferedImage image = iterator.next().getValue();
+            memoryUsage -= ((long) image.getWidth()) * image.getHeight() * BYTES_PER_PIXEL;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Renders the image of a cell on a background thread.
+     */
+    private class ImageRenderer implements Runnable {
+
+        /**
+         * The key of the image.
+         */
+        private final ImageKey key;
+        /**
+         * The job running this renderer, set after creation.
+         */
+        private RenderingJob job;
+
+        /**
+         * Creates a new ImageRenderer.
+         *
+         * @param key the key of the image
+         */
+        private ImageRenderer(ImageKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+
+            if (job.isCancelled()) {
+                return;
+            }
+
+            // the FutureTask would swallow the exception, leaving the
+            // placeholder in the cell, hence the explicit handling
+            BufferedImage image = null;
+
+            try {
+                image = imageExporter.createImage(key.value, key.width, key.height, key.background);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                imageRendered(job, image);
+            }
+        }
+    }
+
+    /**
+     * A pending rendering job, together with the cell it was submitted for.
+     */
+    private static class RenderingJob extends FutureTask<Object> {
+
+        /**
+         * The key of the image.
+         */
+        private final ImageKey key;
+        /**
+         * The table.
+         */
+        private final JTable table;
+        /**
+         * The row index.
+         */
+        private final int row;
+        /**
+         * The column index.
+         */
+        private final int column;
+
+        /**
+         * Creates a new RenderingJob.
+         *
+         * @param imageRenderer the renderer of the image
+         * @param key the key of the image
+         * @param table the table
+         * @param row the row index
+         * @param column the column index
+         */
+        private RenderingJob(ImageRenderer imageRenderer, ImageKey key, JTable table, int row, int column) {
+            super(imageRenderer, null);
+            imageRenderer.job = this;
+            this.key = key;
+            this.table = table;
+            this.row = row;
+            this.column = column;
+        }
+    }
+
+    /**
+     * The key of a rendered image.
+     */
+    private static class ImageKey {
+
+        /**
+         * The cell value, compared by identity.
+         */
+        private Object value;
+        /**
+         * The version of the data of the cell value.
+         */
+        private int dataVersion;
+        /**
+         * The width of the cell.
+         */
+        private int width;
+        /**
+         * The height of the cell.
+         */
+        private int height;
+        /**
+         * The background color of the cell.
+         */
+        private Color background;
+        /**
+         * The hash code.
+         */
+        private int hashCode;
+
+        /**
+         * Set the key values.
+         *
+         * @param value the cell value
+         * @param dataVersion the version of the data of the cell value
+         * @param width the width of the cell
+         * @param height the height of the cell
+         * @param background the background color of the cell
+         */
+        private void set(Object value, int dataVersion, int width, int height, Color background) {
+
+            this.value = value;
+            this.dataVersion = dataVersion;
+            this.width = width;
+            this.height = height;
+            this.background = background;
+
+            int hash = System.identityHashCode(value);
+            hash = 31 * hash + dataVersion;
+            hash = 31 * hash + width;
+            hash = 31 * hash + height;
+            hash = 31 * hash + (background != null ? background.getRGB() : 0);
+            hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ImageKey)) {
+                return false;
+            }
+            ImageKey other = (ImageKey) obj;
+            return value == other.value
+                    && dataVersion == other.dataVersion
+                    && width == other.width
+                    && height == other.height
+                    && (background == null ? other.background == null : background.equals(other.background));
+        }
+    }
+
+    /**
+     * Component drawing a rendered image.
+     */
+    private static class ImageComponent extends JComponent {
+
+        /**
+         * The image to draw.
+         */
+        private BufferedImage image;
+        /**
+         * The value of the cell.
+         */
+        private Object value;
+        /**
+         * The renderer creating the tooltip, null if no tooltips are shown.
+         */
+        private final LazyToolTipRenderer tooltipRenderer;
+
+        /**
+         * Creates a new ImageComponent.
+         *
+         * @param renderer the renderer of the selected and focused cells
+         */
+        private ImageComponent(TableCellRenderer renderer) {
+            tooltipRenderer = renderer instanceof LazyToolTipRenderer ? (LazyToolTipRenderer) renderer : null;
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent event) {
+            return tooltipRenderer != null ? tooltipRenderer.createToolTipText(value) : null;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (image != null) {
+                g.drawImage(image, 0, 0, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.Component;
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * Table cell renderer whose output can be stored in a SparklineImageCache.
+ * Implemented by JSparklinesTableCellRenderer and
+ * JSparklinesBarChartTableCellRenderer.
+ *
+ * @author Harald Barsnes
+ */
+public interface CacheableTableCellRenderer extends TableCellRenderer {
+
+    /**
+     * Returns the configuration version of the renderer. The version has to be
+     * incremented every time a setting affecting the rendering is changed,
+     * thus invalidating the images already cached for the renderer.
+     *
+     * @return the configuration version
+     */
+    public int getConfigurationVersion();
+
+    /**
+     * Returns the component used for drawing the cell, without using the image
+     * cache. Takes the same parameters as getTableCellRendererComponent.
+     *
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    public Component getUncachedTableCellRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column);
+}
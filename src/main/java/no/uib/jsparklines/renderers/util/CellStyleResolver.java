@@ -0,0 +1,322 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.event.MouseEvent;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.LookAndFeel;
+import javax.swing.SwingConstants;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Resolves the style of a table cell, i.e., the border, background,
+ * foreground and font a DefaultTableCellRenderer would use, without creating
+ * a new DefaultTableCellRenderer for every cell. The styles are computed once
+ * per table, selection, focus and row parity, and reused until the table
+ * colors, the table font or the look and feel change.
+ * <br><br>
+ * The background colors are always plain Color objects, i.e., the Nimbus
+ * DerivedColor objects are converted, and can be used directly by the
+ * renderers.
+ * <br><br>
+ * Each renderer should use its own resolver, and only from one thread at the
+ * time.
+ *
+ * @author Harald Barsnes
+ */
+public class CellStyleResolver {
+
+    /**
+     * The number of cached styles: selected, focus, even row and focus on an
+     * editable cell.
+     */
+    private static final int NUMBER_OF_STYLES = 16;
+    /**
+     * The renderer used to compute the styles.
+     */
+    private final DefaultTableCellRenderer styleRenderer = new DefaultTableCellRenderer();
+    /**
+     * The component holding the style returned by getCellStyle.
+     */
+    private final JLabel styleLabel = new JLabel();
+    /**
+     * The label returned by getTableCellRendererComponent.
+     */
+    private final CellLabel cellLabel = new CellLabel();
+    /**
+     * The cached foreground colors.
+     */
+    private final Color[] foregrounds = new Color[NUMBER_OF_STYLES];
+    /**
+     * The cached background colors.
+     */
+    private final Color[] backgrounds = new Color[NUMBER_OF_STYLES];
+    /**
+     * The cached borders.
+     */
+    private final Border[] borders = new Border[NUMBER_OF_STYLES];
+    /**
+     * True for the styles that have been computed.
+     */
+    private final boolean[] computed = new boolean[NUMBER_OF_STYLES];
+    /**
+     * The table the styles were computed for.
+     */
+    private JTable table;
+    /**
+     * The look and feel the styles were computed for.
+     */
+    private LookAndFeel lookAndFeel;
+    /**
+     * The table background the styles were computed for.
+     */
+    private Color tableBackground;
+    /**
+     * The table foreground the styles were computed for.
+     */
+    private Color tableForeground;
+    /**
+     * The table selection background the styles were computed for.
+     */
+    private Color selectionBackground;
+    /**
+     * The table selection foreground the styles were computed for.
+     */
+    private Color selectionForeground;
+    /**
+     * The table font the styles were computed for.
+     */
+    private Font font;
+    /**
+     * The foreground color of the last resolved style.
+     */
+    private Color foreground;
+    /**
+     * The background color of the last resolved style.
+     */
+    private Color background;
+    /**
+     * The border of the last resolved style.
+     */
+    private Border border;
+
+    /**
+     * Creates a new CellStyleResolver.
+     */
+    public CellStyleResolver() {
+        styleLabel.setOpaque(true);
+    }
+
+    /**
+     * Returns a component holding the style of the given cell, i.e., the
+     * border, background, foreground and font, with the opaque property set
+     * as by a DefaultTableCellRenderer. The component has no text and is not
+     * to be returned by the renderer, use getTableCellRendererComponent for
+     * that.
+     *
+     * @param table the table
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return a component holding the style of the cell
+     */
+    public JComponent getCellStyle(JTable table, boolean isSelected, boolean hasFocus, int row, int column) {
+        resolve(table, isSelected, hasFocus, row, column);
+        styleLabel.setForeground(foreground);
+        styleLabel.setBackground(background);
+        styleLabel.setBorder(border);
+        styleLabel.setFont(table.getFont());
+        return styleLabel;
+    }
+
+    /**
+     * Returns a label displaying the given value like a
+     * DefaultTableCellRenderer, but with a plain background color. The same
+     * label is returned at every call, and its icon, tooltip, lazy tooltip and
+     * alignment are reset.
+     *
+     * @param table the table
+     * @param value the value to display
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the label displaying the value
+     */
+    public JLabel getTableCellRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+        resolve(table, isSelected, hasFocus, row, column);
+        cellLabel.setForeground(foreground);
+        cellLabel.setBackground(background);
+        cellLabel.setBorder(border);
+        cellLabel.setFont(table.getFont());
+        cellLabel.setIcon(null);
+        cellLabel.setToolTipText(null);
+        cellLabel.setLazyToolTip(null, null);
+        cellLabel.setHorizontalAlignment(SwingConstants.LEADING);
+        cellLabel.setCellValue(value);
+        return cellLabel;
+    }
+
+    /**
+     * Makes the label returned by getTableCellRendererComponent create its
+     * tooltip on demand, i.e., only when the user hovers the cell, using the
+     * createToolTipText method of the given renderer. Reset at the next call
+     * to getTableCellRendererComponent.
+     *
+     * @param toolTipRenderer the renderer creating the tooltip
+     * @param value the value of the cell
+     */
+    public void setLazyToolTip(LazyToolTipRenderer toolTipRenderer, Object value) {
+        cellLabel.setLazyToolTip(toolTipRenderer, value);
+    }
+
+    /**
+     * Removes the cached styles, e.g., after changing the look and feel
+     * defaults for the tables.
+     */
+    public void invalidate() {
+        for (int i = 0; i < NUMBER_OF_STYLES; i++) {
+            computed[i] = false;
+        }
+        table = null;
+    }
+
+    /**
+     * Resolves the style of the given cell, using the cached style if
+     * available.
+     *
+     * @param table the table
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     */
+    private void resolve(JTable table, boolean isSelected, boolean hasFocus, int row, int column) {
+
+        // the drop location changes the cell colors, not cached
+        if (table.getDropLocation() != null) {
+            compute(table, isSelected, hasFocus, row, column);
+            return;
+        }
+
+        if (table != this.table
+                || UIManager.getLookAndFeel() != lookAndFeel
+                || table.getBackground() != tableBackground
+                || table.getForeground() != tableForeground
+                || table.getSelectionBackground() != selectionBackground
+                || table.getSelectionForeground() != selectionForeground
+                || table.getFont() != font) {
+            invalidate();
+            this.table = table;
+            lookAndFeel = UIManager.getLookAndFeel();
+            tableBackground = table.getBackground();
+            tableForeground = table.getForeground();
+            selectionBackground = table.getSelectionBackground();
+            selectionForeground = table.getSelectionForeground();
+            font = table.getFont();
+        }
+
+        int index = 0;
+        if (isSelected) {
+            index |= 1;
+        }
+        if (hasFocus) {
+            index |= 2;
+            if (!isSelected && table.isCellEditable(row, column)) {
+                index |= 8;
+            }
+        }
+        if (row % 2 == 0) {
+            index |= 4;
+        }
+
+        if (!computed[index]) {
+            compute(table, isSelected, hasFocus, row, column);
+            foregrounds[index] = foreground;
+            backgrounds[index] = background;
+            borders[index] = border;
+            computed[index] = true;
+        } else {
+            foreground = foregrounds[index];
+            background = backgrounds[index];
+            border = borders[index];
+        }
+    }
+
+    /**
+     * Computes the style of the given cell using a DefaultTableCellRenderer.
+     *
+     * @param table the table
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     */
+    private void compute(JTable table, boolean isSelected, boolean hasFocus, int row, int column) {
+
+        Component c = styleRenderer.getTableCellRendererComponent(table, null, isSelected, hasFocus, row, column);
+
+        foreground = c.getForeground();
+        border = ((JComponent) c).getBorder();
+
+        // We have to create a new color object because Nimbus returns
+        // a color of type DerivedColor, which behaves strange, not sure why.
+        Color bg = c.getBackground();
+        if (bg != null && bg.getClass() != Color.class) {
+            bg = new Color(bg.getRed(), bg.getGreen(), bg.getBlue(), bg.getAlpha());
+        }
+        background = bg;
+    }
+
+    /**
+     * The label returned by getTableCellRendererComponent.
+     */
+    private static class CellLabel extends DefaultTableCellRenderer {
+
+        /**
+         * The renderer creating the tooltip on demand, null if the tooltip
+         * text set on the label is used.
+         */
+        private LazyToolTipRenderer toolTipRenderer = null;
+        /**
+         * The value the tooltip is created for.
+         */
+        private Object toolTipValue = null;
+
+        /**
+         * Set the renderer creating the tooltip on demand.
+         *
+         * @param toolTipRenderer the renderer, null if the tooltip text set
+         * on the label is used
+         * @param value the value the tooltip is created for
+         */
+        private void setLazyToolTip(LazyToolTipRenderer toolTipRenderer, Object value) {
+            this.toolTipRenderer = toolTipRenderer;
+            this.toolTipValue = value;
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent event) {
+            if (toolTipRenderer != null) {
+                return toolTipRenderer.createToolTipText(toolTipValue);
+            }
+            return super.getToolTipText(event);
+        }
+
+        /**
+         * Set the value displayed by the label.
+         *
+         * @param value the value
+         */
+        private void setCellValue(Object value) {
+            setValue(value);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.geom.Rectangle2D;
+import org.jfree.chart.ChartPanel;
+
+/**
+ * Reproduces the layout used by a JFreeChart ChartPanel when drawing the
+ * sparkline charts created via the ChartFactory, i.e., without titles, legends
+ * or visible axes. Makes it possible to paint the charts directly onto the
+ * table cell while keeping the same geometry as the JFreeChart output.
+ *
+ * @author Harald Barsnes
+ */
+public class ChartPanelLayout {
+
+    /**
+     * The top and bottom plot insets, see Plot.DEFAULT_INSETS.
+     */
+    private static final double PLOT_INSETS_VERTICAL = 4.0;
+    /**
+     * The left and right plot insets, see Plot.DEFAULT_INSETS.
+     */
+    private static final double PLOT_INSETS_HORIZONTAL = 8.0;
+    /**
+     * The axis offset set by the default chart theme.
+     */
+    private static final double AXIS_OFFSET = 4.0;
+    /**
+     * The lower and upper margins of the category axis.
+     */
+    public static final double CATEGORY_AXIS_MARGIN = 0.05;
+    /**
+     * The factor applied to the max value of the interval charts, leaving
+     * some space after the last interval.
+     */
+    public static final double INTERVAL_RANGE_FACTOR = 1.02;
+
+    /**
+     * Empty default constructor.
+     */
+    private ChartPanelLayout() {
+    }
+
+    /**
+     * Returns the scale factor used by the ChartPanel for the given available
+     * size. Charts smaller than the minimum draw size (or larger than the
+     * maximum) are drawn at that size and then scaled.
+     *
+     * @param available the available width or height
+     * @param minimumDrawSize the minimum draw width or height
+     * @param maximumDrawSize the maximum draw width or height
+     * @return the scale factor
+     */
+    public static double getScale(double available, double minimumDrawSize, double maximumDrawSize) {
+        if (available < minimumDrawSize) {
+            return available / minimumDrawSize;
+        } else if (available > maximumDrawSize) {
+            return available / maximumDrawSize;
+        }
+        return 1.0;
+    }
+
+    /**
+     * Returns the data area, in component coordinates, of a category or XY
+     * plot drawn in a ChartPanel with the default settings.
+     *
+     * @param width the width of the chart panel
+     * @param height the height of the chart panel
+     * @return the data area
+     */
+    public static Rectangle2D getDataArea(double width, double height) {
+        return getDataArea(width, height, new Rectangle2D.Double());
+    }
+
+    /**
+     * Updates the given rectangle with the data area, in component
+     * coordinates, of a category or XY plot drawn in a ChartPanel with the
+     * default settings.
+     *
+     * @param width the width of the chart panel
+     * @param height the height of the chart panel
+     * @param dataArea the rectangle to update
+     * @return the updated data area
+     */
+    public static Rectangle2D getDataArea(double width, double height, Rectangle2D dataArea) {
+
+        double scaleX = getScale(width, ChartPanel.DEFAULT_MINIMUM_DRAW_WIDTH, ChartPanel.DEFAULT_MAXIMUM_DRAW_WIDTH);
+        double scaleY = getScale(height, ChartPanel.DEFAULT_MINIMUM_DRAW_HEIGHT, ChartPanel.DEFAULT_MAXIMUM_DRAW_HEIGHT);
+        double drawWidth = width / scaleX;
+        double drawHeight = height / scaleY;
+
+        double left = PLOT_INSETS_HORIZONTAL + AXIS_OFFSET;
+        double top = PLOT_INSETS_VERTICAL + AXIS_OFFSET;
+
+        dataArea.setRect(
+                left * scaleX, top * scaleY,
+                Math.max(0, drawWidth - 2 * left) * scaleX, Math.max(0, drawHeight - 2 * top) * scaleY);
+
+        return dataArea;
+    }
+
+    /**
+     * Converts a value to a Java2D coordinate along the range axis, in the same
+     * way as an unflipped NumberAxis.
+     *
+     * @param value the value
+     * @param lower the lower bound of the axis range
+     * @param upper the upper bound of the axis range
+     * @param areaStart the start of the area along the range axis
+     * @param areaLength the length of the area along the range axis
+     * @param vertical true if the range axis is vertical
+     * @return the Java2D coordinate
+     */
+    public static double valueToJava2D(double value, double lower, double upper, double areaStart, double areaLength, boolean vertical) {
+        double ratio = (value - lower) / (upper - lower);
+        if (vertical) {
+            return areaStart + areaLength - ratio * areaLength;
+        }
+        return areaStart + ratio * areaLength;
+    }
+}
@@ -0,0 +1,249 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.HashSet;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import no.uib.jsparklines.data.RingBufferDataSeries;
+
+/**
+ * Coalesces live updates of the cells of a table model into at most one set
+ * of table model events per frame. The values appended to RingBufferDataSeries
+ * objects, and the cells marked as changed, are collected from any thread and
+ * applied on the event dispatch thread when the frame timer fires. One cell
+ * updated event is then fired per changed cell, such that the table only
+ * repaints the cells whose values changed, however many updates each cell
+ * received during the frame.
+ * <br><br>
+ * The row and column indexes are model indexes.
+ *
+ * @author Harald Barsnes
+ */
+public class CoalescingTableModelUpdater {
+
+    /**
+     * The default delay between the frames in milliseconds.
+     */
+    public static final int DEFAULT_FRAME_DELAY = 16;
+    /**
+     * The table model.
+     */
+    private final AbstractTableModel tableModel;
+    /**
+     * The timer applying the pending updates.
+     */
+    private final Timer timer;
+    /**
+     * The series of the pending appends.
+     */
+    private ArrayList<RingBufferDataSeries> pendingSeries = new ArrayList<>();
+    /**
+     * The values of the pending appends.
+     */
+    private double[] pendingValues = new double[16];
+    /**
+     * The cells changed since the last frame, as row and column packed in a
+     * long.
+     */
+    private HashSet<Long> changedCells = new HashSet<>();
+    /**
+     * Set used to swap with the set of changed cells when applying the
+     * updates.
+     */
+    private HashSet<Long> processedCells = new HashSet<>();
+    /**
+     * Set used to swap with the list of pending series when applying the
+     * updates.
+     */
+    private ArrayList<RingBufferDataSeries> processedSeries = new ArrayList<>();
+    /**
+     * Array used to swap with the array of pending values when applying the
+     * updates.
+     */
+    private double[] processedValues = new double[16];
+    /**
+     * The number of frames fired.
+     */
+    private long frameCount = 0;
+    /**
+     * The number of updates received.
+     */
+    private long updateCount = 0;
+    /**
+     * The number of cell updated events fired.
+     */
+    private long eventCount = 0;
+
+    /**
+     * Creates a new CoalescingTableModelUpdater using the default frame delay.
+     *
+     * @param tableModel the table model
+     */
+    public CoalescingTableModelUpdater(AbstractTableModel tableModel) {
+        this(tableModel, DEFAULT_FRAME_DELAY);
+    }
+
+    /**
+     * Creates a new CoalescingTableModelUpdater.
+     *
+     * @param tableModel the table model
+     * @param frameDelay the minimum delay between the frames in milliseconds
+     */
+    public CoalescingTableModelUpdater(AbstractTableModel tableModel, int frameDelay) {
+        this.tableModel = tableModel;
+        timer = new Timer(frameDelay, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                flush();
+            }
+        });
+        timer.setRepeats(false);
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Appends a value to the given series in the next frame and marks the
+     * given cell as changed. Can be called from any thread.
+     *
+     * @param series the series
+     * @param value the value to append
+     * @param row the model row index of the cell containing the series
+     * @param column the model column index of the cell containing the series
+     */
+    public void append(RingBufferDataSeries series, double value, int row, int column) {
+
+        synchronized (this) {
+
+            int index = pendingSeries.size();
+
+            if (index == pendingValues.length) {
+                double[] newValues = new double[2 * pendingValues.length];
+                System.arraycopy(pendingValues, 0, newValues, 0, index);
+                pendingValues = newValues;
+            }
+
+            pendingSeries.add(series);
+            pendingValues[index] = value;
+        }
+
+        cellChanged(row, column);
+    }
+
+    /**
+     * Marks the given cell as changed. A cell updated event is fired for the
+     * cell in the next frame. Can be called from any thread.
+     *
+     * @param row the model row index
+     * @param column the model column index
+     */
+    public void cellChanged(int row, int column) {
+
+        synchronized (this) {
+            changedCells.add((((long) row) << 32) | (column & 0xFFFFFFFFL));
+            updateCount++;
+        }
+
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Applies the pending appends and fires the cell updated events straight
+     * away. Has to be called on the event dispatch thread.
+     */
+    public void flush() {
+
+        HashSet<Long> cells;
+        ArrayList<RingBufferDataSeries> series;
+        double[] values;
+
+        synchronized (this) {
+
+            if (changedCells.isEmpty() && pendingSeries.isEmpty()) {
+                return;
+            }
+
+            cells = changedCells;
+            changedCells = processedCells;
+            processedCells = cells;
+
+            series = pendingSeries;
+            pendingSeries = processedSeries;
+            processedSeries = series;
+
+            values = pendingValues;
+            pendingValues = processedValues;
+            processedValues = values;
+
+            frameCount++;
+        }
+
+        for (int i = 0; i < series.size(); i++) {
+            series.get(i).append(values[i]);
+        }
+
+        int rowCount = tableModel.getRowCount();
+        int columnCount = tableModel.getColumnCount();
+        long events = 0;
+
+        for (long cell : cells) {
+
+            int row = (int) (cell >> 32);
+            int column = (int) cell;
+
+            if (row < rowCount && column < columnCount) {
+                tableModel.fireTableCellUpdated(row, column);
+                events++;
+            }
+        }
+
+        cells.clear();
+        series.clear();
+
+        synchronized (this) {
+            eventCount += events;
+        }
+    }
+
+    /**
+     * Stops the frame timer. The pending updates are discarded.
+     */
+    public void stop() {
+        timer.stop();
+        synchronized (this) {
+            changedCells.clear();
+            pendingSeries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of frames fired.
+     *
+     * @return the number of frames
+     */
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the number of updates received, i.e., the number of appends and
+     * cells marked as changed.
+     *
+     * @return the number of updates
+     */
+    public synchronized long getUpdateCount() {
+        return updateCount;
+    }
+
+    /**
+     * Returns the number of cell updated events fired.
+     *
+     * @return the number of events
+     */
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+}
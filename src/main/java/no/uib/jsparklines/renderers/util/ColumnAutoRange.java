@@ -0,0 +1,720 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import javax.swing.JTable;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
+import no.uib.jsparklines.data.ArrrayListDataPoints;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.data.StartIndexes;
+import no.uib.jsparklines.data.ValueAndBooleanDataPoint;
+import no.uib.jsparklines.data.XYDataPoint;
+import no.uib.jsparklines.renderers.JSparklinesArrayListBarChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesBarChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesBubbleHeatMapTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesErrorBarChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesHeatMapTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesIntervalChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesMultiIntervalChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesTwoValueBarChartTableCellRenderer;
+
+/**
+ * Keeps track of the range of the values in a table column, and pushes it to
+ * the renderers of the column, replacing the minimum and maximum values given
+ * to the renderer constructors. The range is updated incrementally from the
+ * table model events: the minimum and maximum of every row are stored, and the
+ * rows are only rescanned when the row holding the current minimum or maximum
+ * is updated or removed. The table model is only read for the inserted and
+ * updated rows.
+ * <br><br>
+ * Supported cell values: numbers, XYDataPoint (the x value, and the sum of the
+ * x and y values for the stacked bars), ValueAndBooleanDataPoint,
+ * ArrrayListDataPoints (the sum), StartIndexes and JSparklinesDataset (all the
+ * values of all the data series). Other values are ignored.
+ * <br><br>
+ * To be used from the event dispatch thread only.
+ *
+ * @author Harald Barsnes
+ */
+public class ColumnAutoRange implements TableModelListener, PropertyChangeListener {
+
+    /**
+     * Interface for the objects notified when the range of the column
+     * changes.
+     */
+    public interface RangeListener {
+
+        /**
+         * Called when the range of the column has changed.
+         *
+         * @param columnAutoRange the column range
+         */
+        public void rangeChanged(ColumnAutoRange columnAutoRange);
+    }
+
+    /**
+     * The table.
+     */
+    private final JTable table;
+    /**
+     * The index of the column in the table model.
+     */
+    private final int modelColumn;
+    /**
+     * The table model listened to, null if not attached.
+     */
+    private TableModel tableModel;
+    /**
+     * The renderers the range is pushed to.
+     */
+    private final ArrayList<TableCellRenderer> renderers = new ArrayList<>();
+    /**
+     * The listeners notified when the range changes.
+     */
+    private final ArrayList<RangeListener> rangeListeners = new ArrayList<>();
+    /**
+     * If true, zero is always included in the range pushed to the renderers
+     * not using log scale.
+     */
+    private boolean includeZero = true;
+    /**
+     * The minimum value of each row, NaN if the row has no values.
+     */
+    private double[] rowMinValues = new double[0];
+    /**
+     * The maximum value of each row, NaN if the row has no values.
+     */
+    private double[] rowMaxValues = new double[0];
+    /**
+     * The minimum positive value of each row, NaN if the row has no positive
+     * values.
+     */
+    private double[] rowMinPositiveValues = new double[0];
+    /**
+     * The maximum stacked value of each row, i.e., the sum of the x and y
+     * values for XYDataPoint cells, NaN if the row has no values.
+     */
+    private double[] rowMaxStackedValues = new double[0];
+    /**
+     * The number of rows.
+     */
+    private int rowCount = 0;
+    /**
+     * The minimum value of the column, NaN if the column has no values.
+     */
+    private double minValue = Double.NaN;
+    /**
+     * The maximum value of the column, NaN if the column has no values.
+     */
+    private double maxValue = Double.NaN;
+    /**
+     * The minimum positive value of the column, NaN if the column has no
+     * positive values.
+     */
+    private double minPositiveValue = Double.NaN;
+    /**
+     * The maximum stacked value of the column, NaN if the column has no
+     * values.
+     */
+    private double maxStackedValue = Double.NaN;
+    /**
+     * True if the row holding one of the extremes has been changed and the
+     * rows have to be rescanned.
+     */
+    private boolean rescanNeeded = false;
+    /**
+     * The number of times the rows have been rescanned.
+     */
+    private int rescanCount = 0;
+    /**
+     * The minimum value of the row being read.
+     */
+    private double currentMin;
+    /**
+     * The maximum value of the row being read.
+     */
+    private double currentMax;
+    /**
+     * The minimum positive value of the row being read.
+     */
+    private double currentMinPositive;
+    /**
+     * The maximum stacked value of the row being read.
+     */
+    private double currentMaxStacked;
+
+    /**
+     * Creates a new ColumnAutoRange for the given column. Call attach to start
+     * tracking the range.
+     *
+     * @param table the table
+     * @param modelColumn the index of the column in the table model
+     */
+    public ColumnAutoRange(JTable table, int modelColumn) {
+        this.table = table;
+        this.modelColumn = modelColumn;
+    }
+
+    /**
+     * Starts tracking the range of the column. The column is scanned once, and
+     * the range is pushed to the renderers.
+     */
+    public void attach() {
+        if (tableModel != null) {
+            return;
+        }
+        table.addPropertyChangeListener("model", this);
+        tableModel = table.getModel();
+        tableModel.addTableModelListener(this);
+        rebuild();
+    }
+
+    /**
+     * Stops tracking the range of the column.
+     */
+    public void detach() {
+        if (tableModel == null) {
+            return;
+        }
+        table.removePropertyChangeListener("model", this);
+        tableModel.removeTableModelListener(this);
+        tableModel = null;
+    }
+
+    /**
+     * Adds a renderer the range is pushed to. Supported renderers:
+     * JSparklinesBarChartTableCellRenderer, JSparklinesTableCellRenderer,
+     * JSparklinesIntervalChartTableCellRenderer and
+     * JSparklinesErrorBarChartTableCellRenderer get the minimum and maximum
+     * value, JSparklinesHeatMapTableCellRenderer and
+     * JSparklinesBubbleHeatMapTableCellRenderer get the maximum absolute
+     * value, JSparklinesArrayListBarChartTableCellRenderer and
+     * JSparklinesMultiIntervalChartTableCellRenderer get the maximum value,
+     * while JSparklinesTwoValueBarChartTableCellRenderer gets the maximum
+     * stacked value. Bar chart renderers using log scale get the minimum
+     * positive value as the minimum value. Use a RangeListener for other
+     * renderers.
+     *
+     * @param renderer the renderer
+     * @throws IllegalArgumentException if the renderer is not supported
+     */
+    public void addRenderer(TableCellRenderer renderer) {
+
+        if (!(renderer instanceof JSparklinesBarChartTableCellRenderer
+                || renderer instanceof JSparklinesTableCellRenderer
+                || renderer instanceof JSparklinesIntervalChartTableCellRenderer
+                || renderer instanceof JSparklinesErrorBarChartTableCellRenderer
+                || renderer instanceof JSparklinesHeatMapTableCellRenderer
+                || renderer instanceof JSparklinesBubbleHeatMapTableCellRenderer
+                || renderer instanceof JSparklinesArrayListBarChartTableCellRenderer
+                || renderer instanceof JSparklinesMultiIntervalChartTableCellRenderer
+                || renderer instanceof JSparklinesTwoValueBarChartTableCellRenderer)) {
+            throw new IllegalArgumentException("Renderer not supported: " + renderer.getClass().getName() + ".");
+        }
+
+        renderers.add(renderer);
+
+        if (hasValues()) {
+            pushRange(renderer);
+        }
+    }
+
+    /**
+     * Removes a renderer.
+     *
+     * @param renderer the renderer
+     */
+    public void removeRenderer(TableCellRenderer renderer) {
+        renderers.remove(renderer);
+    }
+
+    /**
+     * Adds a listener notified when the range changes.
+     *
+     * @param rangeListener the listener
+     */
+    public void addRangeListener(RangeListener rangeListener) {
+        rangeListeners.add(rangeListener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param rangeListener the listener
+     */
+    public void removeRangeListener(RangeListener rangeListener) {
+        rangeListeners.remove(rangeListener);
+    }
+
+    /**
+     * Returns true if zero is always included in the range pushed to the
+     * renderers not using log scale.
+     *
+     * @return true if zero is always included in the range
+     */
+    public boolean isIncludeZero() {
+        return includeZero;
+    }
+
+    /**
+     * Set if zero is always included in the range pushed to the renderers not
+     * using log scale. True by default, i.e., the bars start at zero.
+     *
+     * @param includeZero if true, zero is always included in the range
+     */
+    public void setIncludeZero(boolean includeZero) {
+        this.includeZero = includeZero;
+        if (hasValues()) {
+            rangeChanged();
+        }
+    }
+
+    /**
+     * Returns true if the column contains at least one supported value.
+     *
+     * @return true if the column contains at least one supported value
+     */
+    public boolean hasValues() {
+        return !Double.isNaN(minValue);
+    }
+
+    /**
+     * Returns the minimum value of the column.
+     *
+     * @return the minimum value, NaN if the column has no values
+     */
+    public double getMinValue() {
+        return minValue;
+    }
+
+    /**
+     * Returns the maximum value of the column.
+     *
+     * @return the maximum value, NaN if the column has no values
+     */
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Returns the minimum positive value of the column, e.g., for use as the
+     * lower bound of a log scale.
+     *
+     * @return the minimum positive value, NaN if the column has no positive
+     * values
+     */
+    public double getMinPositiveValue() {
+        return minPositiveValue;
+    }
+
+    /**
+     * Returns the maximum stacked value of the column, i.e., the maximum value
+     * where XYDataPoint cells count as the sum of the x and y values, as
+     * stacked by the JSparklinesTwoValueBarChartTableCellRenderer.
+     *
+     * @return the maximum stacked value, NaN if the column has no values
+     */
+    public double getMaxStackedValue() {
+        return maxStackedValue;
+    }
+
+    /**
+     * Returns the maximum absolute value of the column.
+     *
+     * @return the maximum absolute value, NaN if the column has no values
+     */
+    public double getMaxAbsoluteValue() {
+        return Math.max(Math.abs(minValue), Math.abs(maxValue));
+    }
+
+    /**
+     * Returns the number of times the rows have been rescanned because the row
+     * holding the minimum or maximum value was changed.
+     *
+     * @return the number of rescans
+     */
+    public int getRescanCount() {
+        return rescanCount;
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        tableModel.removeTableModelListener(this);
+        tableModel = table.getModel();
+        tableModel.addTableModelListener(this);
+        rebuild();
+    }
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+
+        double oldMin = minValue;
+        double oldMax = maxValue;
+        double oldMinPositive = minPositiveValue;
+        double oldMaxStacked = maxStackedValue;
+
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+
+        if (firstRow == TableModelEvent.HEADER_ROW
+                || lastRow == Integer.MAX_VALUE
+                || (e.getType() == TableModelEvent.INSERT && firstRow > rowCount)
+                || (e.getType() == TableModelEvent.UPDATE && lastRow >= rowCount)
+                || (e.getType() == TableModelEvent.DELETE && lastRow >= rowCount)) {
+            rebuild();
+            return;
+        }
+
+        if (e.getType() == TableModelEvent.INSERT) {
+
+            insertRows(firstRow, lastRow - firstRow + 1);
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                readRow(row);
+                addToRange(row);
+            }
+
+        } else if (e.getType() == TableModelEvent.DELETE) {
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                checkRemovedRow(row);
+            }
+
+            deleteRows(firstRow, lastRow - firstRow + 1);
+
+        } else { // TableModelEvent.UPDATE
+
+            if (e.getColumn() != TableModelEvent.ALL_COLUMNS && e.getColumn() != modelColumn) {
+                return;
+            }
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                checkRemovedRow(row);
+                readRow(row);
+                addToRange(row);
+            }
+        }
+
+        if (rescanNeeded) {
+            rescan();
+        }
+
+        if (!sameValue(oldMin, minValue) || !sameValue(oldMax, maxValue) || !sameValue(oldMinPositive, minPositiveValue)
+                || !sameValue(oldMaxStacked, maxStackedValue)) {
+            rangeChanged();
+        }
+    }
+
+    /**
+     * Reads all the rows of the column and pushes the range to the renderers.
+     * Only needed if the table model changes without firing events.
+     */
+    public void rebuild() {
+
+        if (tableModel == null) {
+            return;
+        }
+
+        rowCount = 0;
+        ensureCapacity(tableModel.getRowCount());
+        rowCount = tableModel.getRowCount();
+
+        for (int row = 0; row < rowCount; row++) {
+            readRow(row);
+        }
+
+        rescan();
+        rangeChanged();
+    }
+
+    /**
+     * Reads the values of the given row from the table model and stores the
+     * minimum and maximum values.
+     *
+     * @param row the row index in the table model
+     */
+    private void readRow(int row) {
+
+        currentMin = Double.NaN;
+        currentMax = Double.NaN;
+        currentMinPositive = Double.NaN;
+        currentMaxStacked = Double.NaN;
+
+        if (modelColumn < tableModel.getColumnCount()) {
+            addValue(tableModel.getValueAt(row, modelColumn));
+        }
+
+        rowMinValues[row] = currentMin;
+        rowMaxValues[row] = currentMax;
+        rowMinPositiveValues[row] = currentMinPositive;
+        rowMaxStackedValues[row] = currentMaxStacked;
+    }
+
+    /**
+     * Adds the numbers in the given cell value to the current row.
+     *
+     * @param value the cell value
+     */
+    private void addValue(Object value) {
+
+        if (value instanceof Number) {
+            addValue(((Number) value).doubleValue());
+        } else if (value instanceof XYDataPoint) {
+            XYDataPoint xyDataPoint = (XYDataPoint) value;
+            addValue(xyDataPoint.getX());
+            addStackedValue(xyDataPoint.getX() + xyDataPoint.getY());
+        } else if (value instanceof ValueAndBooleanDataPoint) {
+            addValue(((ValueAndBooleanDataPoint) value).getValue());
+        } else if (value instanceof ArrrayListDataPoints) {
+            addValue(((ArrrayListDataPoints) value).getSum());
+        } else if (value instanceof StartIndexes) {
+            StartIndexes startIndexes = (StartIndexes) value;
+            for (int i = 0; i < startIndexes.size(); i++) {
+                addValue((double) startIndexes.getIndex(i));
+            }
+        } else if (value instanceof JSparklinesDataset) {
+            for (JSparklinesDataSeries dataSeries : ((JSparklinesDataset) value).getData()) {
+                int size = dataSeries.size();
+                for (int i = 0; i < size; i++) {
+                    addValue(dataSeries.getValue(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a number to the current row.
+     *
+     * @param value the number
+     */
+    private void addValue(double value) {
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+
+        if (Double.isNaN(currentMin) || value < currentMin) {
+            currentMin = value;
+        }
+        if (Double.isNaN(currentMax) || value > currentMax) {
+            currentMax = value;
+        }
+        if (value > 0 && (Double.isNaN(currentMinPositive) || value < currentMinPositive)) {
+            currentMinPositive = value;
+        }
+
+        addStackedValue(value);
+    }
+
+    /**
+     * Adds a stacked value to the current row.
+     *
+     * @param value the stacked value
+     */
+    private void addStackedValue(double value) {
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+
+        if (Double.isNaN(currentMaxStacked) || value > currentMaxStacked) {
+            currentMaxStacked = value;
+        }
+    }
+
+    /**
+     * Adds the stored values of the given row to the range of the column.
+     *
+     * @param row the row index in the table model
+     */
+    private void addToRange(int row) {
+
+        if (!Double.isNaN(rowMinValues[row]) && (Double.isNaN(minValue) || rowMinValues[row] < minValue)) {
+            minValue = rowMinValues[row];
+        }
+        if (!Double.isNaN(rowMaxValues[row]) && (Double.isNaN(maxValue) || rowMaxValues[row] > maxValue)) {
+            maxValue = rowMaxValues[row];
+        }
+        if (!Double.isNaN(rowMinPositiveValues[row]) && (Double.isNaN(minPositiveValue) || rowMinPositiveValues[row] < minPositiveValue)) {
+            minPositiveValue = rowMinPositiveValues[row];
+        }
+        if (!Double.isNaN(rowMaxStackedValues[row]) && (Double.isNaN(maxStackedValue) || rowMaxStackedValues[row] > maxStackedValue)) {
+            maxStackedValue = rowMaxStackedValues[row];
+        }
+    }
+
+    /**
+     * Checks if the stored values of the given row, which is about to be
+     * removed or updated, hold one of the extremes of the column, in which
+     * case the rows have to be rescanned.
+     *
+     * @param row the row index in the table model
+     */
+    private void checkRemovedRow(int row) {
+        if (rowMinValues[row] == minValue
+                || rowMaxValues[row] == maxValue
+                || rowMinPositiveValues[row] == minPositiveValue
+                || rowMaxStackedValues[row] == maxStackedValue) {
+            rescanNeeded = true;
+        }
+    }
+
+    /**
+     * Recalculates the range of the column from the stored row values.
+     */
+    private void rescan() {
+
+        minValue = Double.NaN;
+        maxValue = Double.NaN;
+        minPositiveValue = Double.NaN;
+        maxStackedValue = Double.NaN;
+
+        for (int row = 0; row < rowCount; row++) {
+            addToRange(row);
+        }
+
+        rescanNeeded = false;
+        rescanCount++;
+    }
+
+    /**
+     * Makes room for the given number of rows at the given index.
+     *
+     * @param index the index of the first inserted row
+     * @param count the number of inserted rows
+     */
+    private void insertRows(int index, int count) {
+        ensureCapacity(rowCount + count);
+        System.arraycopy(rowMinValues, index, rowMinValues, index + count, rowCount - index);
+        System.arraycopy(rowMaxValues, index, rowMaxValues, index + count, rowCount - index);
+        System.arraycopy(rowMinPositiveValues, index, rowMinPositiveValues, index + count, rowCount - index);
+        System.arraycopy(rowMaxStackedValues, index, rowMaxStackedValues, index + count, rowCount - index);
+        rowCount += count;
+    }
+
+    /**
+     * Removes the given number of rows at the given index.
+     *
+     * @param index the index of the first removed row
+     * @param count the number of removed rows
+     */
+    private void deleteRows(int index, int count) {
+        System.arraycopy(rowMinValues, index + count, rowMinValues, index, rowCount - index - count);
+        System.arraycopy(rowMaxValues, index + count, rowMaxValues, index, rowCount - index - count);
+        System.arraycopy(rowMinPositiveValues, index + count, rowMinPositiveValues, index, rowCount - index - count);
+        System.arraycopy(rowMaxStackedValues, index + count, rowMaxStackedValues, index, rowCount - index - count);
+        rowCount -= count;
+    }
+
+    /**
+     * Makes sure that the row arrays can hold the given number of rows.
+     *
+     * @param capacity the number of rows
+     */
+    private void ensureCapacity(int capacity) {
+        if (rowMinValues.length < capacity) {
+            int newCapacity = Math.max(capacity, rowMinValues.length * 3 / 2 + 16);
+            rowMinValues = copyOf(rowMinValues, newCapacity);
+            rowMaxValues = copyOf(rowMaxValues, newCapacity);
+            rowMinPositiveValues = copyOf(rowMinPositiveValues, newCapacity);
+            rowMaxStackedValues = copyOf(rowMaxStackedValues, newCapacity);
+        }
+    }
+
+    /**
+     * Returns a copy of the first rowCount elements of the given array, with
+     * the given length.
+     *
+     * @param array the array
+     * @param length the length of the copy
+     * @return the copy
+     */
+    private double[] copyOf(double[] array, int length) {
+        double[] copy = new double[length];
+        System.arraycopy(array, 0, copy, 0, rowCount);
+        return copy;
+    }
+
+    /**
+     * Returns true if the two values are equal, where NaN equals NaN.
+     *
+     * @param value1 the first value
+     * @param value2 the second value
+     * @return true if the two values are equal
+     */
+    private static boolean sameValue(double value1, double value2) {
+        return Double.compare(value1, value2) == 0;
+    }
+
+    /**
+     * Pushes the range to the renderers, notifies the listeners and repaints
+     * the table.
+     */
+    private void rangeChanged() {
+
+        if (hasValues()) {
+            for (TableCellRenderer renderer : renderers) {
+                pushRange(renderer);
+            }
+        }
+
+        for (RangeListener rangeListener : rangeListeners) {
+            rangeListener.rangeChanged(this);
+        }
+
+        table.repaint();
+    }
+
+    /**
+     * Pushes the range to the given renderer.
+     *
+     * @param renderer the renderer
+     */
+    private void pushRange(TableCellRenderer renderer) {
+
+        double lower = minValue;
+        double upper = maxValue;
+
+        if (includeZero) {
+            lower = Math.min(0, lower);
+            upper = Math.max(0, upper);
+        }
+
+        if (renderer instanceof JSparklinesBarChartTableCellRenderer) {
+            JSparklinesBarChartTableCellRenderer barChartRenderer = (JSparklinesBarChartTableCellRenderer) renderer;
+            if (barChartRenderer.isLogScale() && !Double.isNaN(minPositiveValue)) {
+                barChartRenderer.setMinValue(minPositiveValue);
+                barChartRenderer.setMaxValue(maxValue);
+            } else {
+                barChartRenderer.setMinValue(lower);
+                barChartRenderer.setMaxValue(upper);
+            }
+        } else if (renderer instanceof JSparklinesTableCellRenderer) {
+            ((JSparklinesTableCellRenderer) renderer).setMinValue(lower);
+            ((JSparklinesTableCellRenderer) renderer).setMaxValue(upper);
+        } else if (renderer instanceof JSparklinesIntervalChartTableCellRenderer) {
+            ((JSparklinesIntervalChartTableCellRenderer) renderer).setMinValue(lower);
+            ((JSparklinesIntervalChartTableCellRenderer) renderer).setMaxValue(upper);
+        } else if (renderer instanceof JSparklinesErrorBarChartTableCellRenderer) {
+            ((JSparklinesErrorBarChartTableCellRenderer) renderer).setMinValue(lower);
+            ((JSparklinesErrorBarChartTableCellRenderer) renderer).setMaxValue(upper);
+        } else if (renderer instanceof JSparklinesHeatMapTableCellRenderer) {
+            ((JSparklinesHeatMapTableCellRenderer) renderer).setMaxValue(getMaxAbsoluteValue());
+        } else if (renderer instanceof JSparklinesBubbleHeatMapTableCellRenderer) {
+            ((JSparklinesBubbleHeatMapTableCellRenderer) renderer).setMaxValue(getMaxAbsoluteValue());
+        } else if (renderer instanceof JSparklinesArrayListBarChartTableCellRenderer) {
+            ((JSparklinesArrayListBarChartTableCellRenderer) renderer).setMaxValue(upper);
+        } else if (renderer instanceof JSparklinesMultiIntervalChartTableCellRenderer) {
+            ((JSparklinesMultiIntervalChartTableCellRenderer) renderer).setMaxValue(upper);
+        } else if (renderer instanceof JSparklinesTwoValueBarChartTableCellRenderer) {
+            double upperStacked = includeZero ? Math.max(0, maxStackedValue) : maxStackedValue;
+            ((JSparklinesTwoValueBarChartTableCellRenderer) renderer).setMaxValue(upperStacked);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import no.uib.jsparklines.data.JSparklines3dDataSeries;
+import no.uib.jsparklines.data.JSparklines3dDataset;
+import no.uib.jsparklines.data.XYZDataPoint;
+
+/**
+ * Pixel grid aggregating the points of a JSparklines3dDataset, used to paint
+ * scatter and bubble plots with a very large number of points as a density
+ * map. Each point is added to the pixel it falls into in a single pass, after
+ * which the painting cost only depends on the number of pixels. Points
+ * outside the value ranges are ignored. The arrays and the image are reused
+ * between calls.
+ * <br><br>
+ * Each pixel keeps either the number of points or the maximum z value, and
+ * the series the pixel is colored by, i.e., the last series added to the
+ * pixel when counting, or the series with the maximum z value. The
+ * transparency of the pixels reflects their value relative to the other
+ * pixels, with the counts on a logarithmic scale.
+ * <br><br>
+ * The binning can be split over several threads using addParallel, e.g.,
+ * when exporting large plots. A grid is not thread safe otherwise.
+ *
+ * @author Harald Barsnes
+ */
+public class DensityGrid {
+
+    /**
+     * The supported aggregations of the points in a pixel.
+     */
+    public enum Aggregation {
+
+        /**
+         * The points are not aggregated, i.e., they are plotted individually.
+         */
+        none,
+        /**
+         * The number of points in the pixel.
+         */
+        count,
+        /**
+         * The maximum z value of the points in the pixel.
+         */
+        maxZ
+    }
+    /**
+     * The minimum number of points binned per chunk when binning in parallel,
+     * as each chunk is binned in a grid of its own.
+     */
+    private static final int MIN_POINTS_PER_CHUNK = 10000;
+    /**
+     * The alpha value used for the pixels with the lowest values, relative to
+     * the alpha value of the series color.
+     */
+    private static final double MIN_ALPHA = 0.3;
+    /**
+     * The aggregation.
+     */
+    private Aggregation aggregation = Aggregation.count;
+    /**
+     * The width of the grid in pixels.
+     */
+    private int width = 0;
+    /**
+     * The height of the grid in pixels.
+     */
+    private int height = 0;
+    /**
+     * The value at the left edge of the grid.
+     */
+    private double minXValue;
+    /**
+     * The value at the right edge of the grid.
+     */
+    private double maxXValue;
+    /**
+     * The value at the bottom edge of the grid.
+     */
+    private double minYValue;
+    /**
+     * The value at the top edge of the grid.
+     */
+    private double maxYValue;
+    /**
+     * The value of each pixel, row by row from the top.
+     */
+    private double[] values = new double[0];
+    /**
+     * The index of the series each pixel is colored by, -1 for empty pixels.
+     */
+    private int[] seriesIndexes = new int[0];
+    /**
+     * The pixels of the image, reused between paints.
+     */
+    private int[] pixels = new int[0];
+    /**
+     * The image the grid is painted via, reused between paints.
+     */
+    private BufferedImage image = null;
+
+    /**
+     * Creates a new empty DensityGrid.
+     */
+    public DensityGrid() {
+    }
+
+    /**
+     * Clears the grid and sets its size and value ranges.
+     *
+     * @param width the width of the grid in pixels
+     * @param height the height of the grid in pixels
+     * @param minXValue the value at the left edge of the grid
+     * @param maxXValue the value at the right edge of the grid
+     * @param minYValue the value at the bottom edge of the grid
+     * @param maxYValue the value at the top edge of the grid
+     * @param aggregation the aggregation of the points in a pixel, either
+     * count or maxZ
+     * @throws IllegalArgumentException if the aggregation is none
+     */
+    public void reset(int width, int height, double minXValue, double maxXValue,
+            double minYValue, double maxYValue, Aggregation aggregation) {
+
+        if (aggregation == Aggregation.none) {
+            throw new IllegalArgumentException("The aggregation has to be count or maxZ! Current value: " + aggregation + ".");
+        }
+
+        this.width = Math.max(0, width);
+        this.height = Math.max(0, height);
+        this.minXValue = minXValue;
+        this.maxXValue = maxXValue;
+        this.minYValue = minYValue;
+        this.maxYValue = maxYValue;
+        this.aggregation = aggregation;
+
+        int size = this.width * this.height;
+
+        if (values.length < size) {
+            values = new double[size];
+            seriesIndexes = new int[size];
+        }
+
+        Arrays.fill(values, 0, size, 0);
+        Arrays.fill(seriesIndexes, 0, size, -1);
+    }
+
+    /**
+     * Returns the width of the grid in pixels.
+     *
+     * @return the width of the grid
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the grid in pixels.
+     *
+     * @return the height of the grid
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the aggregation.
+     *
+     * @return the aggregation
+     */
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * Returns the value of the given pixel, i.e., the number of points or the
+     * maximum z value.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel, from the top
+     * @return the value of the pixel, zero for empty pixels
+     */
+    public double getValue(int x, int y) {
+        return values[y * width + x];
+    }
+
+    /**
+     * Returns the index of the series the given pixel is colored by.
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel, from the top
+     * @return the series index, -1 for empty pixels
+     */
+    public int getSeriesIndex(int x, int y) {
+        return seriesIndexes[y * width + x];
+    }
+
+    /**
+     * Adds all the points of the given dataset.
+     *
+     * @param dataset the dataset
+     */
+    public void add(JSparklines3dDataset dataset) {
+        ArrayList<JSparklines3dDataSeries> dataSeries = dataset.getData();
+        for (int i = 0; i < dataSeries.size(); i++) {
+            ArrayList<XYZDataPoint> points = dataSeries.get(i).getData();
+            add(points, i, 0, points.size());
+        }
+    }
+
+    /**
+     * Adds all the points of the given dataset, splitting the points into one
+     * chunk per available processor, but with at least MIN_POINTS_PER_CHUNK
+     * points per chunk. The chunks are binned in separate grids by the given
+     * executor and merged in order, such that the result is the same as for
+     * add. Each chunk grid is released as soon as it has been merged.
+     *
+     * @param dataset the dataset
+     * @param executor the executor binning the chunks
+     * @throws InterruptedException if interrupted while waiting for the
+     * chunks
+     * @throws ExecutionException if the binning of a chunk failed
+     */
+    public void addParallel(final JSparklines3dDataset dataset, ExecutorService executor) throws InterruptedException, ExecutionException {
+
+        long numberOfPoints = 0;
+        for (JSparklines3dDataSeries dataSeries : dataset.getData()) {
+            numberOfPoints += dataSeries.getData().size();
+        }
+
+        int numberOfChunks = (int) Math.min(Runtime.getRuntime().availableProcessors(),
+                (numberOfPoints + MIN_POINTS_PER_CHUNK - 1) / MIN_POINTS_PER_CHUNK);
+
+        if (numberOfChunks <= 1) {
+            add(dataset);
+            return;
+        }
+
+        ArrayList<Future<DensityGrid>> chunks = new ArrayList<>(numberOfChunks);
+
+        for (int i = 0; i < numberOfChunks; i++) {
+
+            final long from = numberOfPoints * i / numberOfChunks;
+            final long to = numberOfPoints * (i + 1) / numberOfChunks;
+
+            chunks.add(executor.submit(new Callable<DensityGrid>() {
+                @Override
+                public DensityGrid call() {
+                    DensityGrid chunk = new DensityGrid();
+                    chunk.reset(width, height, minXValue, maxXValue, minYValue, maxYValue, aggregation);
+                    chunk.add(dataset, from, to);
+                    return chunk;
+                }
+            }));
+        }
+
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                merge(chunks.get(i).get());
+                chunks.set(i, null);
+            }
+        } finally {
+            for (Future<DensityGrid> chunk : chunks) {
+                if (chunk != null) {
+                    chunk.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the given range of points of the dataset, where the points are
+     * indexed across the series, i.e., the points of the first series followed
+     * by the points of the second series etc.
+     *
+     * @param dataset the dataset
+     * @param from the index of the first point
+     * @param to the index after the last point
+     */
+    private void add(JSparklines3dDataset dataset, long from, long to) {
+
+        ArrayList<JSparklines3dDataSeries> dataSeries = dataset.getData();
+        long seriesStart = 0;
+
+        for (int i = 0; i < dataSeries.size() && seriesStart < to; i++) {
+
+            ArrayList<XYZDataPoint> points = dataSeries.get(i).getData();
+            long seriesEnd = seriesStart + points.size();
+
+            if (seriesEnd > from) {
+                add(points, i, (int) (Math.max(from, seriesStart) - seriesStart), (int) (Math.min(to, seriesEnd) - seriesStart));
+            }
+
+            seriesStart = seriesEnd;
+        }
+    }
+
+    /**
+     * Adds the given range of points.
+     *
+     * @param points the points
+     * @param seriesIndex the index of the series
+     * @param from the index of the first point
+     * @param to the index after the last point
+     */
+    private void add(ArrayList<XYZDataPoint> points, int seriesIndex, int from, int to) {
+
+        if (width == 0 || height == 0 || !(maxXValue > minXValue) || !(maxYValue > minYValue)) {
+            return;
+        }
+
+        double xScale = width / (maxXValue - minXValue);
+        double yScale = height / (maxYValue - minYValue);
+
+        for (int i = from; i < to; i++) {
+
+            XYZDataPoint point = points.get(i);
+            double x = point.getX();
+            double y = point.getY();
+
+            // the comparisons also skip NaN values
+            if (!(x >= minXValue && x <= maxXValue && y >= minYValue && y <= maxYValue)) {
+                continue;
+            }
+
+            int column = Math.min(width - 1, (int) ((x - minXValue) * xScale));
+            int row = height - 1 - Math.min(height - 1, (int) ((y - minYValue) * yScale));
+            int index = row * width + column;
+
+            if (aggregation == Aggregation.count) {
+                values[index]++;
+                seriesIndexes[index] = seriesIndex;
+            } else {
+                double z = point.getZ();
+                if (seriesIndexes[index] == -1 || z > values[index]) {
+                    values[index] = z;
+                    seriesIndexes[index] = seriesIndex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the given grid, holding later points, into this grid. The grids
+     * must have the same size, value ranges and aggregation.
+     *
+     * @param other the grid to merge
+     */
+    private void merge(DensityGrid other) {
+
+        int size = width * height;
+
+        for (int i = 0; i < size; i++) {
+
+            int seriesIndex = other.seriesIndexes[i];
+
+            if (seriesIndex == -1) {
+                continue;
+            }
+
+            if (aggregation == Aggregation.count) {
+                values[i] += other.values[i];
+                seriesIndexes[i] = seriesIndex;
+            } else if (seriesIndexes[i] == -1 || other.values[i] > values[i]) {
+                values[i] = other.values[i];
+                seriesIndexes[i] = seriesIndex;
+            }
+        }
+    }
+
+    /**
+     * Paints the grid. The pixels are colored using the series colors, with
+     * the transparency reflecting the value of the pixel. Empty pixels are
+     * transparent.
+     *
+     * @param g the graphics object
+     * @param x the x coordinate of the top left corner of the grid
+     * @param y the y coordinate of the top left corner of the grid
+     * @param seriesColors the colors of the series
+     */
+    public void paint(Graphics g, int x, int y, Color[] seriesColors) {
+
+        int size = width * height;
+
+        if (size == 0) {
+            return;
+        }
+
+        // find the value range of the non-empty pixels
+        double minValue = Double.POSITIVE_INFINITY;
+        double maxValue = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < size; i++) {
+            if (seriesIndexes[i] != -1) {
+                minValue = Math.min(minValue, values[i]);
+                maxValue = Math.max(maxValue, values[i]);
+            }
+        }
+
+        if (minValue == Double.POSITIVE_INFINITY) {
+            return;
+        }
+
+        boolean logarithmic = aggregation == Aggregation.count;
+        double lower = logarithmic ? 0 : minValue;
+        double range = logarithmic ? Math.log1p(maxValue) : maxValue - minValue;
+
+        if (pixels.length < size) {
+            pixels = new int[size];
+        }
+
+        for (int i = 0; i < size; i++) {
+
+            int seriesIndex = seriesIndexes[i];
+
+            if (seriesIndex == -1) {
+                pixels[i] = 0;
+                continue;
+            }
+
+            double relativeValue = 1;
+            if (range > 0) {
+                relativeValue = ((logarithmic ? Math.log1p(values[i]) : values[i]) - lower) / range;
+            }
+
+            Color color = seriesColors[seriesIndex];
+            int alpha = (int) Math.round(color.getAlpha() * (MIN_ALPHA + (1 - MIN_ALPHA) * relativeValue));
+            pixels[i] = (alpha << 24) | (color.getRGB() & 0xFFFFFF);
+        }
+
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        image.getRaster().setDataElements(0, 0, width, height, pixels);
+        g.drawImage(image, x, y, null);
+    }
+}
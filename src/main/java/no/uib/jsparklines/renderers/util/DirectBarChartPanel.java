@@ -0,0 +1,184 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import javax.swing.JPanel;
+import org.jfree.chart.plot.PlotOrientation;
+
+/**
+ * Lightweight panel painting a single bar straight onto the Graphics2D object,
+ * using the same geometry as a one value JFreeChart bar chart shown in a
+ * ChartPanel. Used as a faster alternative to the JFreeChart based rendering.
+ *
+ * @author Harald Barsnes
+ */
+public class DirectBarChartPanel extends JPanel {
+
+    /**
+     * The plot orientation.
+     */
+    private PlotOrientation plotOrientation;
+    /**
+     * The value to plot.
+     */
+    private double value = 0;
+    /**
+     * The lower bound of the value range.
+     */
+    private double lowerBound = 0;
+    /**
+     * The upper bound of the value range.
+     */
+    private double upperBound = 1;
+    /**
+     * The color of the bar.
+     */
+    private Color barColor = Color.BLACK;
+    /**
+     * Reused rectangle for the bar.
+     */
+    private final Rectangle2D.Double bar = new Rectangle2D.Double();
+    /**
+     * Reused rectangle for the data area.
+     */
+    private final Rectangle2D.Double dataArea = new Rectangle2D.Double();
+
+    /**
+     * Creates a new DirectBarChartPanel.
+     *
+     * @param plotOrientation the plot orientation
+     */
+    public DirectBarChartPanel(PlotOrientation plotOrientation) {
+        this.plotOrientation = plotOrientation;
+        setOpaque(true);
+    }
+
+    /**
+     * Set the bar to display.
+     *
+     * @param value the value to plot
+     * @param lowerBound the lower bound of the value range
+     * @param upperBound the upper bound of the value range
+     * @param barColor the color of the bar
+     */
+    public void setBar(double value, double lowerBound, double upperBound, Color barColor) {
+        this.value = value;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.barColor = barColor;
+    }
+
+    /**
+     * Returns the plot orientation.
+     *
+     * @return the plot orientation
+     */
+    public PlotOrientation getPlotOrientation() {
+        return plotOrientation;
+    }
+
+    /**
+     * Set the plot orientation.
+     *
+     * @param plotOrientation the plot orientation
+     */
+    public void setPlotOrientation(PlotOrientation plotOrientation) {
+        this.plotOrientation = plotOrientation;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+
+        if (upperBound - lowerBound <= 0 || Double.isNaN(value) || barColor == null) {
+            return;
+        }
+
+        ChartPanelLayout.getDataArea(getWidth(), getHeight(), dataArea);
+
+        if (!calculateBar(value, lowerBound, upperBound, plotOrientation, dataArea, bar)) {
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) g;
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        Object strokeControl = g2.getRenderingHint(RenderingHints.KEY_STROKE_CONTROL);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+
+        // the plot is clipped to the data area, as for the JFreeChart plots
+        Shape savedClip = g2.getClip();
+        g2.clip(dataArea);
+
+        g2.setColor(barColor);
+        g2.fill(bar);
+
+        g2.setClip(savedClip);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+        g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, strokeControl);
+    }
+
+    /**
+     * Calculates the bar for the given value, clipped to the value range in
+     * the same way as the JFreeChart BarRenderer.
+     *
+     * @param value the value to plot
+     * @param lowerBound the lower bound of the value range
+     * @param upperBound the upper bound of the value range
+     * @param plotOrientation the plot orientation
+     * @param dataArea the data area
+     * @param bar the rectangle to update
+     * @return false if no bar is to be drawn
+     */
+    public static boolean calculateBar(double value, double lowerBound, double upperBound,
+            PlotOrientation plotOrientation, Rectangle2D dataArea, Rectangle2D bar) {
+
+        double base = 0.0;
+
+        if (upperBound <= 0.0) {
+            if (value >= upperBound) {
+                return false;
+            }
+            base = upperBound;
+            if (value <= lowerBound) {
+                value = lowerBound;
+            }
+        } else if (lowerBound <= 0.0) {
+            if (value >= upperBound) {
+                value = upperBound;
+            } else if (value <= lowerBound) {
+                value = lowerBound;
+            }
+        } else {
+            if (value <= lowerBound) {
+                return false;
+            }
+            base = lowerBound;
+            if (value >= upperBound) {
+                value = upperBound;
+            }
+        }
+
+        boolean vertical = plotOrientation == PlotOrientation.VERTICAL;
+
+        if (vertical) {
+            double barWidth = dataArea.getWidth() * (1 - 2 * ChartPanelLayout.CATEGORY_AXIS_MARGIN);
+            double start = dataArea.getX() + dataArea.getWidth() * ChartPanelLayout.CATEGORY_AXIS_MARGIN;
+            double transL0 = ChartPanelLayout.valueToJava2D(base, lowerBound, upperBound, dataArea.getY(), dataArea.getHeight(), true);
+            double transL1 = ChartPanelLayout.valueToJava2D(value, lowerBound, upperBound, dataArea.getY(), dataArea.getHeight(), true);
+            bar.setRect(start, Math.min(transL0, transL1), barWidth, Math.abs(transL1 - transL0));
+        } else {
+            double barWidth = dataArea.getHeight() * (1 - 2 * ChartPanelLayout.CATEGORY_AXIS_MARGIN);
+            double start = dataArea.getY() + dataArea.getHeight() * ChartPanelLayout.CATEGORY_AXIS_MARGIN;
+            double transL0 = ChartPanelLayout.valueToJava2D(base, lowerBound, upperBound, dataArea.getX(), dataArea.getWidth(), false);
+            double transL1 = ChartPanelLayout.valueToJava2D(value, lowerBound, upperBound, dataArea.getX(), dataArea.getWidth(), false);
+            bar.setRect(Math.min(transL0, transL1), start, Math.abs(transL1 - transL0), barWidth);
+        }
+
+        return true;
+    }
+}
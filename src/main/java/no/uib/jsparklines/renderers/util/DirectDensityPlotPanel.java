@@ -0,0 +1,195 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import javax.swing.JPanel;
+import no.uib.jsparklines.data.JSparklines3dDataset;
+import org.jfree.chart.plot.PlotOrientation;
+
+/**
+ * Lightweight panel painting a JSparklines3dDataset as a density map, i.e.,
+ * the points are aggregated per pixel by a DensityGrid and painted as one
+ * image. Used as a faster alternative to the JFreeChart scatter and bubble
+ * plots of the JSparklines3dTableCellRenderer for datasets with a large number
+ * of points. The reference lines and areas are painted on top of the density
+ * map.
+ *
+ * @author Harald Barsnes
+ */
+public class DirectDensityPlotPanel extends JPanel {
+
+    /**
+     * The dataset to display.
+     */
+    private JSparklines3dDataset dataset;
+    /**
+     * The aggregation of the points in a pixel.
+     */
+    private DensityGrid.Aggregation aggregation = DensityGrid.Aggregation.count;
+    /**
+     * The value at the left edge of the plot.
+     */
+    private double minXValue;
+    /**
+     * The value at the right edge of the plot.
+     */
+    private double maxXValue;
+    /**
+     * The value at the bottom edge of the plot.
+     */
+    private double minYValue;
+    /**
+     * The value at the top edge of the plot.
+     */
+    private double maxYValue;
+    /**
+     * The reference lines and areas on the x-axis.
+     */
+    private ReferenceOverlay referenceOverlayXAxis = ReferenceOverlay.EMPTY;
+    /**
+     * The reference lines and areas on the y-axis.
+     */
+    private ReferenceOverlay referenceOverlayYAxis = ReferenceOverlay.EMPTY;
+    /**
+     * The executor used to bin the points in parallel, null if binned on the
+     * painting thread.
+     */
+    private ExecutorService binningExecutor = null;
+    /**
+     * The grid the points are binned in, reused between paints.
+     */
+    private final DensityGrid densityGrid = new DensityGrid();
+    /**
+     * The colors of the series, reused between paints.
+     */
+    private Color[] seriesColors = new Color[0];
+    /**
+     * Reused rectangle for the data area.
+     */
+    private final Rectangle2D.Double dataArea = new Rectangle2D.Double();
+    /**
+     * Reused rectangle for the data area in whole pixels.
+     */
+    private final Rectangle pixelArea = new Rectangle();
+
+    /**
+     * Creates a new DirectDensityPlotPanel.
+     */
+    public DirectDensityPlotPanel() {
+        setOpaque(true);
+    }
+
+    /**
+     * Set the dataset to display and the value ranges.
+     *
+     * @param dataset the dataset
+     * @param aggregation the aggregation of the points in a pixel, either
+     * count or maxZ
+     * @param minXValue the value at the left edge of the plot
+     * @param maxXValue the value at the right edge of the plot
+     * @param minYValue the value at the bottom edge of the plot
+     * @param maxYValue the value at the top edge of the plot
+     */
+    public void setDataset(JSparklines3dDataset dataset, DensityGrid.Aggregation aggregation,
+            double minXValue, double maxXValue, double minYValue, double maxYValue) {
+        this.dataset = dataset;
+        this.aggregation = aggregation;
+        this.minXValue = minXValue;
+        this.maxXValue = maxXValue;
+        this.minYValue = minYValue;
+        this.maxYValue = maxYValue;
+    }
+
+    /**
+     * Set the reference lines and areas painted on top of the density map.
+     *
+     * @param referenceOverlayXAxis the reference lines and areas on the x-axis
+     * @param referenceOverlayYAxis the reference lines and areas on the y-axis
+     */
+    public void setReferenceOverlays(ReferenceOverlay referenceOverlayXAxis, ReferenceOverlay referenceOverlayYAxis) {
+        this.referenceOverlayXAxis = referenceOverlayXAxis;
+        this.referenceOverlayYAxis = referenceOverlayYAxis;
+    }
+
+    /**
+     * Set the executor used to bin the points in parallel, e.g., when
+     * exporting large plots. If null the points are binned on the painting
+     * thread.
+     *
+     * @param binningExecutor the executor, null disables the parallel binning
+     */
+    public void setBinningExecutor(ExecutorService binningExecutor) {
+        this.binningExecutor = binningExecutor;
+    }
+
+    /**
+     * Returns the executor used to bin the points in parallel.
+     *
+     * @return the executor, null if the points are binned on the painting
+     * thread
+     */
+    public ExecutorService getBinningExecutor() {
+        return binningExecutor;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+
+        if (dataset == null) {
+            return;
+        }
+
+        ChartPanelLayout.getDataArea(getWidth(), getHeight(), dataArea);
+
+        int x0 = (int) Math.round(dataArea.getMinX());
+        int y0 = (int) Math.round(dataArea.getMinY());
+        pixelArea.setBounds(x0, y0,
+                (int) Math.round(dataArea.getMaxX()) - x0,
+                (int) Math.round(dataArea.getMaxY()) - y0);
+
+        if (pixelArea.width <= 0 || pixelArea.height <= 0) {
+            return;
+        }
+
+        densityGrid.reset(pixelArea.width, pixelArea.height, minXValue, maxXValue, minYValue, maxYValue, aggregation);
+
+        if (binningExecutor == null) {
+            densityGrid.add(dataset);
+        } else {
+            try {
+                densityGrid.addParallel(dataset, binningExecutor);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to bin the points.", e.getCause());
+            }
+        }
+
+        int numberOfSeries = dataset.getData().size();
+
+        if (seriesColors.length < numberOfSeries) {
+            seriesColors = new Color[numberOfSeries];
+        }
+
+        for (int i = 0; i < numberOfSeries; i++) {
+            Color seriesColor = dataset.getData().get(i).getSeriesColor();
+            seriesColors[i] = seriesColor != null ? seriesColor : Color.BLACK;
+        }
+
+        densityGrid.paint(g, pixelArea.x, pixelArea.y, seriesColors);
+
+        // the reference lines and areas are painted on top of the points
+        Graphics2D g2 = (Graphics2D) g;
+        referenceOverlayXAxis.paint(g2, dataArea.getX(), dataArea.getY(), dataArea.getWidth(), dataArea.getHeight(),
+                minXValue, maxXValue, referenceOverlayXAxis.isVertical(PlotOrientation.VERTICAL));
+        referenceOverlayYAxis.paint(g2, dataArea.getX(), dataArea.getY(), dataArea.getWidth(), dataArea.getHeight(),
+                minYValue, maxYValue, referenceOverlayYAxis.isVertical(PlotOrientation.VERTICAL));
+    }
+}
@@ -0,0 +1,138 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.geom.Rectangle2D;
+import javax.swing.JPanel;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import org.jfree.chart.axis.CategoryAxis;
+
+/**
+ * Lightweight panel painting a heat map strip, i.e., one colored block per
+ * value, straight onto the Graphics object. The blocks are laid out as the
+ * categories of the stacked bar chart used by the
+ * JSparklinesHeatMapTableCellRenderer, but painted with one fillRect each in a
+ * single pass over the values, without creating any JFreeChart objects. The
+ * colors are taken from the precomputed palettes of the GradientColorCoding.
+ *
+ * @author Harald Barsnes
+ */
+public class DirectHeatMapPanel extends JPanel {
+
+    /**
+     * The space between the blocks relative to the width of the data area, as
+     * for the default category axis.
+     */
+    private static final double CATEGORY_MARGIN = CategoryAxis.DEFAULT_CATEGORY_MARGIN;
+    /**
+     * The values to display.
+     */
+    private JSparklinesDataSeries dataSeries;
+    /**
+     * The value shown using the first color of the gradient.
+     */
+    private double minValue = -1;
+    /**
+     * The value shown using the third color of the gradient.
+     */
+    private double maxValue = 1;
+    /**
+     * The color gradient.
+     */
+    private GradientColorCoding.ColorGradient colorGradient = GradientColorCoding.ColorGradient.RedBlackBlue;
+    /**
+     * If true only positive values are expected and the middle gradient color
+     * is used for the halfway point between the min and max values.
+     */
+    private boolean positiveColorGradient = false;
+    /**
+     * Reused rectangle for the data area.
+     */
+    private final Rectangle2D.Double dataArea = new Rectangle2D.Double();
+
+    /**
+     * Creates a new DirectHeatMapPanel.
+     */
+    public DirectHeatMapPanel() {
+        setOpaque(true);
+    }
+
+    /**
+     * Set the values to display and the color coding.
+     *
+     * @param dataSeries the values to display
+     * @param minValue the value shown using the first color of the gradient
+     * @param maxValue the value shown using the third color of the gradient
+     * @param colorGradient the color gradient
+     * @param positiveColorGradient if true only positive values are expected
+     * and the middle gradient color is used for the halfway point between the
+     * min and max values
+     */
+    public void setValues(JSparklinesDataSeries dataSeries, double minValue, double maxValue,
+            GradientColorCoding.ColorGradient colorGradient, boolean positiveColorGradient) {
+        this.dataSeries = dataSeries;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.colorGradient = colorGradient;
+        this.positiveColorGradient = positiveColorGradient;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+
+        if (dataSeries == null || colorGradient == null) {
+            return;
+        }
+
+        int numberOfValues = dataSeries.size();
+
+        if (numberOfValues == 0) {
+            return;
+        }
+
+        ChartPanelLayout.getDataArea(getWidth(), getHeight(), dataArea);
+
+        int y = (int) Math.round(dataArea.getMinY());
+        int height = (int) Math.round(dataArea.getMaxY()) - y;
+
+        if (dataArea.getWidth() <= 0 || height <= 0) {
+            return;
+        }
+
+        // the block and gap sizes as calculated by the category axis
+        double blockWidth;
+        double gapWidth;
+
+        if (numberOfValues > 1) {
+            blockWidth = dataArea.getWidth() * (1 - CATEGORY_MARGIN) / numberOfValues;
+            gapWidth = dataArea.getWidth() * CATEGORY_MARGIN / (numberOfValues - 1);
+        } else {
+            blockWidth = dataArea.getWidth();
+            gapWidth = 0;
+        }
+
+        Color currentColor = null;
+
+        for (int i = 0; i < numberOfValues; i++) {
+
+            Color color = GradientColorCoding.getGradientColor(dataSeries.getValue(i), minValue, maxValue, colorGradient, positiveColorGradient);
+
+            // values without a color, e.g., NaN, show the background
+            if (color == null) {
+                continue;
+            }
+
+            if (color != currentColor) {
+                g.setColor(color);
+                currentColor = color;
+            }
+
+            double start = dataArea.getX() + i * (blockWidth + gapWidth);
+            int startPixel = (int) Math.round(start);
+            int endPixel = Math.max(startPixel + 1, (int) Math.round(start + blockWidth));
+
+            g.fillRect(startPixel, y, endPixel - startPixel, height);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package no.uib.jsparklines.renderers.util;
 
 import java.awt.Color;
+import java.util.EnumMap;
 
 /**
  * Contains methods related to calculating color gradients.
@@ -91,6 +92,22 @@ public class GradientColorCoding {
         BlueWhiteGreen
     }
 
+    /**
+     * The number of color levels in the gradients, half of them used for the
+     * values below zero and the other half for the values above zero.
+     */
+    private static final int NUMBER_OF_COLOR_LEVELS = 50;
+    /**
+     * The precomputed palettes, one per color gradient.
+     */
+    private static final EnumMap<ColorGradient, GradientPalette> PALETTES = new EnumMap<>(ColorGradient.class);
+
+    static {
+        for (ColorGradient colorGradient : ColorGradient.values()) {
+            PALETTES.put(colorGradient, new GradientPalette(colorGradient));
+        }
+    }
+
     /**
      * Returns the gradient color using the currently selected color gradient.
      * The first color of the gradient is used for values close to the min
@@ -98,7 +115,7 @@ public class GradientColorCoding {
      * the max value. If only positive values are expected (positiveValuesOnly
      * is true) the middle gradient color is used for the halfway point between
      * the min and max values. If both positive and negative values are expected
-     * (positiveValuesOnmiddlely is false) the middle gradient color is used for
+     * (positiveValuesOnly is false) the middle gradient color is used for
      * values around zero.
      *
      * @param aValue the value to find the gradient color for
@@ -112,8 +129,35 @@ public class GradientColorCoding {
      * @return the gradient color
      */
     public static Color findGradientColor(Double aValue, Double aMinValue, Double aMaxValue, ColorGradient colorGradient, boolean positiveValuesOnly) {
+        return getGradientColor(aValue, aMinValue, aMaxValue, colorGradient, positiveValuesOnly);
+    }
+
+    /**
+     * Returns the gradient color using the currently selected color gradient.
+     * Same as findGradientColor but without boxing, and returning shared Color
+     * instances taken from a precomputed palette.
+     * The first color of the gradient is used for values close to the min
+     * value, while the third color of the gradient is used for values close to
+     * the max value. If only positive values are expected (positiveValuesOnly
+     * is true) the middle gradient color is used for the halfway point between
+     * the min and max values. If both positive and negative values are expected
+     * (positiveValuesOnly is false) the middle gradient color is used for
+     * values around zero.
+     *
+     * @param aValue the value to find the gradient color for
+     * @param aMinValue the min value
+     * @param aMaxValue the max value
+     * @param colorGradient the color gradient to use
+     * @param positiveValuesOnly if true only positive values are expected and
+     * the middle gradient color is used for the halfway point between the min
+     * and max values, if false the middle gradient color is used for values
+     * around zero
+     * @return the gradient color, null if the value is not covered by the
+     * gradient
+     */
+    public static Color getGradientColor(double aValue, double aMinValue, double aMaxValue, ColorGradient colorGradient, boolean positiveValuesOnly) {
 
-        Double minValue, maxValue, value;
+        double minValue, maxValue, value;
 
         // check whether the current color gradient should only take into account positive values
         if (positiveValuesOnly) {
@@ -129,204 +173,355 @@ public class GradientColorCoding {
             value = aValue;
         }
 
-        int numberOfColorLevels = 50;
-        double distanceBetweenCorrelationLevels = maxValue / (((double) numberOfColorLevels) / 2);
+        GradientPalette palette = PALETTES.get(colorGradient);
 
-        Color backGroundColor = null;
+        // calculate the color for values outside the value range
+        if (value < minValue) {
+            return palette.belowRangeColor;
+        } else if (value > maxValue) {
+            return palette.aboveRangeColor;
+        }
+
+        int levelsPerSide = NUMBER_OF_COLOR_LEVELS / 2;
+        double distanceBetweenCorrelationLevels = maxValue / ((double) levelsPerSide);
+
+        // the values above zero take precedence over the values below zero
+        int level = findPositiveLevel(value, maxValue, distanceBetweenCorrelationLevels);
+        if (level != -1) {
+            return palette.positiveColors[level];
+        }
+
+        level = findNegativeLevel(value, maxValue, distanceBetweenCorrelationLevels);
+        if (level != -1) {
+            return palette.negativeColors[level];
+        }
 
-        // find the color for the values below zero
-        for (int i = 0; i < (numberOfColorLevels / 2); i++) {
+        return null;
+    }
+
+    /**
+     * Returns the index of the color level above zero containing the given
+     * value, -1 if none. The level is estimated from the value and then
+     * verified against the level bounds, such that the result is the same as
+     * when testing all the levels.
+     *
+     * @param value the value
+     * @param maxValue the max value
+     * @param distanceBetweenCorrelationLevels the distance between two levels
+     * @return the index of the color level, -1 if none
+     */
+    private static int findPositiveLevel(double value, double maxValue, double distanceBetweenCorrelationLevels) {
+
+        int levelsPerSide = NUMBER_OF_COLOR_LEVELS / 2;
+        int first = 0;
+        int last = levelsPerSide - 1;
+
+        if (distanceBetweenCorrelationLevels > 0 && !Double.isInfinite(distanceBetweenCorrelationLevels)) {
+            int estimate = (int) Math.max(Math.min(Math.floor(value / distanceBetweenCorrelationLevels), last), first);
+            first = Math.max(estimate - 1, first);
+            last = Math.min(estimate + 1, last);
+        }
+
+        for (int i = last; i >= first; i--) {
 
             // find the lower and upper range for the current color
-            Double lowerRange = -maxValue + (i * distanceBetweenCorrelationLevels);
-            Double upperRange = -maxValue + ((i + 1) * distanceBetweenCorrelationLevels);
-
-            Color tempColor = null;
-
-            // calculate the current color
-            if (colorGradient == ColorGradient.GreenBlackRed) {
-                tempColor = new Color(50 - (i * 2), 255 - (i * 10), 0);
-            } else if (colorGradient == ColorGradient.RedBlackGreen) {
-                tempColor = new Color(255 - (i * 10), 50 - (i * 2), 0);
-            } else if (colorGradient == ColorGradient.GreenBlackBlue) {
-                tempColor = new Color(0, 255 - (i * 10), 50 - (i * 2));
-            } else if (colorGradient == ColorGradient.BlueBlackGreen) {
-                tempColor = new Color(0, 50 - (i * 2), 255 - (i * 10));
-            } else if (colorGradient == ColorGradient.GreenBlackYellow) {
-                tempColor = new Color(50 - (i * 2), 255 - (i * 10), 0);
-            } else if (colorGradient == ColorGradient.YellowBlackGreen) {
-                tempColor = new Color(255 - 10 * i, 255 - 10 * i, 0);
-            } else if (colorGradient == ColorGradient.GreenBlackPurple) {
-                tempColor = new Color(50 - (i * 2), 255 - (i * 10), 0);
-            } else if (colorGradient == ColorGradient.PurpleBlackGreen) {
-                tempColor = new Color(255 - 10 * i, 0, 255 - 10 * i);
-            } else if (colorGradient == ColorGradient.RedBlackMagenta) {
-                tempColor = new Color(255 - (i * 10), 50 - (i * 2), 0);
-            } else if (colorGradient == ColorGradient.MagentaBlackRed) {
-                tempColor = new Color(0, 255 - 10 * i, 255 - 10 * i);
-            } else if (colorGradient == ColorGradient.GreenWhiteRed) {
-                tempColor = new Color(15 + 10 * i, 255, 15 + 10 * i);
-            } else if (colorGradient == ColorGradient.RedWhiteGreen) {
-                tempColor = new Color(255, 15 + 10 * i, 15 + 10 * i);
-            } else if (colorGradient == ColorGradient.BlueWhiteRed) {
-                tempColor = new Color(15 + 10 * i, 15 + 10 * i, 255);
-            } else if (colorGradient == ColorGradient.RedWhiteBlue) {
-                tempColor = new Color(255, 15 + 10 * i, 15 + 10 * i);
-            } else if (colorGradient == ColorGradient.BlueBlackRed) {
-                tempColor = new Color(50 - (i * 2), 0, 255 - (i * 10));
-            } else if (colorGradient == ColorGradient.RedBlackBlue) {
-                tempColor = new Color(255 - (i * 10), 0, 50 - (i * 2));
-            } else if (colorGradient == ColorGradient.GreenWhiteBlue) {
-                tempColor = new Color(15 + 10 * i, 255, 15 + 10 * i);
-            } else if (colorGradient == ColorGradient.BlueWhiteGreen) {
-                tempColor = new Color(15 + 10 * i, 15 + 10 * i, 255);
-            }
+            double lowerRange = 0.0 + distanceBetweenCorrelationLevels * i;
+            double upperRange = 0.0 + distanceBetweenCorrelationLevels * (i + 1);
 
             // see of the value is in the wanted range
-            if (value.doubleValue() >= lowerRange && value.doubleValue() < upperRange) {
-                backGroundColor = tempColor;
+            if ((value >= lowerRange && value < upperRange)
+                    || (upperRange == maxValue && value == upperRange)) {
+                return i;
             }
         }
 
-        // find the color for the values above zero
-        for (int i = 0; i < (numberOfColorLevels / 2); i++) {
+        return -1;
+    }
+
+    /**
+     * Returns the index of the color level below zero containing the given
+     * value, -1 if none. The level is estimated from the value and then
+     * verified against the level bounds, such that the result is the same as
+     * when testing all the levels.
+     *
+     * @param value the value
+     * @param maxValue the max value
+     * @param distanceBetweenCorrelationLevels the distance between two levels
+     * @return the index of the color level, -1 if none
+     */
+    private static int findNegativeLevel(double value, double maxValue, double distanceBetweenCorrelationLevels) {
+
+        int levelsPerSide = NUMBER_OF_COLOR_LEVELS / 2;
+        int first = 0;
+        int last = levelsPerSide - 1;
+
+        if (distanceBetweenCorrelationLevels > 0 && !Double.isInfinite(distanceBetweenCorrelationLevels)) {
+            int estimate = (int) Math.max(Math.min(Math.floor((value + maxValue) / distanceBetweenCorrelationLevels), last), first);
+            first = Math.max(estimate - 1, first);
+            last = Math.min(estimate + 1, last);
+        }
+
+        for (int i = last; i >= first; i--) {
 
             // find the lower and upper range for the current color
-            Double lowerRange = 0.0 + distanceBetweenCorrelationLevels * i;
-            Double upperRange = 0.0 + distanceBetweenCorrelationLevels * (i + 1);
-
-            Color tempColor = null;
-
-            // calculate the current color
-            if (colorGradient == ColorGradient.GreenBlackRed) {
-                tempColor = new Color(15 + 10 * i, 0, 0);
-            } else if (colorGradient == ColorGradient.RedBlackGreen) {
-                tempColor = new Color(0, 15 + 10 * i, 0);
-            } else if (colorGradient == ColorGradient.GreenBlackBlue) {
-                tempColor = new Color(0, 0, 15 + 10 * i);
-            } else if (colorGradient == ColorGradient.BlueBlackGreen) {
-                tempColor = new Color(0, 15 + 10 * i, 0);
-            } else if (colorGradient == ColorGradient.GreenBlackYellow) {
-                tempColor = new Color(15 + 10 * i, 15 + 10 * i, 0);
-            } else if (colorGradient == ColorGradient.YellowBlackGreen) {
-                tempColor = new Color(0, 15 + 10 * i, 0);
-            } else if (colorGradient == ColorGradient.GreenBlackPurple) {
-                tempColor = new Color(15 + 10 * i, 0, 15 + 10 * i);
-            } else if (colorGradient == ColorGradient.PurpleBlackGreen) {
-                tempColor = new Color(0, 15 + 10 * i, 0);
-            } else if (colorGradient == ColorGradient.RedBlackMagenta) {
-                tempColor = new Color(0, 15 + 10 * i, 15 + 10 * i);
-            } else if (colorGradient == ColorGradient.MagentaBlackRed) {
-                tempColor = new Color(15 + 10 * i, 0, 0);
-            } else if (colorGradient == ColorGradient.GreenWhiteRed) {
-                tempColor = new Color(255, 230 - (10 - 1) * i, 230 - (10 - 1) * i);
-            } else if (colorGradient == ColorGradient.RedWhiteGreen) {
-                tempColor = new Color(230 - (10 - 1) * i, 255, 230 - (10 - 1) * i);
-            } else if (colorGradient == ColorGradient.BlueWhiteRed) {
-                tempColor = new Color(255, 230 - (10 - 1) * i, 230 - (10 - 1) * i);
-            } else if (colorGradient == ColorGradient.RedWhiteBlue) {
-                tempColor = new Color(230 - (10 - 1) * i, 230 - (10 - 1) * i, 255);
-            } else if (colorGradient == ColorGradient.BlueBlackRed) {
-                tempColor = new Color(15 + 10 * i, 0, 0);
-            } else if (colorGradient == ColorGradient.RedBlackBlue) {
-                tempColor = new Color(0, 0, 15 + 10 * i);
-            } else if (colorGradient == ColorGradient.GreenWhiteBlue) {
-                tempColor = new Color(230 - (10 - 1) * i, 230 - (10 - 1) * i, 255);
-            } else if (colorGradient == ColorGradient.BlueWhiteGreen) {
-                tempColor = new Color(230 - (10 - 1) * i, 255, 230 - (10 - 1) * i);
-            }
+            double lowerRange = -maxValue + (i * distanceBetweenCorrelationLevels);
+            double upperRange = -maxValue + ((i + 1) * distanceBetweenCorrelationLevels);
 
             // see of the value is in the wanted range
-            if ((value.doubleValue() >= lowerRange && value.doubleValue() < upperRange)
-                    || (upperRange.doubleValue() == maxValue && value.doubleValue() == upperRange.doubleValue())) {
-                backGroundColor = tempColor;
+            if (value >= lowerRange && value < upperRange) {
+                return i;
             }
         }
 
-        // calculate the color for values outside the value range
-        if (value.doubleValue() < minValue) {
-
-            // calculate the color for values smaller than the lower range
-            if (colorGradient == ColorGradient.GreenBlackRed) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.RedBlackGreen) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.GreenBlackBlue) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.BlueBlackGreen) {
-                backGroundColor = Color.BLUE;
-            } else if (colorGradient == ColorGradient.GreenBlackYellow) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.YellowBlackGreen) {
-                backGroundColor = Color.YELLOW;
-            } else if (colorGradient == ColorGradient.GreenBlackPurple) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.PurpleBlackGreen) {
-                backGroundColor = new Color(255, 0, 255);
-            } else if (colorGradient == ColorGradient.RedBlackMagenta) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.MagentaBlackRed) {
-                backGroundColor = new Color(0, 255, 255);
-            } else if (colorGradient == ColorGradient.GreenWhiteRed) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.RedWhiteGreen) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.BlueWhiteRed) {
-                backGroundColor = Color.BLUE;
-            } else if (colorGradient == ColorGradient.RedWhiteBlue) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.BlueBlackRed) {
-                backGroundColor = Color.BLUE;
-            } else if (colorGradient == ColorGradient.RedBlackBlue) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.GreenWhiteBlue) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.BlueWhiteGreen) {
-                backGroundColor = Color.BLUE;
-            }
+        return -1;
+    }
+
+    /**
+     * The precomputed colors of a color gradient.
+     */
+    private static class GradientPalette {
+
+        /**
+         * The colors used for the levels below zero.
+         */
+        private final Color[] negativeColors;
+        /**
+         * The colors used for the levels above zero.
+         */
+        private final Color[] positiveColors;
+        /**
+         * The color used for values smaller than the lower range.
+         */
+        private final Color belowRangeColor;
+        /**
+         * The color used for values bigger than the upper range.
+         */
+        private final Color aboveRangeColor;
+
+        /**
+         * Creates the palette of the given color gradient.
+         *
+         * @param colorGradient the color gradient
+         */
+        private GradientPalette(ColorGradient colorGradient) {
 
-        } else if (value.doubleValue() > maxValue) {
-
-            // calculate the color for values bigger than the upper range
-            if (colorGradient == ColorGradient.GreenBlackRed) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.RedBlackGreen) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.GreenBlackBlue) {
-                backGroundColor = Color.BLUE;
-            } else if (colorGradient == ColorGradient.BlueBlackGreen) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.GreenBlackYellow) {
-                backGroundColor = Color.YELLOW;
-            } else if (colorGradient == ColorGradient.YellowBlackGreen) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.GreenBlackPurple) {
-                backGroundColor = new Color(255, 0, 255);
-            } else if (colorGradient == ColorGradient.PurpleBlackGreen) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.RedBlackMagenta) {
-                backGroundColor = new Color(0, 255, 255);
-            } else if (colorGradient == ColorGradient.MagentaBlackRed) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.GreenWhiteRed) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.RedWhiteGreen) {
-                backGroundColor = Color.GREEN;
-            } else if (colorGradient == ColorGradient.BlueWhiteRed) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.RedWhiteBlue) {
-                backGroundColor = Color.BLUE;
-            } else if (colorGradient == ColorGradient.BlueBlackRed) {
-                backGroundColor = Color.RED;
-            } else if (colorGradient == ColorGradient.RedBlackBlue) {
-                backGroundColor = Color.BLUE;
-            } else if (colorGradient == ColorGradient.GreenWhiteBlue) {
-                backGroundColor = Color.BLUE;
-            } else if (colorGradient == ColorGradient.BlueWhiteGreen) {
-                backGroundColor = Color.GREEN;
+            int levelsPerSide = NUMBER_OF_COLOR_LEVELS / 2;
+            negativeColors = new Color[levelsPerSide];
+            positiveColors = new Color[levelsPerSide];
+
+            for (int i = 0; i < levelsPerSide; i++) {
+                negativeColors[i] = createNegativeColor(colorGradient, i);
+                positiveColors[i] = createPositiveColor(colorGradient, i);
             }
+
+            belowRangeColor = createBelowRangeColor(colorGradient);
+            aboveRangeColor = createAboveRangeColor(colorGradient);
+        }
+    }
+
+    /**
+     * Returns the color of the given level below zero.
+     *
+     * @param colorGradient the color gradient
+     * @param i the index of the level
+     * @return the color
+     */
+    private static Color createNegativeColor(ColorGradient colorGradient, int i) {
+
+        Color color = null;
+
+        if (colorGradient == ColorGradient.GreenBlackRed) {
+            color = new Color(50 - (i * 2), 255 - (i * 10), 0);
+        } else if (colorGradient == ColorGradient.RedBlackGreen) {
+            color = new Color(255 - (i * 10), 50 - (i * 2), 0);
+        } else if (colorGradient == ColorGradient.GreenBlackBlue) {
+            color = new Color(0, 255 - (i * 10), 50 - (i * 2));
+        } else if (colorGradient == ColorGradient.BlueBlackGreen) {
+            color = new Color(0, 50 - (i * 2), 255 - (i * 10));
+        } else if (colorGradient == ColorGradient.GreenBlackYellow) {
+            color = new Color(50 - (i * 2), 255 - (i * 10), 0);
+        } else if (colorGradient == ColorGradient.YellowBlackGreen) {
+            color = new Color(255 - 10 * i, 255 - 10 * i, 0);
+        } else if (colorGradient == ColorGradient.GreenBlackPurple) {
+            color = new Color(50 - (i * 2), 255 - (i * 10), 0);
+        } else if (colorGradient == ColorGradient.PurpleBlackGreen) {
+            color = new Color(255 - 10 * i, 0, 255 - 10 * i);
+        } else if (colorGradient == ColorGradient.RedBlackMagenta) {
+            color = new Color(255 - (i * 10), 50 - (i * 2), 0);
+        } else if (colorGradient == ColorGradient.MagentaBlackRed) {
+            color = new Color(0, 255 - 10 * i, 255 - 10 * i);
+        } else if (colorGradient == ColorGradient.GreenWhiteRed) {
+            color = new Color(15 + 10 * i, 255, 15 + 10 * i);
+        } else if (colorGradient == ColorGradient.RedWhiteGreen) {
+            color = new Color(255, 15 + 10 * i, 15 + 10 * i);
+        } else if (colorGradient == ColorGradient.BlueWhiteRed) {
+            color = new Color(15 + 10 * i, 15 + 10 * i, 255);
+        } else if (colorGradient == ColorGradient.RedWhiteBlue) {
+            color = new Color(255, 15 + 10 * i, 15 + 10 * i);
+        } else if (colorGradient == ColorGradient.BlueBlackRed) {
+            color = new Color(50 - (i * 2), 0, 255 - (i * 10));
+        } else if (colorGradient == ColorGradient.RedBlackBlue) {
+            color = new Color(255 - (i * 10), 0, 50 - (i * 2));
+        } else if (colorGradient == ColorGradient.GreenWhiteBlue) {
+            color = new Color(15 + 10 * i, 255, 15 + 10 * i);
+        } else if (colorGradient == ColorGradient.BlueWhiteGreen) {
+            color = new Color(15 + 10 * i, 15 + 10 * i, 255);
+        }
+
+        return color;
+    }
+
+    /**
+     * Returns the color of the given level above zero.
+     *
+     * @param colorGradient the color gradient
+     * @param i the index of the level
+     * @return the color
+     */
+    private static Color createPositiveColor(ColorGradient colorGradient, int i) {
+
+        Color color = null;
+
+        if (colorGradient == ColorGradient.GreenBlackRed) {
+            color = new Color(15 + 10 * i, 0, 0);
+        } else if (colorGradient == ColorGradient.RedBlackGreen) {
+            color = new Color(0, 15 + 10 * i, 0);
+        } else if (colorGradient == ColorGradient.GreenBlackBlue) {
+            color = new Color(0, 0, 15 + 10 * i);
+        } else if (colorGradient == ColorGradient.BlueBlackGreen) {
+            color = new Color(0, 15 + 10 * i, 0);
+        } else if (colorGradient == ColorGradient.GreenBlackYellow) {
+            color = new Color(15 + 10 * i, 15 + 10 * i, 0);
+        } else if (colorGradient == ColorGradient.YellowBlackGreen) {
+            color = new Color(0, 15 + 10 * i, 0);
+        } else if (colorGradient == ColorGradient.GreenBlackPurple) {
+            color = new Color(15 + 10 * i, 0, 15 + 10 * i);
+        } else if (colorGradient == ColorGradient.PurpleBlackGreen) {
+            color = new Color(0, 15 + 10 * i, 0);
+        } else if (colorGradient == ColorGradient.RedBlackMagenta) {
+            color = new Color(0, 15 + 10 * i, 15 + 10 * i);
+        } else if (colorGradient == ColorGradient.MagentaBlackRed) {
+            color = new Color(15 + 10 * i, 0, 0);
+        } else if (colorGradient == ColorGradient.GreenWhiteRed) {
+            color = new Color(255, 230 - (10 - 1) * i, 230 - (10 - 1) * i);
+        } else if (colorGradient == ColorGradient.RedWhiteGreen) {
+            color = new Color(230 - (10 - 1) * i, 255, 230 - (10 - 1) * i);
+        } else if (colorGradient == ColorGradient.BlueWhiteRed) {
+            color = new Color(255, 230 - (10 - 1) * i, 230 - (10 - 1) * i);
+        } else if (colorGradient == ColorGradient.RedWhiteBlue) {
+            color = new Color(230 - (10 - 1) * i, 230 - (10 - 1) * i, 255);
+        } else if (colorGradient == ColorGradient.BlueBlackRed) {
+            color = new Color(15 + 10 * i, 0, 0);
+        } else if (colorGradient == ColorGradient.RedBlackBlue) {
+            color = new Color(0, 0, 15 + 10 * i);
+        } else if (colorGradient == ColorGradient.GreenWhiteBlue) {
+            color = new Color(230 - (10 - 1) * i, 230 - (10 - 1) * i, 255);
+        } else if (colorGradient == ColorGradient.BlueWhiteGreen) {
+            color = new Color(230 - (10 - 1) * i, 255, 230 - (10 - 1) * i);
+        }
+
+        return color;
+    }
+
+    /**
+     * Returns the color used for values smaller than the lower range.
+     *
+     * @param colorGradient the color gradient
+     * @return the color
+     */
+    private static Color createBelowRangeColor(ColorGradient colorGradient) {
+
+        Color color = null;
+
+        if (colorGradient == ColorGradient.GreenBlackRed) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.RedBlackGreen) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.GreenBlackBlue) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.BlueBlackGreen) {
+            color = Color.BLUE;
+        } else if (colorGradient == ColorGradient.GreenBlackYellow) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.YellowBlackGreen) {
+            color = Color.YELLOW;
+        } else if (colorGradient == ColorGradient.GreenBlackPurple) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.PurpleBlackGreen) {
+            color = new Color(255, 0, 255);
+        } else if (colorGradient == ColorGradient.RedBlackMagenta) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.MagentaBlackRed) {
+            color = new Color(0, 255, 255);
+        } else if (colorGradient == ColorGradient.GreenWhiteRed) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.RedWhiteGreen) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.BlueWhiteRed) {
+            color = Color.BLUE;
+        } else if (colorGradient == ColorGradient.RedWhiteBlue) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.BlueBlackRed) {
+            color = Color.BLUE;
+        } else if (colorGradient == ColorGradient.RedBlackBlue) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.GreenWhiteBlue) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.BlueWhiteGreen) {
+            color = Color.BLUE;
+        }
+
+        return color;
+    }
+
+    /**
+     * Returns the color used for values bigger than the upper range.
+     *
+     * @param colorGradient the color gradient
+     * @return the color
+     */
+    private static Color createAboveRangeColor(ColorGradient colorGradient) {
+
+        Color color = null;
+
+        if (colorGradient == ColorGradient.GreenBlackRed) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.RedBlackGreen) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.GreenBlackBlue) {
+            color = Color.BLUE;
+        } else if (colorGradient == ColorGradient.BlueBlackGreen) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.GreenBlackYellow) {
+            color = Color.YELLOW;
+        } else if (colorGradient == ColorGradient.YellowBlackGreen) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.GreenBlackPurple) {
+            color = new Color(255, 0, 255);
+        } else if (colorGradient == ColorGradient.PurpleBlackGreen) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.RedBlackMagenta) {
+            color = new Color(0, 255, 255);
+        } else if (colorGradient == ColorGradient.MagentaBlackRed) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.GreenWhiteRed) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.RedWhiteGreen) {
+            color = Color.GREEN;
+        } else if (colorGradient == ColorGradient.BlueWhiteRed) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.RedWhiteBlue) {
+            color = Color.BLUE;
+        } else if (colorGradient == ColorGradient.BlueBlackRed) {
+            color = Color.RED;
+        } else if (colorGradient == ColorGradient.RedBlackBlue) {
+            color = Color.BLUE;
+        } else if (colorGradient == ColorGradient.GreenWhiteBlue) {
+            color = Color.BLUE;
+        } else if (colorGradient == ColorGradient.BlueWhiteGreen) {
+            color = Color.GREEN;
         }
 
-        return backGroundColor;
+        return color;
     }
 }
@@ -0,0 +1,26 @@
+package no.uib.jsparklines.renderers.util;
+
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * Table cell renderer creating its tooltips on demand, i.e., only when the
+ * user hovers a cell, instead of every time a cell is painted. The renderer
+ * component returns the tooltip of the last rendered value from
+ * getToolTipText(MouseEvent), which is called by the JTable right after
+ * preparing the renderer for the hovered cell. Components displaying cells
+ * rendered earlier, e.g., the images in a SparklineImageCache, use
+ * createToolTipText with the value of the hovered cell.
+ *
+ * @author Harald Barsnes
+ */
+public interface LazyToolTipRenderer extends TableCellRenderer {
+
+    /**
+     * Returns the tooltip for the given cell value, using the current
+     * settings of the renderer.
+     *
+     * @param value the value of the cell
+     * @return the tooltip, null if no tooltip is to be shown
+     */
+    public String createToolTipText(Object value);
+}
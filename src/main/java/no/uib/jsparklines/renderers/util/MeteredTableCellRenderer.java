@@ -0,0 +1,29 @@
+package no.uib.jsparklines.renderers.util;
+
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * Table cell renderer whose render times can be recorded in a
+ * RendererMetrics. The recording is handled by a RendererMetricsSupport.
+ *
+ * @author Harald Barsnes
+ */
+public interface MeteredTableCellRenderer extends TableCellRenderer {
+
+    /**
+     * Set the metrics recording the render times of this renderer. The
+     * recording is disabled by default.
+     *
+     * @param rendererMetrics the metrics, null disables the recording
+     * @param rendererName the name of the renderer in the metrics, e.g., the
+     * column name
+     */
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName);
+
+    /**
+     * Returns the metrics recording the render times of this renderer.
+     *
+     * @return the metrics, null if the render times are not recorded
+     */
+    public RendererMetrics getRendererMetrics();
+}
@@ -0,0 +1,364 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Collection;
+import javax.swing.JTable;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.OverlayChangeListener;
+import org.jfree.chart.panel.Overlay;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.Plot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+
+/**
+ * Immutable set of reference lines and areas, precompiled for painting. The
+ * strokes, colors and transparencies are created once, when the overlay is
+ * created, and painting the overlay only allocates the two shapes painted.
+ * Reference lines and areas changed after the overlay was created are
+ * therefore not reflected, create a new overlay instead.
+ * <br><br>
+ * As for the JFreeChart markers previously added by the renderers, the lines
+ * are painted before the areas, the shapes are not snapped to whole pixels,
+ * and the painting is clipped to the data area.
+ * <br><br>
+ * The overlay is painted on top of the chart when added to a ChartPanel, but
+ * can also be painted directly into a given data area. The same overlay can
+ * be shared by all the cells of a column. For charts where the reference
+ * values run along the x-axis, paintColumn paints each reference line and area
+ * once for all the given rows.
+ *
+ * @author Harald Barsnes
+ */
+public class ReferenceOverlay implements Overlay {
+
+    /**
+     * Overlay without reference lines and areas.
+     */
+    public static final ReferenceOverlay EMPTY = new ReferenceOverlay(null, null);
+    /**
+     * The transparency of the reference lines, i.e., opaque as for the
+     * JFreeChart value markers created with a color and a stroke.
+     */
+    private static final AlphaComposite LINE_COMPOSITE = AlphaComposite.SrcOver;
+    /**
+     * True if the reference values are on the domain axis, false if on the
+     * range axis.
+     */
+    private final boolean domainAxis;
+    /**
+     * The values of the reference lines.
+     */
+    private final double[] lineValues;
+    /**
+     * The strokes of the reference lines.
+     */
+    private final Stroke[] lineStrokes;
+    /**
+     * The colors of the reference lines.
+     */
+    private final Color[] lineColors;
+    /**
+     * The starts of the reference areas.
+     */
+    private final double[] areaStarts;
+    /**
+     * The ends of the reference areas.
+     */
+    private final double[] areaEnds;
+    /**
+     * The colors of the reference areas.
+     */
+    private final Color[] areaColors;
+    /**
+     * The transparencies of the reference areas.
+     */
+    private final Composite[] areaComposites;
+
+    /**
+     * Creates a new ReferenceOverlay for the range axis.
+     *
+     * @param referenceLines the reference lines, can be null
+     * @param referenceAreas the reference areas, can be null
+     */
+    public ReferenceOverlay(Collection<ReferenceLine> referenceLines, Collection<ReferenceArea> referenceAreas) {
+        this(referenceLines, referenceAreas, false);
+    }
+
+    /**
+     * Creates a new ReferenceOverlay.
+     *
+     * @param referenceLines the reference lines, can be null
+     * @param referenceAreas the reference areas, can be null
+     * @param domainAxis true if the reference values are on the domain axis,
+     * false if on the range axis
+     */
+    public ReferenceOverlay(Collection<ReferenceLine> referenceLines, Collection<ReferenceArea> referenceAreas, boolean domainAxis) {
+
+        this.domainAxis = domainAxis;
+
+        int numberOfLines = referenceLines != null ? referenceLines.size() : 0;
+        lineValues = new double[numberOfLines];
+        lineStrokes = new Stroke[numberOfLines];
+        lineColors = new Color[numberOfLines];
+
+        if (referenceLines != null) {
+            int i = 0;
+            for (ReferenceLine referenceLine : referenceLines) {
+                lineValues[i] = referenceLine.getValue();
+                lineStrokes[i] = new BasicStroke(referenceLine.getLineWidth());
+                lineColors[i] = referenceLine.getLineColor();
+                i++;
+            }
+        }
+
+        int numberOfAreas = referenceAreas != null ? referenceAreas.size() : 0;
+        areaStarts = new double[numberOfAreas];
+        areaEnds = new double[numberOfAreas];
+        areaColors = new Color[numberOfAreas];
+        areaComposites = new Composite[numberOfAreas];
+
+        if (referenceAreas != null) {
+            int i = 0;
+            for (ReferenceArea referenceArea : referenceAreas) {
+                areaStarts[i] = Math.min(referenceArea.getStart(), referenceArea.getEnd());
+                areaEnds[i] = Math.max(referenceArea.getStart(), referenceArea.getEnd());
+                areaColors[i] = referenceArea.getAreaColor();
+                areaComposites[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, referenceArea.getAlpha());
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the overlay contains no reference lines or areas.
+     *
+     * @return true if the overlay is empty
+     */
+    public boolean isEmpty() {
+        return lineValues.length == 0 && areaStarts.length == 0;
+    }
+
+    /**
+     * Returns true if the reference values are on the domain axis, false if
+     * on the range axis.
+     *
+     * @return true if the reference values are on the domain axis
+     */
+    public boolean isDomainAxis() {
+        return domainAxis;
+    }
+
+    /**
+     * Returns true if the reference values run along the y-axis for the given
+     * plot orientation.
+     *
+     * @param plotOrientation the plot orientation
+     * @return true if the reference values run along the y-axis
+     */
+    public boolean isVertical(PlotOrientation plotOrientation) {
+        return (plotOrientation == PlotOrientation.VERTICAL) != domainAxis;
+    }
+
+    /**
+     * Paints the reference lines and areas into the given data area.
+     *
+     * @param g2 the graphics to paint to
+     * @param x the x coordinate of the data area
+     * @param y the y coordinate of the data area
+     * @param width the width of the data area
+     * @param height the height of the data area
+     * @param lowerBound the value at the start of the axis
+     * @param upperBound the value at the end of the axis
+     * @param vertical true if the reference values run along the y-axis
+     */
+    public void paint(Graphics2D g2, double x, double y, double width, double height,
+            double lowerBound, double upperBound, boolean vertical) {
+
+        if (isEmpty() || width <= 0 || height <= 0 || !(upperBound > lowerBound)) {
+            return;
+        }
+
+        Paint savedPaint = g2.getPaint();
+        Stroke savedStroke = g2.getStroke();
+        Composite savedComposite = g2.getComposite();
+        Shape savedClip = g2.getClip();
+
+        Rectangle2D.Double area = new Rectangle2D.Double(x, y, width, height);
+        g2.clip(area);
+
+        double areaStart = vertical ? y : x;
+        double areaLength = vertical ? height : width;
+
+        // the lines are painted before the areas, i.e., in the order the
+        // markers used to be added to the charts
+        if (lineValues.length > 0) {
+
+            Line2D.Double line = new Line2D.Double();
+            g2.setComposite(LINE_COMPOSITE);
+
+            for (int i = 0; i < lineValues.length; i++) {
+
+                if (lineValues[i] < lowerBound || lineValues[i] > upperBound) {
+                    continue;
+                }
+
+                double position = ChartPanelLayout.valueToJava2D(lineValues[i], lowerBound, upperBound, areaStart, areaLength, vertical);
+
+                if (vertical) {
+                    line.setLine(x, position, x + width, position);
+                } else {
+                    line.setLine(position, y, position, y + height);
+                }
+
+                g2.setPaint(lineColors[i]);
+                g2.setStroke(lineStrokes[i]);
+                g2.draw(line);
+            }
+        }
+
+        if (areaStarts.length > 0) {
+
+            for (int i = 0; i < areaStarts.length; i++) {
+
+                if (areaEnds[i] < lowerBound || areaStarts[i] > upperBound) {
+                    continue;
+                }
+
+                double start = ChartPanelLayout.valueToJava2D(Math.max(areaStarts[i], lowerBound), lowerBound, upperBound, areaStart, areaLength, vertical);
+                double end = ChartPanelLayout.valueToJava2D(Math.min(areaEnds[i], upperBound), lowerBound, upperBound, areaStart, areaLength, vertical);
+                double low = Math.min(start, end);
+                double high = Math.max(start, end);
+
+                if (vertical) {
+                    area.setRect(x, low, width, high - low);
+                } else {
+                    area.setRect(low, y, high - low, height);
+                }
+
+                g2.setPaint(areaColors[i]);
+                g2.setComposite(areaComposites[i]);
+                g2.fill(area);
+            }
+        }
+
+        g2.setPaint(savedPaint);
+        g2.setStroke(savedStroke);
+        g2.setComposite(savedComposite);
+        g2.setClip(savedClip);
+    }
+
+    /**
+     * Paints the reference lines and areas of a column of charts, assuming
+     * that the charts fill the cells and use the same axis range. If the
+     * reference values run along the x-axis, each reference line and area is
+     * painted once across all the rows. Otherwise they are painted per row.
+     *
+     * @param g2 the graphics of the table
+     * @param table the table
+     * @param column the view column index
+     * @param firstRow the first view row to paint
+     * @param lastRow the last view row to paint
+     * @param lowerBound the value at the start of the axis
+     * @param upperBound the value at the end of the axis
+     * @param plotOrientation the orientation of the charts
+     */
+    public void paintColumn(Graphics2D g2, JTable table, int column, int firstRow, int lastRow,
+            double lowerBound, double upperBound, PlotOrientation plotOrientation) {
+
+        if (isEmpty() || firstRow < 0 || lastRow < firstRow) {
+            return;
+        }
+
+        boolean vertical = isVertical(plotOrientation);
+        Rectangle2D dataArea = new Rectangle2D.Double();
+
+        if (!vertical) {
+
+            Rectangle first = table.getCellRect(firstRow, column, false);
+            Rectangle last = table.getCellRect(lastRow, column, false);
+            ChartPanelLayout.getDataArea(first.width, first.height, dataArea);
+
+            paint(g2, first.x + dataArea.getX(), first.y, dataArea.getWidth(), last.y + last.height - first.y,
+                    lowerBound, upperBound, false);
+
+        } else {
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                Rectangle cell = table.getCellRect(row, column, false);
+                ChartPanelLayout.getDataArea(cell.width, cell.height, dataArea);
+                paint(g2, cell.x + dataArea.getX(), cell.y + dataArea.getY(), dataArea.getWidth(), dataArea.getHeight(),
+                        lowerBound, upperBound, true);
+            }
+        }
+    }
+
+    @Override
+    public void paintOverlay(Graphics2D g2, ChartPanel chartPanel) {
+
+        if (isEmpty() || chartPanel.getChart() == null || chartPanel.getChartRenderingInfo() == null) {
+            return;
+        }
+
+        Plot plot = chartPanel.getChart().getPlot();
+        ValueAxis axis = null;
+        PlotOrientation plotOrientation = null;
+
+        if (plot instanceof XYPlot) {
+            axis = domainAxis ? ((XYPlot) plot).getDomainAxis() : ((XYPlot) plot).getRangeAxis();
+            plotOrientation = ((XYPlot) plot).getOrientation();
+        } else if (plot instanceof CategoryPlot && !domainAxis) {
+            axis = ((CategoryPlot) plot).getRangeAxis();
+            plotOrientation = ((CategoryPlot) plot).getOrientation();
+        }
+
+        if (axis == null) {
+            return;
+        }
+
+        Rectangle2D dataArea = chartPanel.getChartRenderingInfo().getPlotInfo().getDataArea();
+        double scaleX = chartPanel.getScaleX();
+        double scaleY = chartPanel.getScaleY();
+        double x = dataArea.getX() * scaleX;
+        double y = dataArea.getY() * scaleY;
+
+        // the chart panels in the table cells normally have no border
+        if (chartPanel.getBorder() != null) {
+            Rectangle2D screenDataArea = chartPanel.getScreenDataArea();
+            x = screenDataArea.getX();
+            y = screenDataArea.getY();
+        }
+
+        paint(g2, x, y, dataArea.getWidth() * scaleX, dataArea.getHeight() * scaleY,
+                axis.getLowerBound(), axis.getUpperBound(), isVertical(plotOrientation));
+    }
+
+    /**
+     * Does nothing, as the overlay cannot change.
+     *
+     * @param listener the listener
+     */
+    @Override
+    public void addChangeListener(OverlayChangeListener listener) {
+    }
+
+    /**
+     * Does nothing, as the overlay cannot change.
+     *
+     * @param listener the listener
+     */
+    @Override
+    public void removeChangeListener(OverlayChangeListener listener) {
+    }
+}
@@ -0,0 +1,260 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the rendering statistics of a renderer and plot type, as
+ * recorded by RendererMetrics. The percentiles are estimated from a
+ * logarithmic histogram with a relative error of at most 12.5%.
+ *
+ * @author Harald Barsnes
+ */
+public class RenderStatistics {
+
+    /**
+     * The name of the renderer.
+     */
+    private final String rendererName;
+    /**
+     * The plot type, null if the renderer has no plot types.
+     */
+    private final String plotType;
+    /**
+     * The number of cells rendered.
+     */
+    private final long renderCount;
+    /**
+     * The total render time in milliseconds.
+     */
+    private final double totalRenderTimeMillis;
+    /**
+     * The maximum render time in milliseconds.
+     */
+    private final double maxRenderTimeMillis;
+    /**
+     * The median render time in milliseconds.
+     */
+    private final double medianRenderTimeMillis;
+    /**
+     * The 90th percentile of the render time in milliseconds.
+     */
+    private final double percentile90RenderTimeMillis;
+    /**
+     * The 99th percentile of the render time in milliseconds.
+     */
+    private final double percentile99RenderTimeMillis;
+    /**
+     * The maximum number of values in a cell.
+     */
+    private final int maxNumberOfValues;
+    /**
+     * The total number of values rendered.
+     */
+    private final long totalNumberOfValues;
+    /**
+     * The number of image cache hits.
+     */
+    private final long cacheHits;
+    /**
+     * The number of image cache misses.
+     */
+    private final long cacheMisses;
+
+    /**
+     * Creates a new RenderStatistics object.
+     *
+     * @param rendererName the name of the renderer
+     * @param plotType the plot type, null if the renderer has no plot types
+     * @param renderCount the number of cells rendered
+     * @param totalRenderTimeMillis the total render time in milliseconds
+     * @param maxRenderTimeMillis the maximum render time in milliseconds
+     * @param medianRenderTimeMillis the median render time in milliseconds
+     * @param percentile90RenderTimeMillis the 90th percentile of the render
+     * time in milliseconds
+     * @param percentile99RenderTimeMillis the 99th percentile of the render
+     * time in milliseconds
+     * @param maxNumberOfValues the maximum number of values in a cell
+     * @param totalNumberOfValues the total number of values rendered
+     * @param cacheHits the number of image cache hits
+     * @param cacheMisses the number of image cache misses
+     */
+    @ConstructorProperties({"rendererName", "plotType", "renderCount", "totalRenderTimeMillis", "maxRenderTimeMillis",
+        "medianRenderTimeMillis", "percentile90RenderTimeMillis", "percentile99RenderTimeMillis", "maxNumberOfValues",
+        "totalNumberOfValues", "cacheHits", "cacheMisses"})
+    public RenderStatistics(String rendererName, String plotType, long renderCount, double totalRenderTimeMillis,
+            double maxRenderTimeMillis, double medianRenderTimeMillis, double percentile90RenderTimeMillis,
+            double percentile99RenderTimeMillis, int maxNumberOfValues, long totalNumberOfValues,
+            long cacheHits, long cacheMisses) {
+        this.rendererName = rendererName;
+        this.plotType = plotType;
+        this.renderCount = renderCount;
+        this.totalRenderTimeMillis = totalRenderTimeMillis;
+        this.maxRenderTimeMillis = maxRenderTimeMillis;
+        this.medianRenderTimeMillis = medianRenderTimeMillis;
+        this.percentile90RenderTimeMillis = percentile90RenderTimeMillis;
+        this.percentile99RenderTimeMillis = percentile99RenderTimeMillis;
+        this.maxNumberOfValues = maxNumberOfValues;
+        this.totalNumberOfValues = totalNumberOfValues;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+    }
+
+    /**
+     * Returns the name of the renderer.
+     *
+     * @return the name of the renderer
+     */
+    public String getRendererName() {
+        return rendererName;
+    }
+
+    /**
+     * Returns the plot type.
+     *
+     * @return the plot type, null if the renderer has no plot types
+     */
+    public String getPlotType() {
+        return plotType;
+    }
+
+    /**
+     * Returns the number of cells rendered.
+     *
+     * @return the number of cells rendered
+     */
+    public long getRenderCount() {
+        return renderCount;
+    }
+
+    /**
+     * Returns the total render time in milliseconds.
+     *
+     * @return the total render time in milliseconds
+     */
+    public double getTotalRenderTimeMillis() {
+        return totalRenderTimeMillis;
+    }
+
+    /**
+     * Returns the mean render time in milliseconds.
+     *
+     * @return the mean render time in milliseconds
+     */
+    public double getMeanRenderTimeMillis() {
+        if (renderCount == 0) {
+            return 0;
+        }
+        return totalRenderTimeMillis / renderCount;
+    }
+
+    /**
+     * Returns the maximum render time in milliseconds.
+     *
+     * @return the maximum render time in milliseconds
+     */
+    public double getMaxRenderTimeMillis() {
+        return maxRenderTimeMillis;
+    }
+
+    /**
+     * Returns the median render time in milliseconds.
+     *
+     * @return the median render time in milliseconds
+     */
+    public double getMedianRenderTimeMillis() {
+        return medianRenderTimeMillis;
+    }
+
+    /**
+     * Returns the 90th percentile of the render time in milliseconds.
+     *
+     * @return the 90th percentile of the render time in milliseconds
+     */
+    public double getPercentile90RenderTimeMillis() {
+        return percentile90RenderTimeMillis;
+    }
+
+    /**
+     * Returns the 99th percentile of the render time in milliseconds.
+     *
+     * @return the 99th percentile of the render time in milliseconds
+     */
+    public double getPercentile99RenderTimeMillis() {
+        return percentile99RenderTimeMillis;
+    }
+
+    /**
+     * Returns the maximum number of values in a cell.
+     *
+     * @return the maximum number of values in a cell
+     */
+    public int getMaxNumberOfValues() {
+        return maxNumberOfValues;
+    }
+
+    /**
+     * Returns the total number of values rendered.
+     *
+     * @return the total number of values rendered
+     */
+    public long getTotalNumberOfValues() {
+        return totalNumberOfValues;
+    }
+
+    /**
+     * Returns the mean number of values per cell.
+     *
+     * @return the mean number of values per cell
+     */
+    public double getMeanNumberOfValues() {
+        if (renderCount == 0) {
+            return 0;
+        }
+        return ((double) totalNumberOfValues) / renderCount;
+    }
+
+    /**
+     * Returns the number of image cache hits.
+     *
+     * @return the number of image cache hits
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Returns the number of image cache misses.
+     *
+     * @return the number of image cache misses
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * Returns the share of the image cache lookups that were hits, between 0
+     * and 1.
+     *
+     * @return the cache hit rate, 0 if no image cache was used
+     */
+    public double getCacheHitRate() {
+        long lookups = cacheHits + cacheMisses;
+        if (lookups == 0) {
+            return 0;
+        }
+        return ((double) cacheHits) / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return rendererName + (plotType != null ? " (" + plotType + ")" : "")
+                + ": " + renderCount + " cells"
+                + ", mean " + getMeanRenderTimeMillis() + " ms"
+                + ", median " + medianRenderTimeMillis + " ms"
+                + ", p90 " + percentile90RenderTimeMillis + " ms"
+                + ", p99 " + percentile99RenderTimeMillis + " ms"
+                + ", max " + maxRenderTimeMillis + " ms"
+                + ", max values " + maxNumberOfValues
+                + (cacheHits + cacheMisses > 0 ? ", cache hit rate " + getCacheHitRate() : "");
+    }
+}
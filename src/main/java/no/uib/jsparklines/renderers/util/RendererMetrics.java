@@ -0,0 +1,616 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import no.uib.jsparklines.data.ArrrayListDataPoints;
+import no.uib.jsparklines.data.JSparklines3dDataSeries;
+import no.uib.jsparklines.data.JSparklines3dDataset;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.data.JSparklinesMultiLabelDataset;
+import no.uib.jsparklines.data.StartIndexes;
+
+/**
+ * Records the number of cells rendered, the render times and the image cache
+ * hit rates of the renderers using it, per renderer and plot type. The render
+ * time includes both getTableCellRendererComponent and the painting of the
+ * cell. Can be shared by several renderers, and used to identify the columns
+ * that are slow to render, e.g., line charts with thousands of points.
+ * <br><br>
+ * The recording is enabled per renderer via setRendererMetrics, and has no
+ * cost for the renderers where it is not enabled. The statistics are available
+ * via getRenderStatistics, a RendererMetricsListener and JMX, see register.
+ *
+ * @author Harald Barsnes
+ */
+public class RendererMetrics implements RendererMetricsMXBean {
+
+    /**
+     * The JMX domain used when registering the metrics.
+     */
+    public static final String JMX_DOMAIN = "no.uib.jsparklines";
+    /**
+     * The number of histogram buckets per power of two.
+     */
+    private static final int BUCKETS_PER_POWER_OF_TWO = 4;
+    /**
+     * The number of histogram buckets, covering all positive long values.
+     */
+    private static final int NUMBER_OF_BUCKETS = 62 * BUCKETS_PER_POWER_OF_TWO;
+    /**
+     * The number of nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    /**
+     * The statistics per renderer name and plot type.
+     */
+    private final HashMap<StatisticsKey, Statistics> statistics = new HashMap<>();
+    /**
+     * Key reused for the lookups.
+     */
+    private final StatisticsKey lookupKey = new StatisticsKey(null, null);
+    /**
+     * The listeners.
+     */
+    private final CopyOnWriteArrayList<RendererMetricsListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * The name the metrics are registered under in JMX, null if not
+     * registered.
+     */
+    private ObjectName objectName;
+
+    /**
+     * Creates a new RendererMetrics object.
+     */
+    public RendererMetrics() {
+    }
+
+    /**
+     * Creates a recorder used by a renderer to report its render times.
+     *
+     * @param rendererName the name of the renderer, e.g., the column name
+     * @return a new recorder
+     */
+    public Recorder createRecorder(String rendererName) {
+        return new Recorder(this, rendererName);
+    }
+
+    /**
+     * Records the rendering of a cell.
+     *
+     * @param rendererName the name of the renderer
+     * @param plotType the plot type, null if the renderer has no plot types
+     * @param row the row index of the cell
+     * @param column the column index of the cell
+     * @param numberOfValues the number of values in the cell
+     * @param renderTime the time used to prepare and paint the cell in
+     * nanoseconds
+     * @param cacheHit true if the cell was drawn from the image cache, false if
+     * not found in the cache, null if no image cache was used
+     */
+    public void recordRendering(String rendererName, String plotType, int row, int column,
+            int numberOfValues, long renderTime, Boolean cacheHit) {
+
+        synchronized (this) {
+            lookupKey.rendererName = rendererName;
+            lookupKey.plotType = plotType;
+            Statistics rendererStatistics = statistics.get(lookupKey);
+            if (rendererStatistics == null) {
+                rendererStatistics = new Statistics();
+                statistics.put(new StatisticsKey(rendererName, plotType), rendererStatistics);
+            }
+            rendererStatistics.add(numberOfValues, renderTime, cacheHit);
+        }
+
+        for (RendererMetricsListener listener : listeners) {
+            listener.cellRendered(rendererName, plotType, row, column, numberOfValues, renderTime, cacheHit);
+        }
+    }
+
+    /**
+     * Adds a listener notified of every cell rendered.
+     *
+     * @param listener the listener
+     */
+    public void addListener(RendererMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(RendererMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public synchronized long getRenderCount() {
+        long renderCount = 0;
+        for (Statistics rendererStatistics : statistics.values()) {
+            renderCount += rendererStatistics.renderCount;
+        }
+        return renderCount;
+    }
+
+    @Override
+    public synchronized double getTotalRenderTimeMillis() {
+        long totalRenderTime = 0;
+        for (Statistics rendererStatistics : statistics.values()) {
+            totalRenderTime += rendererStatistics.totalRenderTime;
+        }
+        return totalRenderTime / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public List<RenderStatistics> getRenderStatistics() {
+
+        ArrayList<RenderStatistics> result = new ArrayList<>();
+
+        synchronized (this) {
+            for (Map.Entry<StatisticsKey, Statistics> entry : statistics.entrySet()) {
+                result.add(entry.getValue().getSnapshot(entry.getKey()));
+            }
+        }
+
+        Collections.sort(result, new Comparator<RenderStatistics>() {
+            @Override
+            public int compare(RenderStatistics o1, RenderStatistics o2) {
+                return Double.compare(o2.getTotalRenderTimeMillis(), o1.getTotalRenderTimeMillis());
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns the rendering statistics of the given renderer and plot type.
+     *
+     * @param rendererName the name of the renderer
+     * @param plotType the plot type, null if the renderer has no plot types
+     * @return the rendering statistics, null if nothing was recorded
+     */
+    public synchronized RenderStatistics getRenderStatistics(String rendererName, String plotType) {
+        lookupKey.rendererName = rendererName;
+        lookupKey.plotType = plotType;
+        Statistics rendererStatistics = statistics.get(lookupKey);
+        if (rendererStatistics == null) {
+            return null;
+        }
+        return rendererStatistics.getSnapshot(new StatisticsKey(rendererName, plotType));
+    }
+
+    @Override
+    public synchronized void reset() {
+        statistics.clear();
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server, under the object
+     * name no.uib.jsparklines:type=RendererMetrics,name=[name].
+     *
+     * @param name the name of the metrics
+     * @return the object name the metrics are registered under
+     * @throws JMException if the metrics could not be registered
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        if (objectName != null) {
+            unregister();
+        }
+        ObjectName newObjectName = new ObjectName(JMX_DOMAIN + ":type=RendererMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+        objectName = newObjectName;
+        return objectName;
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server. Does nothing if
+     * the metrics are not registered.
+     *
+     * @throws JMException if the metrics could not be unregistered
+     */
+    public synchronized void unregister() throws JMException {
+        if (objectName != null) {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            objectName = null;
+        }
+    }
+
+    /**
+     * Returns the number of values in the given cell value, e.g., the number
+     * of data points in a sparkline dataset.
+     *
+     * @param value the cell value
+     * @return the number of values
+     */
+    public static int getNumberOfValues(Object value) {
+
+        if (value == null) {
+            return 0;
+        } else if (value instanceof JSparklinesDataset) {
+            int numberOfValues = 0;
+            for (JSparklinesDataSeries dataSeries : ((JSparklinesDataset) value).getData()) {
+                numberOfValues += dataSeries.size();
+            }
+            return numberOfValues;
+        } else if (value instanceof JSparklines3dDataset) {
+            int numberOfValues = 0;
+            for (JSparklines3dDataSeries dataSeries : ((JSparklines3dDataset) value).getData()) {
+                numberOfValues += dataSeries.getData().size();
+            }
+            return numberOfValues;
+        } else if (value instanceof ArrrayListDataPoints) {
+            return ((ArrrayListDataPoints) value).getData().size();
+        } else if (value instanceof StartIndexes) {
+            return ((StartIndexes) value).size();
+        } else if (value instanceof JSparklinesMultiLabelDataset) {
+            return ((JSparklinesMultiLabelDataset) value).getLabels().size();
+        }
+
+        return 1;
+    }
+
+    /**
+     * Returns the histogram bucket of the given time.
+     *
+     * @param time the time in nanoseconds
+     * @return the histogram bucket
+     */
+    private static int getBucket(long time) {
+        if (time < BUCKETS_PER_POWER_OF_TWO) {
+            return (int) Math.max(time, 0);
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(time);
+        int subBucket = (int) (time >>> (highestBit - 2)) & (BUCKETS_PER_POWER_OF_TWO - 1);
+        return (highestBit - 1) * BUCKETS_PER_POWER_OF_TWO + subBucket;
+    }
+
+    /**
+     * Returns the time in the middle of the given histogram bucket.
+     *
+     * @param bucket the histogram bucket
+     * @return the time in the middle of the bucket in nanoseconds
+     */
+    private static double getBucketMiddle(int bucket) {
+        if (bucket < BUCKETS_PER_POWER_OF_TWO) {
+            return bucket;
+        }
+        int highestBit = bucket / BUCKETS_PER_POWER_OF_TWO + 1;
+        int subBucket = bucket % BUCKETS_PER_POWER_OF_TWO;
+        double bucketWidth = Math.pow(2, highestBit - 2);
+        return (BUCKETS_PER_POWER_OF_TWO + subBucket) * bucketWidth + (bucketWidth - 1) / 2;
+    }
+
+    /**
+     * The statistics of a renderer and plot type.
+     */
+    private static class Statistics {
+
+        /**
+         * The number of cells rendered.
+         */
+        private long renderCount = 0;
+        /**
+         * The total render time in nanoseconds.
+         */
+        private long totalRenderTime = 0;
+        /**
+         * The maximum render time in nanoseconds.
+         */
+        private long maxRenderTime = 0;
+        /**
+         * The histogram of the render times.
+         */
+        private final long[] histogram = new long[NUMBER_OF_BUCKETS];
+        /**
+         * The total number of values rendered.
+         */
+        private long totalNumberOfValues = 0;
+        /**
+         * The maximum number of values in a cell.
+         */
+        private int maxNumberOfValues = 0;
+        /**
+         * The number of image cache hits.
+         */
+        private long cacheHits = 0;
+        /**
+         * The number of image cache misses.
+         */
+        private long cacheMisses = 0;
+
+        /**
+         * Adds a rendered cell.
+         *
+         * @param numberOfValues the number of values in the cell
+         * @param renderTime the render time in nanoseconds
+         * @param cacheHit true for an image cache hit, false for a miss, null
+         * if no image cache was used
+         */
+        private void add(int numberOfValues, long renderTime, Boolean cacheHit) {
+            renderCount++;
+            totalRenderTime += renderTime;
+            maxRenderTime = Math.max(maxRenderTime, renderTime);
+            histogram[getBucket(renderTime)]++;
+            totalNumberOfValues += numberOfValues;
+            maxNumberOfValues = Math.max(maxNumberOfValues, numberOfValues);
+            if (cacheHit != null) {
+                if (cacheHit) {
+                    cacheHits++;
+                } else {
+                    cacheMisses++;
+                }
+            }
+        }
+
+        /**
+         * Returns the given percentile of the render time in milliseconds.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the percentile in milliseconds
+         */
+        private double getPercentileMillis(double percentile) {
+            if (renderCount == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * renderCount));
+            long count = 0;
+            for (int bucket = 0; bucket < histogram.length; bucket++) {
+                count += histogram[bucket];
+                if (count >= rank) {
+                    return Math.min(getBucketMiddle(bucket), maxRenderTime) / NANOS_PER_MILLI;
+                }
+            }
+            return maxRenderTime / NANOS_PER_MILLI;
+        }
+
+        /**
+         * Returns a snapshot of the statistics.
+         *
+         * @param key the renderer name and plot type
+         * @return a snapshot of the statistics
+         */
+        private RenderStatistics getSnapshot(StatisticsKey key) {
+            return new RenderStatistics(key.rendererName, key.plotType, renderCount,
+                    totalRenderTime / NANOS_PER_MILLI, maxRenderTime / NANOS_PER_MILLI,
+                    getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(99),
+                    maxNumberOfValues, totalNumberOfValues, cacheHits, cacheMisses);
+        }
+    }
+
+    /**
+     * The key of the statistics, i.e., the renderer name and plot type.
+     */
+    private static class StatisticsKey {
+
+        /**
+         * The name of the renderer.
+         */
+        private String rendererName;
+        /**
+         * The plot type, null if the renderer has no plot types.
+         */
+        private String plotType;
+
+        /**
+         * Creates a new StatisticsKey.
+         *
+         * @param rendererName the name of the renderer
+         * @param plotType the plot type
+         */
+        private StatisticsKey(String rendererName, String plotType) {
+            this.rendererName = rendererName;
+            this.plotType = plotType;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(rendererName) + Objects.hashCode(plotType);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StatisticsKey)) {
+                return false;
+            }
+            StatisticsKey other = (StatisticsKey) obj;
+            return Objects.equals(rendererName, other.rendererName) && Objects.equals(plotType, other.plotType);
+        }
+    }
+
+    /**
+     * Measures the render times of a renderer. The time used by
+     * getTableCellRendererComponent is added to the time used to paint the
+     * renderer afterwards. Only to be used by one renderer, on one thread.
+     */
+    public static class Recorder {
+
+        /**
+         * The metrics the render times are reported to.
+         */
+        private final RendererMetrics rendererMetrics;
+        /**
+         * The name of the renderer.
+         */
+        private final String rendererName;
+        /**
+         * The image cache used, null if none.
+         */
+        private SparklineImageCache imageCache;
+        /**
+         * The cache hit count when the rendering started.
+         */
+        private long cacheHitCount;
+        /**
+         * The cache miss count when the rendering started.
+         */
+        private long cacheMissCount;
+        /**
+         * The time the rendering started in nanoseconds.
+         */
+        private long startTime;
+        /**
+         * The time used by getTableCellRendererComponent in nanoseconds.
+         */
+        private long prepareTime;
+        /**
+         * The time the painting started in nanoseconds.
+         */
+        private long paintStartTime;
+        /**
+         * True if the rendered component is waiting to be painted.
+         */
+        private boolean paintPending = false;
+        /**
+         * The plot type of the pending cell.
+         */
+        private String plotType;
+        /**
+         * The row index of the pending cell.
+         */
+        private int row;
+        /**
+         * The column index of the pending cell.
+         */
+        private int column;
+        /**
+         * The number of values in the pending cell.
+         */
+        private int numberOfValues;
+        /**
+         * The cache hit status of the pending cell.
+         */
+        private Boolean cacheHit;
+
+        /**
+         * Creates a new recorder.
+         *
+         * @param rendererMetrics the metrics the render times are reported to
+         * @param rendererName the name of the renderer
+         */
+        private Recorder(RendererMetrics rendererMetrics, String rendererName) {
+            this.rendererMetrics = rendererMetrics;
+            this.rendererName = rendererName;
+        }
+
+        /**
+         * Returns the metrics the render times are reported to.
+         *
+         * @return the metrics
+         */
+        public RendererMetrics getRendererMetrics() {
+            return rendererMetrics;
+        }
+
+        /**
+         * Returns the name of the renderer.
+         *
+         * @return the name of the renderer
+         */
+        public String getRendererName() {
+            return rendererName;
+        }
+
+        /**
+         * Called at the start of getTableCellRendererComponent. A cell that
+         * was prepared but never painted, e.g., for a tooltip, is recorded
+         * without paint time.
+         *
+         * @param imageCache the image cache used by the renderer, null if
+         * none
+         */
+        public void start(SparklineImageCache imageCache) {
+
+            if (paintPending) {
+                record(prepareTime);
+            }
+
+            this.imageCache = imageCache;
+
+            if (imageCache != null) {
+                cacheHitCount = imageCache.getHitCount();
+                cacheMissCount = imageCache.getMissCount();
+            }
+
+            startTime = System.nanoTime();
+        }
+
+        /**
+         * Called at the end of getTableCellRendererComponent. If the renderer
+         * returned itself, the cell is recorded when painted, otherwise it is
+         * recorded directly.
+         *
+         * @param paintPending true if the renderer returned itself, and is
+         * about to be painted
+         * @param plotType the plot type, null if the renderer has no plot types
+         * @param value the cell value
+         * @param row the row index
+         * @param column the column index
+         */
+        public void prepared(boolean paintPending, String plotType, Object value, int row, int column) {
+
+            prepareTime = System.nanoTime() - startTime;
+
+            this.plotType = plotType;
+            this.row = row;
+            this.column = column;
+            this.numberOfValues = getNumberOfValues(value);
+            cacheHit = null;
+
+            if (imageCache != null) {
+                if (imageCache.getHitCount() > cacheHitCount) {
+                    cacheHit = Boolean.TRUE;
+                } else if (imageCache.getMissCount() > cacheMissCount) {
+                    cacheHit = Boolean.FALSE;
+                }
+            }
+
+            if (paintPending) {
+                this.paintPending = true;
+            } else {
+                record(prepareTime);
+            }
+        }
+
+        /**
+         * Called at the start of the painting of the renderer.
+         */
+        public void startPaint() {
+            paintStartTime = System.nanoTime();
+        }
+
+        /**
+         * Called at the end of the painting of the renderer. Records the
+         * pending cell, if any.
+         */
+        public void painted() {
+            if (paintPending) {
+                record(prepareTime + System.nanoTime() - paintStartTime);
+            }
+        }
+
+        /**
+         * Records the pending cell.
+         *
+         * @param renderTime the render time in nanoseconds
+         */
+        private void record(long renderTime) {
+            paintPending = false;
+            rendererMetrics.recordRendering(rendererName, plotType, row, column, numberOfValues, renderTime, cacheHit);
+        }
+    }
+}
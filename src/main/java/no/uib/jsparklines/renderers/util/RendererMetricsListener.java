@@ -0,0 +1,28 @@
+package no.uib.jsparklines.renderers.util;
+
+/**
+ * Listener notified of every table cell rendered by a renderer recording its
+ * metrics in a RendererMetrics object.
+ *
+ * @author Harald Barsnes
+ */
+public interface RendererMetricsListener {
+
+    /**
+     * Called after a cell has been rendered. Called on the thread rendering
+     * the cell, normally the event dispatch thread, i.e., the implementation
+     * should return quickly.
+     *
+     * @param rendererName the name of the renderer
+     * @param plotType the plot type, null if the renderer has no plot types
+     * @param row the row index of the cell
+     * @param column the column index of the cell
+     * @param numberOfValues the number of values in the cell
+     * @param renderTime the time used to prepare and paint the cell in
+     * nanoseconds
+     * @param cacheHit true if the cell was drawn from the image cache, false if
+     * not found in the cache, null if no image cache was used
+     */
+    public void cellRendered(String rendererName, String plotType, int row, int column,
+            int numberOfValues, long renderTime, Boolean cacheHit);
+}
@@ -0,0 +1,39 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.util.List;
+
+/**
+ * Management interface of RendererMetrics, making the rendering statistics
+ * available via JMX.
+ *
+ * @author Harald Barsnes
+ */
+public interface RendererMetricsMXBean {
+
+    /**
+     * Returns the total number of cells rendered.
+     *
+     * @return the total number of cells rendered
+     */
+    public long getRenderCount();
+
+    /**
+     * Returns the total time used to render the cells in milliseconds.
+     *
+     * @return the total render time in milliseconds
+     */
+    public double getTotalRenderTimeMillis();
+
+    /**
+     * Returns the rendering statistics per renderer and plot type, sorted by
+     * decreasing total render time.
+     *
+     * @return the rendering statistics
+     */
+    public List<RenderStatistics> getRenderStatistics();
+
+    /**
+     * Removes all the recorded statistics.
+     */
+    public void reset();
+}
@@ -0,0 +1,103 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.Component;
+
+/**
+ * Records the render times of a MeteredTableCellRenderer. The renderer calls
+ * start and prepared around the preparation of the cell in
+ * getTableCellRendererComponent, and startPaint and painted around the
+ * painting of the cell. All the methods return directly if the recording is
+ * not enabled.
+ *
+ * @author Harald Barsnes
+ */
+public class RendererMetricsSupport {
+
+    /**
+     * The recorder of the render times, null if the render times are not
+     * recorded.
+     */
+    private RendererMetrics.Recorder metricsRecorder = null;
+
+    /**
+     * Creates a new RendererMetricsSupport, with the recording disabled.
+     */
+    public RendererMetricsSupport() {
+    }
+
+    /**
+     * Set the metrics recording the render times.
+     *
+     * @param rendererMetrics the metrics, null disables the recording
+     * @param rendererName the name of the renderer in the metrics, e.g., the
+     * column name
+     */
+    public void setRendererMetrics(RendererMetrics rendererMetrics, String rendererName) {
+        if (rendererMetrics == null) {
+            metricsRecorder = null;
+        } else {
+            metricsRecorder = rendererMetrics.createRecorder(rendererName);
+        }
+    }
+
+    /**
+     * Returns the metrics recording the render times.
+     *
+     * @return the metrics, null if the render times are not recorded
+     */
+    public RendererMetrics getRendererMetrics() {
+        if (metricsRecorder == null) {
+            return null;
+        }
+        return metricsRecorder.getRendererMetrics();
+    }
+
+    /**
+     * Called at the start of getTableCellRendererComponent.
+     *
+     * @param imageCache the image cache used by the renderer, null if none
+     */
+    public void start(SparklineImageCache imageCache) {
+        if (metricsRecorder != null) {
+            metricsRecorder.start(imageCache);
+        }
+    }
+
+    /**
+     * Called at the end of getTableCellRendererComponent. If the renderer
+     * returned itself, the cell is recorded when painted, otherwise it is
+     * recorded directly.
+     *
+     * @param component the component returned for the cell
+     * @param renderer the renderer
+     * @param plotType the plot type, null if the renderer has no plot types
+     * @param value the cell value
+     * @param row the row index
+     * @param column the column index
+     * @return the component returned for the cell
+     */
+    public Component prepared(Component component, Component renderer, String plotType, Object value, int row, int column) {
+        if (metricsRecorder != null) {
+            metricsRecorder.prepared(component == renderer, plotType, value, row, column);
+        }
+        return component;
+    }
+
+    /**
+     * Called at the start of the painting of the renderer.
+     */
+    public void startPaint() {
+        if (metricsRecorder != null) {
+            metricsRecorder.startPaint();
+        }
+    }
+
+    /**
+     * Called at the end of the painting of the renderer.
+     */
+    public void painted() {
+        if (metricsRecorder != null) {
+            metricsRecorder.painted();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package no.uib.jsparklines.renderers.util;
+
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+
+/**
+ * Reduces a data series to a number of points proportional to the number of
+ * pixels available for plotting it, while preserving the peaks. The x values
+ * of the decimated points are the indexes of the points in the original data
+ * series. The buffers holding the decimated points are reused between calls.
+ *
+ * @author Harald Barsnes
+ */
+public class SeriesDecimator {
+
+    /**
+     * The supported decimation methods.
+     */
+    public enum Decimation {
+
+        /**
+         * All the points are plotted.
+         */
+        none,
+        /**
+         * The series is split into one bucket per pixel, and the minimum and
+         * maximum value of each bucket is kept. Keeps all the peaks.
+         */
+        minMax,
+        /**
+         * Largest-Triangle-Three-Buckets, keeping the point of each bucket
+         * forming the largest triangle with the point kept in the previous
+         * bucket and the average of the next bucket. Gives a smoother curve
+         * than minMax but can drop narrow peaks.
+         */
+        largestTriangleThreeBuckets
+    }
+    /**
+     * The x values of the decimated series.
+     */
+    private double[] xValues = new double[0];
+    /**
+     * The y values of the decimated series.
+     */
+    private double[] yValues = new double[0];
+    /**
+     * The number of points in the decimated series.
+     */
+    private int size = 0;
+
+    /**
+     * Creates a new SeriesDecimator.
+     */
+    public SeriesDecimator() {
+    }
+
+    /**
+     * Decimates the given data series to about two points per pixel. Series
+     * that already are small enough are kept as they are.
+     *
+     * @param dataSeries the data series to decimate
+     * @param decimation the decimation method
+     * @param numberOfPixels the number of pixels available along the x-axis
+     */
+    public void decimate(JSparklinesDataSeries dataSeries, Decimation decimation, int numberOfPixels) {
+
+        int n = dataSeries.size();
+        int maxPoints = 2 * Math.max(1, numberOfPixels);
+
+        if (decimation == Decimation.none || n <= maxPoints + 2) {
+            ensureCapacity(n);
+            for (int i = 0; i < n; i++) {
+                xValues[i] = i;
+                yValues[i] = dataSeries.getValue(i);
+            }
+            size = n;
+        } else if (decimation == Decimation.minMax) {
+            decimateMinMax(dataSeries, Math.max(1, numberOfPixels));
+        } else { // decimation == Decimation.largestTriangleThreeBuckets
+            decimateLargestTriangleThreeBuckets(dataSeries, Math.max(3, maxPoints));
+        }
+    }
+
+    /**
+     * Keeps the first and last point, and the minimum and maximum of each
+     * bucket, in the order they appear in the data series.
+     *
+     * @param dataSeries the data series to decimate
+     * @param numberOfBuckets the number of buckets
+     */
+    private void decimateMinMax(JSparklinesDataSeries dataSeries, int numberOfBuckets) {
+
+        int n = dataSeries.size();
+        ensureCapacity(2 * numberOfBuckets + 2);
+        size = 0;
+
+        add(0, dataSeries.getValue(0));
+
+        for (int bucket = 0; bucket < numberOfBuckets; bucket++) {
+
+            int start = Math.max(1, (int) ((long) bucket * n / numberOfBuckets));
+            int end = Math.min(n - 1, (int) ((long) (bucket + 1) * n / numberOfBuckets));
+
+            if (start >= end) {
+                continue;
+            }
+
+            int indexOfMin = start;
+            int indexOfMax = start;
+            double min = dataSeries.getValue(start);
+            double max = min;
+
+            for (int i = start + 1; i < end; i++) {
+                double value = dataSeries.getValue(i);
+                if (value < min) {
+                    min = value;
+                    indexOfMin = i;
+                } else if (value > max) {
+                    max = value;
+                    indexOfMax = i;
+                }
+            }
+
+            if (indexOfMin == indexOfMax) {
+                add(indexOfMin, min);
+            } else if (indexOfMin < indexOfMax) {
+                add(indexOfMin, min);
+                add(indexOfMax, max);
+            } else {
+                add(indexOfMax, max);
+                add(indexOfMin, min);
+            }
+        }
+
+        add(n - 1, dataSeries.getValue(n - 1));
+    }
+
+    /**
+     * Decimates the data series using the Largest-Triangle-Three-Buckets
+     * algorithm.
+     *
+     * @param dataSeries the data series to decimate
+     * @param numberOfPoints the number of points to keep, at least three
+     */
+    private void decimateLargestTriangleThreeBuckets(JSparklinesDataSeries dataSeries, int numberOfPoints) {
+
+        int n = dataSeries.size();
+        ensureCapacity(numberOfPoints);
+        size = 0;
+
+        double bucketSize = (double) (n - 2) / (numberOfPoints - 2);
+        int selected = 0;
+
+        add(0, dataSeries.getValue(0));
+
+        for (int bucket = 0; bucket < numberOfPoints - 2; bucket++) {
+
+            // the average of the next bucket, the last point for the last bucket
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min(n, (int) ((bucket + 2) * bucketSize) + 1);
+            double averageX = 0;
+            double averageY = 0;
+
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += i;
+                averageY += dataSeries.getValue(i);
+            }
+
+            if (nextEnd > nextStart) {
+                averageX /= nextEnd - nextStart;
+                averageY /= nextEnd - nextStart;
+            } else {
+                averageX = n - 1;
+                averageY = dataSeries.getValue(n - 1);
+            }
+
+            // the point of the current bucket with the largest triangle
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double selectedY = dataSeries.getValue(selected);
+            double maxArea = -1;
+            int indexOfMaxArea = start;
+
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((selected - averageX) * (dataSeries.getValue(i) - selectedY)
+                        - (selected - i) * (averageY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    indexOfMaxArea = i;
+                }
+            }
+
+            add(indexOfMaxArea, dataSeries.getValue(indexOfMaxArea));
+            selected = indexOfMaxArea;
+        }
+
+        add(n - 1, dataSeries.getValue(n - 1));
+    }
+
+    /**
+     * Adds a point to the decimated series.
+     *
+     * @param index the index of the point in the original data series
+     * @param value the value of the point
+     */
+    private void add(int index, double value) {
+        xValues[size] = index;
+        yValues[size] = value;
+        size++;
+    }
+
+    /**
+     * Makes sure that the buffers can hold the given number of points.
+     *
+     * @param capacity the number of points
+     */
+    private void ensureCapacity(int capacity) {
+        if (xValues.length < capacity) {
+            xValues = new double[capacity];
+            yValues = new double[capacity];
+        }
+    }
+
+    /**
+     * Returns the number of points in the decimated series.
+     *
+     * @return the number of points in the decimated series
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the x value of the given point, i.e., the index of the point in
+     * the original data series.
+     *
+     * @param index the index of the point in the decimated series
+     * @return the x value
+     */
+    public double getXValue(int index) {
+        return xValues[index];
+    }
+
+    /**
+     * Returns the y value of the given point.
+     *
+     * @param index the index of the point in the decimated series
+     * @return the y value
+     */
+    public double getYValue(int index) {
+        return yValues[index];
+    }
+}
@@ -0,0 +1,267 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import org.jfree.data.UnknownKeyException;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+import org.jfree.data.general.DatasetChangeEvent;
+
+/**
+ * Category dataset reading the values straight from a JSparklinesDataset. Used
+ * to reuse the same chart for all the cells in a column without copying the
+ * data into a new DefaultCategoryDataset for every cell.
+ *
+ * @author Harald Barsnes
+ */
+public class SparklineCategoryDataset extends AbstractDataset implements CategoryDataset {
+
+    /**
+     * The supported layouts.
+     */
+    public enum Layout {
+
+        /**
+         * One row containing all the values of all the data series, one
+         * column per value.
+         */
+        bars,
+        /**
+         * One row containing 1 for the positive values and -1 for the other
+         * values of all the data series, one column per value.
+         */
+        upDown,
+        /**
+         * One row per data series and one column per value index.
+         */
+        stacked
+    }
+    /**
+     * The key of the single row in the non-stacked layouts.
+     */
+    private static final String SINGLE_ROW_KEY = "1";
+    /**
+     * The sparklines dataset.
+     */
+    private JSparklinesDataset dataset;
+    /**
+     * The current layout.
+     */
+    private Layout layout = Layout.bars;
+    /**
+     * The number of rows.
+     */
+    private int rowCount = 0;
+    /**
+     * The number of columns.
+     */
+    private int columnCount = 0;
+    /**
+     * The index of the first value of each data series, only used by the non
+     * stacked layouts.
+     */
+    private int[] seriesOffsets = new int[0];
+    /**
+     * The Integer column keys used by the non-stacked layouts, reused across
+     * updates.
+     */
+    private final ArrayList<Comparable<?>> integerKeys = new ArrayList<>();
+    /**
+     * The String keys used by the stacked layout, reused across updates.
+     */
+    private final ArrayList<Comparable<?>> stringKeys = new ArrayList<>();
+    /**
+     * The change event, reused for every update.
+     */
+    private final DatasetChangeEvent changeEvent = new DatasetChangeEvent(this, this);
+
+    /**
+     * Creates a new empty SparklineCategoryDataset.
+     */
+    public SparklineCategoryDataset() {
+    }
+
+    /**
+     * Set the sparklines dataset to display and notifies the listeners.
+     *
+     * @param dataset the sparklines dataset
+     * @param layout the layout to use
+     */
+    public void setDataset(JSparklinesDataset dataset, Layout layout) {
+
+        this.dataset = dataset;
+        this.layout = layout;
+
+        int numberOfSeries = dataset.getData().size();
+
+        if (layout == Layout.stacked) {
+            rowCount = numberOfSeries;
+            columnCount = 0;
+            for (int i = 0; i < numberOfSeries; i++) {
+                columnCount = Math.max(columnCount, dataset.getData().get(i).size());
+            }
+            ensureKeys(stringKeys, Math.max(rowCount, columnCount), false);
+        } else {
+            if (seriesOffsets.length < numberOfSeries) {
+                seriesOffsets = new int[numberOfSeries * 2];
+            }
+            columnCount = 0;
+            for (int i = 0; i < numberOfSeries; i++) {
+                seriesOffsets[i] = columnCount;
+                columnCount += dataset.getData().get(i).size();
+            }
+            rowCount = columnCount > 0 ? 1 : 0;
+            ensureKeys(integerKeys, columnCount, true);
+        }
+
+        if (getNotify()) {
+            notifyListeners(changeEvent);
+        }
+    }
+
+    /**
+     * Makes sure that the given key list contains at least the given number of
+     * keys.
+     *
+     * @param keys the keys
+     * @param size the wanted number of keys
+     * @param integerKeys if true Integer keys are added, otherwise String keys
+     */
+    private static void ensureKeys(ArrayList<Comparable<?>> keys, int size, boolean integerKeys) {
+        for (int i = keys.size(); i < size; i++) {
+            if (integerKeys) {
+                keys.add(Integer.valueOf(i));
+            } else {
+                keys.add("" + i);
+            }
+        }
+    }
+
+    /**
+     * Returns the sparklines dataset.
+     *
+     * @return the sparklines dataset
+     */
+    public JSparklinesDataset getDataset() {
+        return dataset;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public Number getValue(int row, int column) {
+
+        if (layout == Layout.stacked) {
+            JSparklinesDataSeries series = dataset.getData().get(row);
+            if (column < series.size()) {
+                return series.getValue(column);
+            }
+            return null;
+        }
+
+        // find the data series containing the column using binary search
+        int low = 0;
+        int high = dataset.getData().size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (seriesOffsets[middle] <= column) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        double value = dataset.getData().get(low).getValue(column - seriesOffsets[low]);
+
+        if (layout == Layout.upDown) {
+            return value > 0 ? 1 : -1;
+        }
+
+        return value;
+    }
+
+    @Override
+    public Comparable<?> getRowKey(int row) {
+        if (layout == Layout.stacked) {
+            return stringKeys.get(row);
+        }
+        return SINGLE_ROW_KEY;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public int getRowIndex(Comparable key) {
+        if (layout == Layout.stacked) {
+            int index = stringKeys.indexOf(key);
+            return index < rowCount ? index : -1;
+        }
+        return SINGLE_ROW_KEY.equals(key) && rowCount > 0 ? 0 : -1;
+    }
+
+    @Override
+    public List<Comparable<?>> getRowKeys() {
+        if (layout == Layout.stacked) {
+            return Collections.unmodifiableList(stringKeys.subList(0, rowCount));
+        }
+        if (rowCount == 0) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(SINGLE_ROW_KEY);
+    }
+
+    @Override
+    public Comparable<?> getColumnKey(int column) {
+        if (layout == Layout.stacked) {
+            return stringKeys.get(column);
+        }
+        return integerKeys.get(column);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public int getColumnIndex(Comparable key) {
+        int index;
+        if (layout == Layout.stacked) {
+            index = stringKeys.indexOf(key);
+        } else {
+            index = integerKeys.indexOf(key);
+        }
+        return index < columnCount ? index : -1;
+    }
+
+    @Override
+    public List<Comparable<?>> getColumnKeys() {
+        if (layout == Layout.stacked) {
+            return Collections.unmodifiableList(stringKeys.subList(0, columnCount));
+        }
+        return Collections.unmodifiableList(integerKeys.subList(0, columnCount));
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Number getValue(Comparable rowKey, Comparable columnKey) {
+
+        int row = getRowIndex(rowKey);
+        if (row < 0) {
+            throw new UnknownKeyException("Row key (" + rowKey + ") not recognised.");
+        }
+
+        int column = getColumnIndex(columnKey);
+        if (column < 0) {
+            throw new UnknownKeyException("Column key (" + columnKey + ") not recognised.");
+        }
+
+        return getValue(row, column);
+    }
+}
@@ -0,0 +1,545 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import no.uib.jsparklines.data.JSparklinesDataset;
+
+/**
+ * Bounded least recently used cache of rendered table cells. Can be shared by
+ * several renderers. Repeated paints of the same cell are then reduced to
+ * drawing the cached image.
+ * <br><br>
+ * The images are stored per renderer, renderer configuration version, cell
+ * value, cell size, background color and selection/focus state. Note that the
+ * cell values are compared by identity, i.e., values that are changed after
+ * being rendered have to be replaced by new objects, or the cache has to be
+ * invalidated. The exception is JSparklinesDataset values, where the version
+ * of the data is part of the key, such that changes made via the data series,
+ * e.g., values appended to a RingBufferDataSeries, are detected. Changing
+ * the settings of a renderer increases its configuration version, after which
+ * the old images are no longer used and will eventually be evicted. The
+ * tooltips of renderers implementing LazyToolTipRenderer are created when the
+ * user hovers the cell, the tooltips of other renderers are stored with the
+ * images.
+ * <br><br>
+ * The cache is used by the renderers implementing CacheableTableCellRenderer,
+ * currently JSparklinesTableCellRenderer and
+ * JSparklinesBarChartTableCellRenderer, i.e., the renderers creating a
+ * JFreeChart per cell for the most common plot types. The color, integer
+ * color and icon renderers paint directly and gain little from the cache, and
+ * the heat map, multi interval and multi label renderers have their own
+ * direct painting or glyph caches. The remaining renderers are not cached,
+ * and can be added by implementing CacheableTableCellRenderer, which requires
+ * a configuration version incremented by every setting affecting the
+ * rendering.
+ *
+ * @author Harald Barsnes
+ */
+public class SparklineImageCache {
+
+    /**
+     * The default memory budget in bytes.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 32 * 1024 * 1024;
+    /**
+     * The number of bytes used per pixel.
+     */
+    private static final int BYTES_PER_PIXEL = 4;
+    /**
+     * The cached images in least recently used order.
+     */
+    private final LinkedHashMap<CacheKey, CacheEntry> cache = new LinkedHashMap<>(256, 0.75f, true);
+    /**
+     * Key reused for the lookups.
+     */
+    private final CacheKey lookupKey = new CacheKey();
+    /**
+     * The component used to display the cached images.
+     */
+    private final CachedImageComponent cachedImageComponent = new CachedImageComponent();
+    /**
+     * The memory budget in bytes.
+     */
+    private long memoryBudget;
+    /**
+     * The memory currently used by the cached images in bytes.
+     */
+    private long memoryUsage = 0;
+    /**
+     * The number of cache hits.
+     */
+    private long hitCount = 0;
+    /**
+     * The number of cache misses.
+     */
+    private long missCount = 0;
+    /**
+     * The number of images evicted from the cache.
+     */
+    private long evictionCount = 0;
+
+    /**
+     * Creates a new SparklineImageCache with the default memory budget.
+     */
+    public SparklineImageCache() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Creates a new SparklineImageCache.
+     *
+     * @param memoryBudget the maximum number of bytes used by the cached
+     * images
+     * @throws IllegalArgumentException if memoryBudget &lt; 0
+     */
+    public SparklineImageCache(long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("The memory budget has to be non-negative! Current value: " + memoryBudget + ".");
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Returns the component used for drawing the cell, using the cached image
+     * if available. Otherwise the cell is rendered by the given renderer and
+     * the result added to the cache. Values that are null, and cells without
+     * a visible area, are not cached.
+     *
+     * @param renderer the renderer
+     * @param table the table
+     * @param value the value of the cell
+     * @param isSelected true if the cell is selected
+     * @param hasFocus true if the cell has the focus
+     * @param row the row index
+     * @param column the column index
+     * @return the component used for drawing the cell
+     */
+    public Component getTableCellRendererComponent(CacheableTableCellRenderer renderer, JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+
+        int width = table.getColumnModel().getColumn(column).getWidth() - table.getColumnModel().getColumnMargin();
+        int height = table.getRowHeight(row) - table.getRowMargin();
+
+        if (value == null || width <= 0 || height <= 0) {
+            return renderer.getUncachedTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        }
+
+        Color background = isSelected ? table.getSelectionBackground() : table.getBackground();
+        int backgroundRgb = background != null ? background.getRGB() : 0;
+        boolean evenRow = row % 2 == 0;
+        int configurationVersion = renderer.getConfigurationVersion();
+        int dataVersion = getDataVersion(value);
+
+        CacheEntry cacheEntry;
+
+        synchronized (this) {
+            lookupKey.set(renderer, configurationVersion, value, dataVersion, width, height, backgroundRgb, isSelected, hasFocus, evenRow);
+            cacheEntry = cache.get(lookupKey);
+            if (cacheEntry != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+        }
+
+        if (cacheEntry == null) {
+
+            Component component = renderer.getUncachedTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            String tooltip = null;
+            if (!(renderer instanceof LazyToolTipRenderer) && component instanceof JComponent) {
+                tooltip = ((JComponent) component).getToolTipText();
+            }
+            BufferedImage image = Util.paintToImage(component, width, height);
+            cacheEntry = new CacheEntry(image, tooltip);
+
+            CacheKey key = new CacheKey();
+            key.set(renderer, configurationVersion, value, dataVersion, width, height, backgroundRgb, isSelected, hasFocus, evenRow);
+            put(key, cacheEntry);
+        }
+
+        cachedImageComponent.setCacheEntry(cacheEntry, renderer, value);
+
+        return cachedImageComponent;
+    }
+
+    /**
+     * Returns the version of the data of the given cell value, zero for
+     * values without a version.
+     *
+     * @param value the cell value
+     * @return the version of the data
+     */
+    static int getDataVersion(Object value) {
+        if (value instanceof JSparklinesDataset) {
+            return ((JSparklinesDataset) value).getVersion();
+        }
+        return 0;
+    }
+
+    /**
+     * Adds an entry to the cache and evicts the least recently used entries if
+     * the memory budget is exceeded.
+     *
+     * @param key the key
+     * @param cacheEntry the entry
+     */
+    private synchronized void put(CacheKey key, CacheEntry cacheEntry) {
+
+        if (cacheEntry.bytes > memoryBudget) {
+            return;
+        }
+
+        CacheEntry oldEntry = cache.put(key, cacheEntry);
+        if (oldEntry != null) {
+            memoryUsage -= oldEntry.bytes;
+        }
+        memoryUsage += cacheEntry.bytes;
+
+        evict();
+    }
+
+    /**
+     * Evicts the least recently used entries until the memory budget is
+     * respected.
+     */
+    private synchronized void evict() {
+        Iterator<Map.Entry<CacheKey, CacheEntry>> iterator = cache.entrySet().iterator();
+        while (memoryUsage > memoryBudget && iterator.hasNext()) {
+            memoryUsage -= iterator.next().getValue().bytes;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes all the images cached for the given renderer.
+     *
+     * @param renderer the renderer
+     */
+    public synchronized void invalidate(Object renderer) {
+        Iterator<Map.Entry<CacheKey, CacheEntry>> iterator = cache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<CacheKey, CacheEntry> entry = iterator.next();
+            if (entry.getKey().renderer == renderer) {
+                memoryUsage -= entry.getValue().bytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached images.
+     */
+    public synchronized void clear() {
+        cache.clear();
+        memoryUsage = 0;
+    }
+
+    /**
+     * Returns the memory budget in bytes.
+     *
+     * @return the memory budget in bytes
+     */
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Set the memory budget in bytes. Cached images are evicted if the new
+     * budget is exceeded.
+     *
+     * @param memoryBudget the memory budget in bytes
+     * @throws IllegalArgumentException if memoryBudget &lt; 0
+     */
+    public synchronized void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("The memory budget has to be non-negative! Current value: " + memoryBudget + ".");
+        }
+        this.memoryBudget = memoryBudget;
+        evict();
+    }
+
+    /**
+     * Returns the memory currently used by the cached images in bytes.
+     *
+     * @return the memory currently used in bytes
+     */
+    public synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Returns the number of cached images.
+     *
+     * @return the number of cached images
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the number of cache hits.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of cache misses.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of images evicted to respect the memory budget.
+     *
+     * @return the number of evicted images
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the share of the lookups that were cache hits, between 0 and 1.
+     *
+     * @return the hit rate
+     */
+    public synchronized double getHitRate() {
+        long lookups = hitCount + missCount;
+        if (lookups == 0) {
+            return 0;
+        }
+        return ((double) hitCount) / lookups;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counts.
+     */
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    /**
+     * The key of a cached image.
+     */
+    private static class CacheKey {
+
+        /**
+         * The renderer, compared by identity.
+         */
+        private Object renderer;
+        /**
+         * The configuration version of the renderer.
+         */
+        private int configurationVersion;
+        /**
+         * The cell value, compared by identity.
+         */
+        private Object value;
+        /**
+         * The version of the data of the cell value.
+         */
+        private int dataVersion;
+        /**
+         * The width of the cell.
+         */
+        private int width;
+        /**
+         * The height of the cell.
+         */
+        private int height;
+        /**
+         * The background color of the cell as an RGB value.
+         */
+        private int backgroundRgb;
+        /**
+         * True if the cell is selected.
+         */
+        private boolean isSelected;
+        /**
+         * True if the cell has the focus.
+         */
+        private boolean hasFocus;
+        /**
+         * True if the cell is in an even row, as some look and feels use
+         * alternating row colors.
+         */
+        private boolean evenRow;
+        /**
+         * The hash code.
+         */
+        private int hashCode;
+
+        /**
+         * Set the key values.
+         *
+         * @param renderer the renderer
+         * @param configurationVersion the configuration version of the
+         * renderer
+         * @param value the cell value
+         * @param dataVersion the version of the data of the cell value
+         * @param width the width of the cell
+         * @param height the height of the cell
+         * @param backgroundRgb the background color of the cell as an RGB
+         * value
+         * @param isSelected true if the cell is selected
+         * @param hasFocus true if the cell has the focus
+         * @param evenRow true if the cell is in an even row
+         */
+        private void set(Object renderer, int configurationVersion, Object value, int dataVersion, int width, int height,
+                int backgroundRgb, boolean isSelected, boolean hasFocus, boolean evenRow) {
+
+            this.renderer = renderer;
+            this.configurationVersion = configurationVersion;
+            this.value = value;
+            this.dataVersion = dataVersion;
+            this.width = width;
+            this.height = height;
+            this.backgroundRgb = backgroundRgb;
+            this.isSelected = isSelected;
+            this.hasFocus = hasFocus;
+            this.evenRow = evenRow;
+
+            int hash = System.identityHashCode(renderer);
+            hash = 31 * hash + configurationVersion;
+            hash = 31 * hash + System.identityHashCode(value);
+            hash = 31 * hash + dataVersion;
+            hash = 31 * hash + width;
+            hash = 31 * hash + height;
+            hash = 31 * hash + backgroundRgb;
+            hash = 31 * hash + (isSelected ? 1 : 0);
+            hash = 31 * hash + (hasFocus ? 1 : 0);
+            hash = 31 * hash + (evenRow ? 1 : 0);
+            hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return renderer == other.renderer
+                    && configurationVersion == other.configurationVersion
+                    && value == other.value
+                    && dataVersion == other.dataVersion
+                    && width == other.width
+                    && height == other.height
+                    && backgroundRgb == other.backgroundRgb
+                    && isSelected == other.isSelected
+                    && hasFocus == other.hasFocus
+                    && evenRow == other.evenRow;
+        }
+    }
+
+    /**
+     * A cached image together with the tooltip of the rendered cell.
+     */
+    private static class CacheEntry {
+
+        /**
+         * The rendered cell.
+         */
+        private final BufferedImage image;
+        /**
+         * The tooltip of the rendered cell.
+         */
+        private final String tooltip;
+        /**
+         * The memory used by the image in bytes.
+         */
+        private final long bytes;
+
+        /**
+         * Creates a new cache entry.
+         *
+         * @param image the rendered cell
+         * @param tooltip the tooltip of the rendered cell
+         */
+        private CacheEntry(BufferedImage image, String tooltip) {
+            this.image = image;
+            this.tooltip = tooltip;
+            this.bytes = ((long) image.getWidth()) * image.getHeight() * BYTES_PER_PIXEL;
+        }
+    }
+
+    /**
+     * Component drawing a cached image.
+     */
+    private static class CachedImageComponent extends JComponent {
+
+        /**
+         * The cache entry displayed.
+         */
+        private CacheEntry cacheEntry;
+        /**
+         * The image to draw.
+         */
+        private BufferedImage image;
+        /**
+         * The renderer creating the tooltip, null if the tooltip was stored
+         * with the image.
+         */
+        private LazyToolTipRenderer tooltipRenderer;
+        /**
+         * The value of the cell.
+         */
+        private Object value;
+
+        /**
+         * Set the cache entry to display.
+         *
+         * @param cacheEntry the cache entry
+         * @param renderer the renderer of the cell
+         * @param value the value of the cell
+         */
+        private void setCacheEntry(CacheEntry cacheEntry, CacheableTableCellRenderer renderer, Object value) {
+
+            this.tooltipRenderer = renderer instanceof LazyToolTipRenderer ? (LazyToolTipRenderer) renderer : null;
+            this.value = value;
+
+            // setting the tooltip registers the component with the tooltip
+            // manager, only done when the entry changes
+            if (this.cacheEntry != cacheEntry) {
+                this.cacheEntry = cacheEntry;
+                this.image = cacheEntry.image;
+                setToolTipText(cacheEntry.tooltip);
+            }
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent event) {
+            if (tooltipRenderer != null) {
+                return tooltipRenderer.createToolTipText(value);
+            }
+            return super.getToolTipText(event);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (image != null) {
+                g.drawImage(image, 0, 0, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package no.uib.jsparklines.renderers.util;
+
+import java.util.ArrayList;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.renderers.util.SeriesDecimator.Decimation;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.xy.AbstractXYDataset;
+
+/**
+ * XY dataset reading the values straight from a JSparklinesDataset. The x
+ * values are the indexes of the values in the data series. Used to reuse the
+ * same chart for all the cells in a column without copying the data into new
+ * XYSeries objects for every cell. The data series can optionally be
+ * decimated to the number of pixels available.
+ *
+ * @author Harald Barsnes
+ */
+public class SparklineXYDataset extends AbstractXYDataset {
+
+    /**
+     * The key used for the x-axis series in difference charts.
+     */
+    private static final String X_AXIS_SERIES_KEY = "x-axis";
+    /**
+     * The sparklines dataset.
+     */
+    private JSparklinesDataset dataset;
+    /**
+     * If true, a series of zeros is added after each data series, as used by
+     * the difference charts.
+     */
+    private boolean includeXAxisSeries = false;
+    /**
+     * The decimation method.
+     */
+    private Decimation decimation = Decimation.none;
+    /**
+     * The decimated data series, only used if decimation is used. Reused
+     * between the datasets.
+     */
+    private final ArrayList<SeriesDecimator> decimatedSeries = new ArrayList<>();
+    /**
+     * The change event, reused for every update.
+     */
+    private final DatasetChangeEvent changeEvent = new DatasetChangeEvent(this, this);
+
+    /**
+     * Creates a new empty SparklineXYDataset.
+     */
+    public SparklineXYDataset() {
+    }
+
+    /**
+     * Set the sparklines dataset to display and notifies the listeners.
+     *
+     * @param dataset the sparklines dataset
+     * @param includeXAxisSeries if true, a series of zeros is added after each
+     * data series
+     */
+    public void setDataset(JSparklinesDataset dataset, boolean includeXAxisSeries) {
+        setDataset(dataset, includeXAxisSeries, Decimation.none, 0);
+    }
+
+    /**
+     * Set the sparklines dataset to display, decimated to the given number of
+     * pixels, and notifies the listeners.
+     *
+     * @param dataset the sparklines dataset
+     * @param includeXAxisSeries if true, a series of zeros is added after each
+     * data series
+     * @param decimation the decimation method
+     * @param numberOfPixels the number of pixels available along the x-axis
+     */
+    public void setDataset(JSparklinesDataset dataset, boolean includeXAxisSeries, Decimation decimation, int numberOfPixels) {
+        this.dataset = dataset;
+        this.includeXAxisSeries = includeXAxisSeries;
+        this.decimation = decimation;
+        if (decimation != Decimation.none && dataset != null) {
+            for (int i = 0; i < dataset.getData().size(); i++) {
+                if (i == decimatedSeries.size()) {
+                    decimatedSeries.add(new SeriesDecimator());
+                }
+                decimatedSeries.get(i).decimate(dataset.getData().get(i), decimation, numberOfPixels);
+            }
+        }
+        if (getNotify()) {
+            notifyListeners(changeEvent);
+        }
+    }
+
+    /**
+     * Returns the sparklines dataset.
+     *
+     * @return the sparklines dataset
+     */
+    public JSparklinesDataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Returns the data series for the given series index.
+     *
+     * @param series the series index
+     * @return the data series
+     */
+    private JSparklinesDataSeries getDataSeries(int series) {
+        if (includeXAxisSeries) {
+            return dataset.getData().get(series / 2);
+        }
+        return dataset.getData().get(series);
+    }
+
+    /**
+     * Returns the decimated data series for the given series index.
+     *
+     * @param series the series index
+     * @return the decimated data series
+     */
+    private SeriesDecimator getDecimatedSeries(int series) {
+        if (includeXAxisSeries) {
+            return decimatedSeries.get(series / 2);
+        }
+        return decimatedSeries.get(series);
+    }
+
+    /**
+     * Returns true if the given series is an x-axis series.
+     *
+     * @param series the series index
+     * @return true if the given series is an x-axis series
+     */
+    private boolean isXAxisSeries(int series) {
+        return includeXAxisSeries && series % 2 == 1;
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        if (dataset == null) {
+            return 0;
+        }
+        if (includeXAxisSeries) {
+            return dataset.getData().size() * 2;
+        }
+        return dataset.getData().size();
+    }
+
+    @Override
+    public Comparable<?> getSeriesKey(int series) {
+        if (isXAxisSeries(series)) {
+            return X_AXIS_SERIES_KEY;
+        }
+        if (includeXAxisSeries) {
+            return series / 2;
+        }
+        return series;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        if (decimation != Decimation.none) {
+            return getDecimatedSeries(series).size();
+        }
+        return getDataSeries(series).size();
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        if (decimation != Decimation.none) {
+            return getDecimatedSeries(series).getXValue(item);
+        }
+        return item;
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return getYValue(series, item);
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        if (isXAxisSeries(series)) {
+            return 0;
+        }
+        if (decimation != Decimation.none) {
+            return getDecimatedSeries(series).getYValue(item);
+        }
+        return getDataSeries(series).getValue(item);
+    }
+}
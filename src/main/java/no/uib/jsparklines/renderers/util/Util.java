@@ -1,6 +1,10 @@
 package no.uib.jsparklines.renderers.util;
 
 import java.awt.Color;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 
 /**
  * Includes general helper methods that are used by the other classes.
@@ -29,4 +33,56 @@ public class Util {
     public static String color2Hex(Color color) {
         return Integer.toHexString(color.getRGB() & 0x00ffffff);
     }
+
+    /**
+     * Paints the given component, typically a table cell renderer component,
+     * into a new image of the given size. The component and its children are
+     * laid out before painting, which also works for components that are not
+     * displayed, e.g., in headless mode.
+     *
+     * @param component the component to paint
+     * @param width the width of the image
+     * @param height the height of the image
+     * @return the image
+     */
+    public static BufferedImage paintToImage(Component component, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        paintToImage(component, image);
+        return image;
+    }
+
+    /**
+     * Paints the given component, typically a table cell renderer component,
+     * into the given image. The component is resized to the size of the image.
+     *
+     * @param component the component to paint
+     * @param image the image to paint into
+     */
+    public static void paintToImage(Component component, BufferedImage image) {
+
+        component.setBounds(0, 0, image.getWidth(), image.getHeight());
+        layoutComponentTree(component);
+
+        Graphics2D g2 = image.createGraphics();
+        try {
+            component.paint(g2);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /**
+     * Lays out the given component and all its children.
+     *
+     * @param component the component to lay out
+     */
+    private static void layoutComponentTree(Component component) {
+        if (component instanceof Container) {
+            Container container = (Container) component;
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                layoutComponentTree(child);
+            }
+        }
+    }
 }
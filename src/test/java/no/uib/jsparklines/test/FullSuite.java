@@ -4,13 +4,25 @@ import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 import no.uib.jsparklines.test.data.ArrrayListDataPointsTest;
+import no.uib.jsparklines.test.data.BoxPlotStatisticsTest;
 import no.uib.jsparklines.test.data.ChromosomeTest;
 import no.uib.jsparklines.test.data.JSparklines3dDataSeriesTest;
 import no.uib.jsparklines.test.data.JSparklines3dDatasetTest;
+import no.uib.jsparklines.test.data.JSparklinesDataCodecTest;
 import no.uib.jsparklines.test.data.JSparklinesDataSeriesTest;
 import no.uib.jsparklines.test.data.JSparklinesDatasetTest;
+import no.uib.jsparklines.test.data.KllQuantileSketchTest;
+import no.uib.jsparklines.test.data.MappedSparklineTableModelTest;
+import no.uib.jsparklines.test.data.RingBufferDataSeriesTest;
 import no.uib.jsparklines.test.data.StartIndexesTest;
 import no.uib.jsparklines.test.data.XYDataPointTest;
+import no.uib.jsparklines.test.renderers.JSparklinesMultiIntervalChartTableCellRendererTest;
+import no.uib.jsparklines.test.renderers.JSparklinesTableCellRendererTest;
+import no.uib.jsparklines.test.renderers.util.AsyncTableCellRendererTest;
+import no.uib.jsparklines.test.renderers.util.ColumnAutoRangeTest;
+import no.uib.jsparklines.test.renderers.util.RendererMetricsTest;
+import no.uib.jsparklines.test.renderers.util.SeriesDecimatorTest;
+import no.uib.jsparklines.test.renderers.util.SparklineImageCacheTest;
 
 /**
  * This class represents the full suite of test for the JSparklines project.
@@ -34,6 +46,19 @@ public class FullSuite extends TestCase {
         ts.addTest(new TestSuite(JSparklinesDatasetTest.class));
         ts.addTest(new TestSuite(StartIndexesTest.class));
         ts.addTest(new TestSuite(XYDataPointTest.class));
+        ts.addTest(new TestSuite(RingBufferDataSeriesTest.class));
+        ts.addTest(new TestSuite(MappedSparklineTableModelTest.class));
+        ts.addTest(new TestSuite(JSparklinesDataCodecTest.class));
+        ts.addTest(new TestSuite(BoxPlotStatisticsTest.class));
+        ts.addTest(new TestSuite(KllQuantileSketchTest.class));
+        ts.addTest(new TestSuite(ColumnAutoRangeTest.class));
+        ts.addTest(new TestSuite(RendererMetricsTest.class));
+        ts.addTest(new TestSuite(JSparklinesMatrixHeatMapTest.class));
+        ts.addTest(new TestSuite(JSparklinesTableCellRendererTest.class));
+        ts.addTest(new TestSuite(AsyncTableCellRendererTest.class));
+        ts.addTest(new TestSuite(SparklineImageCacheTest.class));
+        ts.addTest(new TestSuite(SeriesDecimatorTest.class));
+        ts.addTest(new TestSuite(JSparklinesMultiIntervalChartTableCellRendererTest.class));
 
         return ts;
     }
@@ -0,0 +1,93 @@
+package no.uib.jsparklines.test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import junit.framework.TestCase;
+import no.uib.jsparklines.JSparklinesMatrixHeatMap;
+import no.uib.jsparklines.renderers.util.GradientColorCoding.ColorGradient;
+import org.junit.Assert;
+
+/**
+ * Test the JSparklinesMatrixHeatMap class.
+ *
+ * @author Harald Barsnes
+ */
+public class JSparklinesMatrixHeatMapTest extends TestCase {
+
+    /**
+     * Test that the visible tiles are kept when the memory budget is smaller
+     * than the memory used by the visible tiles, i.e., that the tiles are not
+     * rendered over and over again.
+     *
+     * @throws Exception
+     */
+    public void testMemoryBudget() throws Exception {
+
+        double[][] matrix = new double[200][200];
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = 0; j < matrix[i].length; j++) {
+                matrix[i][j] = i - j;
+            }
+        }
+
+        JSparklinesMatrixHeatMap heatMap = new JSparklinesMatrixHeatMap(matrix, -200, 200, ColorGradient.BlueWhiteRed, 2);
+
+        try {
+
+            // 800 x 800 pixels, i.e., 4 x 4 tiles, of which 2 x 2 are visible
+            heatMap.setSize(400, 400);
+            heatMap.setMemoryBudget(1);
+
+            BufferedImage image = new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB);
+
+            paint(heatMap, image);
+            waitForTiles(heatMap);
+
+            Assert.assertEquals(4, heatMap.getRenderedTileCount());
+            Assert.assertEquals(4, heatMap.getNumberOfTiles());
+
+            // the tiles are drawn from the cache
+            paint(heatMap, image);
+
+            Assert.assertEquals(0, heatMap.getNumberOfPendingJobs());
+            Assert.assertEquals(4, heatMap.getRenderedTileCount());
+
+            // the budget cannot be negative
+            try {
+                heatMap.setMemoryBudget(-1);
+                fail("Expected an IllegalArgumentException.");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+
+        } finally {
+            heatMap.dispose();
+        }
+    }
+
+    /**
+     * Paints the heat map into the given image.
+     *
+     * @param heatMap the heat map
+     * @param image the image
+     */
+    private void paint(JSparklinesMatrixHeatMap heatMap, BufferedImage image) {
+        Graphics2D g2 = image.createGraphics();
+        heatMap.paint(g2);
+        g2.dispose();
+    }
+
+    /**
+     * Waits until all the pending tiles are rendered.
+     *
+     * @param heatMap the heat map
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void waitForTiles(JSparklinesMatrixHeatMap heatMap) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 10000;
+        while (heatMap.getNumberOfPendingJobs() > 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, heatMap.getNumberOfPendingJobs());
+    }
+}
@@ -0,0 +1,95 @@
+package no.uib.jsparklines.test.data;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Random;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.BoxPlotStatistics;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import org.jfree.data.statistics.BoxAndWhiskerCalculator;
+import org.jfree.data.statistics.BoxAndWhiskerItem;
+import org.junit.Assert;
+
+/**
+ * Test the BoxPlotStatistics class and the cached statistics of the
+ * JSparklinesDataSeries.
+ *
+ * @author Harald Barsnes
+ */
+public class BoxPlotStatisticsTest extends TestCase {
+
+    /**
+     * Test the exact statistics against the JFreeChart
+     * BoxAndWhiskerCalculator.
+     *
+     * @throws Exception
+     */
+    public void testCalculate() throws Exception {
+
+        Random random = new Random(42);
+
+        for (int size = 0; size < 40; size++) {
+
+            ArrayList<Double> data = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                double value = random.nextInt(8) == 0 ? Double.NaN : random.nextGaussian() * (random.nextInt(10) == 0 ? 20 : 1);
+                data.add(value);
+            }
+
+            BoxAndWhiskerItem expected = BoxAndWhiskerCalculator.calculateBoxAndWhiskerStatistics(data);
+            BoxAndWhiskerItem item = BoxPlotStatistics.calculate(new JSparklinesDataSeries(data, Color.RED, "test"));
+
+            Assert.assertEquals(expected, item);
+        }
+    }
+
+    /**
+     * Test the estimated statistics of a large series.
+     *
+     * @throws Exception
+     */
+    public void testEstimate() throws Exception {
+
+        Random random = new Random(42);
+        double[] values = new double[200000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian();
+        }
+        values[0] = 50;
+
+        JSparklinesDataSeries dataSeries = new JSparklinesDataSeries(values, Color.RED, "test");
+        BoxAndWhiskerItem exact = BoxPlotStatistics.calculate(dataSeries);
+        BoxAndWhiskerItem estimate = BoxPlotStatistics.estimate(dataSeries, 200);
+
+        Assert.assertEquals(exact.getMean().doubleValue(), estimate.getMean().doubleValue(), 1e-9);
+        Assert.assertEquals(exact.getMedian().doubleValue(), estimate.getMedian().doubleValue(), 0.05);
+        Assert.assertEquals(exact.getQ1().doubleValue(), estimate.getQ1().doubleValue(), 0.05);
+        Assert.assertEquals(exact.getQ3().doubleValue(), estimate.getQ3().doubleValue(), 0.05);
+        Assert.assertTrue(estimate.getOutliers().contains(50.0));
+        Assert.assertTrue(estimate.getOutliers().size() < 1000);
+    }
+
+    /**
+     * Test that the statistics are cached in the data series until the data
+     * changes.
+     *
+     * @throws Exception
+     */
+    public void testCachedStatistics() throws Exception {
+
+        JSparklinesDataSeries dataSeries = new JSparklinesDataSeries(new double[]{1.0, 2.0, 3.0}, Color.RED, "test");
+
+        BoxAndWhiskerItem item = dataSeries.getBoxAndWhiskerItem();
+        Assert.assertEquals(2.0, item.getMedian().doubleValue(), 0.0);
+        Assert.assertSame(item, dataSeries.getBoxAndWhiskerItem());
+        Assert.assertSame(dataSeries.getApproximateBoxAndWhiskerItem(), dataSeries.getApproximateBoxAndWhiskerItem());
+
+        dataSeries.setValues(new double[]{4.0, 5.0, 6.0});
+        Assert.assertEquals(5.0, dataSeries.getBoxAndWhiskerItem().getMedian().doubleValue(), 0.0);
+        Assert.assertEquals(5.0, dataSeries.getApproximateBoxAndWhiskerItem().getMedian().doubleValue(), 0.0);
+
+        // the list can be changed after getData
+        dataSeries.getData().add(7.0);
+        Assert.assertEquals(5.5, dataSeries.getBoxAndWhiskerItem().getMedian().doubleValue(), 0.0);
+    }
+}
@@ -0,0 +1,268 @@
+package no.uib.jsparklines.test.data;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.ArrrayListDataPoints;
+import no.uib.jsparklines.data.Chromosome;
+import no.uib.jsparklines.data.JSparklinesDataCodec;
+import no.uib.jsparklines.data.JSparklinesMultiLabel;
+import no.uib.jsparklines.data.JSparklinesMultiLabelDataset;
+import no.uib.jsparklines.data.StartIndexes;
+import no.uib.jsparklines.data.ValueAndBooleanDataPoint;
+import no.uib.jsparklines.data.XYDataPoint;
+import no.uib.jsparklines.data.XYZDataPoint;
+import no.uib.jsparklines.renderers.JSparklinesArrayListBarChartTableCellRenderer.ValueDisplayType;
+import org.junit.Assert;
+
+/**
+ * Test the JSparklinesDataCodec class.
+ *
+ * @author Harald Barsnes
+ */
+public class JSparklinesDataCodecTest extends TestCase {
+
+    /**
+     * Test writing and reading back a column of each supported type,
+     * including null values.
+     *
+     * @throws Exception
+     */
+    public void testRoundTrip() throws Exception {
+
+        ArrayList<Double> data = new ArrayList<>(Arrays.asList(1.0, 3.0, 6.0));
+        ArrayList<ArrrayListDataPoints> arrayListDataPoints = new ArrayList<>(Arrays.asList(
+                new ArrrayListDataPoints(data, ValueDisplayType.sumOfNumbers), null,
+                new ArrrayListDataPoints(new ArrayList<Double>(), ValueDisplayType.firstNumberOnly)));
+
+        ArrayList<XYDataPoint> xyDataPoints = new ArrayList<>(Arrays.asList(
+                new XYDataPoint(1.5, -2.0), new XYDataPoint(Double.NaN, 4.0, false), null));
+
+        ArrayList<XYZDataPoint> xyzDataPoints = new ArrayList<>(Arrays.asList(
+                new XYZDataPoint(1.0, 2.0, 3.0), null));
+
+        ArrayList<StartIndexes> startIndexes = new ArrayList<>(Arrays.asList(
+                new StartIndexes(new ArrayList<>(Arrays.asList(5, 1, 12))), null,
+                new StartIndexes(new ArrayList<Integer>())));
+
+        ArrayList<Chromosome> chromosomes = new ArrayList<>(Arrays.asList(
+                new Chromosome("12"), new Chromosome("X"), new Chromosome(null), null, new Chromosome("æøå")));
+
+        ArrayList<ValueAndBooleanDataPoint> valueAndBooleanDataPoints = new ArrayList<>(Arrays.asList(
+                new ValueAndBooleanDataPoint(0.05, true), new ValueAndBooleanDataPoint(0.5, false)));
+
+        ArrayList<JSparklinesMultiLabelDataset> multiLabelDatasets = new ArrayList<>(Arrays.asList(
+                new JSparklinesMultiLabelDataset(new JSparklinesMultiLabel("a", Color.RED),
+                        new JSparklinesMultiLabel("b", new Color(1, 2, 3, 4))),
+                null,
+                new JSparklinesMultiLabelDataset(new JSparklinesMultiLabel(null, null))));
+
+        // also cover values spanning several buffers
+        ArrayList<XYDataPoint> largeColumn = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            largeColumn.add(new XYDataPoint(i, -i));
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (JSparklinesDataCodec.Writer writer = new JSparklinesDataCodec.Writer(outputStream)) {
+            writer.writeColumn(ArrrayListDataPoints.class, arrayListDataPoints);
+            writer.writeColumn(XYDataPoint.class, xyDataPoints);
+            writer.writeColumn(XYZDataPoint.class, xyzDataPoints);
+            writer.writeColumn(StartIndexes.class, startIndexes);
+            writer.writeColumn(Chromosome.class, chromosomes);
+            writer.writeColumn(ValueAndBooleanDataPoint.class, valueAndBooleanDataPoints);
+            writer.writeColumn(JSparklinesMultiLabelDataset.class, multiLabelDatasets);
+            writer.writeColumn(XYDataPoint.class, largeColumn);
+        }
+
+        try (JSparklinesDataCodec.Reader reader = new JSparklinesDataCodec.Reader(new ByteArrayInputStream(outputStream.toByteArray()))) {
+
+            Assert.assertEquals(JSparklinesDataCodec.FORMAT_VERSION, reader.getFormatVersion());
+
+            ArrayList<ArrrayListDataPoints> arrayListDataPointsRead = reader.readColumn(ArrrayListDataPoints.class);
+            Assert.assertEquals(3, arrayListDataPointsRead.size());
+            Assert.assertEquals(data, arrayListDataPointsRead.get(0).getData());
+            Assert.assertEquals(ValueDisplayType.sumOfNumbers, arrayListDataPointsRead.get(0).getDataSortingType());
+            Assert.assertNull(arrayListDataPointsRead.get(1));
+            Assert.assertTrue(arrayListDataPointsRead.get(2).getData().isEmpty());
+
+            ArrayList<XYDataPoint> xyDataPointsRead = reader.readColumn(XYDataPoint.class);
+            Assert.assertEquals(-2.0, xyDataPointsRead.get(0).getY(), 0.0);
+            Assert.assertTrue(xyDataPointsRead.get(0).isCompareBasedOnFirstDataPoint());
+            Assert.assertTrue(Double.isNaN(xyDataPointsRead.get(1).getX()));
+            Assert.assertFalse(xyDataPointsRead.get(1).isCompareBasedOnFirstDataPoint());
+            Assert.assertNull(xyDataPointsRead.get(2));
+
+            ArrayList<XYZDataPoint> xyzDataPointsRead = reader.readColumn(XYZDataPoint.class);
+            Assert.assertEquals(xyzDataPoints.get(0).toString(), xyzDataPointsRead.get(0).toString());
+            Assert.assertNull(xyzDataPointsRead.get(1));
+
+            ArrayList<StartIndexes> startIndexesRead = reader.readColumn(StartIndexes.class);
+            Assert.assertEquals(startIndexes.get(0).getIndexes(), startIndexesRead.get(0).getIndexes());
+            Assert.assertNull(startIndexesRead.get(1));
+            Assert.assertTrue(startIndexesRead.get(2).getIndexes().isEmpty());
+
+            ArrayList<Chromosome> chromosomesRead = reader.readColumn(Chromosome.class);
+            for (int i = 0; i < chromosomes.size(); i++) {
+                if (chromosomes.get(i) == null) {
+                    Assert.assertNull(chromosomesRead.get(i));
+                } else {
+                    Assert.assertEquals(chromosomes.get(i).getChromosomeName(), chromosomesRead.get(i).getChromosomeName());
+                    Assert.assertEquals(0, chromosomes.get(i).compareTo(chromosomesRead.get(i)));
+                }
+            }
+
+            ArrayList<ValueAndBooleanDataPoint> valueAndBooleanDataPointsRead = reader.readColumn(ValueAndBooleanDataPoint.class);
+            Assert.assertEquals(0.05, valueAndBooleanDataPointsRead.get(0).getValue(), 0.0);
+            Assert.assertTrue(valueAndBooleanDataPointsRead.get(0).isSignificant());
+            Assert.assertFalse(valueAndBooleanDataPointsRead.get(1).isSignificant());
+
+            ArrayList<JSparklinesMultiLabelDataset> multiLabelDatasetsRead = reader.readColumn(JSparklinesMultiLabelDataset.class);
+            Assert.assertEquals(2, multiLabelDatasetsRead.get(0).getLabels().size());
+            Assert.assertEquals("b", multiLabelDatasetsRead.get(0).getLabels().get(1).getLabel());
+            Assert.assertEquals(new Color(1, 2, 3, 4), multiLabelDatasetsRead.get(0).getLabels().get(1).getColor());
+            Assert.assertEquals(4, multiLabelDatasetsRead.get(0).getLabels().get(1).getColor().getAlpha());
+            Assert.assertNull(multiLabelDatasetsRead.get(1));
+            Assert.assertNull(multiLabelDatasetsRead.get(2).getLabels().get(0).getLabel());
+            Assert.assertNull(multiLabelDatasetsRead.get(2).getLabels().get(0).getColor());
+
+            ArrayList<XYDataPoint> largeColumnRead = reader.readColumn(XYDataPoint.class);
+            Assert.assertEquals(largeColumn.size(), largeColumnRead.size());
+            Assert.assertEquals(-19999.0, largeColumnRead.get(19999).getY(), 0.0);
+
+            // the end of the stream
+            Assert.assertNull(reader.readColumn(XYDataPoint.class));
+        }
+    }
+
+    /**
+     * Test that reading a column as the wrong type, and reading a stream in
+     * another format, fail.
+     *
+     * @throws Exception
+     */
+    public void testInvalidStreams() throws Exception {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (JSparklinesDataCodec.Writer writer = new JSparklinesDataCodec.Writer(outputStream)) {
+            writer.writeColumn(XYZDataPoint.class, new ArrayList<XYZDataPoint>());
+        }
+
+        try (JSparklinesDataCodec.Reader reader = new JSparklinesDataCodec.Reader(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            reader.readColumn(XYDataPoint.class);
+            fail("Expected an IOException.");
+        } catch (IOException e) {
+            // expected
+        }
+
+        try {
+            new JSparklinesDataCodec.Reader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+            fail("Expected an IOException.");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // truncated stream
+        byte[] bytes = outputStream.toByteArray();
+        try (JSparklinesDataCodec.Reader reader = new JSparklinesDataCodec.Reader(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 2)))) {
+            reader.readColumn(XYZDataPoint.class);
+            fail("Expected an IOException.");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that a null data point in an ArrrayListDataPoints is rejected
+     * without corrupting the stream.
+     *
+     * @throws Exception
+     */
+    public void testNullDataPoint() throws Exception {
+
+        ArrayList<ArrrayListDataPoints> arrayListDataPoints = new ArrayList<>(Arrays.asList(
+                new ArrrayListDataPoints(new ArrayList<>(Arrays.asList(1.0, null)), ValueDisplayType.sumOfNumbers)));
+        ArrayList<XYDataPoint> xyDataPoints = new ArrayList<>(Arrays.asList(new XYDataPoint(1.0, 2.0)));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (JSparklinesDataCodec.Writer writer = new JSparklinesDataCodec.Writer(outputStream)) {
+            try {
+                writer.writeColumn(ArrrayListDataPoints.class, arrayListDataPoints);
+                fail("Expected an IllegalArgumentException.");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            writer.writeColumn(XYDataPoint.class, xyDataPoints);
+        }
+
+        try (JSparklinesDataCodec.Reader reader = new JSparklinesDataCodec.Reader(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Assert.assertEquals(2.0, reader.readColumn(XYDataPoint.class).get(0).getY(), 0.0);
+            Assert.assertNull(reader.readColumn(XYDataPoint.class));
+        }
+    }
+
+    /**
+     * Test that the encoded columns are smaller than with default Java
+     * serialization.
+     *
+     * @throws Exception
+     */
+    public void testEncodedSize() throws Exception {
+
+        ArrayList<XYDataPoint> xyDataPoints = new ArrayList<>();
+        ArrayList<StartIndexes> startIndexes = new ArrayList<>();
+        ArrayList<ArrrayListDataPoints> arrayListDataPoints = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            xyDataPoints.add(new XYDataPoint(i, i / 3.0));
+            startIndexes.add(new StartIndexes(new int[]{i, i + 10, i + 20}));
+            arrayListDataPoints.add(new ArrrayListDataPoints(new ArrayList<>(Arrays.asList(i / 7.0, 1.0, 2.0)), ValueDisplayType.sumOfNumbers));
+        }
+
+        Assert.assertTrue(getCodecSize(XYDataPoint.class, xyDataPoints) < getSerializedSize(xyDataPoints));
+        Assert.assertTrue(getCodecSize(StartIndexes.class, startIndexes) < getSerializedSize(startIndexes));
+        Assert.assertTrue(getCodecSize(ArrrayListDataPoints.class, arrayListDataPoints) < getSerializedSize(arrayListDataPoints));
+    }
+
+    /**
+     * Returns the number of bytes used to encode the given column with the
+     * codec.
+     *
+     * @param <T> the type of the values
+     * @param type the class of the values
+     * @param values the values
+     * @return the number of bytes
+     * @throws IOException if the column cannot be written
+     */
+    private <T> int getCodecSize(Class<T> type, ArrayList<T> values) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (JSparklinesDataCodec.Writer writer = new JSparklinesDataCodec.Writer(outputStream)) {
+            writer.writeColumn(type, values);
+        }
+        return outputStream.size();
+    }
+
+    /**
+     * Returns the number of bytes used to encode the given column with
+     * default Java serialization.
+     *
+     * @param values the values
+     * @return the number of bytes
+     * @throws IOException if the column cannot be written
+     */
+    private int getSerializedSize(ArrayList<?> values) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+            objectOutputStream.writeObject(values);
+        }
+        return outputStream.size();
+    }
+}
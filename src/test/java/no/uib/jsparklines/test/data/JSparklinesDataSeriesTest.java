@@ -30,4 +30,43 @@ public class JSparklinesDataSeriesTest extends TestCase {
         // test toString
         Assert.assertEquals("1.0,2.0,3.0", dataSeries.toString());
     }
+
+    /**
+     * Test the primitive array backed JSparklinesDataSeries.
+     *
+     * @throws Exception
+     */
+    public void testPrimitiveJSparklinesDataSeries() throws Exception {
+
+        // set up the data
+        double[] values = {1.0, 2.5, 3.0};
+        JSparklinesDataSeries dataSeries = new JSparklinesDataSeries(values, Color.RED, "test");
+
+        // test the primitive accessors
+        Assert.assertTrue(dataSeries.isPrimitive());
+        Assert.assertEquals(3, dataSeries.size());
+        Assert.assertEquals(2.5, dataSeries.getValue(1), 0.0);
+        Assert.assertEquals(3, dataSeries.getValues().remaining());
+        Assert.assertTrue(dataSeries.getValues().isReadOnly());
+
+        // test toString
+        Assert.assertEquals("1.0,2.5,3.0", dataSeries.toString());
+
+        // test that reading the list keeps the primitive values
+        int version = dataSeries.getVersion();
+        ArrayList<Double> data = dataSeries.getData();
+        Assert.assertTrue(dataSeries.isPrimitive());
+        Assert.assertSame(data, dataSeries.getData());
+        Assert.assertEquals(3, data.size());
+        Assert.assertEquals(2.5, data.get(1), 0.0);
+        Assert.assertEquals(version, dataSeries.getVersion());
+
+        // test that changes to the list are reflected in the series
+        data.add(4.0);
+        Assert.assertFalse(dataSeries.isPrimitive());
+        Assert.assertTrue(dataSeries.getVersion() != version);
+        Assert.assertEquals(4, dataSeries.size());
+        Assert.assertEquals(4.0, dataSeries.getValue(3), 0.0);
+        Assert.assertEquals("1.0,2.5,3.0,4.0", dataSeries.toString());
+    }
 }
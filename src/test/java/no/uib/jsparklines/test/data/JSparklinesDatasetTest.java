@@ -78,4 +78,91 @@ public class JSparklinesDatasetTest extends TestCase {
 
         Assert.assertTrue(dataset.compareTo(dataset2) == -1);
     }
+
+    /**
+     * Test the toString and compareTo methods with primitive array backed
+     * data series.
+     *
+     * @throws Exception
+     */
+    public void testPrimitiveJSparklinesDataset() throws Exception {
+
+        // set up the data
+        ArrayList<JSparklinesDataSeries> allData = new ArrayList<>();
+        allData.add(new JSparklinesDataSeries(new double[]{1.1, 1.2, 1.3}, Color.RED, "test"));
+        allData.add(new JSparklinesDataSeries(new double[]{2.1, 2.2, 2.3}, Color.RED, "test2"));
+        JSparklinesDataset dataset = new JSparklinesDataset(allData);
+
+        // test toString
+        Assert.assertEquals("[1.1,1.2,1.3], [2.1,2.2,2.3]", dataset.toString());
+
+        // test compare to against list based data series
+        ArrayList<JSparklinesDataSeries> allData2 = new ArrayList<>();
+
+        ArrayList<Double> data = new ArrayList<>();
+        data.add(1.1);
+        data.add(1.2);
+        data.add(1.3);
+        allData2.add(new JSparklinesDataSeries(data, Color.RED, "test"));
+
+        data = new ArrayList<>();
+        data.add(2.1);
+        data.add(2.2);
+        data.add(2.3);
+        allData2.add(new JSparklinesDataSeries(data, Color.RED, "test2"));
+
+        JSparklinesDataset dataset2 = new JSparklinesDataset(allData2);
+
+        Assert.assertTrue(dataset.compareTo(dataset2) == 0);
+
+        // changes through the list of a primitive array backed series are
+        // detected
+        allData.get(1).getData().set(2, 2.4);
+
+        Assert.assertTrue(dataset.compareTo(dataset2) == 1);
+    }
+
+    /**
+     * Test the cached sort keys and their invalidation.
+     *
+     * @throws Exception
+     */
+    public void testSortKeys() throws Exception {
+
+        // set up the data
+        ArrayList<JSparklinesDataSeries> allData = new ArrayList<>();
+        JSparklinesDataSeries series = new JSparklinesDataSeries(new double[]{1.0, -2.0, 3.0}, Color.RED, "test");
+        allData.add(series);
+        allData.add(new JSparklinesDataSeries(new double[]{4.0, 6.0}, Color.RED, "test2"));
+        JSparklinesDataset dataset = new JSparklinesDataset(allData);
+
+        // test the sort keys
+        Assert.assertEquals(16.0, dataset.getSortKey(JSparklinesDataset.SortKey.sumOfAbsoluteValues), 0.0);
+        Assert.assertEquals(2.4, dataset.getSortKey(JSparklinesDataset.SortKey.mean), 0.000001);
+        Assert.assertEquals(6.0, dataset.getSortKey(JSparklinesDataset.SortKey.max), 0.0);
+        Assert.assertEquals(6.0, dataset.getSortKey(JSparklinesDataset.SortKey.lastValue), 0.0);
+        Assert.assertEquals(1.0 / 7, dataset.getSortKey(JSparklinesDataset.SortKey.slope), 0.000001);
+
+        // test that the sort keys are updated when the data changes
+        series.setValues(new double[]{1.0, 2.0, 3.0});
+        Assert.assertEquals(16.0, dataset.getSortKey(JSparklinesDataset.SortKey.sumOfAbsoluteValues), 0.0);
+        Assert.assertEquals(3.2, dataset.getSortKey(JSparklinesDataset.SortKey.mean), 0.000001);
+
+        allData.remove(1);
+        Assert.assertEquals(6.0, dataset.getSortKey(JSparklinesDataset.SortKey.sumOfAbsoluteValues), 0.0);
+        Assert.assertEquals(3.0, dataset.getSortKey(JSparklinesDataset.SortKey.lastValue), 0.0);
+        Assert.assertEquals(1.0, dataset.getSortKey(JSparklinesDataset.SortKey.slope), 0.000001);
+
+        ArrayList<JSparklinesDataSeries> newData = new ArrayList<>();
+        newData.add(new JSparklinesDataSeries(new double[]{-5.0}, Color.RED, "test3"));
+        dataset.setData(newData);
+        Assert.assertEquals(5.0, dataset.getSortKey(JSparklinesDataset.SortKey.sumOfAbsoluteValues), 0.0);
+        Assert.assertEquals(-5.0, dataset.getSortKey(JSparklinesDataset.SortKey.max), 0.0);
+
+        // test the comparator
+        JSparklinesDataset other = new JSparklinesDataset(allData);
+        Assert.assertTrue(JSparklinesDataset.getComparator(JSparklinesDataset.SortKey.max).compare(dataset, other) < 0);
+        Assert.assertTrue(JSparklinesDataset.getComparator(JSparklinesDataset.SortKey.max).compare(null, other) < 0);
+        Assert.assertTrue(dataset.compareTo(other) < 0);
+    }
 }
@@ -0,0 +1,90 @@
+package no.uib.jsparklines.test.data;
+
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.KllQuantileSketch;
+import org.junit.Assert;
+
+/**
+ * Test the KllQuantileSketch class.
+ *
+ * @author Harald Barsnes
+ */
+public class KllQuantileSketchTest extends TestCase {
+
+    /**
+     * Test the exact values and the rank error of the quantiles against the
+     * sorted values.
+     *
+     * @throws Exception
+     */
+    public void testQuantiles() throws Exception {
+
+        KllQuantileSketch sketch = new KllQuantileSketch();
+        Assert.assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+
+        Random random = new Random(42);
+        int n = 1000000;
+        double[] values = new double[n];
+        double sum = 0;
+
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextGaussian() * 10 + 100;
+            sum += values[i];
+            sketch.update(values[i]);
+        }
+
+        sketch.update(Double.NaN);
+        Arrays.sort(values);
+
+        Assert.assertEquals(n, sketch.getN());
+        Assert.assertEquals(sum / n, sketch.getMean(), 1e-9);
+        Assert.assertEquals(values[0], sketch.getMinValue(), 0.0);
+        Assert.assertEquals(values[n - 1], sketch.getMaxValue(), 0.0);
+        Assert.assertEquals(values[0], sketch.getQuantile(0), 0.0);
+        Assert.assertEquals(values[n - 1], sketch.getQuantile(1), 0.0);
+
+        // the memory is bounded
+        Assert.assertTrue(sketch.getNumberOfRetainedValues() < 4 * sketch.getK());
+
+        // the rank of the quantiles is within 2% of the requested rank
+        for (double fraction = 0.05; fraction < 1; fraction += 0.05) {
+            double quantile = sketch.getQuantile(fraction);
+            int rank = Arrays.binarySearch(values, quantile);
+            Assert.assertTrue(rank >= 0);
+            Assert.assertEquals(fraction, rank / (double) n, 0.02);
+        }
+
+        // the retained values are sorted
+        for (int i = 1; i < sketch.getNumberOfRetainedValues(); i++) {
+            Assert.assertTrue(sketch.getRetainedValue(i - 1) <= sketch.getRetainedValue(i));
+        }
+    }
+
+    /**
+     * Test that small inputs are kept exactly.
+     *
+     * @throws Exception
+     */
+    public void testSmallInput() throws Exception {
+
+        KllQuantileSketch sketch = new KllQuantileSketch(200);
+
+        for (int i = 10; i >= 1; i--) {
+            sketch.update(i);
+        }
+
+        Assert.assertEquals(10, sketch.getNumberOfRetainedValues());
+        Assert.assertEquals(5.0, sketch.getQuantile(0.5), 0.0);
+        Assert.assertEquals(3.0, sketch.getQuantile(0.25), 0.0);
+        Assert.assertEquals(1.0, sketch.getRetainedValue(0), 0.0);
+
+        try {
+            sketch.getQuantile(1.5);
+            fail("Expected an IllegalArgumentException.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package no.uib.jsparklines.test.data;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.data.MappedSparklineTableModel;
+import org.junit.Assert;
+
+/**
+ * Test the MappedSparklineTableModel class.
+ *
+ * @author Harald Barsnes
+ */
+public class MappedSparklineTableModelTest extends TestCase {
+
+    /**
+     * Test writing and mapping a file, and reading the values via the table
+     * model.
+     *
+     * @throws Exception
+     */
+    public void testMappedSparklineTableModel() throws Exception {
+
+        File file = File.createTempFile("jsparklines", ".bin");
+        file.deleteOnExit();
+
+        // write 1000 rows with one numeric column and two data series
+        try (MappedSparklineTableModel.Writer writer = new MappedSparklineTableModel.Writer(file, 1, 2, 5)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.writeRow(new double[]{i},
+                        new double[]{i, i + 1, i + 2, i + 3, i + 4},
+                        new double[]{-i, -i, -i, -i, -i});
+            }
+        }
+
+        MappedSparklineTableModel tableModel = new MappedSparklineTableModel(file,
+                new String[]{"Index"}, new String[]{"Profile", "Negative"}, 5, new Color[]{Color.RED, Color.BLUE});
+
+        Assert.assertEquals(1000, tableModel.getRowCount());
+        Assert.assertEquals(3, tableModel.getColumnCount());
+        Assert.assertEquals("Negative", tableModel.getColumnName(2));
+        Assert.assertEquals(JSparklinesDataset.class, tableModel.getColumnClass(1));
+        Assert.assertEquals(123.0, (Double) tableModel.getValueAt(123, 0), 0.0);
+
+        // the data series are views of the file
+        JSparklinesDataset dataset = (JSparklinesDataset) tableModel.getValueAt(500, 1);
+        JSparklinesDataSeries dataSeries = dataset.getData().get(0);
+        Assert.assertEquals(5, dataSeries.size());
+        Assert.assertEquals(503.0, dataSeries.getValue(3), 0.0);
+        Assert.assertEquals(Color.RED, dataSeries.getSeriesColor());
+        Assert.assertTrue(dataSeries.getValues().isReadOnly());
+        Assert.assertEquals(-999.0, tableModel.getSeries(999, 1).getValue(4), 0.0);
+        Assert.assertEquals(5 * 999.0, ((JSparklinesDataset) tableModel.getValueAt(999, 2)).getSummedAbsoluteValue(), 0.0);
+
+        // the views of recently used rows are reused
+        Assert.assertSame(dataset, tableModel.getValueAt(500, 1));
+
+        // the series are read-only
+        try {
+            dataSeries.setValues(new double[]{1.0});
+            fail("Expected an UnsupportedOperationException.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        // the layout has to match the file
+        try {
+            new MappedSparklineTableModel(file, new String[]{"Index"}, new String[]{"Profile"}, 5, new Color[]{Color.RED});
+            fail("Expected an IOException.");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
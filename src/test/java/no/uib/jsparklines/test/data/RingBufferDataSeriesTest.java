@@ -0,0 +1,122 @@
+package no.uib.jsparklines.test.data;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Random;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.data.RingBufferDataSeries;
+import org.junit.Assert;
+
+/**
+ * Test the RingBufferDataSeries class.
+ *
+ * @author Harald Barsnes
+ */
+public class RingBufferDataSeriesTest extends TestCase {
+
+    /**
+     * Test appending values, the wrap around of the buffer, the version and
+     * toString.
+     *
+     * @throws Exception
+     */
+    public void testRingBufferDataSeries() throws Exception {
+
+        RingBufferDataSeries dataSeries = new RingBufferDataSeries(3, Color.RED, "test");
+        Assert.assertEquals(0, dataSeries.size());
+        Assert.assertTrue(Double.isNaN(dataSeries.getMinValue()));
+
+        int version = dataSeries.getVersion();
+        dataSeries.append(1.0);
+        dataSeries.append(2.0);
+        Assert.assertTrue(dataSeries.getVersion() != version);
+        Assert.assertEquals("1.0,2.0", dataSeries.toString());
+
+        // the oldest values are dropped when the buffer is full
+        dataSeries.append(new double[]{3.0, 4.0, 5.0});
+        Assert.assertEquals(3, dataSeries.size());
+        Assert.assertEquals(5, dataSeries.getAppendCount());
+        Assert.assertEquals(3.0, dataSeries.getValue(0), 0.0);
+        Assert.assertEquals(5.0, dataSeries.getValue(2), 0.0);
+        Assert.assertEquals("3.0,4.0,5.0", dataSeries.toString());
+        Assert.assertEquals(3, dataSeries.getValues().remaining());
+        Assert.assertEquals(4.0, dataSeries.getData().get(1), 0.0);
+
+        try {
+            dataSeries.getValue(3);
+            fail("Expected an IndexOutOfBoundsException.");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        // only the last values are kept when setting too many values
+        dataSeries.setValues(new double[]{1.0, 2.0, 3.0, 4.0});
+        Assert.assertEquals("2.0,3.0,4.0", dataSeries.toString());
+        Assert.assertEquals(2.0, dataSeries.getMinValue(), 0.0);
+
+        dataSeries.clear();
+        Assert.assertEquals(0, dataSeries.size());
+        Assert.assertTrue(Double.isNaN(dataSeries.getMaxValue()));
+    }
+
+    /**
+     * Test the rolling minimum and maximum against a full scan of the values.
+     *
+     * @throws Exception
+     */
+    public void testRollingMinAndMax() throws Exception {
+
+        RingBufferDataSeries dataSeries = new RingBufferDataSeries(17, Color.RED, "test");
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2000; i++) {
+
+            double value = random.nextInt(10) == 0 ? Double.NaN : random.nextInt(50) - 25;
+            dataSeries.append(value);
+
+            double min = Double.NaN;
+            double max = Double.NaN;
+
+            for (int j = 0; j < dataSeries.size(); j++) {
+                double tempValue = dataSeries.getValue(j);
+                if (!Double.isNaN(tempValue)) {
+                    if (Double.isNaN(min) || tempValue < min) {
+                        min = tempValue;
+                    }
+                    if (Double.isNaN(max) || tempValue > max) {
+                        max = tempValue;
+                    }
+                }
+            }
+
+            Assert.assertEquals(min, dataSeries.getMinValue(), 0.0);
+            Assert.assertEquals(max, dataSeries.getMaxValue(), 0.0);
+        }
+    }
+
+    /**
+     * Test that the sort keys and version of a dataset follow the appended
+     * values.
+     *
+     * @throws Exception
+     */
+    public void testDataset() throws Exception {
+
+        RingBufferDataSeries dataSeries = new RingBufferDataSeries(2, Color.RED, "test");
+        dataSeries.append(1.0);
+        dataSeries.append(2.0);
+
+        ArrayList<JSparklinesDataSeries> data = new ArrayList<>();
+        data.add(dataSeries);
+        JSparklinesDataset dataset = new JSparklinesDataset(data);
+
+        Assert.assertEquals(3.0, dataset.getSummedAbsoluteValue(), 0.0);
+        int version = dataset.getVersion();
+
+        dataSeries.append(5.0);
+        Assert.assertTrue(dataset.getVersion() != version);
+        Assert.assertEquals(7.0, dataset.getSummedAbsoluteValue(), 0.0);
+    }
+}
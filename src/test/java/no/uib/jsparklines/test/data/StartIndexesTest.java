@@ -1,6 +1,12 @@
 package no.uib.jsparklines.test.data;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import junit.framework.TestCase;
 import no.uib.jsparklines.data.StartIndexes;
 import org.junit.Assert;
@@ -46,4 +52,139 @@ public class StartIndexesTest extends TestCase {
 
         Assert.assertTrue(indexes.compareTo(indexes2) == -1);
     }
+
+    /**
+     * Test the primitive accessors, compareTo outside the range of the cached
+     * Integer objects, and serialization.
+     *
+     * @throws Exception
+     */
+    public void testPrimitiveStartIndexes() throws Exception {
+
+        StartIndexes indexes = new StartIndexes(new int[]{1000, 5, 20000});
+        Assert.assertEquals(3, indexes.size());
+        Assert.assertEquals(20000, indexes.getIndex(2));
+        Assert.assertEquals(3, indexes.getValues().remaining());
+        Assert.assertTrue(indexes.getValues().isReadOnly());
+        Assert.assertEquals("1000,5,20000", indexes.toString());
+
+        // compareTo used == on boxed Integers, which fails above 127
+        ArrayList<Integer> data = new ArrayList<>();
+        data.add(Integer.valueOf(1000));
+        Assert.assertTrue(indexes.compareTo(new StartIndexes(data)) == 0);
+
+        // empty start indexes are sorted first
+        StartIndexes emptyIndexes = new StartIndexes(new int[0]);
+        Assert.assertEquals("", emptyIndexes.toString());
+        Assert.assertTrue(emptyIndexes.compareTo(indexes) == -1);
+        Assert.assertTrue(indexes.compareTo(emptyIndexes) == 1);
+
+        // serialization
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(indexes);
+        }
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()))) {
+            StartIndexes readIndexes = (StartIndexes) objectInputStream.readObject();
+            Assert.assertEquals("1000,5,20000", readIndexes.toString());
+            Assert.assertTrue(readIndexes.compareTo(indexes) == 0);
+        }
+    }
+
+    /**
+     * Test that changes to the list returned by getIndexes are written through
+     * to the start indexes.
+     *
+     * @throws Exception
+     */
+    public void testIndexesView() throws Exception {
+
+        StartIndexes indexes = new StartIndexes(new int[]{10, 20, 30});
+        StartIndexes otherIndexes = new StartIndexes(new int[]{15});
+        ArrayList<Integer> view = indexes.getIndexes();
+        Assert.assertEquals(3, view.size());
+        Assert.assertEquals(Integer.valueOf(20), view.get(1));
+
+        // set, including the first index used by compareTo
+        Assert.assertEquals(Integer.valueOf(10), view.set(0, 25));
+        Assert.assertEquals(25, indexes.getIndex(0));
+        Assert.assertTrue(indexes.compareTo(otherIndexes) == 1);
+
+        // add and remove
+        view.add(0, 5);
+        view.add(40);
+        Assert.assertEquals("5,25,20,30,40", indexes.toString());
+        Assert.assertTrue(indexes.compareTo(otherIndexes) == -1);
+
+        Assert.assertEquals(Integer.valueOf(25), view.remove(1));
+        Assert.assertEquals("5,20,30,40", indexes.toString());
+        Assert.assertEquals(4, indexes.getValues().remaining());
+
+        // views created earlier see the changes
+        Assert.assertEquals(indexes.getIndexes(), view);
+
+        Assert.assertSame(view, indexes.getIndexes());
+
+        // the iterators and sub lists write through as well
+        Iterator<Integer> iterator = view.iterator();
+        iterator.next();
+        iterator.remove();
+        Assert.assertEquals("20,30,40", indexes.toString());
+        Assert.assertEquals(20, indexes.getIndex(0));
+
+        view.subList(1, 2).clear();
+        Assert.assertEquals("20,40", indexes.toString());
+        Assert.assertEquals(Arrays.asList(20, 40), view);
+        Assert.assertEquals(Arrays.asList(20, 40).hashCode(), view.hashCode());
+        Assert.assertTrue(view.contains(40));
+        Assert.assertEquals(1, view.indexOf(40));
+
+        // serialized as a plain list of the start indexes
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(view);
+        }
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()))) {
+            Object readView = objectInputStream.readObject();
+            Assert.assertEquals(ArrayList.class, readView.getClass());
+            Assert.assertEquals(view, readView);
+        }
+
+        view.clear();
+        Assert.assertEquals(0, indexes.size());
+        Assert.assertTrue(indexes.compareTo(otherIndexes) == -1);
+    }
+
+    /**
+     * Test that adding start indexes one by one grows the array in place, and
+     * that the unused part of the array is hidden.
+     *
+     * @throws Exception
+     */
+    public void testAddIndexes() throws Exception {
+
+        StartIndexes indexes = new StartIndexes(new int[0]);
+        ArrayList<Integer> view = indexes.getIndexes();
+
+        for (int i = 0; i < 1000; i++) {
+            view.add(i);
+        }
+
+        Assert.assertEquals(1000, indexes.size());
+        Assert.assertEquals(1000, indexes.getValues().remaining());
+        Assert.assertEquals(999, indexes.getValues().get(999));
+        Assert.assertEquals(0, indexes.getIndex(0));
+
+        try {
+            indexes.getIndex(1000);
+            fail("Expected an IndexOutOfBoundsException.");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        view.remove(0);
+        Assert.assertEquals(999, view.size());
+        Assert.assertEquals(1, indexes.getIndex(0));
+        Assert.assertTrue(indexes.toString().endsWith(",998,999"));
+    }
 }
@@ -0,0 +1,48 @@
+package no.uib.jsparklines.test.renderers;
+
+import java.awt.Color;
+import javax.swing.JTable;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.StartIndexes;
+import no.uib.jsparklines.renderers.JSparklinesMultiIntervalChartTableCellRenderer;
+import org.jfree.chart.plot.PlotOrientation;
+import org.junit.Assert;
+
+/**
+ * Test the JSparklinesMultiIntervalChartTableCellRenderer class.
+ *
+ * @author Harald Barsnes
+ */
+public class JSparklinesMultiIntervalChartTableCellRendererTest extends TestCase {
+
+    /**
+     * Test that the direct rendering uses the same backgrounds as the
+     * JFreeChart rendering, for selected and unselected rows.
+     *
+     * @throws Exception
+     */
+    public void testDirectRenderingBackground() throws Exception {
+
+        JTable table = new JTable(1, 1);
+        StartIndexes indexes = new StartIndexes(new int[]{10, 40});
+
+        for (Color plotBackgroundColor : new Color[]{null, Color.YELLOW}) {
+            for (boolean isSelected : new boolean[]{false, true}) {
+
+                JSparklinesMultiIntervalChartTableCellRenderer renderer = new JSparklinesMultiIntervalChartTableCellRenderer(
+                        PlotOrientation.HORIZONTAL, 100.0, 5.0, Color.RED);
+                renderer.setBackgroundColor(plotBackgroundColor);
+
+                renderer.getTableCellRendererComponent(table, indexes, isSelected, false, 0, 0);
+                Color chartBackground = renderer.getBackground();
+
+                // render a cell with another background first
+                renderer.setDirectRendering(true);
+                renderer.getTableCellRendererComponent(table, indexes, !isSelected, false, 0, 0);
+                renderer.getTableCellRendererComponent(table, indexes, isSelected, false, 0, 0);
+
+                Assert.assertEquals(chartBackground, renderer.getBackground());
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package no.uib.jsparklines.test.renderers;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import javax.swing.JTable;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.renderers.JSparklinesTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesTableCellRenderer.PlotType;
+import no.uib.jsparklines.renderers.util.ReferenceLine;
+import no.uib.jsparklines.renderers.util.ReferenceOverlay;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PiePlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.statistics.BoxAndWhiskerCategoryDataset;
+import org.junit.Assert;
+
+/**
+ * Test the JSparklinesTableCellRenderer class.
+ *
+ * @author Harald Barsnes
+ */
+public class JSparklinesTableCellRendererTest extends TestCase {
+
+    /**
+     * Test that changes to the reference lines made via the map returned by
+     * getAllReferenceLines are painted, and invalidate the cached images.
+     *
+     * @throws Exception
+     */
+    public void testEditReferenceLine() throws Exception {
+
+        JSparklinesTableCellRenderer renderer = new JSparklinesTableCellRenderer(PlotType.lineChart, PlotOrientation.VERTICAL, 0.0, 10.0);
+        renderer.addReferenceLine("reference", 2.0, 3f, Color.RED);
+
+        ReferenceOverlay overlay = renderer.getReferenceOverlay();
+        int configurationVersion = renderer.getConfigurationVersion();
+
+        Assert.assertTrue(isPainted(overlay, 20));
+        Assert.assertFalse(isPainted(overlay, 80));
+
+        // unchanged overlays are reused
+        Assert.assertSame(overlay, renderer.getReferenceOverlay());
+
+        // edit the reference line after adding it
+        renderer.getAllReferenceLines().get("reference").setValue(8.0);
+
+        Assert.assertNotSame(overlay, renderer.getReferenceOverlay());
+        Assert.assertTrue(renderer.getConfigurationVersion() != configurationVersion);
+        Assert.assertFalse(isPainted(renderer.getReferenceOverlay(), 20));
+        Assert.assertTrue(isPainted(renderer.getReferenceOverlay(), 80));
+
+        // a reference line changed after being added, but before painting
+        ReferenceLine referenceLine = new ReferenceLine("other", 5.0, 3f, Color.RED);
+        renderer.addReferenceLine(referenceLine);
+        referenceLine.setValue(2.0);
+
+        Assert.assertTrue(isPainted(renderer.getReferenceOverlay(), 20));
+        Assert.assertFalse(isPainted(renderer.getReferenceOverlay(), 50));
+
+        renderer.removeAllReferenceLines();
+        Assert.assertTrue(renderer.getReferenceOverlay().isEmpty());
+    }
+
+    /**
+     * Test that the reused pie and box plot charts are updated in place when
+     * the data series have the same labels, and rebuilt otherwise.
+     *
+     * @throws Exception
+     */
+    public void testReusedCharts() throws Exception {
+
+        JTable table = new JTable(1, 1);
+
+        JSparklinesTableCellRenderer renderer = new JSparklinesTableCellRenderer(PlotType.pieChart, PlotOrientation.VERTICAL, 0.0, 10.0);
+        renderer.setReuseCharts(true);
+
+        PiePlot piePlot = (PiePlot) getChart(renderer, table, createDataset("a", 1.0, "b", 2.0)).getPlot();
+        Assert.assertEquals(3.0, piePlot.getDataset().getValue("a").doubleValue(), 0);
+
+        Assert.assertSame(piePlot, getChart(renderer, table, createDataset("a", 4.0, "b", 5.0)).getPlot());
+        Assert.assertEquals(9.0, piePlot.getDataset().getValue("a").doubleValue(), 0);
+        Assert.assertEquals(2, piePlot.getDataset().getItemCount());
+
+        getChart(renderer, table, createDataset("c", 1.0, "d", 2.0));
+        Assert.assertEquals(Arrays.asList("c", "d"), piePlot.getDataset().getKeys());
+
+        renderer = new JSparklinesTableCellRenderer(PlotType.boxPlot, PlotOrientation.VERTICAL, 0.0, 10.0);
+        renderer.setReuseCharts(true);
+
+        CategoryPlot categoryPlot = getChart(renderer, table, createDataset("a", 1.0, "b", 2.0)).getCategoryPlot();
+        BoxAndWhiskerCategoryDataset boxPlotDataset = (BoxAndWhiskerCategoryDataset) categoryPlot.getDataset();
+        Assert.assertEquals(1.5, boxPlotDataset.getMedianValue("a", "1").doubleValue(), 0);
+
+        getChart(renderer, table, createDataset("a", 4.0, "b", 5.0));
+        Assert.assertEquals(4.5, boxPlotDataset.getMedianValue("a", "1").doubleValue(), 0);
+        Assert.assertEquals(2, boxPlotDataset.getRowCount());
+
+        getChart(renderer, table, createDataset("c", 1.0, "d", 2.0));
+        Assert.assertEquals(Arrays.asList("c", "d"), boxPlotDataset.getRowKeys());
+    }
+
+    /**
+     * Renders the given dataset and returns the chart displayed.
+     *
+     * @param renderer the renderer
+     * @param table the table
+     * @param dataset the dataset
+     * @return the chart displayed
+     */
+    private JFreeChart getChart(JSparklinesTableCellRenderer renderer, JTable table, JSparklinesDataset dataset) {
+        Component component = renderer.getTableCellRendererComponent(table, dataset, false, false, 0, 0);
+        return ((ChartPanel) ((Container) component).getComponent(1)).getChart();
+    }
+
+    /**
+     * Creates a dataset with two data series, each with the given value and
+     * the given value plus one.
+     *
+     * @param label1 the label of the first data series
+     * @param value1 the first value of the first data series
+     * @param label2 the label of the second data series
+     * @param value2 the first value of the second data series
+     * @return the dataset
+     */
+    private JSparklinesDataset createDataset(String label1, double value1, String label2, double value2) {
+        ArrayList<JSparklinesDataSeries> data = new ArrayList<>();
+        data.add(new JSparklinesDataSeries(new double[]{value1, value1 + 1}, Color.RED, label1));
+        data.add(new JSparklinesDataSeries(new double[]{value2, value2 + 1}, Color.BLUE, label2));
+        return new JSparklinesDataset(data);
+    }
+
+    /**
+     * Returns true if the given overlay paints the vertical line at the given
+     * x coordinate, when painting the values from 0 to 10 into a 100 x 100
+     * pixels area.
+     *
+     * @param overlay the overlay
+     * @param x the x coordinate
+     * @return true if the line at the x coordinate is painted
+     */
+    private boolean isPainted(ReferenceOverlay overlay, int x) {
+
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        overlay.paint(g2, 0, 0, 100, 100, 0, 10, false);
+        g2.dispose();
+
+        return (image.getRGB(x, 50) >>> 24) != 0;
+    }
+}
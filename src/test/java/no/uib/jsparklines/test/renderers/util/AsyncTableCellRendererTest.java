@@ -0,0 +1,243 @@
+package no.uib.jsparklines.test.renderers.util;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableCellRenderer;
+import junit.framework.TestCase;
+import no.uib.jsparklines.JSparklinesImageExporter;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.data.RingBufferDataSeries;
+import no.uib.jsparklines.renderers.util.AsyncTableCellRenderer;
+import org.junit.Assert;
+
+/**
+ * Test the AsyncTableCellRenderer class.
+ *
+ * @author Harald Barsnes
+ */
+public class AsyncTableCellRendererTest extends TestCase {
+
+    /**
+     * Test that a placeholder is shown until the image is rendered, after
+     * which the cell is repainted and the image is used, and that changes to
+     * the data series are rendered anew.
+     *
+     * @throws Exception
+     */
+    public void testRenderImage() throws Exception {
+
+        RingBufferDataSeries dataSeries = new RingBufferDataSeries(10, Color.RED, "test");
+        dataSeries.append(1.0);
+        ArrayList<JSparklinesDataSeries> data = new ArrayList<>();
+        data.add(dataSeries);
+        JSparklinesDataset dataset = new JSparklinesDataset(data);
+
+        RepaintRecordingTable table = createTable(dataset);
+        AsyncTableCellRenderer asyncRenderer = new AsyncTableCellRenderer(new TestRendererFactory(), 1);
+
+        try {
+
+            // the placeholder is shown until the image is rendered
+            Component component = asyncRenderer.getTableCellRendererComponent(table, dataset, false, false, 0, 0);
+            Assert.assertNotSame(asyncRenderer.getRenderer(), component);
+
+            waitForJobs(asyncRenderer, table, 1);
+
+            Assert.assertEquals(1, asyncRenderer.getNumberOfImages());
+
+            // the rendered image is used
+            Component imageComponent = asyncRenderer.getTableCellRendererComponent(table, dataset, false, false, 0, 0);
+            Assert.assertNotSame(component, imageComponent);
+            Assert.assertNotSame(asyncRenderer.getRenderer(), imageComponent);
+            Assert.assertEquals(0, asyncRenderer.getNumberOfPendingJobs());
+            Assert.assertSame(imageComponent, asyncRenderer.getTableCellRendererComponent(table, dataset, false, false, 0, 0));
+
+            // a new value in the data series is rendered anew
+            dataSeries.append(2.0);
+            Assert.assertNotSame(imageComponent, asyncRenderer.getTableCellRendererComponent(table, dataset, false, false, 0, 0));
+
+            waitForJobs(asyncRenderer, table, 2);
+
+            Assert.assertEquals(2, asyncRenderer.getNumberOfImages());
+            Assert.assertSame(imageComponent, asyncRenderer.getTableCellRendererComponent(table, dataset, false, false, 0, 0));
+
+        } finally {
+            asyncRenderer.dispose();
+        }
+    }
+
+    /**
+     * Test that cells whose rendering fails on the background threads are
+     * repainted by the renderer used on the event dispatch thread.
+     *
+     * @throws Exception
+     */
+    public void testRenderingFailure() throws Exception {
+
+        RepaintRecordingTable table = createTable(TestRenderer.FAILING_VALUE);
+        AsyncTableCellRenderer asyncRenderer = new AsyncTableCellRenderer(new TestRendererFactory(), 1);
+
+        try {
+
+            Component component = asyncRenderer.getTableCellRendererComponent(table, TestRenderer.FAILING_VALUE, false, false, 0, 0);
+            Assert.assertNotSame(asyncRenderer.getRenderer(), component);
+
+            waitForJobs(asyncRenderer, table, 1);
+
+            Assert.assertEquals(0, asyncRenderer.getNumberOfImages());
+            Assert.assertEquals(1, asyncRenderer.getNumberOfFailedImages());
+
+            // rendered by the renderer of the event dispatch thread
+            component = asyncRenderer.getTableCellRendererComponent(table, TestRenderer.FAILING_VALUE, false, false, 0, 0);
+            Assert.assertSame(asyncRenderer.getRenderer(), component);
+            Assert.assertEquals(0, asyncRenderer.getNumberOfPendingJobs());
+
+            asyncRenderer.clear();
+            Assert.assertEquals(0, asyncRenderer.getNumberOfFailedImages());
+
+        } finally {
+            asyncRenderer.dispose();
+        }
+    }
+
+    /**
+     * Creates a table with one cell.
+     *
+     * @param value the value of the cell
+     * @return the table
+     */
+    private RepaintRecordingTable createTable(Object value) {
+        RepaintRecordingTable table = new RepaintRecordingTable(new DefaultTableModel(new Object[][]{{value}}, new Object[]{"Values"}));
+        table.setSize(100, table.getRowHeight());
+        table.getColumnModel().getColumn(0).setWidth(100);
+        return table;
+    }
+
+    /**
+     * Waits until all the pending jobs are done, and the table has been
+     * repainted the given number of times.
+     *
+     * @param asyncRenderer the renderer
+     * @param table the table
+     * @param numberOfRepaints the number of repaints to wait for
+     * @throws Exception if interrupted while waiting
+     */
+    private void waitForJobs(AsyncTableCellRenderer asyncRenderer, RepaintRecordingTable table, int numberOfRepaints) throws Exception {
+
+        long timeout = System.currentTimeMillis() + 10000;
+
+        while (System.currentTimeMillis() < timeout) {
+
+            // the repaints are posted to the event dispatch thread
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+
+            if (asyncRenderer.getNumberOfPendingJobs() == 0 && table.getNumberOfRepaints() >= numberOfRepaints) {
+                break;
+            }
+
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(0, asyncRenderer.getNumberOfPendingJobs());
+        Assert.assertEquals(numberOfRepaints, table.getNumberOfRepaints());
+        Assert.assertTrue(table.isRepainted(table.getCellRect(0, 0, false)));
+    }
+
+    /**
+     * Table recording the repainted rectangles.
+     */
+    private static class RepaintRecordingTable extends JTable {
+
+        /**
+         * The repainted rectangles.
+         */
+        private final ArrayList<Rectangle> repaintedRectangles = new ArrayList<>();
+
+        /**
+         * Returns the number of repaints.
+         *
+         * @return the number of repaints
+         */
+        private synchronized int getNumberOfRepaints() {
+            return repaintedRectangles.size();
+        }
+
+        /**
+         * Returns true if the given rectangle has been repainted.
+         *
+         * @param rectangle the rectangle
+         * @return true if the given rectangle has been repainted
+         */
+        private synchronized boolean isRepainted(Rectangle rectangle) {
+            return repaintedRectangles.contains(rectangle);
+        }
+
+        /**
+         * Creates a new RepaintRecordingTable.
+         *
+         * @param tableModel the table model
+         */
+        private RepaintRecordingTable(DefaultTableModel tableModel) {
+            super(tableModel);
+        }
+
+        @Override
+        public void repaint(Rectangle rectangle) {
+            synchronized (this) {
+                repaintedRectangles.add(new Rectangle(rectangle));
+            }
+            super.repaint(rectangle);
+        }
+    }
+
+    /**
+     * Factory creating the test renderers.
+     */
+    private static class TestRendererFactory implements JSparklinesImageExporter.RendererFactory {
+
+        @Override
+        public TableCellRenderer createRenderer() {
+            return new TestRenderer();
+        }
+    }
+
+    /**
+     * Renderer filling the cell, failing for the failing value when called
+     * from the background threads of the AsyncTableCellRenderer.
+     */
+    private static class TestRenderer extends JComponent implements TableCellRenderer {
+
+        /**
+         * The value failing on the background threads.
+         */
+        private static final String FAILING_VALUE = "failing";
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                boolean isSelected, boolean hasFocus, int row, int column) {
+            if (FAILING_VALUE.equals(value) && !SwingUtilities.isEventDispatchThread()
+                    && Thread.currentThread().getName().startsWith("JSparklines-async-renderer")) {
+                throw new IllegalStateException("Rendering failed.");
+            }
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(Color.RED);
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+    }
+}
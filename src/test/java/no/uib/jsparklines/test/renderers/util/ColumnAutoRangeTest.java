@@ -0,0 +1,233 @@
+package no.uib.jsparklines.test.renderers.util;
+
+import java.awt.Color;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.XYDataPoint;
+import no.uib.jsparklines.renderers.JSparklinesBarChartTableCellRenderer;
+import no.uib.jsparklines.renderers.JSparklinesTwoValueBarChartTableCellRenderer;
+import no.uib.jsparklines.renderers.util.ColumnAutoRange;
+import org.jfree.chart.plot.PlotOrientation;
+import org.junit.Assert;
+
+/**
+ * Test the ColumnAutoRange class.
+ *
+ * @author Harald Barsnes
+ */
+public class ColumnAutoRangeTest extends TestCase {
+
+    /**
+     * Test the initial scan of the column, including the values that are
+     * ignored.
+     *
+     * @throws Exception
+     */
+    public void testRebuild() throws Exception {
+
+        DefaultTableModel tableModel = createTableModel(new Object[]{5.0, -2.0, Double.NaN, "text", null, 3});
+        ColumnAutoRange columnAutoRange = new ColumnAutoRange(new JTable(tableModel), 0);
+        columnAutoRange.attach();
+
+        Assert.assertTrue(columnAutoRange.hasValues());
+        Assert.assertEquals(-2.0, columnAutoRange.getMinValue(), 0);
+        Assert.assertEquals(5.0, columnAutoRange.getMaxValue(), 0);
+        Assert.assertEquals(3.0, columnAutoRange.getMinPositiveValue(), 0);
+        Assert.assertEquals(5.0, columnAutoRange.getMaxAbsoluteValue(), 0);
+        Assert.assertEquals(1, columnAutoRange.getRescanCount());
+
+        // an empty column has no values
+        columnAutoRange = new ColumnAutoRange(new JTable(createTableModel(new Object[]{"text"})), 0);
+        columnAutoRange.attach();
+
+        Assert.assertFalse(columnAutoRange.hasValues());
+        Assert.assertTrue(Double.isNaN(columnAutoRange.getMaxValue()));
+    }
+
+    /**
+     * Test that inserted rows extend the range without rescanning the rows.
+     *
+     * @throws Exception
+     */
+    public void testInsert() throws Exception {
+
+        DefaultTableModel tableModel = createTableModel(new Object[]{1.0, 2.0});
+        ColumnAutoRange columnAutoRange = new ColumnAutoRange(new JTable(tableModel), 0);
+        columnAutoRange.attach();
+
+        tableModel.insertRow(1, new Object[]{10.0});
+        tableModel.addRow(new Object[]{-4.0});
+
+        Assert.assertEquals(-4.0, columnAutoRange.getMinValue(), 0);
+        Assert.assertEquals(10.0, columnAutoRange.getMaxValue(), 0);
+        Assert.assertEquals(1, columnAutoRange.getRescanCount());
+
+        // the stored rows follow the insert, i.e., updating the row moved down
+        // by the insert neither changes the range nor rescans the rows
+        tableModel.setValueAt(0.5, 2, 0);
+
+        Assert.assertEquals(10.0, columnAutoRange.getMaxValue(), 0);
+        Assert.assertEquals(-4.0, columnAutoRange.getMinValue(), 0);
+        Assert.assertEquals(0.5, columnAutoRange.getMinPositiveValue(), 0);
+        Assert.assertEquals(1, columnAutoRange.getRescanCount());
+    }
+
+    /**
+     * Test that updates only rescan the rows when the row holding one of the
+     * extremes is changed.
+     *
+     * @throws Exception
+     */
+    public void testUpdate() throws Exception {
+
+        DefaultTableModel tableModel = createTableModel(new Object[]{1.0, 5.0, 3.0});
+        ColumnAutoRange columnAutoRange = new ColumnAutoRange(new JTable(tableModel), 0);
+        columnAutoRange.attach();
+
+        // a row not holding an extreme
+        tableModel.setValueAt(4.0, 2, 0);
+
+        Assert.assertEquals(1.0, columnAutoRange.getMinValue(), 0);
+        Assert.assertEquals(5.0, columnAutoRange.getMaxValue(), 0);
+        Assert.assertEquals(1, columnAutoRange.getRescanCount());
+
+        // a new maximum
+        tableModel.setValueAt(8.0, 2, 0);
+
+        Assert.assertEquals(8.0, columnAutoRange.getMaxValue(), 0);
+        Assert.assertEquals(1, columnAutoRange.getRescanCount());
+
+        // lowering the maximum rescans the rows
+        tableModel.setValueAt(2.0, 2, 0);
+
+        Assert.assertEquals(5.0, columnAutoRange.getMaxValue(), 0);
+        Assert.assertEquals(2, columnAutoRange.getRescanCount());
+
+        // updates of other columns are ignored
+        tableModel.setValueAt(100.0, 2, 1);
+
+        Assert.assertEquals(5.0, columnAutoRange.getMaxValue(), 0);
+        Assert.assertEquals(2, columnAutoRange.getRescanCount());
+    }
+
+    /**
+     * Test that deleting the row holding one of the extremes rescans the rows.
+     *
+     * @throws Exception
+     */
+    public void testDelete() throws Exception {
+
+        DefaultTableModel tableModel = createTableModel(new Object[]{1.0, 5.0, 3.0, 0.5});
+        ColumnAutoRange columnAutoRange = new ColumnAutoRange(new JTable(tableModel), 0);
+        columnAutoRange.attach();
+
+        // a row not holding an extreme
+        tableModel.removeRow(2);
+
+        Assert.assertEquals(0.5, columnAutoRange.getMinValue(), 0);
+        Assert.assertEquals(5.0, columnAutoRange.getMaxValue(), 0);
+        Assert.assertEquals(1, columnAutoRange.getRescanCount());
+
+        // the row holding the minimum, moved up by the previous delete
+        tableModel.removeRow(2);
+
+        Assert.assertEquals(1.0, columnAutoRange.getMinValue(), 0);
+        Assert.assertEquals(1.0, columnAutoRange.getMinPositiveValue(), 0);
+        Assert.assertEquals(2, columnAutoRange.getRescanCount());
+
+        // removing all the rows
+        tableModel.removeRow(0);
+        tableModel.removeRow(0);
+
+        Assert.assertFalse(columnAutoRange.hasValues());
+    }
+
+    /**
+     * Test the range pushed to the renderers, including the stacked values of
+     * the two value bar chart.
+     *
+     * @throws Exception
+     */
+    public void testRenderers() throws Exception {
+
+        DefaultTableModel tableModel = createTableModel(new Object[]{new XYDataPoint(4, 6), new XYDataPoint(7, 1)});
+        ColumnAutoRange columnAutoRange = new ColumnAutoRange(new JTable(tableModel), 0);
+        columnAutoRange.attach();
+
+        JSparklinesBarChartTableCellRenderer barChartRenderer = new JSparklinesBarChartTableCellRenderer(PlotOrientation.HORIZONTAL, 1.0, true);
+        JSparklinesTwoValueBarChartTableCellRenderer twoValueRenderer = new JSparklinesTwoValueBarChartTableCellRenderer(
+                PlotOrientation.HORIZONTAL, 1.0, Color.RED, Color.BLUE, false);
+        columnAutoRange.addRenderer(barChartRenderer);
+        columnAutoRange.addRenderer(twoValueRenderer);
+
+        // the bar chart gets the x values, the two value bar chart the sum
+        Assert.assertEquals(7.0, columnAutoRange.getMaxValue(), 0);
+        Assert.assertEquals(10.0, columnAutoRange.getMaxStackedValue(), 0);
+        Assert.assertEquals(0.0, barChartRenderer.getMinValue(), 0);
+        Assert.assertEquals(7.0, barChartRenderer.getMaxValue(), 0);
+        Assert.assertEquals(10.0, twoValueRenderer.getMaxValue(), 0);
+
+        // lowering the largest sum rescans the rows and updates the renderer
+        tableModel.setValueAt(new XYDataPoint(4, 2), 0, 0);
+
+        Assert.assertEquals(8.0, twoValueRenderer.getMaxValue(), 0);
+        Assert.assertEquals(7.0, barChartRenderer.getMaxValue(), 0);
+        Assert.assertEquals(2, columnAutoRange.getRescanCount());
+
+        // inserting a larger sum
+        tableModel.addRow(new Object[]{new XYDataPoint(1, 11)});
+
+        Assert.assertEquals(12.0, twoValueRenderer.getMaxValue(), 0);
+        Assert.assertEquals(7.0, barChartRenderer.getMaxValue(), 0);
+
+        // deleting it again
+        tableModel.removeRow(2);
+
+        Assert.assertEquals(8.0, twoValueRenderer.getMaxValue(), 0);
+    }
+
+    /**
+     * Test that replacing the table model rebuilds the range.
+     *
+     * @throws Exception
+     */
+    public void testModelChange() throws Exception {
+
+        JTable table = new JTable(createTableModel(new Object[]{1.0, 2.0}));
+        ColumnAutoRange columnAutoRange = new ColumnAutoRange(table, 0);
+        columnAutoRange.attach();
+
+        DefaultTableModel tableModel = createTableModel(new Object[]{-3.0, 9.0});
+        table.setModel(tableModel);
+
+        Assert.assertEquals(-3.0, columnAutoRange.getMinValue(), 0);
+        Assert.assertEquals(9.0, columnAutoRange.getMaxValue(), 0);
+
+        // the new model is listened to
+        tableModel.addRow(new Object[]{12.0});
+
+        Assert.assertEquals(12.0, columnAutoRange.getMaxValue(), 0);
+
+        // no updates after detaching
+        columnAutoRange.detach();
+        tableModel.addRow(new Object[]{20.0});
+
+        Assert.assertEquals(12.0, columnAutoRange.getMaxValue(), 0);
+    }
+
+    /**
+     * Creates a table model with the given values in the first column and
+     * zeros in the second column.
+     *
+     * @param values the values of the first column
+     * @return the table model
+     */
+    private DefaultTableModel createTableModel(Object[] values) {
+        DefaultTableModel tableModel = new DefaultTableModel(new Object[]{"Values", "Other"}, 0);
+        for (Object value : values) {
+            tableModel.addRow(new Object[]{value, 0.0});
+        }
+        return tableModel;
+    }
+}
@@ -0,0 +1,276 @@
+package no.uib.jsparklines.test.renderers.util;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.ArrrayListDataPoints;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.data.StartIndexes;
+import no.uib.jsparklines.renderers.JSparklinesArrayListBarChartTableCellRenderer.ValueDisplayType;
+import no.uib.jsparklines.renderers.JSparklinesColorTableCellRenderer;
+import no.uib.jsparklines.renderers.util.RenderStatistics;
+import no.uib.jsparklines.renderers.util.RendererMetrics;
+import no.uib.jsparklines.renderers.util.RendererMetricsListener;
+import org.junit.Assert;
+
+/**
+ * Test the RendererMetrics class.
+ *
+ * @author Harald Barsnes
+ */
+public class RendererMetricsTest extends TestCase {
+
+    /**
+     * Test the statistics per renderer and plot type.
+     *
+     * @throws Exception
+     */
+    public void testRecordRendering() throws Exception {
+
+        RendererMetrics rendererMetrics = new RendererMetrics();
+        rendererMetrics.recordRendering("peptides", "lineChart", 0, 1, 10, 1, Boolean.TRUE);
+        rendererMetrics.recordRendering("peptides", "lineChart", 1, 1, 30, 3, Boolean.FALSE);
+        rendererMetrics.recordRendering("peptides", "lineChart", 2, 1, 20, 2, Boolean.TRUE);
+        rendererMetrics.recordRendering("peptides", "barChart", 3, 1, 1, 2000000, null);
+        rendererMetrics.recordRendering("proteins", null, 0, 2, 1, 1000000, null);
+
+        Assert.assertEquals(5, rendererMetrics.getRenderCount());
+        Assert.assertEquals(3.000006, rendererMetrics.getTotalRenderTimeMillis(), 1e-12);
+
+        RenderStatistics statistics = rendererMetrics.getRenderStatistics("peptides", "lineChart");
+        Assert.assertEquals("peptides", statistics.getRendererName());
+        Assert.assertEquals("lineChart", statistics.getPlotType());
+        Assert.assertEquals(3, statistics.getRenderCount());
+        Assert.assertEquals(0.000006, statistics.getTotalRenderTimeMillis(), 1e-12);
+        Assert.assertEquals(0.000003, statistics.getMaxRenderTimeMillis(), 1e-12);
+        Assert.assertEquals(0.000002, statistics.getMedianRenderTimeMillis(), 1e-12);
+        Assert.assertEquals(30, statistics.getMaxNumberOfValues());
+        Assert.assertEquals(60, statistics.getTotalNumberOfValues());
+        Assert.assertEquals(2, statistics.getCacheHits());
+        Assert.assertEquals(1, statistics.getCacheMisses());
+        Assert.assertEquals(2.0 / 3, statistics.getCacheHitRate(), 1e-12);
+
+        // the renderers without plot types
+        statistics = rendererMetrics.getRenderStatistics("proteins", null);
+        Assert.assertEquals(1, statistics.getRenderCount());
+        Assert.assertEquals(0, statistics.getCacheHitRate(), 0);
+        Assert.assertNull(rendererMetrics.getRenderStatistics("proteins", "lineChart"));
+
+        // the statistics are sorted by the total render time
+        List<RenderStatistics> allStatistics = rendererMetrics.getRenderStatistics();
+        Assert.assertEquals(3, allStatistics.size());
+        Assert.assertEquals("barChart", allStatistics.get(0).getPlotType());
+        Assert.assertEquals("proteins", allStatistics.get(1).getRendererName());
+        Assert.assertEquals("lineChart", allStatistics.get(2).getPlotType());
+
+        rendererMetrics.reset();
+
+        Assert.assertEquals(0, rendererMetrics.getRenderCount());
+        Assert.assertTrue(rendererMetrics.getRenderStatistics().isEmpty());
+    }
+
+    /**
+     * Test the percentiles estimated from the histogram of the render times.
+     *
+     * @throws Exception
+     */
+    public void testPercentiles() throws Exception {
+
+        RendererMetrics rendererMetrics = new RendererMetrics();
+
+        for (int i = 0; i < 90; i++) {
+            rendererMetrics.recordRendering("peptides", null, i, 0, 1, 1000000, null);
+        }
+        for (int i = 0; i < 9; i++) {
+            rendererMetrics.recordRendering("peptides", null, i, 0, 1, 10000000, null);
+        }
+        rendererMetrics.recordRendering("peptides", null, 0, 0, 1, 50000000, null);
+
+        // the histogram buckets are within 25 % of the render times
+        RenderStatistics statistics = rendererMetrics.getRenderStatistics("peptides", null);
+        Assert.assertEquals(1.0, statistics.getMedianRenderTimeMillis(), 0.25);
+        Assert.assertEquals(1.0, statistics.getPercentile90RenderTimeMillis(), 0.25);
+        Assert.assertEquals(10.0, statistics.getPercentile99RenderTimeMillis(), 2.5);
+        Assert.assertEquals(50.0, statistics.getMaxRenderTimeMillis(), 0);
+        Assert.assertEquals(2.3, statistics.getMeanRenderTimeMillis(), 1e-9);
+    }
+
+    /**
+     * Test that the listeners are notified of every cell rendered.
+     *
+     * @throws Exception
+     */
+    public void testListener() throws Exception {
+
+        final ArrayList<String> events = new ArrayList<>();
+
+        RendererMetricsListener listener = new RendererMetricsListener() {
+            @Override
+            public void cellRendered(String rendererName, String plotType, int row, int column,
+                    int numberOfValues, long renderTime, Boolean cacheHit) {
+                events.add(rendererName + "," + plotType + "," + row + "," + column + ","
+                        + numberOfValues + "," + renderTime + "," + cacheHit);
+            }
+        };
+
+        RendererMetrics rendererMetrics = new RendererMetrics();
+        rendererMetrics.addListener(listener);
+        rendererMetrics.recordRendering("peptides", "barChart", 4, 2, 7, 100, Boolean.FALSE);
+        rendererMetrics.removeListener(listener);
+        rendererMetrics.recordRendering("peptides", "barChart", 5, 2, 7, 100, Boolean.FALSE);
+
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals("peptides,barChart,4,2,7,100,false", events.get(0));
+    }
+
+    /**
+     * Test that the recorder adds the paint time to the preparation time, and
+     * records the cells prepared but never painted.
+     *
+     * @throws Exception
+     */
+    public void testRecorder() throws Exception {
+
+        RendererMetrics rendererMetrics = new RendererMetrics();
+        RendererMetrics.Recorder recorder = rendererMetrics.createRecorder("peptides");
+
+        Assert.assertSame(rendererMetrics, recorder.getRendererMetrics());
+        Assert.assertEquals("peptides", recorder.getRendererName());
+
+        // a component other than the renderer is recorded directly
+        recorder.start(null);
+        recorder.prepared(false, null, 1.0, 0, 0);
+
+        Assert.assertEquals(1, rendererMetrics.getRenderCount());
+
+        // the renderer itself is recorded when painted
+        recorder.start(null);
+        recorder.prepared(true, null, 1.0, 1, 0);
+
+        Assert.assertEquals(1, rendererMetrics.getRenderCount());
+
+        recorder.startPaint();
+        recorder.painted();
+
+        Assert.assertEquals(2, rendererMetrics.getRenderCount());
+
+        // painting again without preparing the cell is not recorded
+        recorder.startPaint();
+        recorder.painted();
+
+        Assert.assertEquals(2, rendererMetrics.getRenderCount());
+
+        // a cell prepared but not painted, e.g., for a tooltip, is recorded
+        // when the next cell is prepared
+        recorder.start(null);
+        recorder.prepared(true, null, 1.0, 2, 0);
+        recorder.start(null);
+
+        Assert.assertEquals(3, rendererMetrics.getRenderCount());
+    }
+
+    /**
+     * Test the number of values recorded for the supported cell values.
+     *
+     * @throws Exception
+     */
+    public void testGetNumberOfValues() throws Exception {
+
+        ArrayList<JSparklinesDataSeries> data = new ArrayList<>();
+        data.add(new JSparklinesDataSeries(new double[]{1.0, 2.0, 3.0}, Color.RED, "test"));
+        data.add(new JSparklinesDataSeries(new double[]{4.0, 5.0}, Color.RED, "test2"));
+
+        ArrayList<Double> dataPoints = new ArrayList<>();
+        dataPoints.add(1.0);
+        dataPoints.add(2.0);
+
+        Assert.assertEquals(0, RendererMetrics.getNumberOfValues(null));
+        Assert.assertEquals(1, RendererMetrics.getNumberOfValues(3.0));
+        Assert.assertEquals(5, RendererMetrics.getNumberOfValues(new JSparklinesDataset(data)));
+        Assert.assertEquals(2, RendererMetrics.getNumberOfValues(new ArrrayListDataPoints(dataPoints, ValueDisplayType.sumOfNumbers)));
+        Assert.assertEquals(3, RendererMetrics.getNumberOfValues(new StartIndexes(new int[]{2, 5, 7})));
+    }
+
+    /**
+     * Test the recording of the render times by a renderer.
+     *
+     * @throws Exception
+     */
+    public void testRenderer() throws Exception {
+
+        JTable table = new JTable(new DefaultTableModel(new Object[][]{{Color.RED}, {"text"}}, new Object[]{"Colors"}));
+        JSparklinesColorTableCellRenderer renderer = new JSparklinesColorTableCellRenderer();
+        renderer.setSize(100, 20);
+
+        BufferedImage image = new BufferedImage(100, 20, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+
+        // disabled by default
+        Assert.assertNull(renderer.getRendererMetrics());
+        renderer.getTableCellRendererComponent(table, Color.RED, false, false, 0, 0);
+        renderer.paint(g2);
+
+        // the renderer itself is recorded when painted
+        RendererMetrics rendererMetrics = new RendererMetrics();
+        renderer.setRendererMetrics(rendererMetrics, "colors");
+        Assert.assertSame(rendererMetrics, renderer.getRendererMetrics());
+
+        Component component = renderer.getTableCellRendererComponent(table, Color.RED, false, false, 0, 0);
+        Assert.assertSame(renderer, component);
+        Assert.assertEquals(0, rendererMetrics.getRenderCount());
+
+        renderer.paint(g2);
+        Assert.assertEquals(1, rendererMetrics.getRenderCount());
+
+        // other components are recorded directly
+        component = renderer.getTableCellRendererComponent(table, "text", false, false, 1, 0);
+        Assert.assertNotSame(renderer, component);
+        Assert.assertEquals(2, rendererMetrics.getRenderCount());
+        Assert.assertEquals(2, rendererMetrics.getRenderStatistics("colors", null).getRenderCount());
+
+        // disabling the recording
+        renderer.setRendererMetrics(null, null);
+        Assert.assertNull(renderer.getRendererMetrics());
+        renderer.getTableCellRendererComponent(table, Color.RED, false, false, 0, 0);
+        renderer.paint(g2);
+        Assert.assertEquals(2, rendererMetrics.getRenderCount());
+
+        g2.dispose();
+    }
+
+    /**
+     * Test the registration in JMX.
+     *
+     * @throws Exception
+     */
+    public void testRegister() throws Exception {
+
+        RendererMetrics rendererMetrics = new RendererMetrics();
+        rendererMetrics.recordRendering("peptides", null, 0, 0, 1, 100, null);
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = rendererMetrics.register("RendererMetricsTest");
+
+        try {
+            Assert.assertTrue(mBeanServer.isRegistered(objectName));
+            Assert.assertEquals(1L, mBeanServer.getAttribute(objectName, "RenderCount"));
+        } finally {
+            rendererMetrics.unregister();
+        }
+
+        Assert.assertFalse(mBeanServer.isRegistered(objectName));
+
+        // unregistering twice does nothing
+        rendererMetrics.unregister();
+    }
+}
@@ -0,0 +1,212 @@
+package no.uib.jsparklines.test.renderers.util;
+
+import java.awt.Color;
+import java.util.Random;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.renderers.util.SeriesDecimator;
+import no.uib.jsparklines.renderers.util.SeriesDecimator.Decimation;
+import org.junit.Assert;
+
+/**
+ * Test the SeriesDecimator class.
+ *
+ * @author Harald Barsnes
+ */
+public class SeriesDecimatorTest extends TestCase {
+
+    /**
+     * Test that series small enough for the number of pixels, and series that
+     * are not to be decimated, are kept as they are.
+     *
+     * @throws Exception
+     */
+    public void testPassThrough() throws Exception {
+
+        SeriesDecimator seriesDecimator = new SeriesDecimator();
+
+        // at most two points per pixel plus the first and last point
+        JSparklinesDataSeries dataSeries = createDataSeries(22, 1);
+
+        for (Decimation decimation : Decimation.values()) {
+            seriesDecimator.decimate(dataSeries, decimation, 10);
+            assertUnchanged(dataSeries, seriesDecimator);
+        }
+
+        // no decimation
+        dataSeries = createDataSeries(1000, 2);
+        seriesDecimator.decimate(dataSeries, Decimation.none, 10);
+        assertUnchanged(dataSeries, seriesDecimator);
+
+        // an empty series
+        dataSeries = new JSparklinesDataSeries(new double[0], Color.RED, "empty");
+        seriesDecimator.decimate(dataSeries, Decimation.minMax, 10);
+        Assert.assertEquals(0, seriesDecimator.size());
+    }
+
+    /**
+     * Test that the first and last points are kept, that the points are
+     * taken from the original series in order, and that the number of points
+     * is bounded by the number of pixels.
+     *
+     * @throws Exception
+     */
+    public void testDecimation() throws Exception {
+
+        SeriesDecimator seriesDecimator = new SeriesDecimator();
+        JSparklinesDataSeries dataSeries = createDataSeries(10000, 3);
+
+        for (int numberOfPixels : new int[]{1, 7, 50, 100}) {
+
+            seriesDecimator.decimate(dataSeries, Decimation.minMax, numberOfPixels);
+            Assert.assertTrue(seriesDecimator.size() <= 2 * numberOfPixels + 2);
+            assertPointsFromSeries(dataSeries, seriesDecimator);
+
+            seriesDecimator.decimate(dataSeries, Decimation.largestTriangleThreeBuckets, numberOfPixels);
+            Assert.assertEquals(Math.max(3, 2 * numberOfPixels), seriesDecimator.size());
+            assertPointsFromSeries(dataSeries, seriesDecimator);
+        }
+
+        // the buffers are reused for smaller series
+        dataSeries = createDataSeries(5, 4);
+        seriesDecimator.decimate(dataSeries, Decimation.minMax, 100);
+        assertUnchanged(dataSeries, seriesDecimator);
+    }
+
+    /**
+     * Test that the minimum and maximum values are kept by the minMax
+     * decimation, both globally and within each pixel.
+     *
+     * @throws Exception
+     */
+    public void testMinMaxKeepsExtrema() throws Exception {
+
+        int n = 10000;
+        int numberOfPixels = 50;
+        double[] values = createValues(n, 5);
+
+        // narrow peaks, which would be lost by plain sampling
+        values[1234] = 100;
+        values[5678] = -100;
+        values[9001] = 50;
+
+        JSparklinesDataSeries dataSeries = new JSparklinesDataSeries(values, Color.RED, "test");
+        SeriesDecimator seriesDecimator = new SeriesDecimator();
+        seriesDecimator.decimate(dataSeries, Decimation.minMax, numberOfPixels);
+
+        Assert.assertTrue(contains(seriesDecimator, 1234));
+        Assert.assertTrue(contains(seriesDecimator, 5678));
+        Assert.assertTrue(contains(seriesDecimator, 9001));
+
+        // the min and max of every pixel are kept
+        for (int pixel = 0; pixel < numberOfPixels; pixel++) {
+
+            int start = pixel * n / numberOfPixels;
+            int end = (pixel + 1) * n / numberOfPixels;
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            double decimatedMin = Double.MAX_VALUE;
+            double decimatedMax = -Double.MAX_VALUE;
+
+            for (int i = start; i < end; i++) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+
+            for (int i = 0; i < seriesDecimator.size(); i++) {
+                int x = (int) seriesDecimator.getXValue(i);
+                if (x >= start && x < end) {
+                    decimatedMin = Math.min(decimatedMin, seriesDecimator.getYValue(i));
+                    decimatedMax = Math.max(decimatedMax, seriesDecimator.getYValue(i));
+                }
+            }
+
+            Assert.assertEquals(min, decimatedMin, 0);
+            Assert.assertEquals(max, decimatedMax, 0);
+        }
+    }
+
+    /**
+     * Asserts that the decimated series equals the given data series.
+     *
+     * @param dataSeries the data series
+     * @param seriesDecimator the decimated series
+     */
+    private void assertUnchanged(JSparklinesDataSeries dataSeries, SeriesDecimator seriesDecimator) {
+        Assert.assertEquals(dataSeries.size(), seriesDecimator.size());
+        for (int i = 0; i < dataSeries.size(); i++) {
+            Assert.assertEquals(i, seriesDecimator.getXValue(i), 0);
+            Assert.assertEquals(dataSeries.getValue(i), seriesDecimator.getYValue(i), 0);
+        }
+    }
+
+    /**
+     * Asserts that the decimated series starts with the first point and ends
+     * with the last point of the given data series, and that all the points
+     * are taken from the data series in increasing order.
+     *
+     * @param dataSeries the data series
+     * @param seriesDecimator the decimated series
+     */
+    private void assertPointsFromSeries(JSparklinesDataSeries dataSeries, SeriesDecimator seriesDecimator) {
+
+        int size = seriesDecimator.size();
+
+        Assert.assertEquals(0, seriesDecimator.getXValue(0), 0);
+        Assert.assertEquals(dataSeries.getValue(0), seriesDecimator.getYValue(0), 0);
+        Assert.assertEquals(dataSeries.size() - 1, seriesDecimator.getXValue(size - 1), 0);
+        Assert.assertEquals(dataSeries.getValue(dataSeries.size() - 1), seriesDecimator.getYValue(size - 1), 0);
+
+        for (int i = 0; i < size; i++) {
+            int x = (int) seriesDecimator.getXValue(i);
+            Assert.assertEquals(dataSeries.getValue(x), seriesDecimator.getYValue(i), 0);
+            if (i > 0) {
+                Assert.assertTrue(x > seriesDecimator.getXValue(i - 1));
+            }
+        }
+    }
+
+    /**
+     * Returns true if the decimated series contains the point with the given
+     * index in the original data series.
+     *
+     * @param seriesDecimator the decimated series
+     * @param index the index in the original data series
+     * @return true if the point is kept
+     */
+    private boolean contains(SeriesDecimator seriesDecimator, int index) {
+        for (int i = 0; i < seriesDecimator.size(); i++) {
+            if (seriesDecimator.getXValue(i) == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a data series with random values.
+     *
+     * @param n the number of values
+     * @param seed the seed of the random values
+     * @return the data series
+     */
+    private JSparklinesDataSeries createDataSeries(int n, long seed) {
+        return new JSparklinesDataSeries(createValues(n, seed), Color.RED, "test");
+    }
+
+    /**
+     * Creates random values between -10 and 10.
+     *
+     * @param n the number of values
+     * @param seed the seed of the random values
+     * @return the values
+     */
+    private double[] createValues(int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = 20 * random.nextDouble() - 10;
+        }
+        return values;
+    }
+}
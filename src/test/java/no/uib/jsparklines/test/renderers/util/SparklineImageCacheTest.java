@@ -0,0 +1,228 @@
+package no.uib.jsparklines.test.renderers.util;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.util.ArrayList;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import junit.framework.TestCase;
+import no.uib.jsparklines.data.JSparklinesDataSeries;
+import no.uib.jsparklines.data.JSparklinesDataset;
+import no.uib.jsparklines.renderers.util.CacheableTableCellRenderer;
+import no.uib.jsparklines.renderers.util.SparklineImageCache;
+import org.junit.Assert;
+
+/**
+ * Test the SparklineImageCache class.
+ *
+ * @author Harald Barsnes
+ */
+public class SparklineImageCacheTest extends TestCase {
+
+    /**
+     * The memory used by the image of one cell in bytes, i.e., 100 x 15
+     * pixels with four bytes per pixel.
+     */
+    private static final long CELL_BYTES = 100 * 15 * 4;
+
+    /**
+     * Test that the least recently used images are evicted first.
+     *
+     * @throws Exception
+     */
+    public void testEvictionOrder() throws Exception {
+
+        JTable table = createTable();
+        TestRenderer renderer = new TestRenderer();
+        SparklineImageCache imageCache = new SparklineImageCache(2 * CELL_BYTES);
+
+        Object a = new Object();
+        Object b = new Object();
+        Object c = new Object();
+
+        render(imageCache, renderer, table, a);
+        render(imageCache, renderer, table, b);
+
+        // a is now the most recently used image
+        render(imageCache, renderer, table, a);
+        Assert.assertEquals(2, renderer.renderCount);
+        Assert.assertEquals(1, imageCache.getHitCount());
+
+        // c evicts b
+        render(imageCache, renderer, table, c);
+        Assert.assertEquals(2, imageCache.size());
+        Assert.assertEquals(1, imageCache.getEvictionCount());
+        Assert.assertEquals(2 * CELL_BYTES, imageCache.getMemoryUsage());
+
+        render(imageCache, renderer, table, a);
+        Assert.assertEquals(3, renderer.renderCount);
+
+        render(imageCache, renderer, table, b);
+        Assert.assertEquals(4, renderer.renderCount);
+
+        Assert.assertEquals(2, imageCache.getHitCount());
+        Assert.assertEquals(4, imageCache.getMissCount());
+        Assert.assertEquals(2.0 / 6, imageCache.getHitRate(), 1e-12);
+    }
+
+    /**
+     * Test that the memory budget is respected.
+     *
+     * @throws Exception
+     */
+    public void testMemoryBudget() throws Exception {
+
+        JTable table = createTable();
+        TestRenderer renderer = new TestRenderer();
+        SparklineImageCache imageCache = new SparklineImageCache(3 * CELL_BYTES);
+
+        for (int i = 0; i < 10; i++) {
+            render(imageCache, renderer, table, new Object());
+            Assert.assertTrue(imageCache.getMemoryUsage() <= imageCache.getMemoryBudget());
+        }
+
+        Assert.assertEquals(3, imageCache.size());
+        Assert.assertEquals(7, imageCache.getEvictionCount());
+
+        // lowering the budget evicts the images
+        imageCache.setMemoryBudget(CELL_BYTES);
+        Assert.assertEquals(1, imageCache.size());
+        Assert.assertEquals(CELL_BYTES, imageCache.getMemoryUsage());
+
+        // images larger than the budget are not cached
+        imageCache.setMemoryBudget(CELL_BYTES - 1);
+        Assert.assertEquals(0, imageCache.size());
+
+        Object value = new Object();
+        render(imageCache, renderer, table, value);
+        render(imageCache, renderer, table, value);
+        Assert.assertEquals(0, imageCache.size());
+        Assert.assertEquals(0, imageCache.getMemoryUsage());
+        Assert.assertEquals(12, renderer.renderCount);
+
+        try {
+            imageCache.setMemoryBudget(-1);
+            fail("Expected an IllegalArgumentException.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that the images are no longer used when the configuration version
+     * of the renderer or the version of the data changes, or when the images
+     * of the renderer are invalidated.
+     *
+     * @throws Exception
+     */
+    public void testInvalidation() throws Exception {
+
+        JTable table = createTable();
+        TestRenderer renderer = new TestRenderer();
+        SparklineImageCache imageCache = new SparklineImageCache();
+
+        ArrayList<JSparklinesDataSeries> data = new ArrayList<>();
+        data.add(new JSparklinesDataSeries(new double[]{1.0, 2.0}, Color.RED, "test"));
+        JSparklinesDataset dataset = new JSparklinesDataset(data);
+
+        Component component = render(imageCache, renderer, table, dataset);
+        Assert.assertEquals("tooltip 1", ((JComponent) component).getToolTipText());
+        Assert.assertSame(component, render(imageCache, renderer, table, dataset));
+        Assert.assertEquals(1, renderer.renderCount);
+
+        // the configuration of the renderer changes
+        renderer.configurationVersion++;
+        component = render(imageCache, renderer, table, dataset);
+        Assert.assertEquals(2, renderer.renderCount);
+        Assert.assertEquals("tooltip 2", ((JComponent) component).getToolTipText());
+
+        // the data changes
+        dataset.getData().get(0).getData().set(0, 3.0);
+        render(imageCache, renderer, table, dataset);
+        Assert.assertEquals(3, renderer.renderCount);
+        render(imageCache, renderer, table, dataset);
+        Assert.assertEquals(3, renderer.renderCount);
+
+        // the images of other renderers are kept
+        TestRenderer otherRenderer = new TestRenderer();
+        render(imageCache, otherRenderer, table, dataset);
+        Assert.assertEquals(4, imageCache.size());
+
+        imageCache.invalidate(renderer);
+        Assert.assertEquals(1, imageCache.size());
+        Assert.assertEquals(CELL_BYTES, imageCache.getMemoryUsage());
+
+        render(imageCache, renderer, table, dataset);
+        Assert.assertEquals(4, renderer.renderCount);
+        render(imageCache, otherRenderer, table, dataset);
+        Assert.assertEquals(1, otherRenderer.renderCount);
+
+        imageCache.clear();
+        Assert.assertEquals(0, imageCache.size());
+        Assert.assertEquals(0, imageCache.getMemoryUsage());
+    }
+
+    /**
+     * Creates a table with one cell of 100 x 15 pixels.
+     *
+     * @return the table
+     */
+    private JTable createTable() {
+        JTable table = new JTable(1, 1);
+        table.getColumnModel().getColumn(0).setWidth(100 + table.getColumnModel().getColumnMargin());
+        table.setRowHeight(15 + table.getRowMargin());
+        return table;
+    }
+
+    /**
+     * Renders the cell with the given value via the image cache.
+     *
+     * @param imageCache the image cache
+     * @param renderer the renderer
+     * @param table the table
+     * @param value the value of the cell
+     * @return the component used for drawing the cell
+     */
+    private Component render(SparklineImageCache imageCache, TestRenderer renderer, JTable table, Object value) {
+        return imageCache.getTableCellRendererComponent(renderer, table, value, false, false, 0, 0);
+    }
+
+    /**
+     * Renderer counting the number of rendered cells.
+     */
+    private static class TestRenderer implements CacheableTableCellRenderer {
+
+        /**
+         * The configuration version.
+         */
+        private int configurationVersion = 0;
+        /**
+         * The number of rendered cells.
+         */
+        private int renderCount = 0;
+        /**
+         * The label used for drawing the cells.
+         */
+        private final JLabel label = new JLabel();
+
+        @Override
+        public int getConfigurationVersion() {
+            return configurationVersion;
+        }
+
+        @Override
+        public Component getUncachedTableCellRendererComponent(JTable table, Object value,
+                boolean isSelected, boolean hasFocus, int row, int column) {
+            renderCount++;
+            label.setToolTipText("tooltip " + renderCount);
+            return label;
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                boolean isSelected, boolean hasFocus, int row, int column) {
+            return getUncachedTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        }
+    }
+}